@@ -0,0 +1,97 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.benchmark;
+
+import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.Parameters;
+import com.google.crypto.tink.aead.PredefinedAeadParameters;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks {@link Aead} encryption and decryption. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AeadBenchmark {
+  private static final Map<String, Parameters> PARAMETERS = new HashMap<>();
+
+  static {
+    PARAMETERS.put("AES128_GCM", PredefinedAeadParameters.AES128_GCM);
+    PARAMETERS.put("AES256_GCM", PredefinedAeadParameters.AES256_GCM);
+    PARAMETERS.put("CHACHA20_POLY1305", PredefinedAeadParameters.CHACHA20_POLY1305);
+    PARAMETERS.put("XCHACHA20_POLY1305", PredefinedAeadParameters.XCHACHA20_POLY1305);
+    PARAMETERS.put("AES128_CTR_HMAC_SHA256", PredefinedAeadParameters.AES128_CTR_HMAC_SHA256);
+  }
+
+  @Param({
+    "AES128_GCM",
+    "AES256_GCM",
+    "CHACHA20_POLY1305",
+    "XCHACHA20_POLY1305",
+    "AES128_CTR_HMAC_SHA256"
+  })
+  public String keyType;
+
+  @Param({"16", "1024", "65536"})
+  public int payloadSize;
+
+  @Param({BenchmarkKeys.WRAPPER, BenchmarkKeys.SUBTLE})
+  public String path;
+
+  private Aead aead;
+  private byte[] plaintext;
+  private byte[] ciphertext;
+  private byte[] associatedData;
+
+  @Setup
+  public void setUp() throws GeneralSecurityException {
+    KeysetHandle handle = BenchmarkKeys.generate(PARAMETERS.get(keyType));
+    aead = BenchmarkKeys.aead(handle, path);
+    plaintext = BenchmarkKeys.payload(payloadSize);
+    associatedData = BenchmarkKeys.payload(16);
+    ciphertext = aead.encrypt(plaintext, associatedData);
+  }
+
+  @Benchmark
+  public byte[] encrypt(ByteCounter counter) throws GeneralSecurityException {
+    counter.bytes += payloadSize;
+    return aead.encrypt(plaintext, associatedData);
+  }
+
+  @Benchmark
+  public byte[] decrypt(ByteCounter counter) throws GeneralSecurityException {
+    counter.bytes += payloadSize;
+    return aead.decrypt(ciphertext, associatedData);
+  }
+}
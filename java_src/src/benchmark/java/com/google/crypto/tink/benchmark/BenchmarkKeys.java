@@ -0,0 +1,263 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.benchmark;
+
+import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.DeterministicAead;
+import com.google.crypto.tink.HybridDecrypt;
+import com.google.crypto.tink.HybridEncrypt;
+import com.google.crypto.tink.Key;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.Mac;
+import com.google.crypto.tink.Parameters;
+import com.google.crypto.tink.PublicKeySign;
+import com.google.crypto.tink.PublicKeyVerify;
+import com.google.crypto.tink.RegistryConfiguration;
+import com.google.crypto.tink.StreamingAead;
+import com.google.crypto.tink.aead.AesCtrHmacAeadKey;
+import com.google.crypto.tink.aead.AesGcmKey;
+import com.google.crypto.tink.aead.ChaCha20Poly1305Key;
+import com.google.crypto.tink.aead.XChaCha20Poly1305Key;
+import com.google.crypto.tink.config.TinkConfig;
+import com.google.crypto.tink.daead.AesSivKey;
+import com.google.crypto.tink.hybrid.HpkePrivateKey;
+import com.google.crypto.tink.hybrid.HpkePublicKey;
+import com.google.crypto.tink.hybrid.internal.HpkeDecrypt;
+import com.google.crypto.tink.hybrid.internal.HpkeEncrypt;
+import com.google.crypto.tink.mac.AesCmacKey;
+import com.google.crypto.tink.mac.HmacKey;
+import com.google.crypto.tink.prf.AesCmacPrfKey;
+import com.google.crypto.tink.prf.HmacPrfKey;
+import com.google.crypto.tink.prf.Prf;
+import com.google.crypto.tink.prf.PrfSet;
+import com.google.crypto.tink.signature.EcdsaPrivateKey;
+import com.google.crypto.tink.signature.EcdsaPublicKey;
+import com.google.crypto.tink.signature.Ed25519PrivateKey;
+import com.google.crypto.tink.signature.Ed25519PublicKey;
+import com.google.crypto.tink.signature.RsaSsaPkcs1PrivateKey;
+import com.google.crypto.tink.signature.RsaSsaPkcs1PublicKey;
+import com.google.crypto.tink.signature.RsaSsaPssPrivateKey;
+import com.google.crypto.tink.signature.RsaSsaPssPublicKey;
+import com.google.crypto.tink.streamingaead.AesCtrHmacStreamingKey;
+import com.google.crypto.tink.streamingaead.AesGcmHkdfStreamingKey;
+import com.google.crypto.tink.subtle.AesCtrHmacStreaming;
+import com.google.crypto.tink.subtle.AesGcmHkdfStreaming;
+import com.google.crypto.tink.subtle.AesGcmJce;
+import com.google.crypto.tink.subtle.AesSiv;
+import com.google.crypto.tink.subtle.ChaCha20Poly1305;
+import com.google.crypto.tink.subtle.EcdsaSignJce;
+import com.google.crypto.tink.subtle.EcdsaVerifyJce;
+import com.google.crypto.tink.subtle.Ed25519Sign;
+import com.google.crypto.tink.subtle.Ed25519Verify;
+import com.google.crypto.tink.subtle.EncryptThenAuthenticate;
+import com.google.crypto.tink.subtle.PrfAesCmac;
+import com.google.crypto.tink.subtle.PrfHmacJce;
+import com.google.crypto.tink.subtle.PrfMac;
+import com.google.crypto.tink.subtle.Random;
+import com.google.crypto.tink.subtle.RsaSsaPkcs1SignJce;
+import com.google.crypto.tink.subtle.RsaSsaPkcs1VerifyJce;
+import com.google.crypto.tink.subtle.RsaSsaPssSignJce;
+import com.google.crypto.tink.subtle.RsaSsaPssVerifyJce;
+import com.google.crypto.tink.subtle.XChaCha20Poly1305;
+import java.security.GeneralSecurityException;
+
+/**
+ * Shared helpers for the benchmarks in this package.
+ *
+ * <p>Every benchmark can obtain its primitive in one of two ways, selected by the {@code path}
+ * parameter: {@link #WRAPPER} goes through {@link KeysetHandle#getPrimitive} and therefore measures
+ * the full wrapper (output prefix handling, key routing, monitoring hooks), while {@link #SUBTLE}
+ * instantiates the raw implementation in {@code com.google.crypto.tink.subtle} (or the
+ * corresponding internal package) directly from the primary key.
+ */
+final class BenchmarkKeys {
+  static final String WRAPPER = "WRAPPER";
+  static final String SUBTLE = "SUBTLE";
+
+  /** Generates a fresh keyset with a single key for the given parameters. */
+  static KeysetHandle generate(Parameters parameters) throws GeneralSecurityException {
+    TinkConfig.register();
+    return KeysetHandle.generateNew(parameters);
+  }
+
+  /** Returns {@code size} random bytes. */
+  static byte[] payload(int size) {
+    return Random.randBytes(size);
+  }
+
+  static Aead aead(KeysetHandle handle, String path) throws GeneralSecurityException {
+    if (path.equals(WRAPPER)) {
+      return handle.getPrimitive(RegistryConfiguration.get(), Aead.class);
+    }
+    Key key = primaryKey(handle, path);
+    if (key instanceof AesGcmKey) {
+      return AesGcmJce.create((AesGcmKey) key);
+    }
+    if (key instanceof ChaCha20Poly1305Key) {
+      return ChaCha20Poly1305.create((ChaCha20Poly1305Key) key);
+    }
+    if (key instanceof XChaCha20Poly1305Key) {
+      return XChaCha20Poly1305.create((XChaCha20Poly1305Key) key);
+    }
+    if (key instanceof AesCtrHmacAeadKey) {
+      return EncryptThenAuthenticate.create((AesCtrHmacAeadKey) key);
+    }
+    throw unsupported(key);
+  }
+
+  static DeterministicAead deterministicAead(KeysetHandle handle, String path)
+      throws GeneralSecurityException {
+    if (path.equals(WRAPPER)) {
+      return handle.getPrimitive(RegistryConfiguration.get(), DeterministicAead.class);
+    }
+    Key key = primaryKey(handle, path);
+    if (key instanceof AesSivKey) {
+      return AesSiv.create((AesSivKey) key);
+    }
+    throw unsupported(key);
+  }
+
+  static Mac mac(KeysetHandle handle, String path) throws GeneralSecurityException {
+    if (path.equals(WRAPPER)) {
+      return handle.getPrimitive(RegistryConfiguration.get(), Mac.class);
+    }
+    Key key = primaryKey(handle, path);
+    if (key instanceof HmacKey) {
+      return PrfMac.create((HmacKey) key);
+    }
+    if (key instanceof AesCmacKey) {
+      return PrfMac.create((AesCmacKey) key);
+    }
+    throw unsupported(key);
+  }
+
+  /**
+   * Returns a {@link Prf}. There is no wrapper for a single {@link Prf}, so the {@link #WRAPPER}
+   * path returns the primary PRF of the wrapped {@code PrfSet}.
+   */
+  static Prf prf(KeysetHandle handle, String path) throws GeneralSecurityException {
+    if (path.equals(WRAPPER)) {
+      PrfSet prfSet = handle.getPrimitive(RegistryConfiguration.get(), PrfSet.class);
+      return prfSet.getPrfs().get(prfSet.getPrimaryId());
+    }
+    Key key = primaryKey(handle, path);
+    if (key instanceof HmacPrfKey) {
+      return PrfHmacJce.create((HmacPrfKey) key);
+    }
+    if (key instanceof AesCmacPrfKey) {
+      return PrfAesCmac.create((AesCmacPrfKey) key);
+    }
+    throw unsupported(key);
+  }
+
+  static PublicKeySign publicKeySign(KeysetHandle handle, String path)
+      throws GeneralSecurityException {
+    if (path.equals(WRAPPER)) {
+      return handle.getPrimitive(RegistryConfiguration.get(), PublicKeySign.class);
+    }
+    Key key = primaryKey(handle, path);
+    if (key instanceof Ed25519PrivateKey) {
+      return Ed25519Sign.create((Ed25519PrivateKey) key);
+    }
+    if (key instanceof EcdsaPrivateKey) {
+      return EcdsaSignJce.create((EcdsaPrivateKey) key);
+    }
+    if (key instanceof RsaSsaPssPrivateKey) {
+      return RsaSsaPssSignJce.create((RsaSsaPssPrivateKey) key);
+    }
+    if (key instanceof RsaSsaPkcs1PrivateKey) {
+      return RsaSsaPkcs1SignJce.create((RsaSsaPkcs1PrivateKey) key);
+    }
+    throw unsupported(key);
+  }
+
+  /** {@code handle} must be a public keyset handle. */
+  static PublicKeyVerify publicKeyVerify(KeysetHandle handle, String path)
+      throws GeneralSecurityException {
+    if (path.equals(WRAPPER)) {
+      return handle.getPrimitive(RegistryConfiguration.get(), PublicKeyVerify.class);
+    }
+    Key key = primaryKey(handle, path);
+    if (key instanceof Ed25519PublicKey) {
+      return Ed25519Verify.create((Ed25519PublicKey) key);
+    }
+    if (key instanceof EcdsaPublicKey) {
+      return EcdsaVerifyJce.create((EcdsaPublicKey) key);
+    }
+    if (key instanceof RsaSsaPssPublicKey) {
+      return RsaSsaPssVerifyJce.create((RsaSsaPssPublicKey) key);
+    }
+    if (key instanceof RsaSsaPkcs1PublicKey) {
+      return RsaSsaPkcs1VerifyJce.create((RsaSsaPkcs1PublicKey) key);
+    }
+    throw unsupported(key);
+  }
+
+  /** {@code handle} must be a public keyset handle. */
+  static HybridEncrypt hybridEncrypt(KeysetHandle handle, String path)
+      throws GeneralSecurityException {
+    if (path.equals(WRAPPER)) {
+      return handle.getPrimitive(RegistryConfiguration.get(), HybridEncrypt.class);
+    }
+    Key key = primaryKey(handle, path);
+    if (key instanceof HpkePublicKey) {
+      return HpkeEncrypt.create((HpkePublicKey) key);
+    }
+    throw unsupported(key);
+  }
+
+  static HybridDecrypt hybridDecrypt(KeysetHandle handle, String path)
+      throws GeneralSecurityException {
+    if (path.equals(WRAPPER)) {
+      return handle.getPrimitive(RegistryConfiguration.get(), HybridDecrypt.class);
+    }
+    Key key = primaryKey(handle, path);
+    if (key instanceof HpkePrivateKey) {
+      return HpkeDecrypt.create((HpkePrivateKey) key);
+    }
+    throw unsupported(key);
+  }
+
+  static StreamingAead streamingAead(KeysetHandle handle, String path)
+      throws GeneralSecurityException {
+    if (path.equals(WRAPPER)) {
+      return handle.getPrimitive(RegistryConfiguration.get(), StreamingAead.class);
+    }
+    Key key = primaryKey(handle, path);
+    if (key instanceof AesGcmHkdfStreamingKey) {
+      return AesGcmHkdfStreaming.create((AesGcmHkdfStreamingKey) key);
+    }
+    if (key instanceof AesCtrHmacStreamingKey) {
+      return AesCtrHmacStreaming.create((AesCtrHmacStreamingKey) key);
+    }
+    throw unsupported(key);
+  }
+
+  private static Key primaryKey(KeysetHandle handle, String path) {
+    if (!path.equals(SUBTLE)) {
+      throw new IllegalArgumentException("Unknown path: " + path);
+    }
+    return handle.getPrimary().getKey();
+  }
+
+  private static IllegalArgumentException unsupported(Key key) {
+    return new IllegalArgumentException(
+        "No subtle implementation for " + key.getClass().getSimpleName());
+  }
+
+  private BenchmarkKeys() {}
+}
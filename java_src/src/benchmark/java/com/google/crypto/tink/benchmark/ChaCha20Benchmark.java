@@ -0,0 +1,79 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.benchmark;
+
+import com.google.crypto.tink.aead.internal.InsecureNonceChaCha20;
+import com.google.crypto.tink.aead.internal.InsecureNonceXChaCha20;
+import com.google.crypto.tink.subtle.Random;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the pure-Java ChaCha20 and XChaCha20 ciphers, which {@code ChaCha20Poly1305} and
+ * {@code XChaCha20Poly1305} use when the JCE does not provide ChaCha20-Poly1305.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChaCha20Benchmark {
+  @Param({"CHACHA20", "XCHACHA20"})
+  public String cipher;
+
+  @Param({"64", "1024", "65536"})
+  public int payloadSize;
+
+  private InsecureNonceChaCha20 chaCha20;
+  private InsecureNonceXChaCha20 xChaCha20;
+  private byte[] nonce;
+  private byte[] plaintext;
+
+  @Setup
+  public void setUp() throws GeneralSecurityException {
+    byte[] key = Random.randBytes(32);
+    if (cipher.equals("CHACHA20")) {
+      chaCha20 = new InsecureNonceChaCha20(key, 1);
+      nonce = Random.randBytes(12);
+    } else {
+      xChaCha20 = new InsecureNonceXChaCha20(key, 1);
+      nonce = Random.randBytes(InsecureNonceXChaCha20.NONCE_SIZE_IN_BYTES);
+    }
+    plaintext = BenchmarkKeys.payload(payloadSize);
+  }
+
+  @Benchmark
+  public byte[] encrypt(ByteCounter counter) throws GeneralSecurityException {
+    counter.bytes += payloadSize;
+    if (chaCha20 != null) {
+      return chaCha20.encrypt(nonce, plaintext);
+    }
+    return xChaCha20.encrypt(nonce, plaintext);
+  }
+}
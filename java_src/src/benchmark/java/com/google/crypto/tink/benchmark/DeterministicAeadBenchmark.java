@@ -0,0 +1,76 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.benchmark;
+
+import com.google.crypto.tink.DeterministicAead;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.daead.PredefinedDeterministicAeadParameters;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks {@link DeterministicAead} (AES-SIV) encryption and decryption. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeterministicAeadBenchmark {
+  @Param({"16", "64", "1024", "65536"})
+  public int payloadSize;
+
+  @Param({BenchmarkKeys.WRAPPER, BenchmarkKeys.SUBTLE})
+  public String path;
+
+  private DeterministicAead daead;
+  private byte[] plaintext;
+  private byte[] ciphertext;
+  private byte[] associatedData;
+
+  @Setup
+  public void setUp() throws GeneralSecurityException {
+    KeysetHandle handle =
+        BenchmarkKeys.generate(PredefinedDeterministicAeadParameters.AES256_SIV);
+    daead = BenchmarkKeys.deterministicAead(handle, path);
+    plaintext = BenchmarkKeys.payload(payloadSize);
+    associatedData = BenchmarkKeys.payload(16);
+    ciphertext = daead.encryptDeterministically(plaintext, associatedData);
+  }
+
+  @Benchmark
+  public byte[] encryptDeterministically(ByteCounter counter) throws GeneralSecurityException {
+    counter.bytes += payloadSize;
+    return daead.encryptDeterministically(plaintext, associatedData);
+  }
+
+  @Benchmark
+  public byte[] decryptDeterministically(ByteCounter counter) throws GeneralSecurityException {
+    counter.bytes += payloadSize;
+    return daead.decryptDeterministically(ciphertext, associatedData);
+  }
+}
@@ -0,0 +1,112 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.benchmark;
+
+import com.google.crypto.tink.subtle.EcdsaSignJce;
+import com.google.crypto.tink.subtle.EcdsaVerifyJce;
+import com.google.crypto.tink.subtle.EllipticCurves;
+import com.google.crypto.tink.subtle.EllipticCurves.CurveType;
+import com.google.crypto.tink.subtle.EllipticCurves.EcdsaEncoding;
+import com.google.crypto.tink.subtle.Enums.HashType;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.Security;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.concurrent.TimeUnit;
+import org.conscrypt.Conscrypt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link EcdsaSignJce} and {@link EcdsaVerifyJce} with the default JCE provider and
+ * with Conscrypt, which they prefer if it is installed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EcdsaBenchmark {
+  private static final String CONSCRYPT_PROVIDER_NAME = "Conscrypt";
+
+  @Param({"DEFAULT", "CONSCRYPT"})
+  public String provider;
+
+  @Param({"NIST_P256", "NIST_P384"})
+  public String curve;
+
+  @Param({"DER", "IEEE_P1363"})
+  public String encoding;
+
+  @Param({"32"})
+  public int payloadSize;
+
+  private EcdsaSignJce signer;
+  private EcdsaVerifyJce verifier;
+  private byte[] data;
+  private byte[] signature;
+
+  @Setup
+  public void setUp() throws GeneralSecurityException {
+    if (provider.equals("CONSCRYPT")) {
+      Conscrypt.checkAvailability();
+      Security.addProvider(Conscrypt.newProvider());
+    } else {
+      Security.removeProvider(CONSCRYPT_PROVIDER_NAME);
+    }
+    CurveType curveType = CurveType.valueOf(curve);
+    HashType hashType = curveType == CurveType.NIST_P256 ? HashType.SHA256 : HashType.SHA384;
+    KeyPair keyPair = EllipticCurves.generateKeyPair(curveType);
+    signer =
+        new EcdsaSignJce(
+            (ECPrivateKey) keyPair.getPrivate(), hashType, EcdsaEncoding.valueOf(encoding));
+    verifier =
+        new EcdsaVerifyJce(
+            (ECPublicKey) keyPair.getPublic(), hashType, EcdsaEncoding.valueOf(encoding));
+    data = BenchmarkKeys.payload(payloadSize);
+    signature = signer.sign(data);
+  }
+
+  @TearDown
+  public void tearDown() {
+    Security.removeProvider(CONSCRYPT_PROVIDER_NAME);
+  }
+
+  @Benchmark
+  public byte[] sign(ByteCounter counter) throws GeneralSecurityException {
+    counter.bytes += payloadSize;
+    return signer.sign(data);
+  }
+
+  @Benchmark
+  public void verify(ByteCounter counter) throws GeneralSecurityException {
+    counter.bytes += payloadSize;
+    verifier.verify(signature, data);
+  }
+}
@@ -0,0 +1,91 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.benchmark;
+
+import com.google.crypto.tink.HybridDecrypt;
+import com.google.crypto.tink.HybridEncrypt;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.hybrid.HpkeParameters;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks HPKE based {@link HybridEncrypt} and {@link HybridDecrypt}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HybridBenchmark {
+  @Param({"DHKEM_X25519_HKDF_SHA256", "DHKEM_P256_HKDF_SHA256"})
+  public String kem;
+
+  @Param({"16", "1024", "65536"})
+  public int payloadSize;
+
+  @Param({BenchmarkKeys.WRAPPER, BenchmarkKeys.SUBTLE})
+  public String path;
+
+  private HybridEncrypt encrypter;
+  private HybridDecrypt decrypter;
+  private byte[] plaintext;
+  private byte[] ciphertext;
+  private byte[] contextInfo;
+
+  @Setup
+  public void setUp() throws GeneralSecurityException {
+    HpkeParameters parameters =
+        HpkeParameters.builder()
+            .setKemId(
+                kem.equals("DHKEM_X25519_HKDF_SHA256")
+                    ? HpkeParameters.KemId.DHKEM_X25519_HKDF_SHA256
+                    : HpkeParameters.KemId.DHKEM_P256_HKDF_SHA256)
+            .setKdfId(HpkeParameters.KdfId.HKDF_SHA256)
+            .setAeadId(HpkeParameters.AeadId.AES_128_GCM)
+            .setVariant(HpkeParameters.Variant.TINK)
+            .build();
+    KeysetHandle handle = BenchmarkKeys.generate(parameters);
+    encrypter = BenchmarkKeys.hybridEncrypt(handle.getPublicKeysetHandle(), path);
+    decrypter = BenchmarkKeys.hybridDecrypt(handle, path);
+    plaintext = BenchmarkKeys.payload(payloadSize);
+    contextInfo = BenchmarkKeys.payload(16);
+    ciphertext = encrypter.encrypt(plaintext, contextInfo);
+  }
+
+  @Benchmark
+  public byte[] encrypt(ByteCounter counter) throws GeneralSecurityException {
+    counter.bytes += payloadSize;
+    return encrypter.encrypt(plaintext, contextInfo);
+  }
+
+  @Benchmark
+  public byte[] decrypt(ByteCounter counter) throws GeneralSecurityException {
+    counter.bytes += payloadSize;
+    return decrypter.decrypt(ciphertext, contextInfo);
+  }
+}
@@ -0,0 +1,127 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.benchmark;
+
+import com.google.crypto.tink.KeyStatus;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.Mac;
+import com.google.crypto.tink.RegistryConfiguration;
+import com.google.crypto.tink.config.TinkConfig;
+import com.google.crypto.tink.internal.MutableMonitoringRegistry;
+import com.google.crypto.tink.mac.PredefinedMacParameters;
+import com.google.crypto.tink.monitoring.MetricsMonitoringClient;
+import com.google.crypto.tink.monitoring.MonitoringAnnotations;
+import com.google.crypto.tink.monitoring.MonitoringClient;
+import com.google.crypto.tink.monitoring.MonitoringKeysetInfo;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the overhead of {@link MetricsMonitoringClient} on the calls of a monitored keyset.
+ *
+ * <p>{@code computeMac} with {@code client=METRICS} minus {@code client=NONE} is the overhead per
+ * call when only counters are kept. With {@code client=METRICS_WITH_LATENCY} it also includes
+ * reading {@code System.nanoTime()} twice, whose cost depends on the clock source of the platform.
+ * {@code record} and {@code recordLatency} measure the recording alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonitoringBenchmark {
+  private static final MonitoringAnnotations ANNOTATIONS =
+      MonitoringAnnotations.newBuilder().add("keyset", "benchmark").build();
+
+  @Param({"NONE", "METRICS", "METRICS_WITH_LATENCY"})
+  public String client;
+
+  private Mac mac;
+  private MonitoringClient.Logger logger;
+  private int keyId;
+  private byte[] data;
+  private long latencyNanos = 1000;
+
+  @Setup
+  public void setUp() throws GeneralSecurityException {
+    TinkConfig.register();
+    MutableMonitoringRegistry.globalInstance().clear();
+    if (client.equals("METRICS")) {
+      MutableMonitoringRegistry.globalInstance()
+          .registerMonitoringClient(MetricsMonitoringClient.create());
+    } else if (client.equals("METRICS_WITH_LATENCY")) {
+      MutableMonitoringRegistry.globalInstance()
+          .registerMonitoringClient(
+              MetricsMonitoringClient.newBuilder().setRecordLatency(true).build());
+    }
+    KeysetHandle handle =
+        KeysetHandle.newBuilder()
+            .setMonitoringAnnotations(ANNOTATIONS)
+            .addEntry(
+                KeysetHandle.generateEntryFromParameters(
+                        PredefinedMacParameters.HMAC_SHA256_128BITTAG)
+                    .withRandomId()
+                    .makePrimary())
+            .build();
+    mac = handle.getPrimitive(RegistryConfiguration.get(), Mac.class);
+    keyId = handle.getPrimary().getId();
+    MonitoringKeysetInfo keysetInfo =
+        MonitoringKeysetInfo.newBuilder()
+            .setAnnotations(ANNOTATIONS)
+            .addEntry(KeyStatus.ENABLED, keyId, "benchmark", "TINK")
+            .setPrimaryKeyId(keyId)
+            .build();
+    logger =
+        MutableMonitoringRegistry.globalInstance()
+            .getMonitoringClient()
+            .createLogger(keysetInfo, "benchmark", "record");
+    data = BenchmarkKeys.payload(16);
+  }
+
+  @TearDown
+  public void tearDown() {
+    MutableMonitoringRegistry.globalInstance().clear();
+  }
+
+  @Benchmark
+  public byte[] computeMac() throws GeneralSecurityException {
+    return mac.computeMac(data);
+  }
+
+  @Benchmark
+  public void record() {
+    logger.log(keyId, data.length);
+  }
+
+  @Benchmark
+  public void recordLatency() {
+    logger.logWithLatency(keyId, data.length, latencyNanos);
+  }
+}
@@ -0,0 +1,79 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.benchmark;
+
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.Parameters;
+import com.google.crypto.tink.prf.PredefinedPrfParameters;
+import com.google.crypto.tink.prf.Prf;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks {@link Prf#compute}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrfBenchmark {
+  private static final Map<String, Parameters> PARAMETERS = new HashMap<>();
+
+  static {
+    PARAMETERS.put("HMAC_SHA256_PRF", PredefinedPrfParameters.HMAC_SHA256_PRF);
+    PARAMETERS.put("HMAC_SHA512_PRF", PredefinedPrfParameters.HMAC_SHA512_PRF);
+    PARAMETERS.put("AES_CMAC_PRF", PredefinedPrfParameters.AES_CMAC_PRF);
+  }
+
+  @Param({"HMAC_SHA256_PRF", "HMAC_SHA512_PRF", "AES_CMAC_PRF"})
+  public String keyType;
+
+  @Param({"16", "1024", "65536"})
+  public int payloadSize;
+
+  @Param({BenchmarkKeys.WRAPPER, BenchmarkKeys.SUBTLE})
+  public String path;
+
+  private Prf prf;
+  private byte[] input;
+
+  @Setup
+  public void setUp() throws GeneralSecurityException {
+    KeysetHandle handle = BenchmarkKeys.generate(PARAMETERS.get(keyType));
+    prf = BenchmarkKeys.prf(handle, path);
+    input = BenchmarkKeys.payload(payloadSize);
+  }
+
+  @Benchmark
+  public byte[] compute(ByteCounter counter) throws GeneralSecurityException {
+    counter.bytes += payloadSize;
+    return prf.compute(input, 16);
+  }
+}
@@ -0,0 +1,80 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.benchmark;
+
+import com.google.crypto.tink.PublicKeySign;
+import com.google.crypto.tink.subtle.Enums.HashType;
+import com.google.crypto.tink.subtle.RsaSsaPkcs1SignJce;
+import com.google.crypto.tink.subtle.RsaSsaPssSignJce;
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link RsaSsaPssSignJce} and {@link RsaSsaPkcs1SignJce} for the common modulus sizes.
+ * Each signature includes the verification of the result with the public key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RsaSignatureBenchmark {
+  @Param({"RSA_SSA_PSS", "RSA_SSA_PKCS1"})
+  public String scheme;
+
+  @Param({"2048", "3072", "4096"})
+  public int modulusSize;
+
+  @Param({"32"})
+  public int payloadSize;
+
+  private PublicKeySign signer;
+  private byte[] data;
+
+  @Setup
+  public void setUp() throws GeneralSecurityException {
+    KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
+    keyGen.initialize(modulusSize);
+    RSAPrivateCrtKey privateKey = (RSAPrivateCrtKey) keyGen.generateKeyPair().getPrivate();
+    if (scheme.equals("RSA_SSA_PSS")) {
+      signer = new RsaSsaPssSignJce(privateKey, HashType.SHA256, HashType.SHA256, 32);
+    } else {
+      signer = new RsaSsaPkcs1SignJce(privateKey, HashType.SHA256);
+    }
+    data = BenchmarkKeys.payload(payloadSize);
+  }
+
+  @Benchmark
+  public byte[] sign(ByteCounter counter) throws GeneralSecurityException {
+    counter.bytes += payloadSize;
+    return signer.sign(data);
+  }
+}
@@ -0,0 +1,101 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.benchmark;
+
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.Parameters;
+import com.google.crypto.tink.PublicKeySign;
+import com.google.crypto.tink.PublicKeyVerify;
+import com.google.crypto.tink.signature.PredefinedSignatureParameters;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks {@link PublicKeySign#sign} and {@link PublicKeyVerify#verify}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignatureBenchmark {
+  private static final Map<String, Parameters> PARAMETERS = new HashMap<>();
+
+  static {
+    PARAMETERS.put("ED25519", PredefinedSignatureParameters.ED25519);
+    PARAMETERS.put("ECDSA_P256", PredefinedSignatureParameters.ECDSA_P256);
+    PARAMETERS.put("ECDSA_P256_IEEE_P1363", PredefinedSignatureParameters.ECDSA_P256_IEEE_P1363);
+    PARAMETERS.put(
+        "RSA_SSA_PKCS1_3072_SHA256_F4", PredefinedSignatureParameters.RSA_SSA_PKCS1_3072_SHA256_F4);
+    PARAMETERS.put(
+        "RSA_SSA_PSS_3072_SHA256_SHA256_32_F4",
+        PredefinedSignatureParameters.RSA_SSA_PSS_3072_SHA256_SHA256_32_F4);
+  }
+
+  @Param({
+    "ED25519",
+    "ECDSA_P256",
+    "ECDSA_P256_IEEE_P1363",
+    "RSA_SSA_PKCS1_3072_SHA256_F4",
+    "RSA_SSA_PSS_3072_SHA256_SHA256_32_F4"
+  })
+  public String keyType;
+
+  @Param({"32", "1024"})
+  public int payloadSize;
+
+  @Param({BenchmarkKeys.WRAPPER, BenchmarkKeys.SUBTLE})
+  public String path;
+
+  private PublicKeySign signer;
+  private PublicKeyVerify verifier;
+  private byte[] data;
+  private byte[] signature;
+
+  @Setup
+  public void setUp() throws GeneralSecurityException {
+    KeysetHandle handle = BenchmarkKeys.generate(PARAMETERS.get(keyType));
+    signer = BenchmarkKeys.publicKeySign(handle, path);
+    verifier = BenchmarkKeys.publicKeyVerify(handle.getPublicKeysetHandle(), path);
+    data = BenchmarkKeys.payload(payloadSize);
+    signature = signer.sign(data);
+  }
+
+  @Benchmark
+  public byte[] sign(ByteCounter counter) throws GeneralSecurityException {
+    counter.bytes += payloadSize;
+    return signer.sign(data);
+  }
+
+  @Benchmark
+  public void verify(ByteCounter counter) throws GeneralSecurityException {
+    counter.bytes += payloadSize;
+    verifier.verify(signature, data);
+  }
+}
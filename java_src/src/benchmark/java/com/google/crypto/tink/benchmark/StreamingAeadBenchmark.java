@@ -0,0 +1,116 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.benchmark;
+
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.Parameters;
+import com.google.crypto.tink.StreamingAead;
+import com.google.crypto.tink.streamingaead.PredefinedStreamingAeadParameters;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks {@link StreamingAead} through its stream interfaces. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamingAeadBenchmark {
+  private static final Map<String, Parameters> PARAMETERS = new HashMap<>();
+
+  static {
+    PARAMETERS.put("AES128_GCM_HKDF_4KB", PredefinedStreamingAeadParameters.AES128_GCM_HKDF_4KB);
+    PARAMETERS.put("AES128_GCM_HKDF_1MB", PredefinedStreamingAeadParameters.AES128_GCM_HKDF_1MB);
+    PARAMETERS.put(
+        "AES128_CTR_HMAC_SHA256_4KB", PredefinedStreamingAeadParameters.AES128_CTR_HMAC_SHA256_4KB);
+    PARAMETERS.put(
+        "AES128_CTR_HMAC_SHA256_1MB", PredefinedStreamingAeadParameters.AES128_CTR_HMAC_SHA256_1MB);
+  }
+
+  @Param({
+    "AES128_GCM_HKDF_4KB",
+    "AES128_GCM_HKDF_1MB",
+    "AES128_CTR_HMAC_SHA256_4KB",
+    "AES128_CTR_HMAC_SHA256_1MB"
+  })
+  public String keyType;
+
+  @Param({"65536", "4194304"})
+  public int payloadSize;
+
+  @Param({BenchmarkKeys.WRAPPER, BenchmarkKeys.SUBTLE})
+  public String path;
+
+  private StreamingAead streamingAead;
+  private byte[] plaintext;
+  private byte[] ciphertext;
+  private byte[] associatedData;
+
+  @Setup
+  public void setUp() throws GeneralSecurityException, IOException {
+    KeysetHandle handle = BenchmarkKeys.generate(PARAMETERS.get(keyType));
+    streamingAead = BenchmarkKeys.streamingAead(handle, path);
+    plaintext = BenchmarkKeys.payload(payloadSize);
+    associatedData = BenchmarkKeys.payload(16);
+    ciphertext = encrypt(new ByteCounter()).toByteArray();
+  }
+
+  @Benchmark
+  public ByteArrayOutputStream encrypt(ByteCounter counter)
+      throws GeneralSecurityException, IOException {
+    counter.bytes += payloadSize;
+    ByteArrayOutputStream result = new ByteArrayOutputStream(payloadSize + 1024);
+    try (OutputStream out = streamingAead.newEncryptingStream(result, associatedData)) {
+      out.write(plaintext);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public long decrypt(ByteCounter counter) throws GeneralSecurityException, IOException {
+    counter.bytes += payloadSize;
+    byte[] buffer = new byte[8192];
+    long total = 0;
+    try (InputStream in =
+        streamingAead.newDecryptingStream(new ByteArrayInputStream(ciphertext), associatedData)) {
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        total += read;
+      }
+    }
+    return total;
+  }
+}
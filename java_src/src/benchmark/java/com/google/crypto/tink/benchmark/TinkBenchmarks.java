@@ -0,0 +1,67 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for the Tink JMH benchmarks.
+ *
+ * <p>Accepts {@code --threads=1,4,16} to run the selected benchmarks once per thread count; all
+ * other arguments are regular JMH command line options (for example a benchmark regex, {@code -p
+ * keyType=AES128_GCM} or {@code -rf json}). The JMH GC profiler is always enabled, so the output
+ * contains the allocation rate ({@code gc.alloc.rate}) and the bytes allocated per operation
+ * ({@code gc.alloc.rate.norm}) next to the ops/s score and the bytes/s counter.
+ */
+public final class TinkBenchmarks {
+  private static final String THREADS_FLAG = "--threads=";
+
+  public static void main(String[] args) throws Exception {
+    List<Integer> threadCounts = new ArrayList<>();
+    List<String> jmhArgs = new ArrayList<>();
+    for (String arg : args) {
+      if (arg.startsWith(THREADS_FLAG)) {
+        for (String count : arg.substring(THREADS_FLAG.length()).split(",", -1)) {
+          threadCounts.add(Integer.parseInt(count.trim()));
+        }
+      } else {
+        jmhArgs.add(arg);
+      }
+    }
+    if (threadCounts.isEmpty()) {
+      threadCounts.add(1);
+    }
+    CommandLineOptions commandLineOptions = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+    for (int threads : threadCounts) {
+      Options options =
+          new OptionsBuilder()
+              .parent(commandLineOptions)
+              .threads(threads)
+              .addProfiler(GCProfiler.class)
+              .build();
+      new Runner(options).run();
+    }
+  }
+
+  private TinkBenchmarks() {}
+}
@@ -16,6 +16,7 @@
 
 package com.google.crypto.tink;
 
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 
 /**
@@ -63,4 +64,76 @@ public interface Aead {
    */
   byte[] decrypt(final byte[] ciphertext, final byte[] associatedData)
       throws GeneralSecurityException;
+
+  /**
+   * Encrypts the remaining bytes of {@code plaintext} and writes the ciphertext into {@code
+   * ciphertext}, starting at its current position.
+   *
+   * <p>The resulting ciphertext is identical in format to the one returned by {@link
+   * #encrypt(byte[], byte[])}. On success, the position of {@code plaintext} is advanced to its
+   * limit and the position of {@code ciphertext} is advanced by the number of bytes written. On
+   * failure the contents of {@code ciphertext} after its position are unspecified, but the
+   * positions of both buffers are not changed. The two buffers must not overlap.
+   *
+   * <p>The default implementation copies through byte arrays. Implementations which can process
+   * buffers directly override it, so that no per-call copies of the data are made.
+   *
+   * @param plaintext the plaintext to be encrypted. It must be non-null.
+   * @param associatedData associated data to be authenticated, but not encrypted. Can be null,
+   *     which is equivalent to an empty (zero-length) byte array.
+   * @param ciphertext the buffer to which the ciphertext is written. It must have enough space
+   *     remaining to hold the full ciphertext.
+   * @return the number of bytes written to {@code ciphertext}
+   * @throws GeneralSecurityException if encryption fails or {@code ciphertext} is too small
+   */
+  default int encrypt(
+      final ByteBuffer plaintext, final byte[] associatedData, final ByteBuffer ciphertext)
+      throws GeneralSecurityException {
+    byte[] input = new byte[plaintext.remaining()];
+    plaintext.duplicate().get(input);
+    byte[] output = encrypt(input, associatedData);
+    if (ciphertext.remaining() < output.length) {
+      throw new GeneralSecurityException("ciphertext buffer too small");
+    }
+    ciphertext.put(output);
+    plaintext.position(plaintext.limit());
+    return output.length;
+  }
+
+  /**
+   * Decrypts the remaining bytes of {@code ciphertext} and writes the plaintext into {@code
+   * plaintext}, starting at its current position.
+   *
+   * <p>On success, the position of {@code ciphertext} is advanced to its limit and the position of
+   * {@code plaintext} is advanced by the number of bytes written. On failure the contents of {@code
+   * plaintext} after its position are unspecified, but the positions of both buffers are not
+   * changed. The two buffers must not overlap.
+   *
+   * <p>The default implementation copies through byte arrays. Implementations which can process
+   * buffers directly override it, so that no per-call copies of the data are made.
+   *
+   * @param ciphertext the ciphertext to be decrypted. It must be non-null.
+   * @param associatedData associated data to be authenticated. For successful decryption it must be
+   *     the same as associatedData used during encryption. Can be null, which is equivalent to an
+   *     empty (zero-length) byte array.
+   * @param plaintext the buffer to which the plaintext is written. It must have enough space
+   *     remaining to hold the full plaintext.
+   * @return the number of bytes written to {@code plaintext}
+   * @throws GeneralSecurityException if decryption fails or {@code plaintext} is too small.
+   *     Decryption must fail if {@code ciphertext} is not correctly authenticated for the given
+   *     {@code associatedData}.
+   */
+  default int decrypt(
+      final ByteBuffer ciphertext, final byte[] associatedData, final ByteBuffer plaintext)
+      throws GeneralSecurityException {
+    byte[] input = new byte[ciphertext.remaining()];
+    ciphertext.duplicate().get(input);
+    byte[] output = decrypt(input, associatedData);
+    if (plaintext.remaining() < output.length) {
+      throw new GeneralSecurityException("plaintext buffer too small");
+    }
+    plaintext.put(output);
+    ciphertext.position(ciphertext.limit());
+    return output.length;
+  }
 }
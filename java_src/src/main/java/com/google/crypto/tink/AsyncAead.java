@@ -0,0 +1,48 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous version of {@link Aead}, for implementations that forward requests to a remote
+ * service such as a KMS.
+ *
+ * <p>The methods return immediately and do not block the calling thread while waiting for the
+ * remote service. The returned future completes with the result, or exceptionally with a {@link
+ * java.security.GeneralSecurityException} if the operation failed.
+ *
+ * <p>The security guarantees are the same as for {@link Aead}, and the ciphertexts are compatible:
+ * a ciphertext produced by {@link #encryptAsync} can be decrypted with the synchronous {@link
+ * Aead} of the same key, and vice versa.
+ */
+public interface AsyncAead {
+  /**
+   * Encrypts {@code plaintext} with {@code associatedData} as associated authenticated data.
+   *
+   * @return a future that completes with the ciphertext
+   */
+  CompletableFuture<byte[]> encryptAsync(final byte[] plaintext, final byte[] associatedData);
+
+  /**
+   * Decrypts {@code ciphertext} with {@code associatedData} as associated authenticated data.
+   *
+   * @return a future that completes with the plaintext, or exceptionally with a {@link
+   *     java.security.GeneralSecurityException} if decryption failed
+   */
+  CompletableFuture<byte[]> decryptAsync(final byte[] ciphertext, final byte[] associatedData);
+}
@@ -42,11 +42,14 @@ import com.google.protobuf.ExtensionRegistryLite;
 import com.google.protobuf.InvalidProtocolBufferException;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import javax.annotation.Nullable;
 
 /**
@@ -509,19 +512,61 @@ public final class KeysetHandle {
   private static List<Entry> getEntriesFromKeyset(Keyset keyset) {
     List<Entry> result = new ArrayList<>(keyset.getKeyCount());
     for (Keyset.Key protoKey : keyset.getKeyList()) {
-      int id = protoKey.getKeyId();
-      try {
-        Key key = toKey(protoKey);
-        result.add(
-            new KeysetHandle.Entry(
-                key, parseStatus(protoKey.getStatus()), id, id == keyset.getPrimaryKeyId()));
-      } catch (GeneralSecurityException e) {
-        result.add(null);
-      }
+      result.add(parseEntry(protoKey, keyset.getPrimaryKeyId()));
     }
     return Collections.unmodifiableList(result);
   }
 
+  /** Parses a single key of a keyset, returning null if the status or the key is unparseable. */
+  @Nullable
+  private static Entry parseEntry(Keyset.Key protoKey, int primaryKeyId) {
+    int id = protoKey.getKeyId();
+    try {
+      Key key = toKey(protoKey);
+      return new KeysetHandle.Entry(key, parseStatus(protoKey.getStatus()), id, id == primaryKeyId);
+    } catch (GeneralSecurityException e) {
+      return null;
+    }
+  }
+
+  /**
+   * An immutable list of the entries of a keyset, in which each key is only parsed when it is
+   * first accessed.
+   *
+   * <p>As in {@link #getEntriesFromKeyset}, the list contains "null" for keys whose status or key
+   * material cannot be parsed. Parsed entries are memoized; if two threads race on the same index,
+   * both parse the key and the first result is kept, which is fine since entries are immutable.
+   */
+  private static final class LazyEntries extends AbstractList<Entry> implements RandomAccess {
+    // Stored in "parsed" for keys whose parsing failed, since null means "not parsed yet".
+    private static final Object PARSE_FAILED = new Object();
+
+    private final Keyset keyset;
+    private final AtomicReferenceArray<Object> parsed;
+
+    LazyEntries(Keyset keyset) {
+      this.keyset = keyset;
+      this.parsed = new AtomicReferenceArray<>(keyset.getKeyCount());
+    }
+
+    @Override
+    @Nullable
+    public Entry get(int i) {
+      Object result = parsed.get(i);
+      if (result == null) {
+        Entry entry = parseEntry(keyset.getKey(i), keyset.getPrimaryKeyId());
+        parsed.compareAndSet(i, null, entry == null ? PARSE_FAILED : entry);
+        result = parsed.get(i);
+      }
+      return result == PARSE_FAILED ? null : (Entry) result;
+    }
+
+    @Override
+    public int size() {
+      return parsed.length();
+    }
+  }
+
   private KeysetHandle.Entry entryByIndex(int i) {
     if (entries.get(i) == null) {
       // This may happen if a keyset without status makes it here; or if a key has a parser
@@ -602,6 +647,28 @@ public final class KeysetHandle {
     return new KeysetHandle(keyset, entries);
   }
 
+  /**
+   * Returns a new {@link KeysetHandle} from a {@code keyset}, in which only the primary key is
+   * parsed eagerly; all other keys are parsed when they are first accessed.
+   *
+   * <p>This makes loading large keysets (e.g. after many key rotations) cheap if only few of the
+   * keys are used. In turn, an invalid non-primary key is only detected when it is accessed: {@link
+   * #getAt} then throws an {@link IllegalStateException}, as do primitives obtained via {@link
+   * #getPrimitive} when they need this key.
+   *
+   * @throws GeneralSecurityException if the keyset is null or empty.
+   */
+  static final KeysetHandle fromKeysetLazily(Keyset keyset) throws GeneralSecurityException {
+    assertEnoughKeyMaterial(keyset);
+    List<Entry> entries = new LazyEntries(keyset);
+    for (int i = 0; i < keyset.getKeyCount(); ++i) {
+      if (keyset.getKey(i).getKeyId() == keyset.getPrimaryKeyId()) {
+        entries.get(i);
+      }
+    }
+    return new KeysetHandle(keyset, entries);
+  }
+
   /**
    * @return a new {@link KeysetHandle} from a {@code keyset} and {@code annotations}.
    * @throws GeneralSecurityException if the keyset is null or empty.
@@ -618,6 +685,11 @@ public final class KeysetHandle {
     return keyset;
   }
 
+  /** Returns the monitoring annotations used for the primitives of this keyset. */
+  MonitoringAnnotations getAnnotations() {
+    return annotations;
+  }
+
   /** Creates a new builder. */
   public static Builder newBuilder() {
     return new Builder();
@@ -657,7 +729,13 @@ public final class KeysetHandle {
    * parsed.
    */
   public KeysetHandle.Entry getPrimary() {
-    for (Entry entry : entries) {
+    // Only looks at entries with the primary key id, so that lazily parsed keysets (see {@link
+    // #fromKeysetLazily}) do not need to parse the other keys.
+    for (int i = 0; i < keyset.getKeyCount(); ++i) {
+      if (keyset.getKey(i).getKeyId() != keyset.getPrimaryKeyId()) {
+        continue;
+      }
+      Entry entry = entries.get(i);
       if (entry != null && entry.isPrimary()) {
         if (entry.getStatus() != KeyStatus.ENABLED) {
           throw new IllegalStateException("Keyset has primary which isn't enabled");
@@ -821,6 +899,18 @@ public final class KeysetHandle {
     return KeysetHandle.fromKeyset(decrypt(encryptedKeyset, masterKey, associatedData));
   }
 
+  /**
+   * Like {@link #readWithAssociatedData}, but only the primary key is parsed eagerly; see {@link
+   * #fromKeysetLazily}.
+   */
+  static final KeysetHandle readWithAssociatedDataLazily(
+      KeysetReader reader, Aead masterKey, byte[] associatedData)
+      throws GeneralSecurityException, IOException {
+    EncryptedKeyset encryptedKeyset = reader.readEncrypted();
+    assertEnoughEncryptedKeyMaterial(encryptedKeyset);
+    return KeysetHandle.fromKeysetLazily(decrypt(encryptedKeyset, masterKey, associatedData));
+  }
+
   /**
    * Tries to create a {@link KeysetHandle} from a keyset, obtained via {@code reader}, which
    * contains no secret key material.
@@ -1062,33 +1152,32 @@ public final class KeysetHandle {
     Util.validateKeyset(keyset);
     PrimitiveSet.Builder<B> builder = PrimitiveSet.newBuilder(inputPrimitiveClassObject);
     builder.setAnnotations(annotations);
+    boolean lazy = entries instanceof LazyEntries;
     for (int i = 0; i < size(); ++i) {
       Keyset.Key protoKey = keyset.getKey(i);
       if (protoKey.getStatus().equals(KeyStatusType.ENABLED)) {
-        KeysetHandle.Entry entry = entries.get(i);
-        // entry may be null (if the status is invalid in the proto, or parsing failed).
-        if (entry == null) {
-          throw new GeneralSecurityException(
-              "Key parsing of key with index "
-                  + i
-                  + " and type_url "
-                  + protoKey.getKeyData().getTypeUrl()
-                  + " failed, unable to get primitive");
+        boolean isPrimary = protoKey.getKeyId() == keyset.getPrimaryKeyId();
+        if (lazy && !isPrimary) {
+          final int index = i;
+          builder.addLazyFullPrimitive(
+              new PrimitiveSet.LazyFullPrimitive<B>() {
+                @Override
+                public Key getKey() throws GeneralSecurityException {
+                  return getParsedKey(index);
+                }
+
+                @Override
+                public B createFullPrimitive(Key key) throws GeneralSecurityException {
+                  return toFullPrimitive(
+                      config, key, inputPrimitiveClassObject, keyset.getKey(index));
+                }
+              },
+              protoKey);
+          continue;
         }
-        Key key = entry.getKey();
-        B fullPrimitive;
-        try {
-          fullPrimitive = config.getPrimitive(key, inputPrimitiveClassObject);
-        } catch (GeneralSecurityException e) {
-          throw new GeneralSecurityException(
-              "Unable to get primitive "
-                  + inputPrimitiveClassObject
-                  + " for key of type "
-                  + protoKey.getKeyData().getTypeUrl()
-                  + ", see https://developers.google.com/tink/faq/registration_errors",
-              e);
-        }
-        if (protoKey.getKeyId() == keyset.getPrimaryKeyId()) {
+        Key key = getParsedKey(i);
+        B fullPrimitive = toFullPrimitive(config, key, inputPrimitiveClassObject, protoKey);
+        if (isPrimary) {
           builder.addPrimaryFullPrimitive(fullPrimitive, key, protoKey);
         } else {
           builder.addFullPrimitive(fullPrimitive, key, protoKey);
@@ -1098,6 +1187,39 @@ public final class KeysetHandle {
     return config.wrap(builder.build(), classObject);
   }
 
+  private Key getParsedKey(int i) throws GeneralSecurityException {
+    KeysetHandle.Entry entry = entries.get(i);
+    // entry may be null (if the status is invalid in the proto, or parsing failed).
+    if (entry == null) {
+      throw new GeneralSecurityException(
+          "Key parsing of key with index "
+              + i
+              + " and type_url "
+              + keyset.getKey(i).getKeyData().getTypeUrl()
+              + " failed, unable to get primitive");
+    }
+    return entry.getKey();
+  }
+
+  private static <B> B toFullPrimitive(
+      InternalConfiguration config,
+      Key key,
+      Class<B> inputPrimitiveClassObject,
+      Keyset.Key protoKey)
+      throws GeneralSecurityException {
+    try {
+      return config.getPrimitive(key, inputPrimitiveClassObject);
+    } catch (GeneralSecurityException e) {
+      throw new GeneralSecurityException(
+          "Unable to get primitive "
+              + inputPrimitiveClassObject
+              + " for key of type "
+              + protoKey.getKeyData().getTypeUrl()
+              + ", see https://developers.google.com/tink/faq/registration_errors",
+          e);
+    }
+  }
+
   /**
    * Returns a primitive from this keyset using the provided {@link Configuration} to create
    * resources used in creating the primitive.
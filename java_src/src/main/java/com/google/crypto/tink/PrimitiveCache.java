@@ -0,0 +1,334 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink;
+
+import com.google.crypto.tink.monitoring.MonitoringAnnotations;
+import com.google.crypto.tink.proto.Keyset;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.security.GeneralSecurityException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * A bounded cache of the primitives returned by {@link KeysetHandle#getPrimitive}, for
+ * applications that use many keysets, for example one per tenant.
+ *
+ * <pre>{@code
+ * PrimitiveCache cache = PrimitiveCache.newBuilder().setMaxSize(10000).build();
+ * Aead aead = cache.getPrimitive(handle, RegistryConfiguration.get(), Aead.class);
+ * }</pre>
+ *
+ * <p>{@link #getPrimitive} returns the primitive cached for an equal keyset, the same {@link
+ * Configuration} object and the same primitive class, and only calls {@link
+ * KeysetHandle#getPrimitive} on a miss. Keysets are compared by content (including their monitoring
+ * annotations), so a keyset that is read again for every request still finds its primitive; for
+ * the same {@link KeysetHandle} object the lookup does not look at the keys at all. If several
+ * threads miss on the same entry at once, only one of them creates the primitive and the others
+ * wait for it. Failures are not cached.
+ *
+ * <p>When more than {@code maxSize} primitives are cached, the least recently used one is removed.
+ * Primitives that have not been used for {@code expireAfterAccess} are removed as well. Note that
+ * cached primitives keep their key material in memory until they are removed.
+ *
+ * <p>This class is thread-safe.
+ */
+public final class PrimitiveCache {
+  private final int maxSize;
+  private final long expireAfterAccessMillis;
+  private final Clock clock;
+
+  /** Entries in access order, so the least recently used entry comes first. */
+  @GuardedBy("entries")
+  private final LinkedHashMap<CacheKey, Entry> entries;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  private PrimitiveCache(Builder builder) {
+    this.maxSize = builder.maxSize;
+    this.expireAfterAccessMillis = builder.expireAfterAccess.toMillis();
+    this.clock = builder.clock;
+    this.entries =
+        new LinkedHashMap<CacheKey, Entry>(16, 0.75f, /* accessOrder= */ true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<CacheKey, Entry> eldest) {
+            if (size() > PrimitiveCache.this.maxSize) {
+              evictions.incrementAndGet();
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  /**
+   * Returns a new builder. By default, at most 1000 primitives are cached, and primitives are
+   * removed after not being used for 10 minutes.
+   */
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /** Builder for PrimitiveCache. */
+  public static final class Builder {
+    private int maxSize = 1000;
+    private Duration expireAfterAccess = Duration.ofMinutes(10);
+    private Clock clock = Clock.systemUTC();
+
+    private Builder() {}
+
+    /** Sets how many primitives are cached at most. */
+    @CanIgnoreReturnValue
+    public Builder setMaxSize(int maxSize) {
+      if (maxSize < 1) {
+        throw new IllegalArgumentException("maxSize must be positive");
+      }
+      this.maxSize = maxSize;
+      return this;
+    }
+
+    /** Sets after how long without being used a primitive is removed. */
+    @CanIgnoreReturnValue
+    public Builder setExpireAfterAccess(Duration expireAfterAccess) {
+      if (expireAfterAccess.isNegative() || expireAfterAccess.isZero()) {
+        throw new IllegalArgumentException("expireAfterAccess must be positive");
+      }
+      this.expireAfterAccess = expireAfterAccess;
+      return this;
+    }
+
+    /** Sets the clock used to expire primitives. */
+    @CanIgnoreReturnValue
+    public Builder setClock(Clock clock) {
+      if (clock == null) {
+        throw new NullPointerException("clock cannot be null");
+      }
+      this.clock = clock;
+      return this;
+    }
+
+    public PrimitiveCache build() {
+      return new PrimitiveCache(this);
+    }
+  }
+
+  /** A snapshot of the counters of a {@link PrimitiveCache}. */
+  public static final class Stats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    private Stats(long hits, long misses, long evictions) {
+      this.hits = hits;
+      this.misses = misses;
+      this.evictions = evictions;
+    }
+
+    /**
+     * Returns the number of calls that did not create a primitive, including calls that waited for
+     * another thread to create it.
+     */
+    public long getHits() {
+      return hits;
+    }
+
+    /** Returns the number of calls that created a primitive with {@link KeysetHandle}. */
+    public long getMisses() {
+      return misses;
+    }
+
+    /** Returns the number of primitives removed because the cache was full or they expired. */
+    public long getEvictions() {
+      return evictions;
+    }
+
+    /** Returns the fraction of calls that did not create a primitive, or 0 if there were none. */
+    public double getHitRate() {
+      long total = hits + misses;
+      return total == 0 ? 0 : (double) hits / total;
+    }
+  }
+
+  /**
+   * The keyset, annotations, configuration and primitive class of a primitive. The hash code of a
+   * Keyset is memoized by the proto, and equals() returns early for the same object.
+   */
+  private static final class CacheKey {
+    private final Keyset keyset;
+    private final MonitoringAnnotations annotations;
+    private final Configuration configuration;
+    private final Class<?> primitiveClass;
+    private final int hashCode;
+
+    CacheKey(
+        Keyset keyset,
+        MonitoringAnnotations annotations,
+        Configuration configuration,
+        Class<?> primitiveClass) {
+      this.keyset = keyset;
+      this.annotations = annotations;
+      this.configuration = configuration;
+      this.primitiveClass = primitiveClass;
+      int h = keyset.hashCode();
+      h = 31 * h + annotations.hashCode();
+      h = 31 * h + System.identityHashCode(configuration);
+      this.hashCode = 31 * h + primitiveClass.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey that = (CacheKey) o;
+      return configuration == that.configuration
+          && primitiveClass == that.primitiveClass
+          && keyset.equals(that.keyset)
+          && annotations.equals(that.annotations);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * A cached primitive, or one which is being created. The result fields are written once, before
+   * {@code loaded} is counted down.
+   */
+  private static final class Entry {
+    final CountDownLatch loaded = new CountDownLatch(1);
+    @Nullable Object primitive;
+    @Nullable GeneralSecurityException securityException;
+    @Nullable RuntimeException runtimeException;
+
+    // Guarded by the entries of the cache.
+    long lastAccessMillis;
+  }
+
+  /**
+   * Returns the primitive for {@code handle}, {@code configuration} and {@code primitiveClass},
+   * creating it with {@link KeysetHandle#getPrimitive} if it is not cached.
+   */
+  public <P> P getPrimitive(
+      KeysetHandle handle, Configuration configuration, Class<P> primitiveClass)
+      throws GeneralSecurityException {
+    CacheKey key =
+        new CacheKey(handle.getKeyset(), handle.getAnnotations(), configuration, primitiveClass);
+    long now = clock.millis();
+    Entry entry;
+    boolean create = false;
+    synchronized (entries) {
+      removeExpiredEntries(now);
+      entry = entries.get(key);
+      if (entry == null) {
+        entry = new Entry();
+        entries.put(key, entry);
+        create = true;
+      }
+      entry.lastAccessMillis = now;
+    }
+    if (!create) {
+      hits.incrementAndGet();
+      return primitiveClass.cast(awaitPrimitive(entry));
+    }
+    misses.incrementAndGet();
+    try {
+      P primitive = handle.getPrimitive(configuration, primitiveClass);
+      entry.primitive = primitive;
+      return primitive;
+    } catch (GeneralSecurityException e) {
+      entry.securityException = e;
+      throw e;
+    } catch (RuntimeException e) {
+      entry.runtimeException = e;
+      throw e;
+    } finally {
+      if (entry.primitive == null) {
+        // Failures are not cached, the next call tries again.
+        synchronized (entries) {
+          entries.remove(key, entry);
+        }
+      }
+      entry.loaded.countDown();
+    }
+  }
+
+  /** Removes the entries that were not used for expireAfterAccess. */
+  @GuardedBy("entries")
+  private void removeExpiredEntries(long now) {
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      if (now - iterator.next().lastAccessMillis < expireAfterAccessMillis) {
+        // All following entries were used more recently.
+        return;
+      }
+      iterator.remove();
+      evictions.incrementAndGet();
+    }
+  }
+
+  /** Waits until {@code entry} is loaded and returns its primitive, or throws its exception. */
+  private static Object awaitPrimitive(Entry entry) throws GeneralSecurityException {
+    try {
+      entry.loaded.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new GeneralSecurityException("interrupted while waiting for primitive", e);
+    }
+    if (entry.securityException != null) {
+      throw new GeneralSecurityException(
+          entry.securityException.getMessage(), entry.securityException);
+    }
+    if (entry.runtimeException != null) {
+      throw entry.runtimeException;
+    }
+    if (entry.primitive == null) {
+      // Creating the primitive failed with an Error, which is not passed on to other threads.
+      throw new GeneralSecurityException("creating the primitive failed");
+    }
+    return entry.primitive;
+  }
+
+  /** Removes all entries of this cache. */
+  public void invalidateAll() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /** Returns the number of cached primitives, including expired ones which were not removed yet. */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /** Returns the current counters of this cache. */
+  public Stats getStats() {
+    return new Stats(hits.get(), misses.get(), evictions.get());
+  }
+}
@@ -36,6 +36,28 @@ public final class TinkProtoKeysetFormat {
     }
   }
 
+  /**
+   * Like {@link #parseKeyset}, but only the primary key is parsed eagerly; all other keys are
+   * parsed when they are first used.
+   *
+   * <p>This is useful for large keysets (e.g. after many key rotations) in which typically only the
+   * primary and few other keys are used. Note that invalid non-primary keys are then only detected
+   * when they are used: {@link KeysetHandle#getAt} throws an {@link IllegalStateException}, and so
+   * does a primitive obtained from the handle when it needs such a key.
+   */
+  @SuppressWarnings("UnusedException")
+  public static KeysetHandle parseKeysetLazily(byte[] serializedKeyset, SecretKeyAccess access)
+      throws GeneralSecurityException {
+    if (access == null) {
+      throw new NullPointerException("SecretKeyAccess cannot be null");
+    }
+    try {
+      return KeysetHandle.fromKeysetLazily(BinaryKeysetReader.withBytes(serializedKeyset).read());
+    } catch (IOException e) {
+      throw new GeneralSecurityException("Parse keyset failed");
+    }
+  }
+
   @SuppressWarnings("UnusedException")
   public static byte[] serializeKeyset(KeysetHandle keysetHandle, SecretKeyAccess access)
       throws GeneralSecurityException {
@@ -83,6 +105,24 @@ public final class TinkProtoKeysetFormat {
     }
   }
 
+  /**
+   * Like {@link #parseEncryptedKeyset}, but only the primary key is parsed eagerly; see {@link
+   * #parseKeysetLazily}.
+   */
+  @SuppressWarnings("UnusedException")
+  public static KeysetHandle parseEncryptedKeysetLazily(
+      byte[] serializedEncryptedKeyset, Aead keysetEncryptionAead, byte[] associatedData)
+      throws GeneralSecurityException {
+    try {
+      return KeysetHandle.readWithAssociatedDataLazily(
+          BinaryKeysetReader.withBytes(serializedEncryptedKeyset),
+          keysetEncryptionAead,
+          associatedData);
+    } catch (IOException e) {
+      throw new GeneralSecurityException("Parse keyset failed");
+    }
+  }
+
   @SuppressWarnings("UnusedException")
   public static byte[] serializeEncryptedKeyset(
       KeysetHandle keysetHandle, Aead keysetEncryptionAead, byte[] associatedData)
@@ -29,8 +29,8 @@ import com.google.crypto.tink.internal.PrimitiveRegistry;
 import com.google.crypto.tink.internal.PrimitiveSet;
 import com.google.crypto.tink.monitoring.MonitoringClient;
 import com.google.crypto.tink.monitoring.MonitoringKeysetInfo;
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -69,9 +69,11 @@ public class AeadWrapper implements PrimitiveWrapper<Aead, Aead> {
     @Override
     public byte[] encrypt(final byte[] plaintext, final byte[] associatedData)
         throws GeneralSecurityException {
+      long startNanos = MonitoringUtil.startTimer(encLogger);
       try {
         byte[] result = pSet.getPrimary().getFullPrimitive().encrypt(plaintext, associatedData);
-        encLogger.log(pSet.getPrimary().getKeyId(), plaintext.length);
+        MonitoringUtil.logSuccess(
+            encLogger, pSet.getPrimary().getKeyId(), plaintext.length, startNanos);
         return result;
       } catch (GeneralSecurityException e) {
         encLogger.logFailure();
@@ -82,13 +84,13 @@ public class AeadWrapper implements PrimitiveWrapper<Aead, Aead> {
     @Override
     public byte[] decrypt(final byte[] ciphertext, final byte[] associatedData)
         throws GeneralSecurityException {
+      long startNanos = MonitoringUtil.startTimer(decLogger);
       if (ciphertext.length > CryptoFormat.NON_RAW_PREFIX_SIZE) {
-        byte[] prefix = Arrays.copyOf(ciphertext, CryptoFormat.NON_RAW_PREFIX_SIZE);
-        List<PrimitiveSet.Entry<Aead>> entries = pSet.getPrimitive(prefix);
+        List<PrimitiveSet.Entry<Aead>> entries = pSet.getPrimitivesForPrefix(ciphertext, 0);
         for (PrimitiveSet.Entry<Aead> entry : entries) {
           try {
-            byte[] result = entry.getFullPrimitive().decrypt(ciphertext, associatedData);
-            decLogger.log(entry.getKeyId(), ciphertext.length);
+            byte[] result = entry.getFullPrimitiveOrThrow().decrypt(ciphertext, associatedData);
+            MonitoringUtil.logSuccess(decLogger, entry.getKeyId(), ciphertext.length, startNanos);
             return result;
           } catch (GeneralSecurityException ignored) {
             // ignore and continue trying
@@ -100,8 +102,8 @@ public class AeadWrapper implements PrimitiveWrapper<Aead, Aead> {
       List<PrimitiveSet.Entry<Aead>> entries = pSet.getRawPrimitives();
       for (PrimitiveSet.Entry<Aead> entry : entries) {
         try {
-          byte[] result = entry.getFullPrimitive().decrypt(ciphertext, associatedData);
-          decLogger.log(entry.getKeyId(), ciphertext.length);
+          byte[] result = entry.getFullPrimitiveOrThrow().decrypt(ciphertext, associatedData);
+          MonitoringUtil.logSuccess(decLogger, entry.getKeyId(), ciphertext.length, startNanos);
           return result;
         } catch (GeneralSecurityException ignored) {
           // ignore and continue trying
@@ -111,6 +113,61 @@ public class AeadWrapper implements PrimitiveWrapper<Aead, Aead> {
       // nothing works.
       throw new GeneralSecurityException("decryption failed");
     }
+
+    @Override
+    public int encrypt(
+        final ByteBuffer plaintext, final byte[] associatedData, final ByteBuffer ciphertext)
+        throws GeneralSecurityException {
+      long startNanos = MonitoringUtil.startTimer(encLogger);
+      int plaintextSize = plaintext.remaining();
+      try {
+        int written =
+            pSet.getPrimary().getFullPrimitive().encrypt(plaintext, associatedData, ciphertext);
+        MonitoringUtil.logSuccess(
+            encLogger, pSet.getPrimary().getKeyId(), plaintextSize, startNanos);
+        return written;
+      } catch (GeneralSecurityException e) {
+        encLogger.logFailure();
+        throw e;
+      }
+    }
+
+    @Override
+    public int decrypt(
+        final ByteBuffer ciphertext, final byte[] associatedData, final ByteBuffer plaintext)
+        throws GeneralSecurityException {
+      long startNanos = MonitoringUtil.startTimer(decLogger);
+      int ciphertextSize = ciphertext.remaining();
+      if (ciphertextSize > CryptoFormat.NON_RAW_PREFIX_SIZE) {
+        List<PrimitiveSet.Entry<Aead>> entries = pSet.getPrimitivesForPrefix(ciphertext);
+        for (PrimitiveSet.Entry<Aead> entry : entries) {
+          try {
+            int written =
+                entry.getFullPrimitiveOrThrow().decrypt(ciphertext, associatedData, plaintext);
+            MonitoringUtil.logSuccess(decLogger, entry.getKeyId(), ciphertextSize, startNanos);
+            return written;
+          } catch (GeneralSecurityException ignored) {
+            // ignore and continue trying
+          }
+        }
+      }
+
+      // Let's try all RAW keys.
+      List<PrimitiveSet.Entry<Aead>> entries = pSet.getRawPrimitives();
+      for (PrimitiveSet.Entry<Aead> entry : entries) {
+        try {
+          int written =
+              entry.getFullPrimitiveOrThrow().decrypt(ciphertext, associatedData, plaintext);
+          MonitoringUtil.logSuccess(decLogger, entry.getKeyId(), ciphertextSize, startNanos);
+          return written;
+        } catch (GeneralSecurityException ignored) {
+          // ignore and continue trying
+        }
+      }
+      decLogger.logFailure();
+      // nothing works.
+      throw new GeneralSecurityException("decryption failed");
+    }
   }
 
   AeadWrapper() {}
@@ -0,0 +1,143 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.aead;
+
+import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.AsyncAead;
+import com.google.crypto.tink.InsecureSecretKeyAccess;
+import com.google.crypto.tink.Key;
+import com.google.crypto.tink.Parameters;
+import com.google.crypto.tink.internal.MutableKeyCreationRegistry;
+import com.google.crypto.tink.internal.MutablePrimitiveRegistry;
+import com.google.crypto.tink.internal.MutableSerializationRegistry;
+import com.google.crypto.tink.internal.ProtoKeySerialization;
+import com.google.crypto.tink.proto.KeyTemplate;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * An {@link AsyncAead} that implements envelope encryption on top of an {@link AsyncAead} backed by
+ * a remote KMS.
+ *
+ * <p>The ciphertexts are the same as those of {@link KmsEnvelopeAead}: a ciphertext produced by
+ * one can be decrypted by the other, if both use the same DEK parameters and KMS key. The only
+ * blocking work done on the calling thread is generating, parsing and using the DEK locally; the
+ * calls to the KMS are done with {@code remote}.
+ */
+public final class AsyncKmsEnvelopeAead implements AsyncAead {
+  private static final byte[] EMPTY_AAD = new byte[0];
+  private final String typeUrlForParsing;
+  private final Parameters parametersForNewKeys;
+  private final AsyncAead remote;
+  private final Executor executor;
+
+  private AsyncKmsEnvelopeAead(KeyTemplate dekTemplate, AsyncAead remote, Executor executor)
+      throws GeneralSecurityException {
+    if (!KmsEnvelopeAead.isSupportedDekKeyType(dekTemplate.getTypeUrl())) {
+      throw new IllegalArgumentException(
+          "Unsupported DEK key type: "
+              + dekTemplate.getTypeUrl()
+              + ". Only Tink AEAD key types are supported.");
+    }
+    this.typeUrlForParsing = dekTemplate.getTypeUrl();
+    this.parametersForNewKeys = KmsEnvelopeAead.getRawParameters(dekTemplate);
+    this.remote = remote;
+    this.executor = executor;
+  }
+
+  /**
+   * Creates a new instance of Tink's asynchronous KMS Envelope AEAD.
+   *
+   * <p>{@code dekParameters} are restricted in the same way as in {@link KmsEnvelopeAead#create}.
+   * After the DEK has been decrypted by {@code remote}, the payload is decrypted on {@code
+   * executor}, so that this work does not run on the threads of the KMS client.
+   */
+  public static AsyncAead create(
+      AeadParameters dekParameters, AsyncAead remote, Executor executor)
+      throws GeneralSecurityException {
+    return new AsyncKmsEnvelopeAead(
+        KmsEnvelopeAead.toKeyTemplate(dekParameters), remote, executor);
+  }
+
+  /**
+   * Same as {@link #create(AeadParameters, AsyncAead, Executor)}, with {@link
+   * ForkJoinPool#commonPool} as executor.
+   */
+  public static AsyncAead create(AeadParameters dekParameters, AsyncAead remote)
+      throws GeneralSecurityException {
+    return create(dekParameters, remote, ForkJoinPool.commonPool());
+  }
+
+  @Override
+  public CompletableFuture<byte[]> encryptAsync(
+      final byte[] plaintext, final byte[] associatedData) {
+    byte[] dek;
+    byte[] payload;
+    try {
+      Key key =
+          MutableKeyCreationRegistry.globalInstance()
+              .createKey(parametersForNewKeys, /* idRequirement= */ null);
+      ProtoKeySerialization serialization =
+          MutableSerializationRegistry.globalInstance()
+              .serializeKey(key, ProtoKeySerialization.class, InsecureSecretKeyAccess.get());
+      dek = serialization.getValue().toByteArray();
+      // The payload does not depend on the encrypted DEK, so it is computed before the remote call.
+      Aead aead = MutablePrimitiveRegistry.globalInstance().getPrimitive(key, Aead.class);
+      payload = aead.encrypt(plaintext, associatedData);
+    } catch (GeneralSecurityException e) {
+      return failedFuture(e);
+    }
+    return remote
+        .encryptAsync(dek, EMPTY_AAD)
+        .thenApply(encryptedDek -> KmsEnvelopeAead.buildCiphertext(encryptedDek, payload));
+  }
+
+  @Override
+  public CompletableFuture<byte[]> decryptAsync(
+      final byte[] ciphertext, final byte[] associatedData) {
+    byte[] encryptedDek;
+    byte[] payload;
+    try {
+      KmsEnvelopeAead.ParsedCiphertext parsed = KmsEnvelopeAead.parseCiphertext(ciphertext);
+      encryptedDek = parsed.encryptedDek;
+      payload = parsed.getPayload(ciphertext);
+    } catch (GeneralSecurityException e) {
+      return failedFuture(e);
+    }
+    return remote
+        .decryptAsync(encryptedDek, EMPTY_AAD)
+        .thenComposeAsync(
+            dek -> {
+              try {
+                return CompletableFuture.completedFuture(
+                    KmsEnvelopeAead.parseDek(typeUrlForParsing, dek)
+                        .decrypt(payload, associatedData));
+              } catch (GeneralSecurityException e) {
+                return failedFuture(e);
+              }
+            },
+            executor);
+  }
+
+  private static <T> CompletableFuture<T> failedFuture(Throwable t) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(t);
+    return future;
+  }
+}
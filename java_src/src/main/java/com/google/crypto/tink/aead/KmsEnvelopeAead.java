@@ -28,15 +28,25 @@ import com.google.crypto.tink.internal.ProtoKeySerialization;
 import com.google.crypto.tink.proto.KeyData.KeyMaterialType;
 import com.google.crypto.tink.proto.KeyTemplate;
 import com.google.crypto.tink.proto.OutputPrefixType;
+import com.google.crypto.tink.util.Bytes;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.ExtensionRegistryLite;
 import com.google.protobuf.InvalidProtocolBufferException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
 
 /**
  * This primitive implements <a href="https://cloud.google.com/kms/docs/data-encryption-keys">
@@ -55,6 +65,11 @@ import java.util.Set;
  *   <li>Encrypted DEK: variable length that is equal to the value specified in the last 4 bytes.
  *   <li>AEAD payload: variable length.
  * </ul>
+ *
+ * <p>By default, every call to {@link #encrypt} generates a new DEK and every call to {@link
+ * #decrypt} decrypts the DEK with the KMS. Instances created with {@link #createWithDekCache}
+ * instead reuse a DEK for several encryptions and remember decrypted DEKs, see {@link
+ * DekCacheConfig}.
  */
 public final class KmsEnvelopeAead implements Aead {
   private static final byte[] EMPTY_AAD = new byte[0];
@@ -62,7 +77,231 @@ public final class KmsEnvelopeAead implements Aead {
   private final Parameters parametersForNewKeys;
 
   private final Aead remote;
-  private static final int LENGTH_ENCRYPTED_DEK = 4;
+  static final int LENGTH_ENCRYPTED_DEK = 4;
+
+  @Nullable private final DekCacheConfig dekCacheConfig;
+
+  /** The DEK used for encryption when DEK caching is enabled. Guarded by {@code this} on writes. */
+  @Nullable private volatile EncryptionDek encryptionDek = null;
+
+  /** Decrypted DEKs keyed by encrypted DEK, in access order. Guarded by itself. */
+  private final LinkedHashMap<Bytes, DecryptionDek> decryptionDeks;
+
+  private final AtomicLong encryptionCacheHits = new AtomicLong();
+  private final AtomicLong encryptionCacheMisses = new AtomicLong();
+  private final AtomicLong decryptionCacheHits = new AtomicLong();
+  private final AtomicLong decryptionCacheMisses = new AtomicLong();
+
+  /**
+   * Configures the DEK cache of a {@link KmsEnvelopeAead} created with {@link
+   * KmsEnvelopeAead#createWithDekCache}.
+   *
+   * <p>When encrypting, a DEK is used for at most {@code maxEncryptionsPerDek} messages and for at
+   * most {@code dekLifetime}; after that, a new DEK is generated and encrypted with the KMS. When
+   * decrypting, up to {@code maxCachedDecryptionDeks} decrypted DEKs are kept, keyed by their
+   * encrypted form, for at most {@code dekLifetime} each. The least recently used DEK is evicted
+   * first.
+   *
+   * <p>Caching DEKs means that plaintext key material stays in memory, and that ciphertexts can
+   * still be decrypted for up to {@code dekLifetime} after access to the KMS key was revoked.
+   * {@code maxEncryptionsPerDek} must respect the usage limits of the DEK type; for example, at
+   * most 2^32 messages should be encrypted with an AES-GCM key.
+   */
+  public static final class DekCacheConfig {
+    private final long maxEncryptionsPerDek;
+    private final Duration dekLifetime;
+    private final int maxCachedDecryptionDeks;
+    private final Clock clock;
+
+    private DekCacheConfig(Builder builder) {
+      this.maxEncryptionsPerDek = builder.maxEncryptionsPerDek;
+      this.dekLifetime = builder.dekLifetime;
+      this.maxCachedDecryptionDeks = builder.maxCachedDecryptionDeks;
+      this.clock = builder.clock;
+    }
+
+    /**
+     * Returns a new builder. By default, a DEK is used for at most 1000 encryptions and 5 minutes,
+     * and at most 1000 decrypted DEKs are cached.
+     */
+    public static Builder newBuilder() {
+      return new Builder();
+    }
+
+    public long getMaxEncryptionsPerDek() {
+      return maxEncryptionsPerDek;
+    }
+
+    public Duration getDekLifetime() {
+      return dekLifetime;
+    }
+
+    public int getMaxCachedDecryptionDeks() {
+      return maxCachedDecryptionDeks;
+    }
+
+    /** Builder for DekCacheConfig. */
+    public static final class Builder {
+      private long maxEncryptionsPerDek = 1000;
+      private Duration dekLifetime = Duration.ofMinutes(5);
+      private int maxCachedDecryptionDeks = 1000;
+      private Clock clock = Clock.systemUTC();
+
+      private Builder() {}
+
+      /** Sets how many messages are encrypted with a DEK before a new one is generated. */
+      @CanIgnoreReturnValue
+      public Builder setMaxEncryptionsPerDek(long maxEncryptionsPerDek) {
+        if (maxEncryptionsPerDek < 1) {
+          throw new IllegalArgumentException("maxEncryptionsPerDek must be positive");
+        }
+        this.maxEncryptionsPerDek = maxEncryptionsPerDek;
+        return this;
+      }
+
+      /** Sets for how long a DEK is used for encryption and kept for decryption. */
+      @CanIgnoreReturnValue
+      public Builder setDekLifetime(Duration dekLifetime) {
+        if (dekLifetime.isNegative() || dekLifetime.isZero()) {
+          throw new IllegalArgumentException("dekLifetime must be positive");
+        }
+        this.dekLifetime = dekLifetime;
+        return this;
+      }
+
+      /** Sets how many decrypted DEKs are cached. If 0, decrypted DEKs are not cached. */
+      @CanIgnoreReturnValue
+      public Builder setMaxCachedDecryptionDeks(int maxCachedDecryptionDeks) {
+        if (maxCachedDecryptionDeks < 0) {
+          throw new IllegalArgumentException("maxCachedDecryptionDeks must not be negative");
+        }
+        this.maxCachedDecryptionDeks = maxCachedDecryptionDeks;
+        return this;
+      }
+
+      /** Sets the clock used to expire DEKs. */
+      @CanIgnoreReturnValue
+      public Builder setClock(Clock clock) {
+        if (clock == null) {
+          throw new NullPointerException("clock cannot be null");
+        }
+        this.clock = clock;
+        return this;
+      }
+
+      public DekCacheConfig build() {
+        return new DekCacheConfig(this);
+      }
+    }
+  }
+
+  /** A snapshot of the DEK cache counters of a {@link KmsEnvelopeAead}. */
+  public static final class DekCacheStats {
+    private final long encryptionHits;
+    private final long encryptionMisses;
+    private final long decryptionHits;
+    private final long decryptionMisses;
+
+    private DekCacheStats(
+        long encryptionHits, long encryptionMisses, long decryptionHits, long decryptionMisses) {
+      this.encryptionHits = encryptionHits;
+      this.encryptionMisses = encryptionMisses;
+      this.decryptionHits = decryptionHits;
+      this.decryptionMisses = decryptionMisses;
+    }
+
+    /** Returns the number of encryptions that reused a DEK. */
+    public long getEncryptionHits() {
+      return encryptionHits;
+    }
+
+    /** Returns the number of encryptions that generated a new DEK and called the KMS. */
+    public long getEncryptionMisses() {
+      return encryptionMisses;
+    }
+
+    /** Returns the number of decryptions that found their DEK in the cache. */
+    public long getDecryptionHits() {
+      return decryptionHits;
+    }
+
+    /** Returns the number of decryptions that called the KMS to decrypt their DEK. */
+    public long getDecryptionMisses() {
+      return decryptionMisses;
+    }
+  }
+
+  private static final class EncryptionDek {
+    final Aead aead;
+    final byte[] encryptedDek;
+    final Instant expiration;
+    final AtomicLong remainingUses;
+
+    EncryptionDek(Aead aead, byte[] encryptedDek, Instant expiration, long remainingUses) {
+      this.aead = aead;
+      this.encryptedDek = encryptedDek;
+      this.expiration = expiration;
+      this.remainingUses = new AtomicLong(remainingUses);
+    }
+
+    /** Reserves one use of this DEK, and returns false if it must not be used anymore. */
+    boolean tryUse(Instant now) {
+      if (!now.isBefore(expiration)) {
+        return false;
+      }
+      while (true) {
+        long remaining = remainingUses.get();
+        if (remaining <= 0) {
+          return false;
+        }
+        if (remainingUses.compareAndSet(remaining, remaining - 1)) {
+          return true;
+        }
+      }
+    }
+  }
+
+  private static final class DecryptionDek {
+    final Aead aead;
+    final Instant expiration;
+
+    DecryptionDek(Aead aead, Instant expiration) {
+      this.aead = aead;
+      this.expiration = expiration;
+    }
+  }
+
+  /** The encrypted DEK of a ciphertext, and the offset of the payload that follows it. */
+  static final class ParsedCiphertext {
+    final byte[] encryptedDek;
+    final int payloadOffset;
+
+    private ParsedCiphertext(byte[] encryptedDek, int payloadOffset) {
+      this.encryptedDek = encryptedDek;
+      this.payloadOffset = payloadOffset;
+    }
+
+    byte[] getPayload(byte[] ciphertext) {
+      return Arrays.copyOfRange(ciphertext, payloadOffset, ciphertext.length);
+    }
+  }
+
+  /**
+   * Reads the length of the encrypted DEK and the encrypted DEK from the start of {@code
+   * ciphertext}.
+   */
+  static ParsedCiphertext parseCiphertext(final byte[] ciphertext) throws GeneralSecurityException {
+    if (ciphertext.length < LENGTH_ENCRYPTED_DEK) {
+      throw new GeneralSecurityException("invalid ciphertext");
+    }
+    int encryptedDekSize = ByteBuffer.wrap(ciphertext).getInt();
+    if (encryptedDekSize <= 0 || encryptedDekSize > (ciphertext.length - LENGTH_ENCRYPTED_DEK)) {
+      throw new GeneralSecurityException("invalid ciphertext");
+    }
+    int payloadOffset = LENGTH_ENCRYPTED_DEK + encryptedDekSize;
+    return new ParsedCiphertext(
+        Arrays.copyOfRange(ciphertext, LENGTH_ENCRYPTED_DEK, payloadOffset), payloadOffset);
+  }
 
   private static Set<String> listSupportedDekKeyTypes() {
     HashSet<String> dekKeyTypeUrls = new HashSet<>();
@@ -81,7 +320,7 @@ public final class KmsEnvelopeAead implements Aead {
     return supportedDekKeyTypes.contains(dekKeyTypeUrl);
   }
 
-  private Parameters getRawParameters(KeyTemplate dekTemplate) throws GeneralSecurityException {
+  static Parameters getRawParameters(KeyTemplate dekTemplate) throws GeneralSecurityException {
     KeyTemplate rawTemplate =
         KeyTemplate.newBuilder(dekTemplate).setOutputPrefixType(OutputPrefixType.RAW).build();
     return TinkProtoParametersFormat.parse(rawTemplate.toByteArray());
@@ -105,6 +344,12 @@ public final class KmsEnvelopeAead implements Aead {
   @Deprecated
   public KmsEnvelopeAead(KeyTemplate dekTemplate, Aead remote)
       throws GeneralSecurityException {
+    this(dekTemplate, remote, /* dekCacheConfig= */ null);
+  }
+
+  private KmsEnvelopeAead(
+      KeyTemplate dekTemplate, Aead remote, @Nullable DekCacheConfig dekCacheConfig)
+      throws GeneralSecurityException {
     if (!isSupportedDekKeyType(dekTemplate.getTypeUrl())) {
       throw new IllegalArgumentException(
           "Unsupported DEK key type: "
@@ -114,6 +359,30 @@ public final class KmsEnvelopeAead implements Aead {
     this.typeUrlForParsing = dekTemplate.getTypeUrl();
     this.parametersForNewKeys = getRawParameters(dekTemplate);
     this.remote = remote;
+    this.dekCacheConfig = dekCacheConfig;
+    final int maxCachedDecryptionDeks =
+        dekCacheConfig == null ? 0 : dekCacheConfig.getMaxCachedDecryptionDeks();
+    this.decryptionDeks =
+        new LinkedHashMap<Bytes, DecryptionDek>(16, 0.75f, /* accessOrder= */ true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Bytes, DecryptionDek> eldest) {
+            return size() > maxCachedDecryptionDeks;
+          }
+        };
+  }
+
+  static KeyTemplate toKeyTemplate(AeadParameters dekParameters)
+      throws GeneralSecurityException {
+    // This serializes the parameters, changes output prefix to raw, and parses it again.
+    // It would be better to reject the parameters immediately if it was a non-raw object, but
+    // this might break someone, so we keep as is.
+    try {
+      return KeyTemplate.parseFrom(
+          TinkProtoParametersFormat.serialize(dekParameters),
+          ExtensionRegistryLite.getEmptyRegistry());
+    } catch (InvalidProtocolBufferException e) {
+      throw new GeneralSecurityException(e);
+    }
   }
 
   /**
@@ -126,24 +395,44 @@ public final class KmsEnvelopeAead implements Aead {
    */
   public static Aead create(AeadParameters dekParameters, Aead remote)
       throws GeneralSecurityException {
-    // This serializes the parameters, changes output prefix to raw, and parses it again.
-    // It would be better to reject the parameters immediately if it was a non-raw object, but
-    // this might break someone, so we keep as is.
-    KeyTemplate dekTemplate;
-    try {
-      dekTemplate =
-          KeyTemplate.parseFrom(
-              TinkProtoParametersFormat.serialize(dekParameters),
-              ExtensionRegistryLite.getEmptyRegistry());
-    } catch (InvalidProtocolBufferException e) {
-      throw new GeneralSecurityException(e);
+    return new KmsEnvelopeAead(toKeyTemplate(dekParameters), remote);
+  }
+
+  /**
+   * Creates a new instance of Tink's KMS Envelope AEAD which caches DEKs as configured by {@code
+   * dekCacheConfig}, to reduce the number of calls to {@code remote}.
+   *
+   * <p>The ciphertexts are compatible with those of {@link #create}. {@code dekParameters} are
+   * restricted in the same way.
+   */
+  public static KmsEnvelopeAead createWithDekCache(
+      AeadParameters dekParameters, Aead remote, DekCacheConfig dekCacheConfig)
+      throws GeneralSecurityException {
+    if (dekCacheConfig == null) {
+      throw new NullPointerException("dekCacheConfig cannot be null");
     }
-    return new KmsEnvelopeAead(dekTemplate, remote);
+    return new KmsEnvelopeAead(toKeyTemplate(dekParameters), remote, dekCacheConfig);
+  }
+
+  /**
+   * Returns the current DEK cache counters. All counters are zero if this instance was not created
+   * with {@link #createWithDekCache}.
+   */
+  public DekCacheStats getDekCacheStats() {
+    return new DekCacheStats(
+        encryptionCacheHits.get(),
+        encryptionCacheMisses.get(),
+        decryptionCacheHits.get(),
+        decryptionCacheMisses.get());
   }
 
   @Override
   public byte[] encrypt(final byte[] plaintext, final byte[] associatedData)
       throws GeneralSecurityException {
+    if (dekCacheConfig != null) {
+      EncryptionDek dek = getEncryptionDek();
+      return buildCiphertext(dek.encryptedDek, dek.aead.encrypt(plaintext, associatedData));
+    }
     Key key =
         MutableKeyCreationRegistry.globalInstance()
             .createKey(parametersForNewKeys, /* idRequirement= */ null);
@@ -161,35 +450,107 @@ public final class KmsEnvelopeAead implements Aead {
     return buildCiphertext(encryptedDek, payload);
   }
 
+  /**
+   * Returns the cached DEK for encryption, or generates and caches a new one if the cached DEK has
+   * expired or was used up. Only one thread generates a new DEK at a time.
+   */
+  private EncryptionDek getEncryptionDek() throws GeneralSecurityException {
+    EncryptionDek dek = encryptionDek;
+    if (dek != null && dek.tryUse(dekCacheConfig.clock.instant())) {
+      encryptionCacheHits.incrementAndGet();
+      return dek;
+    }
+    synchronized (this) {
+      Instant now = dekCacheConfig.clock.instant();
+      dek = encryptionDek;
+      if (dek != null && dek.tryUse(now)) {
+        encryptionCacheHits.incrementAndGet();
+        return dek;
+      }
+      encryptionCacheMisses.incrementAndGet();
+      Key key =
+          MutableKeyCreationRegistry.globalInstance()
+              .createKey(parametersForNewKeys, /* idRequirement= */ null);
+      ProtoKeySerialization serialization =
+          MutableSerializationRegistry.globalInstance()
+              .serializeKey(key, ProtoKeySerialization.class, InsecureSecretKeyAccess.get());
+      byte[] encryptedDek = remote.encrypt(serialization.getValue().toByteArray(), EMPTY_AAD);
+      Aead aead = MutablePrimitiveRegistry.globalInstance().getPrimitive(key, Aead.class);
+      Instant expiration = now.plus(dekCacheConfig.getDekLifetime());
+      dek =
+          new EncryptionDek(
+              aead, encryptedDek, expiration, dekCacheConfig.getMaxEncryptionsPerDek() - 1);
+      encryptionDek = dek;
+      // Ciphertexts produced with this DEK can then be decrypted without calling the KMS.
+      putDecryptionDek(Bytes.copyFrom(encryptedDek), new DecryptionDek(aead, expiration));
+      return dek;
+    }
+  }
+
+  @Nullable
+  private Aead getCachedDecryptionDek(Bytes encryptedDek, Instant now) {
+    synchronized (decryptionDeks) {
+      DecryptionDek dek = decryptionDeks.get(encryptedDek);
+      if (dek == null) {
+        return null;
+      }
+      if (!now.isBefore(dek.expiration)) {
+        decryptionDeks.remove(encryptedDek);
+        return null;
+      }
+      return dek.aead;
+    }
+  }
+
+  private void putDecryptionDek(Bytes encryptedDek, DecryptionDek dek) {
+    synchronized (decryptionDeks) {
+      decryptionDeks.put(encryptedDek, dek);
+    }
+  }
+
+  private Aead parseDek(byte[] dek) throws GeneralSecurityException {
+    return parseDek(typeUrlForParsing, dek);
+  }
+
+  static Aead parseDek(String typeUrlForParsing, byte[] dek) throws GeneralSecurityException {
+    ProtoKeySerialization serialization =
+        ProtoKeySerialization.create(
+            typeUrlForParsing,
+            ByteString.copyFrom(dek),
+            KeyMaterialType.SYMMETRIC,
+            OutputPrefixType.RAW,
+            /* idRequirement= */ null);
+    Key key =
+        MutableSerializationRegistry.globalInstance()
+            .parseKey(serialization, InsecureSecretKeyAccess.get());
+    return MutablePrimitiveRegistry.globalInstance().getPrimitive(key, Aead.class);
+  }
+
   @Override
   public byte[] decrypt(final byte[] ciphertext, final byte[] associatedData)
       throws GeneralSecurityException {
     try {
-      ByteBuffer buffer = ByteBuffer.wrap(ciphertext);
-      int encryptedDekSize = buffer.getInt();
-      if (encryptedDekSize <= 0 || encryptedDekSize > (ciphertext.length - LENGTH_ENCRYPTED_DEK)) {
-        throw new GeneralSecurityException("invalid ciphertext");
+      ParsedCiphertext parsed = parseCiphertext(ciphertext);
+      byte[] encryptedDek = parsed.encryptedDek;
+      byte[] payload = parsed.getPayload(ciphertext);
+      if (dekCacheConfig != null && dekCacheConfig.getMaxCachedDecryptionDeks() > 0) {
+        Bytes cacheKey = Bytes.copyFrom(encryptedDek);
+        Instant now = dekCacheConfig.clock.instant();
+        Aead aead = getCachedDecryptionDek(cacheKey, now);
+        if (aead != null) {
+          decryptionCacheHits.incrementAndGet();
+        } else {
+          decryptionCacheMisses.incrementAndGet();
+          aead = parseDek(remote.decrypt(encryptedDek, EMPTY_AAD));
+          putDecryptionDek(
+              cacheKey, new DecryptionDek(aead, now.plus(dekCacheConfig.getDekLifetime())));
+        }
+        return aead.decrypt(payload, associatedData);
       }
-      byte[] encryptedDek = new byte[encryptedDekSize];
-      buffer.get(encryptedDek, 0, encryptedDekSize);
-      byte[] payload = new byte[buffer.remaining()];
-      buffer.get(payload, 0, buffer.remaining());
       // Use remote to decrypt encryptedDek.
       byte[] dek = remote.decrypt(encryptedDek, EMPTY_AAD);
       // Use DEK to decrypt payload.
-      ProtoKeySerialization serialization =
-          ProtoKeySerialization.create(
-              typeUrlForParsing,
-              ByteString.copyFrom(dek),
-              KeyMaterialType.SYMMETRIC,
-              OutputPrefixType.RAW,
-              /* idRequirement= */ null);
-      Key key =
-          MutableSerializationRegistry.globalInstance()
-              .parseKey(serialization, InsecureSecretKeyAccess.get());
-
-      Aead aead = MutablePrimitiveRegistry.globalInstance().getPrimitive(key, Aead.class);
-      return aead.decrypt(payload, associatedData);
+      return parseDek(dek).decrypt(payload, associatedData);
     } catch (IndexOutOfBoundsException
              | BufferUnderflowException
              | NegativeArraySizeException e) {
@@ -197,7 +558,7 @@ public final class KmsEnvelopeAead implements Aead {
     }
   }
 
-  private byte[] buildCiphertext(final byte[] encryptedDek, final byte[] payload) {
+  static byte[] buildCiphertext(final byte[] encryptedDek, final byte[] payload) {
     return ByteBuffer.allocate(LENGTH_ENCRYPTED_DEK + encryptedDek.length + payload.length)
         .putInt(encryptedDek.length)
         .put(encryptedDek)
@@ -0,0 +1,182 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.aead;
+
+import com.google.crypto.tink.Aead;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * An {@link Aead} that coalesces concurrent identical decryptions with another {@link Aead}.
+ *
+ * <p>This is meant to be put around an {@link Aead} returned by {@link
+ * com.google.crypto.tink.KmsClient#getAead}, for example when many threads decrypt the same
+ * encrypted keyset or the same encrypted DEK of a {@link KmsEnvelopeAead} at once:
+ *
+ * <pre>{@code
+ * Aead remote = SingleFlightAead.create(kmsClient.getAead(keyUri));
+ * Aead envelopeAead = KmsEnvelopeAead.create(PredefinedAeadParameters.AES256_GCM, remote);
+ * }</pre>
+ *
+ * <p>If {@link #decrypt} is called with a ciphertext and associated data for which a call to the
+ * underlying {@link Aead} is already in progress, it waits for that call and returns its result
+ * instead of making another one. If the call fails, all waiting callers get the failure. Results
+ * are not kept after the call completed, so this does not cache plaintexts. {@link #encrypt} is
+ * forwarded unchanged.
+ */
+public final class SingleFlightAead implements Aead {
+  private static final byte[] EMPTY_AAD = new byte[0];
+
+  private final Aead aead;
+  private final ConcurrentHashMap<Request, Call> calls = new ConcurrentHashMap<>();
+  private final AtomicLong issuedDecryptions = new AtomicLong();
+  private final AtomicLong collapsedDecryptions = new AtomicLong();
+
+  /** A snapshot of the decryption counters of a {@link SingleFlightAead}. */
+  public static final class Stats {
+    private final long issuedDecryptions;
+    private final long collapsedDecryptions;
+
+    private Stats(long issuedDecryptions, long collapsedDecryptions) {
+      this.issuedDecryptions = issuedDecryptions;
+      this.collapsedDecryptions = collapsedDecryptions;
+    }
+
+    /** Returns the number of decryptions that called the underlying {@link Aead}. */
+    public long getIssuedDecryptions() {
+      return issuedDecryptions;
+    }
+
+    /** Returns the number of decryptions that waited for the result of another decryption. */
+    public long getCollapsedDecryptions() {
+      return collapsedDecryptions;
+    }
+  }
+
+  /** The ciphertext and associated data of a decryption, compared by value. */
+  private static final class Request {
+    private final byte[] ciphertext;
+    private final byte[] associatedData;
+    private final int hashCode;
+
+    Request(byte[] ciphertext, byte[] associatedData) {
+      this.ciphertext = ciphertext;
+      this.associatedData = associatedData;
+      this.hashCode = 31 * Arrays.hashCode(ciphertext) + Arrays.hashCode(associatedData);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Request)) {
+        return false;
+      }
+      Request that = (Request) o;
+      return Arrays.equals(ciphertext, that.ciphertext)
+          && Arrays.equals(associatedData, that.associatedData);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /** A decryption in progress. The fields are written once, before {@code done} is counted down. */
+  private static final class Call {
+    final CountDownLatch done = new CountDownLatch(1);
+    @Nullable byte[] plaintext;
+    @Nullable GeneralSecurityException securityException;
+    @Nullable RuntimeException runtimeException;
+  }
+
+  private SingleFlightAead(Aead aead) {
+    this.aead = aead;
+  }
+
+  /** Returns an {@link Aead} that coalesces concurrent identical decryptions with {@code aead}. */
+  public static SingleFlightAead create(Aead aead) {
+    if (aead == null) {
+      throw new NullPointerException("aead cannot be null");
+    }
+    return new SingleFlightAead(aead);
+  }
+
+  /** Returns the current decryption counters. */
+  public Stats getStats() {
+    return new Stats(issuedDecryptions.get(), collapsedDecryptions.get());
+  }
+
+  @Override
+  public byte[] encrypt(final byte[] plaintext, final byte[] associatedData)
+      throws GeneralSecurityException {
+    return aead.encrypt(plaintext, associatedData);
+  }
+
+  @Override
+  public byte[] decrypt(final byte[] ciphertext, final byte[] associatedData)
+      throws GeneralSecurityException {
+    Request request =
+        new Request(ciphertext, associatedData == null ? EMPTY_AAD : associatedData);
+    Call call = new Call();
+    Call existing = calls.putIfAbsent(request, call);
+    if (existing != null) {
+      collapsedDecryptions.incrementAndGet();
+      return awaitResult(existing);
+    }
+    issuedDecryptions.incrementAndGet();
+    try {
+      call.plaintext = aead.decrypt(ciphertext, associatedData);
+      return call.plaintext.clone();
+    } catch (GeneralSecurityException e) {
+      call.securityException = e;
+      throw e;
+    } catch (RuntimeException e) {
+      call.runtimeException = e;
+      throw e;
+    } finally {
+      // Callers arriving from now on make a new call.
+      calls.remove(request, call);
+      call.done.countDown();
+    }
+  }
+
+  /** Waits for {@code call} and returns a copy of its plaintext, or throws its exception. */
+  private static byte[] awaitResult(Call call) throws GeneralSecurityException {
+    try {
+      call.done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new GeneralSecurityException("interrupted while waiting for decryption", e);
+    }
+    if (call.securityException != null) {
+      throw new GeneralSecurityException(
+          call.securityException.getMessage(), call.securityException);
+    }
+    if (call.runtimeException != null) {
+      throw call.runtimeException;
+    }
+    if (call.plaintext == null) {
+      // The call failed with an Error, which is not passed on to other threads.
+      throw new GeneralSecurityException("decryption failed");
+    }
+    return call.plaintext.clone();
+  }
+}
@@ -27,10 +27,10 @@ import com.google.crypto.tink.subtle.EngineFactory;
 import com.google.crypto.tink.subtle.Hex;
 import com.google.crypto.tink.subtle.Random;
 import com.google.errorprone.annotations.Immutable;
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.spec.AlgorithmParameterSpec;
-import java.util.Arrays;
 import javax.annotation.Nullable;
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
@@ -148,6 +148,19 @@ public final class ChaCha20Poly1305Jce implements Aead {
     if (plaintext == null) {
       throw new NullPointerException("plaintext is null");
     }
+    byte[] output = new byte[ciphertextSize(plaintext.length)];
+    encrypt(ByteBuffer.wrap(plaintext), associatedData, ByteBuffer.wrap(output));
+    return output;
+  }
+
+  @Override
+  public int encrypt(
+      final ByteBuffer plaintext, final byte[] associatedData, final ByteBuffer ciphertext)
+      throws GeneralSecurityException {
+    int ciphertextSize = ciphertextSize(plaintext.remaining());
+    if (ciphertext.remaining() < ciphertextSize) {
+      throw new GeneralSecurityException("ciphertext buffer too small");
+    }
     byte[] nonce = Random.randBytes(NONCE_SIZE_IN_BYTES);
     AlgorithmParameterSpec params = new IvParameterSpec(nonce);
     Cipher cipher = localCipher.get();
@@ -155,25 +168,21 @@ public final class ChaCha20Poly1305Jce implements Aead {
     if (associatedData != null && associatedData.length != 0) {
       cipher.updateAAD(associatedData);
     }
-    int outputSize = cipher.getOutputSize(plaintext.length);
-    if (outputSize > Integer.MAX_VALUE - outputPrefix.length - NONCE_SIZE_IN_BYTES) {
-      throw new GeneralSecurityException("plaintext too long");
-    }
-    int len = outputPrefix.length + NONCE_SIZE_IN_BYTES + outputSize;
-    byte[] output = Arrays.copyOf(outputPrefix, len);
-    System.arraycopy(
-        /* src= */ nonce,
-        /* srcPos= */ 0,
-        /* dest= */ output,
-        /* destPos= */ outputPrefix.length,
-        /* length= */ NONCE_SIZE_IN_BYTES);
-    int written =
-        cipher.doFinal(
-            plaintext, 0, plaintext.length, output, outputPrefix.length + NONCE_SIZE_IN_BYTES);
-    if (written != outputSize) {
-      throw new GeneralSecurityException("not enough data written");
+    int plaintextPosition = plaintext.position();
+    int ciphertextPosition = ciphertext.position();
+    try {
+      ciphertext.put(outputPrefix);
+      ciphertext.put(nonce);
+      int written = cipher.doFinal(plaintext, ciphertext);
+      if (written != ciphertextSize - outputPrefix.length - NONCE_SIZE_IN_BYTES) {
+        throw new GeneralSecurityException("not enough data written");
+      }
+    } catch (GeneralSecurityException e) {
+      plaintext.position(plaintextPosition);
+      ciphertext.position(ciphertextPosition);
+      throw e;
     }
-    return output;
+    return ciphertextSize;
   }
 
   @Override
@@ -185,26 +194,64 @@ public final class ChaCha20Poly1305Jce implements Aead {
     if (ciphertext.length < outputPrefix.length + NONCE_SIZE_IN_BYTES + TAG_SIZE_IN_BYTES) {
       throw new GeneralSecurityException("ciphertext too short");
     }
+    int plaintextSize =
+        ciphertext.length - outputPrefix.length - NONCE_SIZE_IN_BYTES - TAG_SIZE_IN_BYTES;
+    byte[] output = new byte[plaintextSize];
+    decrypt(ByteBuffer.wrap(ciphertext), associatedData, ByteBuffer.wrap(output));
+    return output;
+  }
+
+  @Override
+  public int decrypt(
+      final ByteBuffer ciphertext, final byte[] associatedData, final ByteBuffer plaintext)
+      throws GeneralSecurityException {
+    int ciphertextPosition = ciphertext.position();
+    int ciphertextSize = ciphertext.remaining();
+    if (ciphertextSize < outputPrefix.length + NONCE_SIZE_IN_BYTES + TAG_SIZE_IN_BYTES) {
+      throw new GeneralSecurityException("ciphertext too short");
+    }
     if (!isPrefix(outputPrefix, ciphertext)) {
       throw new GeneralSecurityException("Decryption failed (OutputPrefix mismatch).");
     }
-
-    byte[] nonce = new byte[NONCE_SIZE_IN_BYTES];
-    System.arraycopy(
-        /* src= */ ciphertext,
-        /* srcPos= */ outputPrefix.length,
-        /* dest= */ nonce,
-        /* destPos= */ 0,
-        /* length= */ NONCE_SIZE_IN_BYTES);
-    AlgorithmParameterSpec params = new IvParameterSpec(nonce);
+    if (plaintext.remaining()
+        < ciphertextSize - outputPrefix.length - NONCE_SIZE_IN_BYTES - TAG_SIZE_IN_BYTES) {
+      throw new GeneralSecurityException("plaintext buffer too small");
+    }
+    int nonceOffset = ciphertextPosition + outputPrefix.length;
+    AlgorithmParameterSpec params;
+    if (ciphertext.hasArray()) {
+      params =
+          new IvParameterSpec(
+              ciphertext.array(), ciphertext.arrayOffset() + nonceOffset, NONCE_SIZE_IN_BYTES);
+    } else {
+      byte[] nonce = new byte[NONCE_SIZE_IN_BYTES];
+      for (int i = 0; i < NONCE_SIZE_IN_BYTES; i++) {
+        nonce[i] = ciphertext.get(nonceOffset + i);
+      }
+      params = new IvParameterSpec(nonce);
+    }
 
     Cipher cipher = localCipher.get();
     cipher.init(Cipher.DECRYPT_MODE, keySpec, params);
     if (associatedData != null && associatedData.length != 0) {
       cipher.updateAAD(associatedData);
     }
-    int offset = outputPrefix.length + NONCE_SIZE_IN_BYTES;
-    int len = ciphertext.length - outputPrefix.length - NONCE_SIZE_IN_BYTES;
-    return cipher.doFinal(ciphertext, offset, len);
+    int plaintextPosition = plaintext.position();
+    ciphertext.position(nonceOffset + NONCE_SIZE_IN_BYTES);
+    try {
+      return cipher.doFinal(ciphertext, plaintext);
+    } catch (GeneralSecurityException e) {
+      ciphertext.position(ciphertextPosition);
+      plaintext.position(plaintextPosition);
+      throw e;
+    }
+  }
+
+  private int ciphertextSize(int plaintextSize) throws GeneralSecurityException {
+    if (plaintextSize
+        > Integer.MAX_VALUE - outputPrefix.length - NONCE_SIZE_IN_BYTES - TAG_SIZE_IN_BYTES) {
+      throw new GeneralSecurityException("plaintext too long");
+    }
+    return outputPrefix.length + NONCE_SIZE_IN_BYTES + plaintextSize + TAG_SIZE_IN_BYTES;
   }
 }
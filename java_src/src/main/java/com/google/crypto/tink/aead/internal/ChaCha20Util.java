@@ -63,6 +63,165 @@ final class ChaCha20Util {
     }
   }
 
+  /** Number of key stream blocks that {@link #xorKeyStream} computes per iteration. */
+  static final int BLOCKS_PER_ITERATION = 4;
+
+  /**
+   * Computes the key stream block for {@code state} with the block counter {@code counter}, and
+   * writes it to {@code output} starting at {@code outputOffset}. Only word 12 of {@code state} is
+   * replaced by {@code counter}; {@code state} is not modified.
+   *
+   * <p>This is the same computation as {@link #shuffleState} followed by adding the initial state,
+   * but keeps the working state in local variables instead of an array.
+   */
+  static void blockFunction(final int[] state, int counter, int[] output, int outputOffset) {
+    int x0 = state[0];
+    int x1 = state[1];
+    int x2 = state[2];
+    int x3 = state[3];
+    int x4 = state[4];
+    int x5 = state[5];
+    int x6 = state[6];
+    int x7 = state[7];
+    int x8 = state[8];
+    int x9 = state[9];
+    int x10 = state[10];
+    int x11 = state[11];
+    int x12 = counter;
+    int x13 = state[13];
+    int x14 = state[14];
+    int x15 = state[15];
+    for (int i = 0; i < 10; i++) {
+      // Column rounds.
+      x0 += x4;
+      x12 = rotateLeft(x12 ^ x0, 16);
+      x8 += x12;
+      x4 = rotateLeft(x4 ^ x8, 12);
+      x0 += x4;
+      x12 = rotateLeft(x12 ^ x0, 8);
+      x8 += x12;
+      x4 = rotateLeft(x4 ^ x8, 7);
+
+      x1 += x5;
+      x13 = rotateLeft(x13 ^ x1, 16);
+      x9 += x13;
+      x5 = rotateLeft(x5 ^ x9, 12);
+      x1 += x5;
+      x13 = rotateLeft(x13 ^ x1, 8);
+      x9 += x13;
+      x5 = rotateLeft(x5 ^ x9, 7);
+
+      x2 += x6;
+      x14 = rotateLeft(x14 ^ x2, 16);
+      x10 += x14;
+      x6 = rotateLeft(x6 ^ x10, 12);
+      x2 += x6;
+      x14 = rotateLeft(x14 ^ x2, 8);
+      x10 += x14;
+      x6 = rotateLeft(x6 ^ x10, 7);
+
+      x3 += x7;
+      x15 = rotateLeft(x15 ^ x3, 16);
+      x11 += x15;
+      x7 = rotateLeft(x7 ^ x11, 12);
+      x3 += x7;
+      x15 = rotateLeft(x15 ^ x3, 8);
+      x11 += x15;
+      x7 = rotateLeft(x7 ^ x11, 7);
+
+      // Diagonal rounds.
+      x0 += x5;
+      x15 = rotateLeft(x15 ^ x0, 16);
+      x10 += x15;
+      x5 = rotateLeft(x5 ^ x10, 12);
+      x0 += x5;
+      x15 = rotateLeft(x15 ^ x0, 8);
+      x10 += x15;
+      x5 = rotateLeft(x5 ^ x10, 7);
+
+      x1 += x6;
+      x12 = rotateLeft(x12 ^ x1, 16);
+      x11 += x12;
+      x6 = rotateLeft(x6 ^ x11, 12);
+      x1 += x6;
+      x12 = rotateLeft(x12 ^ x1, 8);
+      x11 += x12;
+      x6 = rotateLeft(x6 ^ x11, 7);
+
+      x2 += x7;
+      x13 = rotateLeft(x13 ^ x2, 16);
+      x8 += x13;
+      x7 = rotateLeft(x7 ^ x8, 12);
+      x2 += x7;
+      x13 = rotateLeft(x13 ^ x2, 8);
+      x8 += x13;
+      x7 = rotateLeft(x7 ^ x8, 7);
+
+      x3 += x4;
+      x14 = rotateLeft(x14 ^ x3, 16);
+      x9 += x14;
+      x4 = rotateLeft(x4 ^ x9, 12);
+      x3 += x4;
+      x14 = rotateLeft(x14 ^ x3, 8);
+      x9 += x14;
+      x4 = rotateLeft(x4 ^ x9, 7);
+    }
+    output[outputOffset] = x0 + state[0];
+    output[outputOffset + 1] = x1 + state[1];
+    output[outputOffset + 2] = x2 + state[2];
+    output[outputOffset + 3] = x3 + state[3];
+    output[outputOffset + 4] = x4 + state[4];
+    output[outputOffset + 5] = x5 + state[5];
+    output[outputOffset + 6] = x6 + state[6];
+    output[outputOffset + 7] = x7 + state[7];
+    output[outputOffset + 8] = x8 + state[8];
+    output[outputOffset + 9] = x9 + state[9];
+    output[outputOffset + 10] = x10 + state[10];
+    output[outputOffset + 11] = x11 + state[11];
+    output[outputOffset + 12] = x12 + counter;
+    output[outputOffset + 13] = x13 + state[13];
+    output[outputOffset + 14] = x14 + state[14];
+    output[outputOffset + 15] = x15 + state[15];
+  }
+
+  /**
+   * XORs {@code input} with the key stream of {@code state} and writes the result to {@code
+   * output}. Word 12 of {@code state} is the counter of the first block.
+   *
+   * <p>The key stream is computed for {@link #BLOCKS_PER_ITERATION} blocks at a time and XORed
+   * word by word directly into {@code output}. The positions of {@code input} and {@code output}
+   * are advanced by {@code input.remaining()}, which must not be larger than {@code
+   * output.remaining()}.
+   */
+  static void xorKeyStream(final int[] state, ByteBuffer output, ByteBuffer input) {
+    int length = input.remaining();
+    ByteBuffer in = input.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    ByteBuffer out = output.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    int[] keyStream = new int[BLOCKS_PER_ITERATION * BLOCK_SIZE_IN_INTS];
+    int counter = state[12];
+    int remaining = length;
+    while (remaining > 0) {
+      int blocks =
+          Math.min(
+              BLOCKS_PER_ITERATION, (remaining + BLOCK_SIZE_IN_BYTES - 1) / BLOCK_SIZE_IN_BYTES);
+      for (int i = 0; i < blocks; i++) {
+        blockFunction(state, counter + i, keyStream, i * BLOCK_SIZE_IN_INTS);
+      }
+      counter += blocks;
+      int bytes = Math.min(remaining, blocks * BLOCK_SIZE_IN_BYTES);
+      int words = bytes / 4;
+      for (int i = 0; i < words; i++) {
+        out.putInt(in.getInt() ^ keyStream[i]);
+      }
+      for (int i = words * 4; i < bytes; i++) {
+        out.put((byte) (in.get() ^ (keyStream[i / 4] >>> (8 * (i % 4)))));
+      }
+      remaining -= bytes;
+    }
+    input.position(input.position() + length);
+    output.position(output.position() + length);
+  }
+
   /**
    * Computes the ChaCha quarter round as described in
    * https://datatracker.ietf.org/doc/html/rfc7539#section-2.1.
@@ -0,0 +1,77 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.aead.internal;
+
+import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.AsyncAead;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * An {@link AsyncAead} that runs the blocking calls of an {@link Aead} on an {@link Executor}.
+ *
+ * <p>This is meant for KMS clients which only offer blocking requests. If the executor rejects a
+ * call, the returned future completes exceptionally with a {@link GeneralSecurityException}.
+ */
+public final class ExecutorAsyncAead implements AsyncAead {
+  private interface Operation {
+    byte[] run() throws GeneralSecurityException;
+  }
+
+  private final Aead aead;
+  private final Executor executor;
+
+  private ExecutorAsyncAead(Aead aead, Executor executor) {
+    this.aead = aead;
+    this.executor = executor;
+  }
+
+  public static AsyncAead create(Aead aead, Executor executor) {
+    return new ExecutorAsyncAead(aead, executor);
+  }
+
+  @Override
+  public CompletableFuture<byte[]> encryptAsync(
+      final byte[] plaintext, final byte[] associatedData) {
+    return submit(() -> aead.encrypt(plaintext, associatedData));
+  }
+
+  @Override
+  public CompletableFuture<byte[]> decryptAsync(
+      final byte[] ciphertext, final byte[] associatedData) {
+    return submit(() -> aead.decrypt(ciphertext, associatedData));
+  }
+
+  private CompletableFuture<byte[]> submit(Operation operation) {
+    CompletableFuture<byte[]> result = new CompletableFuture<>();
+    try {
+      executor.execute(
+          () -> {
+            try {
+              result.complete(operation.run());
+            } catch (GeneralSecurityException | RuntimeException e) {
+              result.completeExceptionally(e);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(new GeneralSecurityException("request rejected", e));
+    }
+    return result;
+  }
+}
@@ -16,7 +16,6 @@
 
 package com.google.crypto.tink.aead.internal;
 
-import com.google.crypto.tink.subtle.Bytes;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.security.GeneralSecurityException;
@@ -93,30 +92,18 @@ abstract class InsecureNonceChaCha20Base {
       throw new GeneralSecurityException(
           "The nonce length (in bytes) must be " + nonceSizeInBytes());
     }
-    int length = input.remaining();
-    int numBlocks = (length / ChaCha20Util.BLOCK_SIZE_IN_BYTES) + 1;
-    for (int i = 0; i < numBlocks; i++) {
-      ByteBuffer keyStreamBlock = chacha20Block(nonce, i + initialCounter);
-      if (i == numBlocks - 1) {
-        // last block
-        Bytes.xor(output, input, keyStreamBlock, length % ChaCha20Util.BLOCK_SIZE_IN_BYTES);
-      } else {
-        Bytes.xor(output, input, keyStreamBlock, ChaCha20Util.BLOCK_SIZE_IN_BYTES);
-      }
-    }
+    int[] state = createInitialState(ChaCha20Util.toIntArray(nonce), initialCounter);
+    ChaCha20Util.xorKeyStream(state, output, input);
   }
 
   // https://tools.ietf.org/html/rfc8439#section-2.3.
   ByteBuffer chacha20Block(final byte[] nonce, int counter) {
     int[] state = createInitialState(ChaCha20Util.toIntArray(nonce), counter);
-    int[] workingState = state.clone();
-    ChaCha20Util.shuffleState(workingState);
-    for (int i = 0; i < state.length; i++) {
-      state[i] += workingState[i];
-    }
+    int[] block = new int[ChaCha20Util.BLOCK_SIZE_IN_INTS];
+    ChaCha20Util.blockFunction(state, counter, block, 0);
     ByteBuffer out =
         ByteBuffer.allocate(ChaCha20Util.BLOCK_SIZE_IN_BYTES).order(ByteOrder.LITTLE_ENDIAN);
-    out.asIntBuffer().put(state, 0, ChaCha20Util.BLOCK_SIZE_IN_INTS);
+    out.asIntBuffer().put(block, 0, ChaCha20Util.BLOCK_SIZE_IN_INTS);
     return out;
   }
 }
@@ -20,6 +20,7 @@ import static com.google.crypto.tink.aead.internal.Poly1305.MAC_KEY_SIZE_IN_BYTE
 import static com.google.crypto.tink.aead.internal.Poly1305.MAC_TAG_SIZE_IN_BYTES;
 
 import com.google.crypto.tink.config.internal.TinkFipsUtil;
+import com.google.crypto.tink.subtle.Bytes;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.security.GeneralSecurityException;
@@ -101,7 +102,7 @@ abstract class InsecureNonceChaCha20Poly1305Base {
     if (aad == null) {
       aad = new byte[0];
     }
-    byte[] tag = Poly1305.computeMac(getMacKey(nonce), macDataRfc8439(aad, output));
+    byte[] tag = computeTagRfc8439(nonce, aad, output);
     output.limit(output.limit() + MAC_TAG_SIZE_IN_BYTES);
     output.put(tag);
   }
@@ -148,10 +149,8 @@ abstract class InsecureNonceChaCha20Poly1305Base {
     if (aad == null) {
       aad = new byte[0];
     }
-    try {
-      Poly1305.verifyMac(getMacKey(nonce), macDataRfc8439(aad, ciphertext), tag);
-    } catch (GeneralSecurityException ex) {
-      throw new AEADBadTagException(ex.toString());
+    if (!Bytes.equal(computeTagRfc8439(nonce, aad, ciphertext), tag)) {
+      throw new AEADBadTagException("invalid MAC");
     }
 
     // rewind to decrypt the ciphertext.
@@ -167,20 +166,25 @@ abstract class InsecureNonceChaCha20Poly1305Base {
     return result;
   }
 
-  /** Prepares the input to MAC, following RFC 8439, section 2.8. */
-  private static byte[] macDataRfc8439(final byte[] aad, ByteBuffer ciphertext) {
-    int aadPaddedLen = (aad.length % 16 == 0) ? aad.length : (aad.length + 16 - aad.length % 16);
-    int ciphertextLen = ciphertext.remaining();
-    int ciphertextPaddedLen =
-        (ciphertextLen % 16 == 0) ? ciphertextLen : (ciphertextLen + 16 - ciphertextLen % 16);
-    ByteBuffer macData =
-        ByteBuffer.allocate(aadPaddedLen + ciphertextPaddedLen + 16).order(ByteOrder.LITTLE_ENDIAN);
-    macData.put(aad);
-    macData.position(aadPaddedLen);
-    macData.put(ciphertext);
-    macData.position(aadPaddedLen + ciphertextPaddedLen);
-    macData.putLong(aad.length);
-    macData.putLong(ciphertextLen);
-    return macData.array();
+  /**
+   * Computes the tag following RFC 8439, section 2.8. The MAC input is passed to Poly1305 piece by
+   * piece, so neither the associated data nor the ciphertext are copied. Consumes the remaining
+   * bytes of {@code ciphertext}.
+   */
+  private byte[] computeTagRfc8439(final byte[] nonce, final byte[] aad, ByteBuffer ciphertext)
+      throws GeneralSecurityException {
+    Poly1305 poly1305 = new Poly1305(getMacKey(nonce));
+    long ciphertextLen = ciphertext.remaining();
+    poly1305.update(aad, 0, aad.length);
+    poly1305.padToBlock();
+    poly1305.update(ciphertext);
+    poly1305.padToBlock();
+    byte[] lengths = new byte[16];
+    ByteBuffer.wrap(lengths)
+        .order(ByteOrder.LITTLE_ENDIAN)
+        .putLong(aad.length)
+        .putLong(ciphertextLen);
+    poly1305.update(lengths, 0, lengths.length);
+    return poly1305.finish();
   }
 }
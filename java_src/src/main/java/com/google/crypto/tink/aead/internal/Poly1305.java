@@ -17,6 +17,7 @@
 package com.google.crypto.tink.aead.internal;
 
 import com.google.crypto.tink.subtle.Bytes;
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.util.Arrays;
 
@@ -34,7 +35,61 @@ public class Poly1305 {
   public static final int MAC_TAG_SIZE_IN_BYTES = 16;
   public static final int MAC_KEY_SIZE_IN_BYTES = 32;
 
-  private Poly1305() {}
+  // Key r, clamped and split into 26-bit limbs, and the precomputed multiples s_i = 5 * r_i.
+  private final long r0;
+  private final long r1;
+  private final long r2;
+  private final long r3;
+  private final long r4;
+  private final long s1;
+  private final long s2;
+  private final long s3;
+  private final long s4;
+
+  // The second half of the key, which is added to the final accumulator.
+  private final long pad0;
+  private final long pad1;
+  private final long pad2;
+  private final long pad3;
+
+  // The accumulator in 26-bit limbs.
+  private long h0 = 0;
+  private long h1 = 0;
+  private long h2 = 0;
+  private long h3 = 0;
+  private long h4 = 0;
+
+  // Input that does not yet fill a block.
+  private final byte[] buffer = new byte[MAC_TAG_SIZE_IN_BYTES];
+  private int bufferLength = 0;
+
+  /**
+   * Creates a Poly1305 state for incremental MAC computation with {@code key}.
+   *
+   * <p>The data is passed with {@link #update} and {@link #padToBlock}, and the MAC is returned by
+   * {@link #finish}. No data is copied except for incomplete blocks.
+   */
+  Poly1305(final byte[] key) {
+    if (key.length != MAC_KEY_SIZE_IN_BYTES) {
+      throw new IllegalArgumentException("The key length in bytes must be 32.");
+    }
+    // r &= 0xffffffc0ffffffc0ffffffc0fffffff
+    r0 = load26(key, 0, 0) & 0x3ffffff;
+    r1 = load26(key, 3, 2) & 0x3ffff03;
+    r2 = load26(key, 6, 4) & 0x3ffc0ff;
+    r3 = load26(key, 9, 6) & 0x3f03fff;
+    r4 = load26(key, 12, 8) & 0x00fffff;
+
+    s1 = r1 * 5;
+    s2 = r2 * 5;
+    s3 = r3 * 5;
+    s4 = r4 * 5;
+
+    pad0 = load32(key, 16);
+    pad1 = load32(key, 20);
+    pad2 = load32(key, 24);
+    pad3 = load32(key, 28);
+  }
 
   private static long load32(byte[] in, int idx) {
     return ((in[idx] & 0xff)
@@ -54,25 +109,11 @@ public class Poly1305 {
     }
   }
 
-  private static void copyBlockSize(byte[] output, byte[] in, int idx) {
-    int copyCount = Math.min(MAC_TAG_SIZE_IN_BYTES, in.length - idx);
-    System.arraycopy(in, idx, output, 0, copyCount);
-    output[copyCount] = 1;
-    if (copyCount != MAC_TAG_SIZE_IN_BYTES) {
-      Arrays.fill(output, copyCount + 1, output.length, (byte) 0);
-    }
-  }
-
-  /** Computes Poly1305 MAC over {@code data} using {@code key}. */
-  public static byte[] computeMac(final byte[] key, byte[] data) {
-    if (key.length != MAC_KEY_SIZE_IN_BYTES) {
-      throw new IllegalArgumentException("The key length in bytes must be 32.");
-    }
-    long h0 = 0;
-    long h1 = 0;
-    long h2 = 0;
-    long h3 = 0;
-    long h4 = 0;
+  /**
+   * Adds the 16-byte block at {@code in[idx]} to the accumulator and multiplies it by r. {@code
+   * hibit} is {@code 1 << 24} for complete blocks, and 0 for the final, already padded block.
+   */
+  private void processBlock(byte[] in, int idx, long hibit) {
     long d0;
     long d1;
     long d2;
@@ -80,54 +121,105 @@ public class Poly1305 {
     long d4;
     long c;
 
-    // r &= 0xffffffc0ffffffc0ffffffc0fffffff
-    long r0 = load26(key, 0, 0) & 0x3ffffff;
-    long r1 = load26(key, 3, 2) & 0x3ffff03;
-    long r2 = load26(key, 6, 4) & 0x3ffc0ff;
-    long r3 = load26(key, 9, 6) & 0x3f03fff;
-    long r4 = load26(key, 12, 8) & 0x00fffff;
-
-    long s1 = r1 * 5;
-    long s2 = r2 * 5;
-    long s3 = r3 * 5;
-    long s4 = r4 * 5;
-
-    byte[] buf = new byte[MAC_TAG_SIZE_IN_BYTES + 1];
-    for (int i = 0; i < data.length; i += MAC_TAG_SIZE_IN_BYTES) {
-      copyBlockSize(buf, data, i);
-      h0 += load26(buf, 0, 0);
-      h1 += load26(buf, 3, 2);
-      h2 += load26(buf, 6, 4);
-      h3 += load26(buf, 9, 6);
-      h4 += load26(buf, 12, 8) | (buf[MAC_TAG_SIZE_IN_BYTES] << 24);
-
-      // d = r * h
-      d0 = h0 * r0 + h1 * s4 + h2 * s3 + h3 * s2 + h4 * s1;
-      d1 = h0 * r1 + h1 * r0 + h2 * s4 + h3 * s3 + h4 * s2;
-      d2 = h0 * r2 + h1 * r1 + h2 * r0 + h3 * s4 + h4 * s3;
-      d3 = h0 * r3 + h1 * r2 + h2 * r1 + h3 * r0 + h4 * s4;
-      d4 = h0 * r4 + h1 * r3 + h2 * r2 + h3 * r1 + h4 * r0;
-
-      // Partial reduction mod 2^130-5, resulting h1 might not be 26bits.
-      c = d0 >> 26;
-      h0 = d0 & 0x3ffffff;
-      d1 += c;
-      c = d1 >> 26;
-      h1 = d1 & 0x3ffffff;
-      d2 += c;
-      c = d2 >> 26;
-      h2 = d2 & 0x3ffffff;
-      d3 += c;
-      c = d3 >> 26;
-      h3 = d3 & 0x3ffffff;
-      d4 += c;
-      c = d4 >> 26;
-      h4 = d4 & 0x3ffffff;
-      h0 += c * 5;
-      c = h0 >> 26;
-      h0 = h0 & 0x3ffffff;
-      h1 += c;
+    h0 += load26(in, idx, 0);
+    h1 += load26(in, idx + 3, 2);
+    h2 += load26(in, idx + 6, 4);
+    h3 += load26(in, idx + 9, 6);
+    h4 += load26(in, idx + 12, 8) | hibit;
+
+    // d = r * h
+    d0 = h0 * r0 + h1 * s4 + h2 * s3 + h3 * s2 + h4 * s1;
+    d1 = h0 * r1 + h1 * r0 + h2 * s4 + h3 * s3 + h4 * s2;
+    d2 = h0 * r2 + h1 * r1 + h2 * r0 + h3 * s4 + h4 * s3;
+    d3 = h0 * r3 + h1 * r2 + h2 * r1 + h3 * r0 + h4 * s4;
+    d4 = h0 * r4 + h1 * r3 + h2 * r2 + h3 * r1 + h4 * r0;
+
+    // Partial reduction mod 2^130-5, resulting h1 might not be 26bits.
+    c = d0 >> 26;
+    h0 = d0 & 0x3ffffff;
+    d1 += c;
+    c = d1 >> 26;
+    h1 = d1 & 0x3ffffff;
+    d2 += c;
+    c = d2 >> 26;
+    h2 = d2 & 0x3ffffff;
+    d3 += c;
+    c = d3 >> 26;
+    h3 = d3 & 0x3ffffff;
+    d4 += c;
+    c = d4 >> 26;
+    h4 = d4 & 0x3ffffff;
+    h0 += c * 5;
+    c = h0 >> 26;
+    h0 = h0 & 0x3ffffff;
+    h1 += c;
+  }
+
+  /** Adds {@code length} bytes of {@code data} starting at {@code offset} to the MAC input. */
+  void update(final byte[] data, int offset, int length) {
+    if (bufferLength > 0) {
+      int copyCount = Math.min(MAC_TAG_SIZE_IN_BYTES - bufferLength, length);
+      System.arraycopy(data, offset, buffer, bufferLength, copyCount);
+      bufferLength += copyCount;
+      offset += copyCount;
+      length -= copyCount;
+      if (bufferLength < MAC_TAG_SIZE_IN_BYTES) {
+        return;
+      }
+      processBlock(buffer, 0, 1 << 24);
+      bufferLength = 0;
+    }
+    while (length >= MAC_TAG_SIZE_IN_BYTES) {
+      processBlock(data, offset, 1 << 24);
+      offset += MAC_TAG_SIZE_IN_BYTES;
+      length -= MAC_TAG_SIZE_IN_BYTES;
+    }
+    System.arraycopy(data, offset, buffer, 0, length);
+    bufferLength = length;
+  }
+
+  /** Adds the remaining bytes of {@code data} to the MAC input, and advances its position. */
+  void update(ByteBuffer data) {
+    if (data.hasArray()) {
+      update(data.array(), data.arrayOffset() + data.position(), data.remaining());
+      data.position(data.limit());
+      return;
+    }
+    byte[] chunk = new byte[16 * MAC_TAG_SIZE_IN_BYTES];
+    while (data.hasRemaining()) {
+      int length = Math.min(chunk.length, data.remaining());
+      data.get(chunk, 0, length);
+      update(chunk, 0, length);
+    }
+  }
+
+  /**
+   * Adds zeros to the MAC input until its length is a multiple of 16 bytes, as required between
+   * the fields of the ChaCha20-Poly1305 MAC input (RFC 8439, section 2.8).
+   */
+  void padToBlock() {
+    if (bufferLength > 0) {
+      Arrays.fill(buffer, bufferLength, MAC_TAG_SIZE_IN_BYTES, (byte) 0);
+      processBlock(buffer, 0, 1 << 24);
+      bufferLength = 0;
+    }
+  }
+
+  /** Returns the MAC of the input. The state must not be used afterwards. */
+  byte[] finish() {
+    long c;
+    if (bufferLength > 0) {
+      buffer[bufferLength] = 1;
+      Arrays.fill(buffer, bufferLength + 1, MAC_TAG_SIZE_IN_BYTES, (byte) 0);
+      processBlock(buffer, 0, 0);
+      bufferLength = 0;
     }
+    long h0 = this.h0;
+    long h1 = this.h1;
+    long h2 = this.h2;
+    long h3 = this.h3;
+    long h4 = this.h4;
+
     // Do final reduction mod 2^130-5
     c = h1 >> 26;
     h1 = h1 & 0x3ffffff;
@@ -181,13 +273,13 @@ public class Poly1305 {
     h3 = ((h3 >> 18) | (h4 << 8)) & 0xffffffffL;
 
     // mac = (h + pad) % (2^128)
-    c = h0 + load32(key, 16);
+    c = h0 + pad0;
     h0 = c & 0xffffffffL;
-    c = h1 + load32(key, 20) + (c >> 32);
+    c = h1 + pad1 + (c >> 32);
     h1 = c & 0xffffffffL;
-    c = h2 + load32(key, 24) + (c >> 32);
+    c = h2 + pad2 + (c >> 32);
     h2 = c & 0xffffffffL;
-    c = h3 + load32(key, 28) + (c >> 32);
+    c = h3 + pad3 + (c >> 32);
     h3 = c & 0xffffffffL;
 
     byte[] mac = new byte[MAC_TAG_SIZE_IN_BYTES];
@@ -199,6 +291,13 @@ public class Poly1305 {
     return mac;
   }
 
+  /** Computes Poly1305 MAC over {@code data} using {@code key}. */
+  public static byte[] computeMac(final byte[] key, byte[] data) {
+    Poly1305 poly1305 = new Poly1305(key);
+    poly1305.update(data, 0, data.length);
+    return poly1305.finish();
+  }
+
   /** Verifies Poly1305 {@ mac} over {@code data} using {@code key}. */
   public static void verifyMac(final byte[] key, byte[] data, byte[] mac)
       throws GeneralSecurityException {
@@ -30,7 +30,6 @@ import com.google.crypto.tink.internal.PrimitiveSet;
 import com.google.crypto.tink.monitoring.MonitoringClient;
 import com.google.crypto.tink.monitoring.MonitoringKeysetInfo;
 import java.security.GeneralSecurityException;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -73,13 +72,15 @@ public class DeterministicAeadWrapper
     @Override
     public byte[] encryptDeterministically(final byte[] plaintext, final byte[] associatedData)
         throws GeneralSecurityException {
+      long startNanos = MonitoringUtil.startTimer(encLogger);
       try {
         byte[] output =
             primitives
                 .getPrimary()
                 .getFullPrimitive()
                 .encryptDeterministically(plaintext, associatedData);
-        encLogger.log(primitives.getPrimary().getKeyId(), plaintext.length);
+        MonitoringUtil.logSuccess(
+            encLogger, primitives.getPrimary().getKeyId(), plaintext.length, startNanos);
         return output;
       } catch (GeneralSecurityException e) {
         encLogger.logFailure();
@@ -90,14 +91,17 @@ public class DeterministicAeadWrapper
     @Override
     public byte[] decryptDeterministically(final byte[] ciphertext, final byte[] associatedData)
         throws GeneralSecurityException {
+      long startNanos = MonitoringUtil.startTimer(decLogger);
       if (ciphertext.length > CryptoFormat.NON_RAW_PREFIX_SIZE) {
-        byte[] prefix = Arrays.copyOf(ciphertext, CryptoFormat.NON_RAW_PREFIX_SIZE);
-        List<PrimitiveSet.Entry<DeterministicAead>> entries = primitives.getPrimitive(prefix);
+        List<PrimitiveSet.Entry<DeterministicAead>> entries =
+            primitives.getPrimitivesForPrefix(ciphertext, 0);
         for (PrimitiveSet.Entry<DeterministicAead> entry : entries) {
           try {
             byte[] output =
-                entry.getFullPrimitive().decryptDeterministically(ciphertext, associatedData);
-            decLogger.log(entry.getKeyId(), ciphertext.length);
+                entry
+                    .getFullPrimitiveOrThrow()
+                    .decryptDeterministically(ciphertext, associatedData);
+            MonitoringUtil.logSuccess(decLogger, entry.getKeyId(), ciphertext.length, startNanos);
             return output;
           } catch (GeneralSecurityException e) {
             continue;
@@ -110,8 +114,8 @@ public class DeterministicAeadWrapper
       for (PrimitiveSet.Entry<DeterministicAead> entry : entries) {
         try {
           byte[] output =
-              entry.getFullPrimitive().decryptDeterministically(ciphertext, associatedData);
-          decLogger.log(entry.getKeyId(), ciphertext.length);
+              entry.getFullPrimitiveOrThrow().decryptDeterministically(ciphertext, associatedData);
+          MonitoringUtil.logSuccess(decLogger, entry.getKeyId(), ciphertext.length, startNanos);
           return output;
         } catch (GeneralSecurityException e) {
           continue;
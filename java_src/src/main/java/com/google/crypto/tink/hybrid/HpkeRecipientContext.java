@@ -0,0 +1,64 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.hybrid;
+
+import com.google.crypto.tink.hybrid.internal.HpkeContext;
+import com.google.crypto.tink.hybrid.internal.HpkeDecrypt;
+import java.security.GeneralSecurityException;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Recipient side of a multi-message HPKE context, as defined in
+ * https://www.rfc-editor.org/rfc/rfc9180.html#section-5.2.
+ *
+ * <p>Opens the messages sealed by an {@link HpkeSenderContext}, in the order in which they were
+ * sealed. A message that fails to decrypt does not advance the context, so the next call to
+ * {@link #open} still expects the same message.
+ *
+ * <p>Only the base mode is supported. The output prefix of the key is ignored.
+ */
+@ThreadSafe
+public final class HpkeRecipientContext {
+  private static final byte[] EMPTY = new byte[0];
+
+  private final HpkeContext context;
+
+  private HpkeRecipientContext(HpkeContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Creates a new recipient context from the {@code encapsulatedKey} of the sender context, and
+   * the same {@code info} that the sender used (which may be null, meaning empty).
+   */
+  public static HpkeRecipientContext create(
+      HpkePrivateKey recipientPrivateKey, byte[] encapsulatedKey, @Nullable byte[] info)
+      throws GeneralSecurityException {
+    return new HpkeRecipientContext(
+        HpkeDecrypt.createRecipientContext(
+            recipientPrivateKey, encapsulatedKey, info == null ? EMPTY : info));
+  }
+
+  /**
+   * Decrypts the next message of this context. {@code associatedData} may be null, meaning empty.
+   */
+  public byte[] open(byte[] ciphertext, @Nullable byte[] associatedData)
+      throws GeneralSecurityException {
+    return context.open(ciphertext, associatedData == null ? EMPTY : associatedData);
+  }
+}
@@ -0,0 +1,70 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.hybrid;
+
+import com.google.crypto.tink.hybrid.internal.HpkeContext;
+import com.google.crypto.tink.hybrid.internal.HpkeEncrypt;
+import java.security.GeneralSecurityException;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Sender side of a multi-message HPKE context, as defined in
+ * https://www.rfc-editor.org/rfc/rfc9180.html#section-5.2.
+ *
+ * <p>Unlike {@link com.google.crypto.tink.HybridEncrypt}, which runs a fresh key encapsulation for
+ * every message, a context encapsulates a key once and then seals any number of messages with it.
+ * The encapsulated key returned by {@link #getEncapsulatedKey} has to be sent to the recipient
+ * once, who then opens the messages with an {@link HpkeRecipientContext}. Each message is sealed
+ * with a nonce derived from its position in the sequence, so the recipient has to open the
+ * messages in the order in which they were sealed.
+ *
+ * <p>Only the base mode is supported. The output prefix of the key is ignored.
+ */
+@ThreadSafe
+public final class HpkeSenderContext {
+  private static final byte[] EMPTY = new byte[0];
+
+  private final HpkeContext context;
+
+  private HpkeSenderContext(HpkeContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Creates a new sender context for {@code recipientPublicKey}, bound to the application supplied
+   * {@code info} (which may be null, meaning empty).
+   */
+  public static HpkeSenderContext create(HpkePublicKey recipientPublicKey, @Nullable byte[] info)
+      throws GeneralSecurityException {
+    return new HpkeSenderContext(
+        HpkeEncrypt.createSenderContext(recipientPublicKey, info == null ? EMPTY : info));
+  }
+
+  /** Returns the encapsulated key which the recipient needs to create its context. */
+  public byte[] getEncapsulatedKey() {
+    return context.getEncapsulatedKey().clone();
+  }
+
+  /**
+   * Encrypts the next message of this context. {@code associatedData} may be null, meaning empty.
+   */
+  public byte[] seal(byte[] plaintext, @Nullable byte[] associatedData)
+      throws GeneralSecurityException {
+    return context.seal(plaintext, associatedData == null ? EMPTY : associatedData);
+  }
+}
@@ -29,7 +29,6 @@ import com.google.crypto.tink.internal.PrimitiveSet;
 import com.google.crypto.tink.monitoring.MonitoringClient;
 import com.google.crypto.tink.monitoring.MonitoringKeysetInfo;
 import java.security.GeneralSecurityException;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -67,13 +66,14 @@ public class HybridDecryptWrapper implements PrimitiveWrapper<HybridDecrypt, Hyb
     @Override
     public byte[] decrypt(final byte[] ciphertext, final byte[] contextInfo)
         throws GeneralSecurityException {
+      long startNanos = MonitoringUtil.startTimer(decLogger);
       if (ciphertext.length > CryptoFormat.NON_RAW_PREFIX_SIZE) {
-        byte[] prefix = Arrays.copyOfRange(ciphertext, 0, CryptoFormat.NON_RAW_PREFIX_SIZE);
-        List<PrimitiveSet.Entry<HybridDecrypt>> entries = primitives.getPrimitive(prefix);
+        List<PrimitiveSet.Entry<HybridDecrypt>> entries =
+            primitives.getPrimitivesForPrefix(ciphertext, 0);
         for (PrimitiveSet.Entry<HybridDecrypt> entry : entries) {
           try {
-            byte[] output = entry.getFullPrimitive().decrypt(ciphertext, contextInfo);
-            decLogger.log(entry.getKeyId(), ciphertext.length);
+            byte[] output = entry.getFullPrimitiveOrThrow().decrypt(ciphertext, contextInfo);
+            MonitoringUtil.logSuccess(decLogger, entry.getKeyId(), ciphertext.length, startNanos);
             return output;
           } catch (GeneralSecurityException e) {
             continue;
@@ -84,8 +84,8 @@ public class HybridDecryptWrapper implements PrimitiveWrapper<HybridDecrypt, Hyb
       List<PrimitiveSet.Entry<HybridDecrypt>> entries = primitives.getRawPrimitives();
       for (PrimitiveSet.Entry<HybridDecrypt> entry : entries) {
         try {
-          byte[] output = entry.getFullPrimitive().decrypt(ciphertext, contextInfo);
-          decLogger.log(entry.getKeyId(), ciphertext.length);
+          byte[] output = entry.getFullPrimitiveOrThrow().decrypt(ciphertext, contextInfo);
+          MonitoringUtil.logSuccess(decLogger, entry.getKeyId(), ciphertext.length, startNanos);
           return output;
         } catch (GeneralSecurityException e) {
           continue;
@@ -63,13 +63,15 @@ public class HybridEncryptWrapper implements PrimitiveWrapper<HybridEncrypt, Hyb
     @Override
     public byte[] encrypt(final byte[] plaintext, final byte[] contextInfo)
         throws GeneralSecurityException {
+      long startNanos = MonitoringUtil.startTimer(encLogger);
       if (primitives.getPrimary() == null) {
         encLogger.logFailure();
         throw new GeneralSecurityException("keyset without primary key");
       }
       try {
         byte[] output = primitives.getPrimary().getFullPrimitive().encrypt(plaintext, contextInfo);
-        encLogger.log(primitives.getPrimary().getKeyId(), plaintext.length);
+        MonitoringUtil.logSuccess(
+            encLogger, primitives.getPrimary().getKeyId(), plaintext.length, startNanos);
         return output;
       } catch (GeneralSecurityException e) {
         encLogger.logFailure();
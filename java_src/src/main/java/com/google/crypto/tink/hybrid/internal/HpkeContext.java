@@ -18,9 +18,7 @@ package com.google.crypto.tink.hybrid.internal;
 
 import com.google.crypto.tink.AccessesPartialKey;
 import com.google.crypto.tink.hybrid.HpkePublicKey;
-import com.google.crypto.tink.internal.BigIntegerEncoding;
 import com.google.crypto.tink.subtle.Bytes;
-import java.math.BigInteger;
 import java.security.GeneralSecurityException;
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
@@ -35,24 +33,24 @@ public final class HpkeContext {
   private static final byte[] EMPTY_IKM = new byte[0];
 
   private final HpkeAead aead;
-  private final BigInteger maxSequenceNumber;
+  private final long maxSequenceNumber;
   private final byte[] key;
   private final byte[] baseNonce;
   private final byte[] encapsulatedKey;
 
   @GuardedBy("this")
-  private BigInteger sequenceNumber;
+  private long sequenceNumber;
 
   private HpkeContext(
       byte[] encapsulatedKey,
       byte[] key,
       byte[] baseNonce,
-      BigInteger maxSequenceNumber,
+      long maxSequenceNumber,
       HpkeAead aead) {
     this.encapsulatedKey = encapsulatedKey;
     this.key = key;
     this.baseNonce = baseNonce;
-    this.sequenceNumber = BigInteger.ZERO;
+    this.sequenceNumber = 0;
     this.maxSequenceNumber = maxSequenceNumber;
     this.aead = aead;
   }
@@ -76,7 +74,7 @@ public final class HpkeContext {
     byte[] key = kdf.labeledExpand(secret, keyScheduleContext, "key", suiteId, aead.getKeyLength());
     byte[] baseNonce =
         kdf.labeledExpand(secret, keyScheduleContext, "base_nonce", suiteId, aead.getNonceLength());
-    BigInteger maxSeqNo = maxSequenceNumber(aead.getNonceLength());
+    long maxSeqNo = maxSequenceNumber(aead.getNonceLength());
 
     return new HpkeContext(encapsulatedKey, key, baseNonce, maxSeqNo, aead);
   }
@@ -180,31 +178,46 @@ public final class HpkeContext {
     return createContext(HpkeUtil.AUTH_MODE, encapsulatedKey, sharedSecret, kem, kdf, aead, info);
   }
 
-  private static BigInteger maxSequenceNumber(int nonceLength) {
-    return BigInteger.ONE.shiftLeft(8 * nonceLength).subtract(BigInteger.ONE);
+  /**
+   * Returns 2^(8 * nonceLength) - 1, capped at {@link Long#MAX_VALUE}. The cap is never reached in
+   * practice, since all HPKE AEADs use 12 byte nonces.
+   */
+  private static long maxSequenceNumber(int nonceLength) {
+    if (nonceLength >= 8) {
+      return Long.MAX_VALUE;
+    }
+    return (1L << (8 * nonceLength)) - 1;
   }
 
   @GuardedBy("this")
-  private void incrementSequenceNumber() throws GeneralSecurityException {
-    if (sequenceNumber.compareTo(maxSequenceNumber) >= 0) {
+  private void checkSequenceNumber() throws GeneralSecurityException {
+    if (sequenceNumber >= maxSequenceNumber) {
       throw new GeneralSecurityException("message limit reached");
     }
-    sequenceNumber = sequenceNumber.add(BigInteger.ONE);
   }
 
-  /** ComputeNonce() from https://www.rfc-editor.org/rfc/rfc9180.html#section-5.2-11. */
+  /**
+   * ComputeNonce() from https://www.rfc-editor.org/rfc/rfc9180.html#section-5.2-11.
+   *
+   * <p>The sequence number is XORed directly into the last bytes of a copy of the base nonce.
+   */
   @GuardedBy("this")
-  private byte[] computeNonce() throws GeneralSecurityException {
-    return Bytes.xor(
-        baseNonce,
-        BigIntegerEncoding.toBigEndianBytesOfFixedLength(sequenceNumber, aead.getNonceLength()));
+  private byte[] computeNonce() {
+    byte[] nonce = baseNonce.clone();
+    long seq = sequenceNumber;
+    for (int i = nonce.length - 1; i >= 0 && seq != 0; i--) {
+      nonce[i] ^= (byte) seq;
+      seq >>>= 8;
+    }
+    return nonce;
   }
 
-  /** Returns the next nonce to use for seal/open. Also, increments the sequence number. */
+  /** Returns the next nonce to use for seal. Also, increments the sequence number. */
   private synchronized byte[] computeNonceAndIncrementSequenceNumber()
       throws GeneralSecurityException {
+    checkSequenceNumber();
     byte[] nonce = computeNonce();
-    incrementSequenceNumber();
+    sequenceNumber++;
     return nonce;
   }
 
@@ -235,10 +248,16 @@ public final class HpkeContext {
    * Performs AEAD decryption of {@code ciphertext} with {@code associatedData} according to
    * ContextR.Open() defined in https://www.rfc-editor.org/rfc/rfc9180.html#section-5.2-10.
    *
+   * <p>As specified there, the sequence number is only incremented if decryption succeeds, so that
+   * a rejected ciphertext does not prevent decrypting the following ones. Calls are serialized.
+   *
    * @return plaintext
    */
-  public byte[] open(byte[] ciphertext, byte[] associatedData) throws GeneralSecurityException {
-    byte[] nonce = computeNonceAndIncrementSequenceNumber();
-    return aead.open(key, nonce, ciphertext, associatedData);
+  public synchronized byte[] open(byte[] ciphertext, byte[] associatedData)
+      throws GeneralSecurityException {
+    checkSequenceNumber();
+    byte[] plaintext = aead.open(key, computeNonce(), ciphertext, associatedData);
+    sequenceNumber++;
+    return plaintext;
   }
 }
@@ -128,6 +128,27 @@ public final class HpkeDecrypt implements HybridDecrypt {
         privateKey.getOutputPrefix());
   }
 
+  /**
+   * Creates a new HPKE recipient context for {@code privateKey} in base mode from the encapsulated
+   * key produced by the sender, which can be used to open multiple messages. The output prefix of
+   * {@code privateKey} is ignored.
+   */
+  public static HpkeContext createRecipientContext(
+      HpkePrivateKey privateKey, byte[] encapsulatedKey, byte[] info)
+      throws GeneralSecurityException {
+    HpkeParameters parameters = privateKey.getParameters();
+    if (encapsulatedKey.length != encodingSizeInBytes(parameters.getKemId())) {
+      throw new GeneralSecurityException("Invalid encapsulated key length");
+    }
+    return HpkeContext.createRecipientContext(
+        encapsulatedKey,
+        createHpkeKemPrivateKey(privateKey),
+        HpkeEncrypt.createKem(parameters.getKemId()),
+        HpkeEncrypt.createKdf(parameters.getKdfId()),
+        HpkeEncrypt.createAead(parameters.getAeadId()),
+        info);
+  }
+
   private byte[] decryptNoPrefix(final byte[] ciphertext, final byte[] contextInfo)
       throws GeneralSecurityException {
     if (ciphertext.length < encapsulatedKeyLength) {
@@ -64,6 +64,22 @@ public final class HpkeEncrypt implements HybridEncrypt {
         key.getOutputPrefix());
   }
 
+  /**
+   * Creates a new HPKE sender context for {@code key} in base mode, which can be used to seal
+   * multiple messages. The output prefix of {@code key} is ignored.
+   */
+  @AccessesPartialKey
+  public static HpkeContext createSenderContext(HpkePublicKey key, byte[] info)
+      throws GeneralSecurityException {
+    HpkeParameters parameters = key.getParameters();
+    return HpkeContext.createSenderContext(
+        key.getPublicKeyBytes().toByteArray(),
+        createKem(parameters.getKemId()),
+        createKdf(parameters.getKdfId()),
+        createAead(parameters.getAeadId()),
+        info);
+  }
+
   static HpkeKem createKem(HpkeParameters.KemId kemId) throws GeneralSecurityException {
     if (kemId.equals(HpkeParameters.KemId.DHKEM_X25519_HKDF_SHA256)) {
       return new X25519HpkeKem(new HkdfHpkeKdf("HmacSha256"));
@@ -17,16 +17,21 @@
 package com.google.crypto.tink.integration.awskms;
 
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.services.kms.AWSKMS;
+import com.amazonaws.services.kms.AWSKMSAsync;
 import com.amazonaws.services.kms.model.DecryptRequest;
 import com.amazonaws.services.kms.model.DecryptResult;
 import com.amazonaws.services.kms.model.EncryptRequest;
+import com.amazonaws.services.kms.model.EncryptResult;
 import com.amazonaws.util.BinaryUtils;
 import com.google.common.base.Splitter;
 import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.AsyncAead;
 import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A {@link Aead} that forwards encryption/decryption requests to a key in <a
@@ -47,16 +52,22 @@ public final class AwsKmsAead implements Aead {
     this.keyArn = keyArn;
   }
 
+  /**
+   * Returns an {@link AsyncAead} that sends its requests with {@link AWSKMSAsync#encryptAsync} and
+   * {@link AWSKMSAsync#decryptAsync}. Its ciphertexts are compatible with those of {@link
+   * AwsKmsAead} for the same key.
+   */
+  public static AsyncAead newAsyncAead(AWSKMSAsync kmsClient, String keyArn) {
+    return new AwsKmsAsyncAead(kmsClient, keyArn);
+  }
+
   @Override
   public byte[] encrypt(final byte[] plaintext, final byte[] associatedData)
       throws GeneralSecurityException {
     try {
-      EncryptRequest req =
-          new EncryptRequest().withKeyId(keyArn).withPlaintext(ByteBuffer.wrap(plaintext));
-      if (associatedData != null && associatedData.length != 0) {
-        req = req.addEncryptionContextEntry("associatedData", BinaryUtils.toHex(associatedData));
-      }
-      return kmsClient.encrypt(req).getCiphertextBlob().array();
+      return kmsClient.encrypt(encryptRequest(keyArn, plaintext, associatedData))
+          .getCiphertextBlob()
+          .array();
     } catch (AmazonServiceException e) {
       throw new GeneralSecurityException("encryption failed", e);
     }
@@ -66,31 +77,114 @@ public final class AwsKmsAead implements Aead {
   public byte[] decrypt(final byte[] ciphertext, final byte[] associatedData)
       throws GeneralSecurityException {
     try {
-      DecryptRequest req =
-          new DecryptRequest().withKeyId(keyArn)
-              .withCiphertextBlob(ByteBuffer.wrap(ciphertext));
-      if (associatedData != null && associatedData.length != 0) {
-        req = req.addEncryptionContextEntry("associatedData", BinaryUtils.toHex(associatedData));
-      }
-      DecryptResult result = kmsClient.decrypt(req);
-      // In AwsKmsAead.decrypt() it is important to check the returned KeyId against the one
-      // previously configured. If we don't do this, the possibility exists for the ciphertext to
-      // be replaced by one under a key we don't control/expect, but do have decrypt permissions
-      // on.
-      // The check is disabled if keyARN is not in key ARN format.
-      // See https://docs.aws.amazon.com/kms/latest/developerguide/concepts.html#key-id.
-      if (isKeyArnFormat(keyArn) && !result.getKeyId().equals(keyArn)) {
-        throw new GeneralSecurityException("decryption failed: wrong key id");
-      }
-      return result.getPlaintext().array();
+      DecryptResult result = kmsClient.decrypt(decryptRequest(keyArn, ciphertext, associatedData));
+      return getPlaintext(keyArn, result);
     } catch (AmazonServiceException e) {
       throw new GeneralSecurityException("decryption failed", e);
     }
   }
 
+  private static EncryptRequest encryptRequest(
+      String keyArn, final byte[] plaintext, final byte[] associatedData) {
+    EncryptRequest req =
+        new EncryptRequest().withKeyId(keyArn).withPlaintext(ByteBuffer.wrap(plaintext));
+    if (associatedData != null && associatedData.length != 0) {
+      req = req.addEncryptionContextEntry("associatedData", BinaryUtils.toHex(associatedData));
+    }
+    return req;
+  }
+
+  private static DecryptRequest decryptRequest(
+      String keyArn, final byte[] ciphertext, final byte[] associatedData) {
+    DecryptRequest req =
+        new DecryptRequest().withKeyId(keyArn)
+            .withCiphertextBlob(ByteBuffer.wrap(ciphertext));
+    if (associatedData != null && associatedData.length != 0) {
+      req = req.addEncryptionContextEntry("associatedData", BinaryUtils.toHex(associatedData));
+    }
+    return req;
+  }
+
+  private static byte[] getPlaintext(String keyArn, DecryptResult result)
+      throws GeneralSecurityException {
+    // In AwsKmsAead.decrypt() it is important to check the returned KeyId against the one
+    // previously configured. If we don't do this, the possibility exists for the ciphertext to
+    // be replaced by one under a key we don't control/expect, but do have decrypt permissions
+    // on.
+    // The check is disabled if keyARN is not in key ARN format.
+    // See https://docs.aws.amazon.com/kms/latest/developerguide/concepts.html#key-id.
+    if (isKeyArnFormat(keyArn) && !result.getKeyId().equals(keyArn)) {
+      throw new GeneralSecurityException("decryption failed: wrong key id");
+    }
+    return result.getPlaintext().array();
+  }
+
   /** Returns {@code true} if {@code keyArn} is in key ARN format. */
   private static boolean isKeyArnFormat(String keyArn) {
     List<String> tokens = Splitter.on(':').splitToList(keyArn);
     return tokens.size() == 6 && tokens.get(5).startsWith("key/");
   }
+
+  /** An {@link AsyncAead} that uses the asynchronous AWS KMS client. */
+  private static final class AwsKmsAsyncAead implements AsyncAead {
+    private final AWSKMSAsync kmsClient;
+    private final String keyArn;
+
+    private AwsKmsAsyncAead(AWSKMSAsync kmsClient, String keyArn) {
+      this.kmsClient = kmsClient;
+      this.keyArn = keyArn;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> encryptAsync(
+        final byte[] plaintext, final byte[] associatedData) {
+      CompletableFuture<byte[]> result = new CompletableFuture<>();
+      try {
+        kmsClient.encryptAsync(
+            encryptRequest(keyArn, plaintext, associatedData),
+            new AsyncHandler<EncryptRequest, EncryptResult>() {
+              @Override
+              public void onError(Exception e) {
+                result.completeExceptionally(new GeneralSecurityException("encryption failed", e));
+              }
+
+              @Override
+              public void onSuccess(EncryptRequest request, EncryptResult encryptResult) {
+                result.complete(encryptResult.getCiphertextBlob().array());
+              }
+            });
+      } catch (RuntimeException e) {
+        result.completeExceptionally(new GeneralSecurityException("encryption failed", e));
+      }
+      return result;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> decryptAsync(
+        final byte[] ciphertext, final byte[] associatedData) {
+      CompletableFuture<byte[]> result = new CompletableFuture<>();
+      try {
+        kmsClient.decryptAsync(
+            decryptRequest(keyArn, ciphertext, associatedData),
+            new AsyncHandler<DecryptRequest, DecryptResult>() {
+              @Override
+              public void onError(Exception e) {
+                result.completeExceptionally(new GeneralSecurityException("decryption failed", e));
+              }
+
+              @Override
+              public void onSuccess(DecryptRequest request, DecryptResult decryptResult) {
+                try {
+                  result.complete(getPlaintext(keyArn, decryptResult));
+                } catch (GeneralSecurityException e) {
+                  result.completeExceptionally(e);
+                }
+              }
+            });
+      } catch (RuntimeException e) {
+        result.completeExceptionally(new GeneralSecurityException("decryption failed", e));
+      }
+      return result;
+    }
+  }
 }
@@ -16,7 +16,8 @@
 package com.google.crypto.tink.integration.awskms;
 
 import com.amazonaws.AmazonServiceException;
-import com.amazonaws.services.kms.AbstractAWSKMS;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.kms.AbstractAWSKMSAsync;
 import com.amazonaws.services.kms.model.DecryptRequest;
 import com.amazonaws.services.kms.model.DecryptResult;
 import com.amazonaws.services.kms.model.EncryptRequest;
@@ -31,15 +32,20 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
 /**
- * A partial, fake implementation of AWSKMS that only supports encrypt and decrypt.
+ * A partial, fake implementation of AWSKMSAsync that only supports encrypt and decrypt.
  *
  * <p>It creates a new AEAD for every valid key ID. It can encrypt message for these valid key IDs,
  * but fails for all other key IDs. On decrypt, it tries out all its AEADs and returns the plaintext
  * and the key ID of the AEAD that can successfully decrypt it.
+ *
+ * <p>The asynchronous methods run the operation on the calling thread, and call the handler before
+ * they return.
  */
-final class FakeAwsKms extends AbstractAWSKMS {
+final class FakeAwsKms extends AbstractAWSKMSAsync {
   private static final Charset UTF_8 = Charset.forName("UTF-8");
   private final Map<String, Aead> aeads = new HashMap<>();
 
@@ -93,4 +99,42 @@ final class FakeAwsKms extends AbstractAWSKMS {
     }
     throw new AmazonServiceException("unable to decrypt");
   }
+
+  @Override
+  public Future<EncryptResult> encryptAsync(
+      EncryptRequest request, AsyncHandler<EncryptRequest, EncryptResult> asyncHandler) {
+    CompletableFuture<EncryptResult> future = new CompletableFuture<>();
+    try {
+      EncryptResult result = encrypt(request);
+      future.complete(result);
+      if (asyncHandler != null) {
+        asyncHandler.onSuccess(request, result);
+      }
+    } catch (AmazonServiceException e) {
+      future.completeExceptionally(e);
+      if (asyncHandler != null) {
+        asyncHandler.onError(e);
+      }
+    }
+    return future;
+  }
+
+  @Override
+  public Future<DecryptResult> decryptAsync(
+      DecryptRequest request, AsyncHandler<DecryptRequest, DecryptResult> asyncHandler) {
+    CompletableFuture<DecryptResult> future = new CompletableFuture<>();
+    try {
+      DecryptResult result = decrypt(request);
+      future.complete(result);
+      if (asyncHandler != null) {
+        asyncHandler.onSuccess(request, result);
+      }
+    } catch (AmazonServiceException e) {
+      future.completeExceptionally(e);
+      if (asyncHandler != null) {
+        asyncHandler.onError(e);
+      }
+    }
+    return future;
+  }
 }
@@ -16,17 +16,24 @@
 
 package com.google.crypto.tink.integration.gcpkms;
 
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
 import com.google.api.services.cloudkms.v1.CloudKMS;
 import com.google.api.services.cloudkms.v1.model.DecryptRequest;
 import com.google.api.services.cloudkms.v1.model.DecryptResponse;
 import com.google.api.services.cloudkms.v1.model.EncryptRequest;
 import com.google.api.services.cloudkms.v1.model.EncryptResponse;
 import com.google.cloud.kms.v1.KeyManagementServiceClient;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.AsyncAead;
+import com.google.crypto.tink.aead.internal.ExecutorAsyncAead;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.protobuf.ByteString;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 
@@ -109,8 +116,10 @@ public final class GcpKmsAead implements Aead {
   /**
    * An {@link Aead} that forwards encryption/decryption requests to a key in <a
    * href="https://cloud.google.com/kms/">Google Cloud KMS</a> using GRPC.
+   *
+   * <p>The asynchronous methods use the futures of the GRPC client and do not block.
    */
-  private static final class GcpKmsAeadGrpc implements Aead {
+  private static final class GcpKmsAeadGrpc implements Aead, AsyncAead {
 
     /** A GRPC-based client to communicate with Google Cloud KMS. */
     private final KeyManagementServiceClient kmsClient;
@@ -125,18 +134,30 @@ public final class GcpKmsAead implements Aead {
       this.keyName = keyName;
     }
 
+    private com.google.cloud.kms.v1.EncryptRequest encryptRequest(
+        final byte[] plaintext, final byte[] associatedData) {
+      return com.google.cloud.kms.v1.EncryptRequest.newBuilder()
+          .setName(keyName)
+          .setPlaintext(ByteString.copyFrom(plaintext))
+          .setAdditionalAuthenticatedData(ByteString.copyFrom(associatedData))
+          .build();
+    }
+
+    private com.google.cloud.kms.v1.DecryptRequest decryptRequest(
+        final byte[] ciphertext, final byte[] associatedData) {
+      return com.google.cloud.kms.v1.DecryptRequest.newBuilder()
+          .setName(keyName)
+          .setCiphertext(ByteString.copyFrom(ciphertext))
+          .setAdditionalAuthenticatedData(ByteString.copyFrom(associatedData))
+          .build();
+    }
+
     @Override
     public byte[] encrypt(final byte[] plaintext, final byte[] associatedData)
         throws GeneralSecurityException {
       try {
-        com.google.cloud.kms.v1.EncryptRequest encryptRequest =
-            com.google.cloud.kms.v1.EncryptRequest.newBuilder()
-                .setName(keyName)
-                .setPlaintext(ByteString.copyFrom(plaintext))
-                .setAdditionalAuthenticatedData(ByteString.copyFrom(associatedData))
-                .build();
-
-        com.google.cloud.kms.v1.EncryptResponse encResponse = kmsClient.encrypt(encryptRequest);
+        com.google.cloud.kms.v1.EncryptResponse encResponse =
+            kmsClient.encrypt(encryptRequest(plaintext, associatedData));
         return encResponse.getCiphertext().toByteArray();
       } catch (RuntimeException e) {
         throw new GeneralSecurityException("encryption failed", e);
@@ -147,19 +168,63 @@ public final class GcpKmsAead implements Aead {
     public byte[] decrypt(final byte[] ciphertext, final byte[] associatedData)
         throws GeneralSecurityException {
       try {
-        com.google.cloud.kms.v1.DecryptRequest decryptRequest =
-            com.google.cloud.kms.v1.DecryptRequest.newBuilder()
-                .setName(keyName)
-                .setCiphertext(ByteString.copyFrom(ciphertext))
-                .setAdditionalAuthenticatedData(ByteString.copyFrom(associatedData))
-                .build();
-
-        com.google.cloud.kms.v1.DecryptResponse decResponse = kmsClient.decrypt(decryptRequest);
+        com.google.cloud.kms.v1.DecryptResponse decResponse =
+            kmsClient.decrypt(decryptRequest(ciphertext, associatedData));
         return decResponse.getPlaintext().toByteArray();
       } catch (RuntimeException e) {
         throw new GeneralSecurityException("decryption failed", e);
       }
     }
+
+    @Override
+    public CompletableFuture<byte[]> encryptAsync(
+        final byte[] plaintext, final byte[] associatedData) {
+      CompletableFuture<byte[]> result = new CompletableFuture<>();
+      try {
+        ApiFutures.addCallback(
+            kmsClient.encryptCallable().futureCall(encryptRequest(plaintext, associatedData)),
+            new ApiFutureCallback<com.google.cloud.kms.v1.EncryptResponse>() {
+              @Override
+              public void onFailure(Throwable t) {
+                result.completeExceptionally(new GeneralSecurityException("encryption failed", t));
+              }
+
+              @Override
+              public void onSuccess(com.google.cloud.kms.v1.EncryptResponse encResponse) {
+                result.complete(encResponse.getCiphertext().toByteArray());
+              }
+            },
+            MoreExecutors.directExecutor());
+      } catch (RuntimeException e) {
+        result.completeExceptionally(new GeneralSecurityException("encryption failed", e));
+      }
+      return result;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> decryptAsync(
+        final byte[] ciphertext, final byte[] associatedData) {
+      CompletableFuture<byte[]> result = new CompletableFuture<>();
+      try {
+        ApiFutures.addCallback(
+            kmsClient.decryptCallable().futureCall(decryptRequest(ciphertext, associatedData)),
+            new ApiFutureCallback<com.google.cloud.kms.v1.DecryptResponse>() {
+              @Override
+              public void onFailure(Throwable t) {
+                result.completeExceptionally(new GeneralSecurityException("decryption failed", t));
+              }
+
+              @Override
+              public void onSuccess(com.google.cloud.kms.v1.DecryptResponse decResponse) {
+                result.complete(decResponse.getPlaintext().toByteArray());
+              }
+            },
+            MoreExecutors.directExecutor());
+      } catch (RuntimeException e) {
+        result.completeExceptionally(new GeneralSecurityException("decryption failed", e));
+      }
+      return result;
+    }
   }
 
   /**
@@ -170,11 +235,17 @@ public final class GcpKmsAead implements Aead {
    * the Aead will communicate with Cloud KMS via HTTP given a {@link CloudKMS} instance.
    *
    * <p>For new users we recommend using {@link #setKeyManagementServiceClient}.
+   *
+   * <p>{@link #buildAsync} returns an {@link AsyncAead}. With {@link
+   * #setKeyManagementServiceClient}, it uses the asynchronous GRPC calls. With {@link
+   * #setCloudKms}, the requests are blocking and are run on the executor set with {@link
+   * #setExecutor}.
    */
   public static final class Builder {
     @Nullable private String keyName = null;
     @Nullable private CloudKMS kmsClientHttp = null;
     @Nullable private KeyManagementServiceClient kmsClientGrpc = null;
+    @Nullable private Executor executor = null;
     private static final String KEY_NAME_PATTERN =
         "projects/([^/]+)/locations/([a-zA-Z0-9_-]{1,63})/keyRings/"
             + "[a-zA-Z0-9_-]{1,63}/cryptoKeys/[a-zA-Z0-9_-]{1,63}";
@@ -203,7 +274,39 @@ public final class GcpKmsAead implements Aead {
       return this;
     }
 
+    /**
+     * Set the executor that runs the requests of the {@link AsyncAead} returned by {@link
+     * #buildAsync} if {@link #setCloudKms} is used.
+     */
+    @CanIgnoreReturnValue
+    public Builder setExecutor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
     public Aead build() throws GeneralSecurityException {
+      validate();
+      if (kmsClientHttp != null) {
+        return new GcpKmsAead(kmsClientHttp, keyName);
+      }
+
+      return new GcpKmsAeadGrpc(kmsClientGrpc, keyName);
+    }
+
+    public AsyncAead buildAsync() throws GeneralSecurityException {
+      validate();
+      if (kmsClientHttp != null) {
+        if (executor == null) {
+          throw new GeneralSecurityException(
+              "The executor must be provided when the CloudKMS object is used.");
+        }
+        return ExecutorAsyncAead.create(new GcpKmsAead(kmsClientHttp, keyName), executor);
+      }
+
+      return new GcpKmsAeadGrpc(kmsClientGrpc, keyName);
+    }
+
+    private void validate() throws GeneralSecurityException {
       if (keyName == null) {
         throw new GeneralSecurityException("The keyName is null.");
       }
@@ -225,12 +328,6 @@ public final class GcpKmsAead implements Aead {
         throw new GeneralSecurityException(
             "Either the CloudKMS or the KeyManagementServiceClient object must be provided.");
       }
-
-      if (kmsClientHttp != null) {
-        return new GcpKmsAead(kmsClientHttp, keyName);
-      }
-
-      return new GcpKmsAeadGrpc(kmsClientGrpc, keyName);
     }
   }
 
@@ -17,6 +17,8 @@
 package com.google.crypto.tink.integration.hcvault;
 
 import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.AsyncAead;
+import com.google.crypto.tink.aead.internal.ExecutorAsyncAead;
 import io.github.jopenlibs.vault.VaultException;
 import io.github.jopenlibs.vault.api.Logical;
 import io.github.jopenlibs.vault.response.LogicalResponse;
@@ -25,6 +27,7 @@ import java.util.Arrays;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 /**
@@ -46,6 +49,18 @@ public final class HcVaultAead implements Aead {
     return new HcVaultAead(keyPath, vaultApi);
   }
 
+  /**
+   * Returns an {@link AsyncAead} for the key at {@code keyPath}.
+   *
+   * <p>The Vault client only supports blocking requests, so the requests are sent from a task run
+   * on {@code executor}, and the calling thread does not wait for them. {@code executor} should
+   * allow for as many concurrent tasks as there are concurrent requests to Vault.
+   */
+  public static AsyncAead newAsyncAead(String keyPath, Logical vaultApi, Executor executor)
+      throws GeneralSecurityException {
+    return ExecutorAsyncAead.create(new HcVaultAead(keyPath, vaultApi), executor);
+  }
+
   @Override
   public byte[] encrypt(final byte[] plaintext, final byte[] associatedData)
       throws GeneralSecurityException {
@@ -22,6 +22,8 @@ import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
+import javax.annotation.Nullable;
 
 /**
  * This implementation is based on the ed25519/ref10 implementation in NaCl.
@@ -688,30 +690,74 @@ public final class Ed25519 {
     return r;
   }
 
+  /** Returns pointA, 3*pointA, 5*pointA, ..., 15*pointA. */
+  private static XYZT[] oddMultiples(XYZT pointA) {
+    XYZT[] multiples = new XYZT[8];
+    multiples[0] = pointA;
+    PartialXYZT t = new PartialXYZT();
+    doubleXYZT(t, pointA);
+    XYZT doubleA = new XYZT(t);
+    CachedXYZT previous = new CachedXYZT(pointA);
+    for (int i = 1; i < multiples.length; i++) {
+      add(t, doubleA, previous);
+      multiples[i] = new XYZT(t);
+      previous = new CachedXYZT(multiples[i]);
+    }
+    return multiples;
+  }
+
+  /**
+   * Returns the cached representations of pointA, 3*pointA, 5*pointA, ..., 15*pointA, as needed by
+   * {@link #doubleScalarMultVarTime}.
+   */
+  private static CachedXYT[] cachedOddMultiples(XYZT pointA) {
+    XYZT[] multiples = oddMultiples(pointA);
+    CachedXYT[] result = new CachedXYT[multiples.length];
+    for (int i = 0; i < multiples.length; i++) {
+      result[i] = new CachedXYZT(multiples[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Like {@link #cachedOddMultiples}, but normalizes each point to Z = 1, which saves a field
+   * multiplication in every addition that uses the result. This costs one inversion per point, so
+   * it only pays off if the result is used for several scalar multiplications.
+   */
+  private static CachedXYT[] cachedOddMultiplesWithZOne(XYZT pointA) {
+    XYZT[] multiples = oddMultiples(pointA);
+    CachedXYT[] result = new CachedXYT[multiples.length];
+    long[] recip = new long[Field25519.LIMB_CNT];
+    long[] x = new long[Field25519.LIMB_CNT];
+    long[] y = new long[Field25519.LIMB_CNT];
+    for (int i = 0; i < multiples.length; i++) {
+      Field25519.inverse(recip, multiples[i].xyz.z);
+      Field25519.mult(x, multiples[i].xyz.x, recip);
+      Field25519.mult(y, multiples[i].xyz.y, recip);
+      CachedXYT cached = new CachedXYT();
+      Field25519.sum(cached.yPlusX, y, x);
+      Field25519.sub(cached.yMinusX, y, x);
+      Field25519.mult(cached.t2d, x, y);
+      Field25519.mult(cached.t2d, cached.t2d, Ed25519Constants.D2);
+      result[i] = cached;
+    }
+    return result;
+  }
+
   /**
-   * Computes {@code a}*{@code pointA}+{@code b}*B
+   * Computes {@code a}*A+{@code b}*B
    * where a = a[0]+256*a[1]+...+256^31*a[31].
    * and b = b[0]+256*b[1]+...+256^31*b[31].
    * B is the Ed25519 base point (x,4/5) with x positive.
+   * {@code pointAArray} contains A, 3*A, 5*A, ..., 15*A (see {@link #cachedOddMultiples}).
    *
    * Note that execution time varies based on the input since this will only be used in verification
    * of signatures.
    */
-  private static XYZ doubleScalarMultVarTime(byte[] a, XYZT pointA, byte[] b) {
-    // pointA, 3*pointA, 5*pointA, 7*pointA, 9*pointA, 11*pointA, 13*pointA, 15*pointA
-    CachedXYZT[] pointAArray = new CachedXYZT[8];
-    pointAArray[0] = new CachedXYZT(pointA);
-    PartialXYZT t = new PartialXYZT();
-    doubleXYZT(t, pointA);
-    XYZT doubleA = new XYZT(t);
-    for (int i = 1; i < pointAArray.length; i++) {
-      add(t, doubleA, pointAArray[i - 1]);
-      pointAArray[i] = new CachedXYZT(new XYZT(t));
-    }
-
+  private static XYZ doubleScalarMultVarTime(byte[] a, CachedXYT[] pointAArray, byte[] b) {
     byte[] aSlide = slide(a);
     byte[] bSlide = slide(b);
-    t = new PartialXYZT(NEUTRAL);
+    PartialXYZT t = new PartialXYZT(NEUTRAL);
     XYZT u = new XYZT();
     int i = 255;
     for (; i >= 0; i--) {
@@ -1588,6 +1634,39 @@ public final class Ed25519 {
     return false;
   }
 
+  /**
+   * An Ed25519 public key which has been decoded and negated, together with the multiples of the
+   * negated point used in verification. Creating this once and verifying many signatures with it
+   * avoids decoding the point (which needs a field exponentiation) for every signature.
+   *
+   * <p>Instances are immutable and can be shared between threads.
+   */
+  public static final class PrecomputedPublicKey {
+    private final byte[] publicKey;
+    private final CachedXYT[] negPublicKeyMultiples;
+
+    private PrecomputedPublicKey(byte[] publicKey, CachedXYT[] negPublicKeyMultiples) {
+      this.publicKey = publicKey;
+      this.negPublicKeyMultiples = negPublicKeyMultiples;
+    }
+  }
+
+  /**
+   * Decodes {@code publicKey} for use with {@link #verify(byte[], byte[], PrecomputedPublicKey)}.
+   *
+   * @throws GeneralSecurityException if {@code publicKey} is not a valid encoding of a point.
+   */
+  public static PrecomputedPublicKey precomputePublicKey(final byte[] publicKey)
+      throws GeneralSecurityException {
+    if (publicKey.length != PUBLIC_KEY_LEN) {
+      throw new GeneralSecurityException(
+          String.format("Given public key's length is not %s.", PUBLIC_KEY_LEN));
+    }
+    byte[] publicKeyCopy = Arrays.copyOf(publicKey, PUBLIC_KEY_LEN);
+    return new PrecomputedPublicKey(
+        publicKeyCopy, cachedOddMultiplesWithZOne(XYZT.fromBytesNegateVarTime(publicKeyCopy)));
+  }
+
   /**
    * Returns true if the EdDSA {@code signature} with {@code message}, can be verified with {@code
    * publicKey}.
@@ -1597,6 +1676,32 @@ public final class Ed25519 {
    */
   public static boolean verify(final byte[] message, final byte[] signature, final byte[] publicKey)
       throws GeneralSecurityException {
+    return verify(message, signature, publicKey, /* negPublicKeyMultiples= */ null);
+  }
+
+  /**
+   * Returns true if the EdDSA {@code signature} with {@code message}, can be verified with {@code
+   * publicKey}.
+   *
+   * @throws GeneralSecurityException if there is no SHA-512 algorithm defined in {@link
+   *     EngineFactory}.MESSAGE_DIGEST.
+   */
+  public static boolean verify(
+      final byte[] message, final byte[] signature, final PrecomputedPublicKey publicKey)
+      throws GeneralSecurityException {
+    return verify(message, signature, publicKey.publicKey, publicKey.negPublicKeyMultiples);
+  }
+
+  /**
+   * Verifies {@code signature}. If {@code negPublicKeyMultiples} is null, it is computed from
+   * {@code publicKey}.
+   */
+  private static boolean verify(
+      final byte[] message,
+      final byte[] signature,
+      final byte[] publicKey,
+      @Nullable CachedXYT[] negPublicKeyMultiples)
+      throws GeneralSecurityException {
     if (signature.length != SIGNATURE_LEN) {
       return false;
     }
@@ -1611,8 +1716,10 @@ public final class Ed25519 {
     byte[] h = digest.digest();
     reduce(h);
 
-    XYZT negPublicKey = XYZT.fromBytesNegateVarTime(publicKey);
-    XYZ xyz = doubleScalarMultVarTime(h, negPublicKey, s);
+    if (negPublicKeyMultiples == null) {
+      negPublicKeyMultiples = cachedOddMultiples(XYZT.fromBytesNegateVarTime(publicKey));
+    }
+    XYZ xyz = doubleScalarMultVarTime(h, negPublicKeyMultiples, s);
     byte[] expectedR = xyz.toBytes();
     for (int i = 0; i < Field25519.FIELD_LEN; i++) {
       if (expectedR[i] != signature[i]) {
@@ -1622,6 +1729,239 @@ public final class Ed25519 {
     return true;
   }
 
+  /** Batches smaller than this are verified one signature at a time. */
+  private static final int MIN_BATCH_SIZE = 4;
+
+  /** Size in bytes of the random scalars used to combine the equations of a batch. */
+  private static final int BATCH_RANDOM_SCALAR_LEN = 16;
+
+  /**
+   * Verifies {@code signatures[i]} for {@code messages[i]} under {@code publicKeys[i]} for all i,
+   * and returns an array whose i-th element is true iff the i-th signature is valid.
+   *
+   * <p>This checks a random linear combination of the verification equations of all signatures
+   * with a single multi-scalar multiplication, which shares the point doublings between all
+   * signatures, and the work for signatures which use the same {@link PrecomputedPublicKey}
+   * object. Only if this check fails, the signatures are verified one by one to find the invalid
+   * ones.
+   *
+   * <p>The batch equation is multiplied by the cofactor 8, so the result for each signature is the
+   * result of {@link #verifyCofactored}, and does not depend on the other signatures in the batch
+   * or on the random scalars (except with probability 2^-128). This accepts every signature
+   * accepted by {@link #verify(byte[], byte[], PrecomputedPublicKey)}, and additionally
+   * signatures whose verification equation only holds up to a point of small order. Such
+   * signatures cannot be created without the private key.
+   *
+   * @throws GeneralSecurityException if there is no SHA-512 algorithm defined in {@link
+   *     EngineFactory}.MESSAGE_DIGEST.
+   */
+  public static boolean[] verifyBatch(
+      final byte[][] messages, final byte[][] signatures, final PrecomputedPublicKey[] publicKeys)
+      throws GeneralSecurityException {
+    int n = messages.length;
+    if (signatures.length != n || publicKeys.length != n) {
+      throw new IllegalArgumentException(
+          "messages, signatures and publicKeys must have equal size");
+    }
+    boolean[] result = new boolean[n];
+    if (n < MIN_BATCH_SIZE) {
+      for (int i = 0; i < n; i++) {
+        result[i] = verifyCofactored(messages[i], signatures[i], publicKeys[i]);
+      }
+      return result;
+    }
+
+    // For each candidate signature i, with random z_i, we check
+    //   8*((sum z_i*s_i)*B + sum z_i*(-R_i) + sum (z_i*h_i)*(-A_i)) == 0.
+    // Scalars for the same public key are added up, so that its multiples are only used once.
+    MessageDigest digest = EngineFactory.MESSAGE_DIGEST.getInstance("SHA-512");
+    byte[] zero = new byte[Field25519.FIELD_LEN];
+    byte[] baseScalar = new byte[Field25519.FIELD_LEN];
+    byte[][] scalars = new byte[2 * n][];
+    CachedXYT[][] pointTables = new CachedXYT[2 * n][];
+    IdentityHashMap<PrecomputedPublicKey, Integer> publicKeyIndex = new IdentityHashMap<>();
+    int pointCount = 0;
+    int[] candidates = new int[n];
+    int candidateCount = 0;
+    for (int i = 0; i < n; i++) {
+      byte[] signature = signatures[i];
+      if (signature.length != SIGNATURE_LEN) {
+        continue;
+      }
+      byte[] s = Arrays.copyOfRange(signature, Field25519.FIELD_LEN, SIGNATURE_LEN);
+      byte[] r = Arrays.copyOf(signature, Field25519.FIELD_LEN);
+      XYZT negR = decodeNegRIfWellFormed(r, s);
+      if (negR == null) {
+        continue;
+      }
+      byte[] h = computeH(digest, r, publicKeys[i].publicKey, messages[i]);
+
+      byte[] z = Arrays.copyOf(Random.randBytes(BATCH_RANDOM_SCALAR_LEN), Field25519.FIELD_LEN);
+      byte[] newBaseScalar = new byte[Field25519.FIELD_LEN];
+      mulAdd(newBaseScalar, z, s, baseScalar);
+      baseScalar = newBaseScalar;
+
+      scalars[pointCount] = z;
+      pointTables[pointCount] = cachedOddMultiples(negR);
+      pointCount++;
+
+      Integer keyIndex = publicKeyIndex.get(publicKeys[i]);
+      if (keyIndex == null) {
+        byte[] zh = new byte[Field25519.FIELD_LEN];
+        mulAdd(zh, z, h, zero);
+        publicKeyIndex.put(publicKeys[i], pointCount);
+        scalars[pointCount] = zh;
+        pointTables[pointCount] = publicKeys[i].negPublicKeyMultiples;
+        pointCount++;
+      } else {
+        byte[] zh = new byte[Field25519.FIELD_LEN];
+        mulAdd(zh, z, h, scalars[keyIndex]);
+        scalars[keyIndex] = zh;
+      }
+      candidates[candidateCount++] = i;
+    }
+
+    if (isSmallOrderMultiScalarMultVarTime(
+        Arrays.copyOf(scalars, pointCount), Arrays.copyOf(pointTables, pointCount), baseScalar)) {
+      for (int j = 0; j < candidateCount; j++) {
+        result[candidates[j]] = true;
+      }
+      return result;
+    }
+    // At least one candidate is invalid. Find out which.
+    for (int j = 0; j < candidateCount; j++) {
+      int i = candidates[j];
+      result[i] = verifyCofactored(messages[i], signatures[i], publicKeys[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Returns true if the EdDSA {@code signature} with {@code message} can be verified with {@code
+   * publicKey} using the cofactored verification equation 8*(s*B - h*A - R) == 0 (RFC 8032,
+   * Section 5.1.7).
+   *
+   * <p>This accepts every signature accepted by {@link #verify(byte[], byte[],
+   * PrecomputedPublicKey)}. It is the single-signature equivalent of {@link #verifyBatch}.
+   *
+   * @throws GeneralSecurityException if there is no SHA-512 algorithm defined in {@link
+   *     EngineFactory}.MESSAGE_DIGEST.
+   */
+  public static boolean verifyCofactored(
+      final byte[] message, final byte[] signature, final PrecomputedPublicKey publicKey)
+      throws GeneralSecurityException {
+    if (signature.length != SIGNATURE_LEN) {
+      return false;
+    }
+    byte[] s = Arrays.copyOfRange(signature, Field25519.FIELD_LEN, SIGNATURE_LEN);
+    byte[] r = Arrays.copyOf(signature, Field25519.FIELD_LEN);
+    XYZT negR = decodeNegRIfWellFormed(r, s);
+    if (negR == null) {
+      return false;
+    }
+    byte[] h =
+        computeH(
+            EngineFactory.MESSAGE_DIGEST.getInstance("SHA-512"), r, publicKey.publicKey, message);
+    byte[] one = new byte[Field25519.FIELD_LEN];
+    one[0] = 1;
+    return isSmallOrderMultiScalarMultVarTime(
+        new byte[][] {one, h},
+        new CachedXYT[][] {cachedOddMultiples(negR), publicKey.negPublicKeyMultiples},
+        s);
+  }
+
+  /**
+   * Returns -R if {@code s} is smaller than the group order and {@code r} is the canonical
+   * encoding of a point R, and null otherwise.
+   */
+  @Nullable
+  private static XYZT decodeNegRIfWellFormed(byte[] r, byte[] s) {
+    if (!isSmallerThanGroupOrder(s)) {
+      return null;
+    }
+    // verify() compares encodings, so it rejects non-canonical encodings of R. The cofactored
+    // equation compares points, so these have to be rejected here.
+    if (!isCanonicalPointEncoding(r)) {
+      return null;
+    }
+    try {
+      return XYZT.fromBytesNegateVarTime(r);
+    } catch (GeneralSecurityException e) {
+      // R is not a point, so verify() can never output it.
+      return null;
+    }
+  }
+
+  /** Returns SHA-512(r || publicKey || message) reduced modulo the group order. */
+  private static byte[] computeH(
+      MessageDigest digest, byte[] r, byte[] publicKey, byte[] message) {
+    digest.reset();
+    digest.update(r);
+    digest.update(publicKey);
+    digest.update(message);
+    byte[] h = digest.digest();
+    reduce(h);
+    return h;
+  }
+
+  /** Returns false iff the y-coordinate encoded in {@code s} is at least 2^255-19. */
+  private static boolean isCanonicalPointEncoding(byte[] s) {
+    if ((s[31] & 0x7f) != 0x7f) {
+      return true;
+    }
+    for (int i = 30; i > 0; i--) {
+      if (s[i] != (byte) 0xff) {
+        return true;
+      }
+    }
+    return (s[0] & 0xff) < 0xed;
+  }
+
+  /**
+   * Returns true iff {@code b}*B + sum {@code scalars[i]}*P_i is a point of small order, i.e. iff
+   * 8 times it is the neutral element, where B is the Ed25519 base point and {@code pointTables[i]}
+   * are the cached odd multiples of P_i (see {@link #cachedOddMultiples}).
+   *
+   * This interleaves the sliding window multiplications of all points, so the 256 doublings are
+   * only done once. Note that execution time varies based on the input since this will only be
+   * used in verification of signatures.
+   */
+  private static boolean isSmallOrderMultiScalarMultVarTime(
+      byte[][] scalars, CachedXYT[][] pointTables, byte[] b) {
+    byte[][] slides = new byte[scalars.length][];
+    for (int j = 0; j < scalars.length; j++) {
+      slides[j] = slide(scalars[j]);
+    }
+    byte[] bSlide = slide(b);
+    PartialXYZT t = new PartialXYZT(NEUTRAL);
+    XYZT u = new XYZT();
+    for (int i = 255; i >= 0; i--) {
+      doubleXYZ(t, new XYZ(t));
+      for (int j = 0; j < slides.length; j++) {
+        byte digit = slides[j][i];
+        if (digit > 0) {
+          add(t, XYZT.fromPartialXYZT(u, t), pointTables[j][digit / 2]);
+        } else if (digit < 0) {
+          sub(t, XYZT.fromPartialXYZT(u, t), pointTables[j][-digit / 2]);
+        }
+      }
+      if (bSlide[i] > 0) {
+        add(t, XYZT.fromPartialXYZT(u, t), Ed25519Constants.B2[bSlide[i] / 2]);
+      } else if (bSlide[i] < 0) {
+        sub(t, XYZT.fromPartialXYZT(u, t), Ed25519Constants.B2[-bSlide[i] / 2]);
+      }
+    }
+    // Multiply by the cofactor.
+    for (int i = 0; i < 3; i++) {
+      doubleXYZ(t, new XYZ(t));
+    }
+    // The neutral element is (0:Z:Z).
+    XYZ xyz = new XYZ(t);
+    long[] yMinusZ = new long[Field25519.LIMB_CNT];
+    Field25519.sub(yMinusZ, xyz.y, xyz.z);
+    return !isNonZeroVarTime(xyz.x) && !isNonZeroVarTime(yMinusZ);
+  }
+
   /** Initializes Ed25519 if not yet initialized. */
   public static void init() {
     // We access one of the constants to make sure that the static initialization is called.
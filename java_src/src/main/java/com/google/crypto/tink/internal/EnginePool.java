@@ -0,0 +1,67 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.internal;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A bounded pool of JCE objects (such as {@code Mac}, {@code Signature} or {@code Cipher}) which
+ * are initialized with the key of one primitive, so that provider lookup and key setup are not
+ * repeated for every call.
+ *
+ * <p>Each call takes an object with {@link #acquire}, which returns an idle object or creates a new
+ * one, and gives it back with {@link #release} once it has been used successfully and is in its
+ * initialized state again. At most {@link #MAX_IDLE_ENGINES} idle objects are kept; objects
+ * released to a full pool are dropped. This bounds the memory used by each primitive
+ * independently of the number of threads. Objects must not be released after an exception, since
+ * their state is then unknown.
+ *
+ * <p>This class is thread-safe.
+ */
+public final class EnginePool<T> {
+  /** Creates a new initialized object. */
+  public interface Factory<T> {
+    T create() throws GeneralSecurityException;
+  }
+
+  /** The maximal number of idle objects kept by a pool. */
+  public static final int MAX_IDLE_ENGINES = 16;
+
+  private final Factory<T> factory;
+  private final ArrayBlockingQueue<T> idleEngines = new ArrayBlockingQueue<>(MAX_IDLE_ENGINES);
+
+  public EnginePool(Factory<T> factory) {
+    this.factory = factory;
+  }
+
+  /** Returns an idle object, or a new one if there is none. */
+  public T acquire() throws GeneralSecurityException {
+    T engine = idleEngines.poll();
+    return engine != null ? engine : factory.create();
+  }
+
+  /** Makes {@code engine} available to later calls of {@link #acquire}, unless the pool is full. */
+  public void release(T engine) {
+    idleEngines.offer(engine);
+  }
+
+  /** Returns the number of idle objects. */
+  public int idleCount() {
+    return idleEngines.size();
+  }
+}
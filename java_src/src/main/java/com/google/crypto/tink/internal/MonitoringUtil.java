@@ -37,6 +37,27 @@ public final class MonitoringUtil {
 
   public static final MonitoringClient.Logger DO_NOTHING_LOGGER = new DoNothingLogger();
 
+  /**
+   * Returns the start time of a call logged with {@code logger}, to be passed to {@link
+   * #logSuccess}. Returns 0 without reading the clock if {@code logger} does not record latencies.
+   */
+  public static long startTimer(MonitoringClient.Logger logger) {
+    return logger.recordsLatency() ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Logs a successful call of the key with id {@code keyId}, which started at {@code startNanos}
+   * (as returned by {@link #startTimer}).
+   */
+  public static void logSuccess(
+      MonitoringClient.Logger logger, int keyId, long numBytesAsInput, long startNanos) {
+    if (logger.recordsLatency()) {
+      logger.logWithLatency(keyId, numBytesAsInput, System.nanoTime() - startNanos);
+    } else {
+      logger.log(keyId, numBytesAsInput);
+    }
+  }
+
   private static KeyStatus parseStatus(KeyStatusType in) {
     switch (in) {
       case ENABLED:
@@ -25,6 +25,7 @@ import com.google.crypto.tink.proto.Keyset;
 import com.google.crypto.tink.proto.OutputPrefixType;
 import com.google.crypto.tink.util.Bytes;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -51,13 +52,25 @@ import javax.annotation.Nullable;
  */
 public final class PrimitiveSet<P> {
 
+  /**
+   * Provides the key of an entry and creates its full primitive, for entries which are only
+   * created when they are first used. See {@link Builder#addLazyFullPrimitive}.
+   */
+  public interface LazyFullPrimitive<P> {
+    /** Returns the key of the entry, typically by parsing it. */
+    Key getKey() throws GeneralSecurityException;
+
+    /** Creates the full primitive for {@code key}, which was returned by {@link #getKey}. */
+    P createFullPrimitive(Key key) throws GeneralSecurityException;
+  }
+
   /**
    * A single entry in the set. In addition to the actual primitive it holds also some extra
    * information about the primitive.
    */
   public static final class Entry<P> {
-    // If set, this is a primitive of a key.
-    private final P fullPrimitive;
+    // If set, this is a primitive of a key. Set on first use if lazyFullPrimitive is set.
+    private volatile P fullPrimitive;
     // Identifies the primitive within the set.
     // It is the ciphertext prefix of the corresponding key.
     private final Bytes outputPrefix;
@@ -68,16 +81,20 @@ public final class PrimitiveSet<P> {
     // The id of the key.
     private final int keyId;
     private final String keyTypeUrl;
-    private final Key key;
+    // Set on first use if lazyFullPrimitive is set.
+    private volatile Key key;
+    // If set, key and fullPrimitive are created by it on first use.
+    @Nullable private final LazyFullPrimitive<P> lazyFullPrimitive;
 
     private Entry(
-        P fullPrimitive,
+        @Nullable P fullPrimitive,
         final Bytes outputPrefix,
         KeyStatusType status,
         OutputPrefixType outputPrefixType,
         int keyId,
         String keyTypeUrl,
-        Key key) {
+        @Nullable Key key,
+        @Nullable LazyFullPrimitive<P> lazyFullPrimitive) {
       this.fullPrimitive = fullPrimitive;
       this.outputPrefix = outputPrefix;
       this.status = status;
@@ -85,6 +102,21 @@ public final class PrimitiveSet<P> {
       this.keyId = keyId;
       this.keyTypeUrl = keyTypeUrl;
       this.key = key;
+      this.lazyFullPrimitive = lazyFullPrimitive;
+    }
+
+    private synchronized Key createKey() throws GeneralSecurityException {
+      if (key == null) {
+        key = lazyFullPrimitive.getKey();
+      }
+      return key;
+    }
+
+    private synchronized P createFullPrimitive() throws GeneralSecurityException {
+      if (fullPrimitive == null) {
+        fullPrimitive = lazyFullPrimitive.createFullPrimitive(createKey());
+      }
+      return fullPrimitive;
     }
 
     /**
@@ -94,9 +126,31 @@ public final class PrimitiveSet<P> {
      * self-sufficient by itself, meaning that all the necessary information to process the
      * primitive is contained in the primitive (most likely through the new Key interface), as
      * opposed to the {@code primitive} field (see {@link #getPrimitive} for details).
+     *
+     * <p>For entries added with {@link Builder#addLazyFullPrimitive}, the primitive is created on
+     * the first call; if this fails, an {@link IllegalStateException} is thrown. Wrappers should
+     * use {@link #getFullPrimitiveOrThrow} instead.
      */
     public P getFullPrimitive() {
-      return this.fullPrimitive;
+      try {
+        return getFullPrimitiveOrThrow();
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException("Unable to create primitive for key with id " + keyId, e);
+      }
+    }
+
+    /**
+     * Same as {@link #getFullPrimitive}, but throws a {@link GeneralSecurityException} if the key
+     * of an entry added with {@link Builder#addLazyFullPrimitive} cannot be parsed or its
+     * primitive cannot be created. Wrappers can then skip such an entry like any other entry
+     * which fails to decrypt or verify.
+     */
+    public P getFullPrimitiveOrThrow() throws GeneralSecurityException {
+      P result = fullPrimitive;
+      if (result == null) {
+        result = createFullPrimitive();
+      }
+      return result;
     }
 
     public KeyStatusType getStatus() {
@@ -120,15 +174,32 @@ public final class PrimitiveSet<P> {
     }
 
     public Key getKey() {
-      return key;
+      try {
+        return getKeyOrThrow();
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException("Unable to parse key with id " + keyId, e);
+      }
+    }
+
+    /**
+     * Same as {@link #getKey}, but throws a {@link GeneralSecurityException} if the key of an
+     * entry added with {@link Builder#addLazyFullPrimitive} cannot be parsed.
+     */
+    public Key getKeyOrThrow() throws GeneralSecurityException {
+      Key result = key;
+      if (result == null && lazyFullPrimitive != null) {
+        result = createKey();
+      }
+      return result;
     }
 
     @Nullable
     public Parameters getParameters() {
-      if (key == null) {
+      Key result = getKey();
+      if (result == null) {
         return null;
       }
-      return key.getParameters();
+      return result.getParameters();
     }
   }
 
@@ -147,6 +218,73 @@ public final class PrimitiveSet<P> {
     entriesInKeysetOrder.add(entry);
   }
 
+  /**
+   * Packs a {@link CryptoFormat#NON_RAW_PREFIX_SIZE} byte output prefix into a long: the start
+   * byte goes into bits 32 to 39 and the big-endian key id into the lower 32 bits.
+   */
+  private static long packPrefix(byte[] data, int offset) {
+    return ((long) (data[offset] & 0xff) << 32)
+        | ((data[offset + 1] & 0xffL) << 24)
+        | ((data[offset + 2] & 0xffL) << 16)
+        | ((data[offset + 3] & 0xffL) << 8)
+        | (data[offset + 4] & 0xffL);
+  }
+
+  /**
+   * An open addressing hash table with linear probing from packed non-raw output prefixes (see
+   * {@link #packPrefix}) to the entries with that prefix. It is immutable after construction and
+   * always has at least one free slot, so lookups terminate.
+   */
+  private static final class PrefixTable<P> {
+    private final long[] keys;
+    private final Object[] values;
+    private final int mask;
+
+    PrefixTable(Map<Bytes, List<Entry<P>>> entries) {
+      int count = 0;
+      for (Bytes prefix : entries.keySet()) {
+        if (prefix.size() == CryptoFormat.NON_RAW_PREFIX_SIZE) {
+          count++;
+        }
+      }
+      int capacity = 2;
+      while (capacity < 2 * count) {
+        capacity <<= 1;
+      }
+      keys = new long[capacity];
+      values = new Object[capacity];
+      mask = capacity - 1;
+      for (Map.Entry<Bytes, List<Entry<P>>> entry : entries.entrySet()) {
+        if (entry.getKey().size() != CryptoFormat.NON_RAW_PREFIX_SIZE) {
+          continue;
+        }
+        long key = packPrefix(entry.getKey().toByteArray(), 0);
+        int i = slot(key);
+        while (values[i] != null) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = entry.getValue();
+      }
+    }
+
+    private int slot(long key) {
+      return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    @SuppressWarnings("unchecked") // Only lists of entries are stored in values.
+    List<Entry<P>> get(long key) {
+      int i = slot(key);
+      while (values[i] != null) {
+        if (keys[i] == key) {
+          return (List<Entry<P>>) values[i];
+        }
+        i = (i + 1) & mask;
+      }
+      return Collections.<Entry<P>>emptyList();
+    }
+  }
+
   /** Returns the entry with the primary primitive. */
   @Nullable
   public Entry<P> getPrimary() {
@@ -163,7 +301,7 @@ public final class PrimitiveSet<P> {
 
   /** Returns all primitives using RAW prefix. */
   public List<Entry<P>> getRawPrimitives() {
-    return getPrimitive(CryptoFormat.RAW_PREFIX);
+    return rawEntries;
   }
 
   /** Returns the entries with primitive identifed by {@code identifier}. */
@@ -172,6 +310,38 @@ public final class PrimitiveSet<P> {
     return found != null ? found : Collections.<Entry<P>>emptyList();
   }
 
+  /**
+   * Returns the entries whose output prefix equals the {@link CryptoFormat#NON_RAW_PREFIX_SIZE}
+   * bytes of {@code data} starting at {@code offset}, or an empty list if there are none (or if
+   * {@code data} is too short).
+   *
+   * <p>Unlike {@link #getPrimitive}, this does not copy the prefix and does not allocate, so
+   * wrappers should use it to route ciphertexts, tags and signatures to their keys.
+   */
+  public List<Entry<P>> getPrimitivesForPrefix(final byte[] data, int offset) {
+    if (offset < 0 || data.length - offset < CryptoFormat.NON_RAW_PREFIX_SIZE) {
+      return Collections.<Entry<P>>emptyList();
+    }
+    return prefixTable.get(packPrefix(data, offset));
+  }
+
+  /**
+   * Returns the entries whose output prefix equals the first {@link
+   * CryptoFormat#NON_RAW_PREFIX_SIZE} remaining bytes of {@code data}, or an empty list if there
+   * are none. Does not change the position of {@code data} and does not allocate.
+   */
+  public List<Entry<P>> getPrimitivesForPrefix(ByteBuffer data) {
+    if (data.remaining() < CryptoFormat.NON_RAW_PREFIX_SIZE) {
+      return Collections.<Entry<P>>emptyList();
+    }
+    int position = data.position();
+    long packed = 0;
+    for (int i = 0; i < CryptoFormat.NON_RAW_PREFIX_SIZE; i++) {
+      packed = (packed << 8) | (data.get(position + i) & 0xffL);
+    }
+    return prefixTable.get(packed);
+  }
+
   /** Returns all primitives. */
   public Collection<List<Entry<P>>> getAll() {
     return entries.values();
@@ -192,6 +362,12 @@ public final class PrimitiveSet<P> {
   /** Stores entries in the original keyset key order. */
   private final List<Entry<P>> entriesInKeysetOrder;
 
+  /** The entries of {@link #entries} with a non-raw prefix, for allocation-free lookups. */
+  private final PrefixTable<P> prefixTable;
+
+  /** The entries of {@link #entries} with an empty prefix. */
+  private final List<Entry<P>> rawEntries;
+
   private final Entry<P> primary;
   private final Class<P> primitiveClass;
   private final MonitoringAnnotations annotations;
@@ -205,6 +381,9 @@ public final class PrimitiveSet<P> {
       Class<P> primitiveClass) {
     this.entries = entries;
     this.entriesInKeysetOrder = entriesInKeysetOrder;
+    this.prefixTable = new PrefixTable<P>(entries);
+    List<Entry<P>> raw = entries.get(Bytes.copyFrom(CryptoFormat.RAW_PREFIX));
+    this.rawEntries = raw != null ? raw : Collections.<Entry<P>>emptyList();
     this.primary = primary;
     this.primitiveClass = primitiveClass;
     this.annotations = annotations;
@@ -227,12 +406,16 @@ public final class PrimitiveSet<P> {
 
     @CanIgnoreReturnValue
     private Builder<P> addEntry(
-        final P fullPrimitive, Key key, Keyset.Key protoKey, boolean asPrimary)
+        @Nullable final P fullPrimitive,
+        @Nullable Key key,
+        @Nullable LazyFullPrimitive<P> lazyFullPrimitive,
+        Keyset.Key protoKey,
+        boolean asPrimary)
         throws GeneralSecurityException {
       if (entries == null) {
         throw new IllegalStateException("addEntry cannot be called after build");
       }
-      if (fullPrimitive == null) {
+      if (fullPrimitive == null && lazyFullPrimitive == null) {
         throw new NullPointerException("`fullPrimitive` must not be null");
       }
       if (protoKey.getStatus() != KeyStatusType.ENABLED) {
@@ -246,7 +429,8 @@ public final class PrimitiveSet<P> {
               protoKey.getOutputPrefixType(),
               protoKey.getKeyId(),
               protoKey.getKeyData().getTypeUrl(),
-              key);
+              key,
+              lazyFullPrimitive);
       storeEntryInPrimitiveSet(entry, entries, entriesInKeysetOrder);
       if (asPrimary) {
         if (this.primary != null) {
@@ -266,7 +450,26 @@ public final class PrimitiveSet<P> {
     @CanIgnoreReturnValue
     public Builder<P> addFullPrimitive(final P fullPrimitive, Key key, Keyset.Key protoKey)
         throws GeneralSecurityException {
-      return addEntry(fullPrimitive, key, protoKey, false);
+      return addEntry(fullPrimitive, key, /* lazyFullPrimitive= */ null, protoKey, false);
+    }
+
+    /**
+     * Adds a non-primary primitive whose key is only parsed, and whose full primitive is only
+     * created, when the entry is first used. This is meant for keysets with many keys of which
+     * only few are used.
+     *
+     * <p>The caller must make sure that {@code lazyFullPrimitive} provides the key contained in
+     * {@code protoKey}.
+     */
+    @CanIgnoreReturnValue
+    public Builder<P> addLazyFullPrimitive(
+        LazyFullPrimitive<P> lazyFullPrimitive, Keyset.Key protoKey)
+        throws GeneralSecurityException {
+      if (lazyFullPrimitive == null) {
+        throw new NullPointerException("`lazyFullPrimitive` must not be null");
+      }
+      return addEntry(
+          /* fullPrimitive= */ null, /* key= */ null, lazyFullPrimitive, protoKey, false);
     }
 
     /**
@@ -278,7 +481,7 @@ public final class PrimitiveSet<P> {
     @CanIgnoreReturnValue
     public Builder<P> addPrimaryFullPrimitive(final P fullPrimitive, Key key, Keyset.Key protoKey)
         throws GeneralSecurityException {
-      return addEntry(fullPrimitive, key, protoKey, true);
+      return addEntry(fullPrimitive, key, /* lazyFullPrimitive= */ null, protoKey, true);
     }
 
     @CanIgnoreReturnValue
@@ -0,0 +1,146 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+package com.google.crypto.tink.jwt;
+
+import com.google.crypto.tink.Key;
+import com.google.crypto.tink.internal.PrimitiveSet;
+import com.google.errorprone.annotations.Immutable;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An index of the entries of a JWT primitive set by the "kid" header they accept.
+ *
+ * <p>A key with a kid (a TINK key, or a RAW key with a custom kid) only verifies tokens whose kid
+ * header is absent or equal to its kid, and the kid header may only be absent if the parameters
+ * allow it. Keys without a kid verify tokens independent of their kid header. The index uses this
+ * to select the entries that can verify a given token before any MAC or signature is checked.
+ */
+@Immutable
+final class JwtKidIndex<P> {
+  @SuppressWarnings("Immutable") // Not mutated after construction.
+  private final List<PrimitiveSet.Entry<P>> allEntries;
+
+  @SuppressWarnings("Immutable") // Not mutated after construction.
+  private final Map<String, List<PrimitiveSet.Entry<P>>> entriesByKid;
+
+  @SuppressWarnings("Immutable") // Not mutated after construction.
+  private final List<PrimitiveSet.Entry<P>> entriesWithoutKid;
+
+  @SuppressWarnings("Immutable") // Not mutated after construction.
+  private final List<PrimitiveSet.Entry<P>> entriesForAbsentKid;
+
+  private static final class KeyKid {
+    final Optional<String> kid;
+    final boolean allowKidAbsent;
+
+    KeyKid(Optional<String> kid, boolean allowKidAbsent) {
+      this.kid = kid;
+      this.allowKidAbsent = allowKidAbsent;
+    }
+  }
+
+  /** Returns the kid of {@code key}, or null if {@code key} is not a known JWT key. */
+  private static KeyKid getKeyKid(Key key) {
+    if (key instanceof JwtMacKey) {
+      JwtMacKey macKey = (JwtMacKey) key;
+      return new KeyKid(macKey.getKid(), macKey.getParameters().allowKidAbsent());
+    }
+    if (key instanceof JwtSignaturePublicKey) {
+      JwtSignaturePublicKey publicKey = (JwtSignaturePublicKey) key;
+      return new KeyKid(publicKey.getKid(), publicKey.getParameters().allowKidAbsent());
+    }
+    return null;
+  }
+
+  JwtKidIndex(PrimitiveSet<P> primitives) {
+    List<PrimitiveSet.Entry<P>> all = new ArrayList<>();
+    Map<String, List<PrimitiveSet.Entry<P>>> byKid = new HashMap<>();
+    List<PrimitiveSet.Entry<P>> withoutKid = new ArrayList<>();
+    List<PrimitiveSet.Entry<P>> forAbsentKid = new ArrayList<>();
+    for (List<PrimitiveSet.Entry<P>> entries : primitives.getAll()) {
+      for (PrimitiveSet.Entry<P> entry : entries) {
+        Key key;
+        try {
+          key = entry.getKeyOrThrow();
+        } catch (GeneralSecurityException e) {
+          // A lazily parsed key which is invalid cannot verify any token.
+          continue;
+        }
+        all.add(entry);
+        KeyKid keyKid = getKeyKid(key);
+        if (keyKid == null || !keyKid.kid.isPresent()) {
+          // Unknown keys are treated like keys without kid, so that they are always tried.
+          withoutKid.add(entry);
+          forAbsentKid.add(entry);
+          continue;
+        }
+        byKid.computeIfAbsent(keyKid.kid.get(), k -> new ArrayList<>()).add(entry);
+        if (keyKid.allowKidAbsent) {
+          forAbsentKid.add(entry);
+        }
+      }
+    }
+    this.allEntries = Collections.unmodifiableList(all);
+    this.entriesByKid = byKid;
+    this.entriesWithoutKid = Collections.unmodifiableList(withoutKid);
+    this.entriesForAbsentKid = Collections.unmodifiableList(forAbsentKid);
+  }
+
+  /**
+   * Returns the entries that may verify {@code compact}. Entries whose kid matches the kid header
+   * come first.
+   *
+   * <p>Only the header of {@code compact} is decoded. If it cannot be decoded, all entries are
+   * returned, so that the primitives report the error.
+   */
+  List<PrimitiveSet.Entry<P>> getCandidates(String compact) {
+    JsonObject header;
+    try {
+      int headerEnd = compact.indexOf('.');
+      if (headerEnd < 0) {
+        return allEntries;
+      }
+      header = JsonUtil.parseJson(JwtFormat.decodeHeader(compact.substring(0, headerEnd)));
+    } catch (JwtInvalidException | RuntimeException e) {
+      return allEntries;
+    }
+    if (!header.has(JwtNames.HEADER_KEY_ID)) {
+      return entriesForAbsentKid;
+    }
+    JsonElement kid = header.get(JwtNames.HEADER_KEY_ID);
+    if (!kid.isJsonPrimitive() || !kid.getAsJsonPrimitive().isString()) {
+      return allEntries;
+    }
+    List<PrimitiveSet.Entry<P>> entriesWithKid = entriesByKid.get(kid.getAsString());
+    if (entriesWithKid == null) {
+      return entriesWithoutKid;
+    }
+    if (entriesWithoutKid.isEmpty()) {
+      return entriesWithKid;
+    }
+    List<PrimitiveSet.Entry<P>> candidates = new ArrayList<>(entriesWithKid);
+    candidates.addAll(entriesWithoutKid);
+    return candidates;
+  }
+}
@@ -21,7 +21,6 @@ import com.google.crypto.tink.internal.MutablePrimitiveRegistry;
 import com.google.crypto.tink.internal.PrimitiveSet;
 import com.google.errorprone.annotations.Immutable;
 import java.security.GeneralSecurityException;
-import java.util.List;
 
 /**
  * JwtMacWrapper is the implementation of {@link PrimitiveWrapper} for the {@link JwtMac} primitive.
@@ -41,8 +40,11 @@ class JwtMacWrapper implements PrimitiveWrapper<JwtMac, JwtMac> {
     @SuppressWarnings("Immutable") // We do not mutate the primitive set.
     private final PrimitiveSet<JwtMac> primitives;
 
+    private final JwtKidIndex<JwtMac> kidIndex;
+
     private WrappedJwtMac(PrimitiveSet<JwtMac> primitives) {
       this.primitives = primitives;
+      this.kidIndex = new JwtKidIndex<>(primitives);
     }
 
     @Override
@@ -54,17 +56,15 @@ class JwtMacWrapper implements PrimitiveWrapper<JwtMac, JwtMac> {
     public VerifiedJwt verifyMacAndDecode(String compact, JwtValidator validator)
         throws GeneralSecurityException {
       GeneralSecurityException interestingException = null;
-      for (List<PrimitiveSet.Entry<JwtMac>> entries : primitives.getAll()) {
-        for (PrimitiveSet.Entry<JwtMac> entry : entries) {
-          try {
-            return entry.getFullPrimitive().verifyMacAndDecode(compact, validator);
-          } catch (GeneralSecurityException e) {
-            if (e instanceof JwtInvalidException) {
-              // Keep this exception so that we are able to throw a meaningful message in the end
-              interestingException = e;
-            }
-            // Ignored as we want to continue verification with other raw keys.
+      for (PrimitiveSet.Entry<JwtMac> entry : kidIndex.getCandidates(compact)) {
+        try {
+          return entry.getFullPrimitiveOrThrow().verifyMacAndDecode(compact, validator);
+        } catch (GeneralSecurityException e) {
+          if (e instanceof JwtInvalidException) {
+            // Keep this exception so that we are able to throw a meaningful message in the end
+            interestingException = e;
           }
+          // Ignored as we want to continue verification with other raw keys.
         }
       }
       if (interestingException != null) {
@@ -21,7 +21,6 @@ import com.google.crypto.tink.internal.MutablePrimitiveRegistry;
 import com.google.crypto.tink.internal.PrimitiveSet;
 import com.google.errorprone.annotations.Immutable;
 import java.security.GeneralSecurityException;
-import java.util.List;
 
 /** The implementation of {@code PrimitiveWrapper<JwtPublicKeyVerify>}. */
 class JwtPublicKeyVerifyWrapper
@@ -32,28 +31,25 @@ class JwtPublicKeyVerifyWrapper
   @Immutable
   private static class WrappedJwtPublicKeyVerify implements JwtPublicKeyVerify {
 
-    @SuppressWarnings("Immutable")
-    private final PrimitiveSet<JwtPublicKeyVerify> primitives;
+    private final JwtKidIndex<JwtPublicKeyVerify> kidIndex;
 
     public WrappedJwtPublicKeyVerify(PrimitiveSet<JwtPublicKeyVerify> primitives) {
-      this.primitives = primitives;
+      this.kidIndex = new JwtKidIndex<>(primitives);
     }
 
     @Override
     public VerifiedJwt verifyAndDecode(String compact, JwtValidator validator)
         throws GeneralSecurityException {
       GeneralSecurityException interestingException = null;
-      for (List<PrimitiveSet.Entry<JwtPublicKeyVerify>> entries : primitives.getAll()) {
-        for (PrimitiveSet.Entry<JwtPublicKeyVerify> entry : entries) {
-          try {
-            return entry.getFullPrimitive().verifyAndDecode(compact, validator);
-          } catch (GeneralSecurityException e) {
-            if (e instanceof JwtInvalidException) {
-              // Keep this exception so that we are able to throw a meaningful message in the end
-              interestingException = e;
-            }
-            // Ignored as we want to continue verification with other raw keys.
+      for (PrimitiveSet.Entry<JwtPublicKeyVerify> entry : kidIndex.getCandidates(compact)) {
+        try {
+          return entry.getFullPrimitiveOrThrow().verifyAndDecode(compact, validator);
+        } catch (GeneralSecurityException e) {
+          if (e instanceof JwtInvalidException) {
+            // Keep this exception so that we are able to throw a meaningful message in the end
+            interestingException = e;
           }
+          // Ignored as we want to continue verification with other raw keys.
         }
       }
       if (interestingException != null) {
@@ -300,7 +300,12 @@ public final class JwtValidator {
     return new VerifiedJwt(target);
   }
 
-  private void validateTimestampClaims(RawJwt target) throws JwtInvalidException {
+  /**
+   * Validates only the timestamp claims of {@code target} against the current time of the clock.
+   *
+   * @throws JwtInvalidException when {@code target} is expired or not yet valid
+   */
+  void validateTimestampClaims(RawJwt target) throws JwtInvalidException {
     Instant now = this.clock.instant();
 
     if (!target.hasExpiration() && !this.allowMissingExpiration) {
@@ -0,0 +1,258 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+package com.google.crypto.tink.jwt;
+
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.errorprone.annotations.Immutable;
+import java.security.GeneralSecurityException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * A bounded cache of verified JWTs, for applications that verify the same token many times.
+ *
+ * <p>Primitives wrapped with {@link #wrap(JwtPublicKeyVerify)} or {@link #wrap(JwtMac)} remember
+ * the {@link VerifiedJwt} returned for a compact token and a {@link JwtValidator}. When the same
+ * token is verified again with the same validator object, the cached result is returned after only
+ * re-checking the timestamp claims ("exp", "nbf" and "iat") against the validator's clock, so an
+ * expired token is never returned from the cache. Failed verifications are not cached.
+ *
+ * <p>The cache is keyed by the compact token and the identity of the validator, so applications
+ * should reuse the same validator object. Each call to {@code wrap} uses its own part of the
+ * cache: when the keyset changes, wrapping the new primitive makes all tokens verified with the
+ * old keyset unreachable. Entries refer to their wrapper only by a number, so they do not keep the
+ * old primitive and its keys alive; they are removed as the cache fills up. {@link #invalidateAll}
+ * removes all entries. When the cache is full, the least recently used entry is removed.
+ *
+ * <p>This class is thread-safe.
+ */
+public final class JwtVerificationCache {
+  private final int maxSize;
+
+  @GuardedBy("entries")
+  private final LinkedHashMap<CacheKey, VerifiedJwt> entries;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /** Identifies the part of the cache used by each wrapped primitive. */
+  private final AtomicLong nextScopeId = new AtomicLong();
+
+  private JwtVerificationCache(Builder builder) {
+    this.maxSize = builder.maxSize;
+    this.entries =
+        new LinkedHashMap<CacheKey, VerifiedJwt>(16, 0.75f, /* accessOrder= */ true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<CacheKey, VerifiedJwt> eldest) {
+            return size() > JwtVerificationCache.this.maxSize;
+          }
+        };
+  }
+
+  /** Returns a new builder. By default, at most 1000 verified tokens are cached. */
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /** Builder for JwtVerificationCache. */
+  public static final class Builder {
+    private int maxSize = 1000;
+
+    private Builder() {}
+
+    /** Sets how many verified tokens are cached at most. */
+    @CanIgnoreReturnValue
+    public Builder setMaxSize(int maxSize) {
+      if (maxSize < 1) {
+        throw new IllegalArgumentException("maxSize must be positive");
+      }
+      this.maxSize = maxSize;
+      return this;
+    }
+
+    public JwtVerificationCache build() {
+      return new JwtVerificationCache(this);
+    }
+  }
+
+  /** Statistics of a {@link JwtVerificationCache}. */
+  public static final class Stats {
+    private final long hits;
+    private final long misses;
+
+    private Stats(long hits, long misses) {
+      this.hits = hits;
+      this.misses = misses;
+    }
+
+    /** Returns the number of verifications answered from the cache. */
+    public long getHits() {
+      return hits;
+    }
+
+    /** Returns the number of verifications that were passed to the wrapped primitive. */
+    public long getMisses() {
+      return misses;
+    }
+
+    /** Returns the fraction of verifications answered from the cache, or 0 if there were none. */
+    public double getHitRate() {
+      long total = hits + misses;
+      return total == 0 ? 0 : (double) hits / total;
+    }
+  }
+
+  private static final class CacheKey {
+    private final long scopeId;
+    private final JwtValidator validator;
+    private final String compact;
+
+    CacheKey(long scopeId, JwtValidator validator, String compact) {
+      this.scopeId = scopeId;
+      this.validator = validator;
+      this.compact = compact;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey that = (CacheKey) o;
+      return scopeId == that.scopeId && validator == that.validator && compact.equals(that.compact);
+    }
+
+    @Override
+    public int hashCode() {
+      int scopeHash = (int) (scopeId ^ (scopeId >>> 32));
+      return 31 * (31 * scopeHash + System.identityHashCode(validator)) + compact.hashCode();
+    }
+  }
+
+  /** Verifies a token without using the cache. */
+  private interface Verifier {
+    VerifiedJwt verify(String compact, JwtValidator validator) throws GeneralSecurityException;
+  }
+
+  private VerifiedJwt verify(
+      long scopeId, Verifier verifier, String compact, JwtValidator validator)
+      throws GeneralSecurityException {
+    CacheKey key = new CacheKey(scopeId, validator, compact);
+    VerifiedJwt cached;
+    synchronized (entries) {
+      cached = entries.get(key);
+    }
+    if (cached != null) {
+      try {
+        validator.validateTimestampClaims(cached.getRawJwt());
+        hits.incrementAndGet();
+        return cached;
+      } catch (JwtInvalidException e) {
+        // The token expired since it was cached. Verify it again to get the right exception.
+        synchronized (entries) {
+          entries.remove(key);
+        }
+      }
+    }
+    misses.incrementAndGet();
+    VerifiedJwt verified = verifier.verify(compact, validator);
+    synchronized (entries) {
+      entries.put(key, verified);
+    }
+    return verified;
+  }
+
+  @Immutable
+  private static final class CachingJwtPublicKeyVerify implements JwtPublicKeyVerify {
+    @SuppressWarnings("Immutable") // Only the cache entries are mutated.
+    private final JwtVerificationCache cache;
+
+    private final long scopeId;
+    private final JwtPublicKeyVerify verify;
+
+    CachingJwtPublicKeyVerify(JwtVerificationCache cache, JwtPublicKeyVerify verify) {
+      this.cache = cache;
+      this.scopeId = cache.nextScopeId.getAndIncrement();
+      this.verify = verify;
+    }
+
+    @Override
+    public VerifiedJwt verifyAndDecode(String compact, JwtValidator validator)
+        throws GeneralSecurityException {
+      return cache.verify(scopeId, verify::verifyAndDecode, compact, validator);
+    }
+  }
+
+  @Immutable
+  private static final class CachingJwtMac implements JwtMac {
+    @SuppressWarnings("Immutable") // Only the cache entries are mutated.
+    private final JwtVerificationCache cache;
+
+    private final long scopeId;
+    private final JwtMac mac;
+
+    CachingJwtMac(JwtVerificationCache cache, JwtMac mac) {
+      this.cache = cache;
+      this.scopeId = cache.nextScopeId.getAndIncrement();
+      this.mac = mac;
+    }
+
+    @Override
+    public String computeMacAndEncode(RawJwt token) throws GeneralSecurityException {
+      return mac.computeMacAndEncode(token);
+    }
+
+    @Override
+    public VerifiedJwt verifyMacAndDecode(String compact, JwtValidator validator)
+        throws GeneralSecurityException {
+      return cache.verify(scopeId, mac::verifyMacAndDecode, compact, validator);
+    }
+  }
+
+  /**
+   * Returns a {@link JwtPublicKeyVerify} that caches the tokens verified by {@code verify} in this
+   * cache.
+   */
+  public JwtPublicKeyVerify wrap(JwtPublicKeyVerify verify) {
+    return new CachingJwtPublicKeyVerify(this, verify);
+  }
+
+  /** Returns a {@link JwtMac} that caches the tokens verified by {@code mac} in this cache. */
+  public JwtMac wrap(JwtMac mac) {
+    return new CachingJwtMac(this, mac);
+  }
+
+  /** Removes all entries of this cache. */
+  public void invalidateAll() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /** Returns the number of cached tokens. */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /** Returns the hit and miss counts of this cache. */
+  public Stats getStats() {
+    return new Stats(hits.get(), misses.get());
+  }
+}
@@ -49,7 +49,7 @@ public final class KeysetDeriverWrapper implements PrimitiveWrapper<KeyDeriver,
     private static KeysetHandle.Builder.Entry deriveAndGetEntry(
         byte[] salt, PrimitiveSet.Entry<KeyDeriver> entry, int primaryKeyId)
         throws GeneralSecurityException {
-      KeyDeriver deriver = entry.getFullPrimitive();
+      KeyDeriver deriver = entry.getFullPrimitiveOrThrow();
       if (deriver == null) {
         throw new GeneralSecurityException(
             "Primitive set has non-full primitives -- this is probably a bug");
@@ -16,7 +16,6 @@
 
 package com.google.crypto.tink.mac;
 
-import com.google.crypto.tink.CryptoFormat;
 import com.google.crypto.tink.PrimitiveWrapper;
 import com.google.crypto.tink.internal.MutablePrimitiveRegistry;
 import com.google.crypto.tink.internal.PrimitiveRegistry;
@@ -26,7 +25,6 @@ import com.google.errorprone.annotations.Immutable;
 import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -106,11 +104,9 @@ public class ChunkedMacWrapper implements PrimitiveWrapper<ChunkedMac, ChunkedMa
     @Override
     public ChunkedMacVerification createVerification(final byte[] tag)
         throws GeneralSecurityException {
-      byte[] prefix = Arrays.copyOf(tag, CryptoFormat.NON_RAW_PREFIX_SIZE);
-
       // First add verifications with prefixed keys.
       List<ChunkedMacVerification> verifications = new ArrayList<>();
-      for (PrimitiveSet.Entry<ChunkedMac> primitive : primitives.getPrimitive(prefix)) {
+      for (PrimitiveSet.Entry<ChunkedMac> primitive : primitives.getPrimitivesForPrefix(tag, 0)) {
         verifications.add(getChunkedMac(primitive).createVerification(tag));
       }
       // Also add verifications with non-prefixed keys.
@@ -136,8 +132,8 @@ public class ChunkedMacWrapper implements PrimitiveWrapper<ChunkedMac, ChunkedMa
     for (List<PrimitiveSet.Entry<ChunkedMac>> list : primitives.getAll()) {
       for (PrimitiveSet.Entry<ChunkedMac> entry : list) {
         // Ensure that all entries in the primitive set are present and valid (i.e. have
-        // `fullPrimitive` field set). Throws unchecked exceptions if it's not the case.
-        ChunkedMac unused = entry.getFullPrimitive();
+        // `fullPrimitive` field set), so that the wrapped primitive can use them unchecked.
+        ChunkedMac unused = entry.getFullPrimitiveOrThrow();
       }
     }
     return new WrappedChunkedMac(primitives);
@@ -30,7 +30,6 @@ import com.google.crypto.tink.mac.internal.LegacyFullMac;
 import com.google.crypto.tink.monitoring.MonitoringClient;
 import com.google.crypto.tink.monitoring.MonitoringKeysetInfo;
 import java.security.GeneralSecurityException;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -69,9 +68,11 @@ public class MacWrapper implements PrimitiveWrapper<Mac, Mac> {
 
     @Override
     public byte[] computeMac(final byte[] data) throws GeneralSecurityException {
+      long startNanos = MonitoringUtil.startTimer(computeLogger);
       try {
         byte[] output = primitives.getPrimary().getFullPrimitive().computeMac(data);
-        computeLogger.log(primitives.getPrimary().getKeyId(), data.length);
+        MonitoringUtil.logSuccess(
+            computeLogger, primitives.getPrimary().getKeyId(), data.length, startNanos);
         return output;
       } catch (GeneralSecurityException e) {
         computeLogger.logFailure();
@@ -81,18 +82,18 @@ public class MacWrapper implements PrimitiveWrapper<Mac, Mac> {
 
     @Override
     public void verifyMac(final byte[] mac, final byte[] data) throws GeneralSecurityException {
+      long startNanos = MonitoringUtil.startTimer(verifyLogger);
       if (mac.length <= CryptoFormat.NON_RAW_PREFIX_SIZE) {
         // This also rejects raw MAC with size of 4 bytes or fewer. Those MACs are
         // clearly insecure, thus should be discouraged.
         verifyLogger.logFailure();
         throw new GeneralSecurityException("tag too short");
       }
-      byte[] prefix = Arrays.copyOf(mac, CryptoFormat.NON_RAW_PREFIX_SIZE);
-      List<PrimitiveSet.Entry<Mac>> entries = primitives.getPrimitive(prefix);
+      List<PrimitiveSet.Entry<Mac>> entries = primitives.getPrimitivesForPrefix(mac, 0);
       for (PrimitiveSet.Entry<Mac> entry : entries) {
         try {
-          entry.getFullPrimitive().verifyMac(mac, data);
-          verifyLogger.log(entry.getKeyId(), data.length);
+          entry.getFullPrimitiveOrThrow().verifyMac(mac, data);
+          MonitoringUtil.logSuccess(verifyLogger, entry.getKeyId(), data.length, startNanos);
           // If there is no exception, the MAC is valid and we can return.
           return;
         } catch (GeneralSecurityException e) {
@@ -104,8 +105,8 @@ public class MacWrapper implements PrimitiveWrapper<Mac, Mac> {
       entries = primitives.getRawPrimitives();
       for (PrimitiveSet.Entry<Mac> entry : entries) {
         try {
-          entry.getFullPrimitive().verifyMac(mac, data);
-          verifyLogger.log(entry.getKeyId(), data.length);
+          entry.getFullPrimitiveOrThrow().verifyMac(mac, data);
+          MonitoringUtil.logSuccess(verifyLogger, entry.getKeyId(), data.length, startNanos);
           // If there is no exception, the MAC is valid and we can return.
           return;
         } catch (GeneralSecurityException ignored) {
@@ -0,0 +1,150 @@
+// Copyright 2024 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.mac.internal;
+
+import com.google.crypto.tink.subtle.EngineFactory;
+import com.google.errorprone.annotations.Immutable;
+import java.security.GeneralSecurityException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * The block processing of AES-CMAC, following <a href="https://tools.ietf.org/html/rfc4493">RFC
+ * 4493</a>, shared by the one-shot and the chunked AES-CMAC implementations.
+ *
+ * <p>The subkeys are computed once per key, and every thread gets its own AES/ECB cipher which is
+ * initialized with the key only once. The chaining value {@code x} is kept in a 16-byte array
+ * owned by the caller, which is updated in place, so that no memory is allocated per block.
+ *
+ * <p>A CMAC computation starts with {@code x} set to zero, calls {@link #processBlock} for all
+ * blocks except the last one, and {@link #processLastBlock} for the last (possibly incomplete or
+ * empty) block, after which {@code x} contains the tag.
+ */
+@Immutable
+public final class AesCmacCore {
+  @SuppressWarnings("Immutable") // We never change the subkeys.
+  private final byte[] subKey1;
+
+  @SuppressWarnings("Immutable") // We never change the subkeys.
+  private final byte[] subKey2;
+
+  @SuppressWarnings("Immutable") // Each cipher is initialized once and only used by its thread.
+  private final ThreadLocal<Cipher> localAesEcbCipher;
+
+  private AesCmacCore(final SecretKeySpec keySpec) throws GeneralSecurityException {
+    this.localAesEcbCipher =
+        new ThreadLocal<Cipher>() {
+          @Override
+          protected Cipher initialValue() {
+            try {
+              Cipher aes = EngineFactory.CIPHER.getInstance("AES/ECB/NoPadding");
+              aes.init(Cipher.ENCRYPT_MODE, keySpec);
+              return aes;
+            } catch (GeneralSecurityException ex) {
+              throw new IllegalStateException(ex);
+            }
+          }
+        };
+
+    // Generate subkeys; https://tools.ietf.org/html/rfc4493#section-2.3
+    byte[] l = new byte[AesUtil.BLOCK_SIZE];
+    encryptBlockInPlace(getCipher(), l);
+    subKey1 = AesUtil.dbl(l);
+    subKey2 = AesUtil.dbl(subKey1);
+  }
+
+  /** Creates an AES-CMAC core for {@code key}, which must be a valid AES key. */
+  public static AesCmacCore create(final byte[] key) throws GeneralSecurityException {
+    return new AesCmacCore(new SecretKeySpec(key, "AES"));
+  }
+
+  private Cipher getCipher() throws GeneralSecurityException {
+    try {
+      return localAesEcbCipher.get();
+    } catch (IllegalStateException ex) {
+      if (ex.getCause() instanceof GeneralSecurityException) {
+        throw (GeneralSecurityException) ex.getCause();
+      }
+      throw ex;
+    }
+  }
+
+  private static void encryptBlockInPlace(Cipher aes, byte[] block)
+      throws GeneralSecurityException {
+    // The cipher is in ECB mode without padding, hence doFinal() processes exactly this block and
+    // leaves the cipher ready for the next one. Input and output may be the same array.
+    if (aes.doFinal(block, 0, AesUtil.BLOCK_SIZE, block, 0) != AesUtil.BLOCK_SIZE) {
+      throw new GeneralSecurityException("Cipher didn't encrypt a full block");
+    }
+  }
+
+  /**
+   * Sets {@code x} to AES(x XOR data[offset..offset + 16]). This is step 6 of RFC 4493, section
+   * 2.4, for a block which is not the last one.
+   */
+  public void processBlock(byte[] x, final byte[] data, int offset)
+      throws GeneralSecurityException {
+    for (int i = 0; i < AesUtil.BLOCK_SIZE; i++) {
+      x[i] ^= data[offset + i];
+    }
+    encryptBlockInPlace(getCipher(), x);
+  }
+
+  /**
+   * Processes the last block, which consists of the {@code length} bytes at {@code
+   * data[offset]}, where {@code 0 <= length <= 16}. This is steps 4 and 6 of RFC 4493, section 2.4;
+   * afterwards, {@code x} contains the tag.
+   */
+  public void processLastBlock(byte[] x, final byte[] data, int offset, int length)
+      throws GeneralSecurityException {
+    if (length < 0 || length > AesUtil.BLOCK_SIZE) {
+      throw new IllegalArgumentException("length must be between 0 and 16");
+    }
+    if (length == AesUtil.BLOCK_SIZE) {
+      for (int i = 0; i < AesUtil.BLOCK_SIZE; i++) {
+        x[i] ^= (byte) (data[offset + i] ^ subKey1[i]);
+      }
+    } else {
+      // cmacPad() followed by the XOR with subKey2.
+      for (int i = 0; i < length; i++) {
+        x[i] ^= (byte) (data[offset + i] ^ subKey2[i]);
+      }
+      x[length] ^= (byte) (0x80 ^ subKey2[length]);
+      for (int i = length + 1; i < AesUtil.BLOCK_SIZE; i++) {
+        x[i] ^= subKey2[i];
+      }
+    }
+    encryptBlockInPlace(getCipher(), x);
+  }
+
+  /** Returns the 16-byte AES-CMAC of {@code data}. */
+  public byte[] computeMac(final byte[] data) throws GeneralSecurityException {
+    Cipher aes = getCipher();
+    byte[] x = new byte[AesUtil.BLOCK_SIZE];
+    // All blocks but the last one, which may be incomplete. Empty data is one empty block.
+    int lastBlockOffset =
+        data.length == 0 ? 0 : ((data.length - 1) / AesUtil.BLOCK_SIZE) * AesUtil.BLOCK_SIZE;
+    for (int offset = 0; offset < lastBlockOffset; offset += AesUtil.BLOCK_SIZE) {
+      for (int i = 0; i < AesUtil.BLOCK_SIZE; i++) {
+        x[i] ^= data[offset + i];
+      }
+      encryptBlockInPlace(aes, x);
+    }
+    processLastBlock(x, data, lastBlockOffset, data.length - lastBlockOffset);
+    return x;
+  }
+}
@@ -18,34 +18,25 @@ package com.google.crypto.tink.mac.internal;
 
 import static java.lang.Math.min;
 
-import com.google.crypto.tink.AccessesPartialKey;
-import com.google.crypto.tink.InsecureSecretKeyAccess;
 import com.google.crypto.tink.mac.AesCmacKey;
 import com.google.crypto.tink.mac.AesCmacParameters.Variant;
 import com.google.crypto.tink.mac.ChunkedMacComputation;
 import com.google.crypto.tink.subtle.Bytes;
-import com.google.crypto.tink.subtle.EngineFactory;
 import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.util.Arrays;
-import javax.crypto.Cipher;
-import javax.crypto.spec.SecretKeySpec;
 
 /**
  * An implementation of streaming CMAC computation following
  * tink/java_src/src/main/java/com/google/crypto/tink/subtle/PrfAesCmac.java's vision of <a
  * href="https://tools.ietf.org/html/rfc4493">RFC 4493</a>.
  */
-@AccessesPartialKey
 final class ChunkedAesCmacComputation implements ChunkedMacComputation {
   // A single byte to be added to the plaintext for the legacy key type.
   private static final byte[] FORMAT_VERSION = new byte[] {0};
 
-  private final Cipher aes;
   private final AesCmacKey key;
-  // subKey1 and subKey2 are derived as in RFC 4493.
-  private final byte[] subKey1;
-  private final byte[] subKey2;
+  private final AesCmacCore core;
   /**
    * We need this AES-block sized buffer in order to account for the possibility of data not
    * arriving in perfect blocks, and also because we never know which block is going to be the last,
@@ -55,40 +46,30 @@ final class ChunkedAesCmacComputation implements ChunkedMacComputation {
    * data so far, such that the rest is divisible by 16.
    */
   private final ByteBuffer localStash;
-  /* x and y contain the contents as in RFC 4493. */
-  private final ByteBuffer x;
-  private final ByteBuffer y;
+  /* x contains the contents as in RFC 4493. */
+  private final byte[] x;
+  /* Used to copy blocks out of ByteBuffers which are not backed by an array. */
+  private final byte[] block;
 
   private boolean finalized = false;
 
-  ChunkedAesCmacComputation(AesCmacKey key) throws GeneralSecurityException {
+  ChunkedAesCmacComputation(AesCmacKey key, AesCmacCore core) {
     this.key = key;
-    aes = EngineFactory.CIPHER.getInstance("AES/ECB/NoPadding");
-    aes.init(
-        Cipher.ENCRYPT_MODE,
-        new SecretKeySpec(this.key.getAesKey().toByteArray(InsecureSecretKeyAccess.get()), "AES"));
-
-    // Generate subkeys; https://tools.ietf.org/html/rfc4493#section-2.3
-    byte[] zeroes = new byte[AesUtil.BLOCK_SIZE];
-    // As per documentation, the cipher is good to use after doFinal():
-    // https://docs.oracle.com/javase/7/docs/api/javax/crypto/Cipher.html#doFinal(byte[])
-    byte[] l = aes.doFinal(zeroes);
-    subKey1 = AesUtil.dbl(l);
-    subKey2 = AesUtil.dbl(subKey1);
+    this.core = core;
 
     localStash = ByteBuffer.allocate(AesUtil.BLOCK_SIZE);
-    x = ByteBuffer.allocate(AesUtil.BLOCK_SIZE);
-    y = ByteBuffer.allocate(AesUtil.BLOCK_SIZE);
+    x = new byte[AesUtil.BLOCK_SIZE];
+    block = new byte[AesUtil.BLOCK_SIZE];
   }
 
   private void munch(ByteBuffer data) throws GeneralSecurityException {
-    y.rewind();
-    x.rewind();
-    Bytes.xor(/* output= */ y, /* x= */ x, /* y= */ data, AesUtil.BLOCK_SIZE);
-
-    y.rewind();
-    x.rewind();
-    aes.doFinal(/* input= */ y, /* output= */ x);
+    if (data.hasArray()) {
+      core.processBlock(x, data.array(), data.arrayOffset() + data.position());
+      data.position(data.position() + AesUtil.BLOCK_SIZE);
+    } else {
+      data.get(block);
+      core.processBlock(x, block, 0);
+    }
   }
 
   @Override
@@ -137,20 +118,10 @@ final class ChunkedAesCmacComputation implements ChunkedMacComputation {
     }
     finalized = true;
 
-    byte[] mLast;
-    if (localStash.remaining() > 0) {
-      // An incomplete block or an empty input.
-      byte[] lastChunkToPad = Arrays.copyOf(localStash.array(), localStash.position());
-      mLast = Bytes.xor(AesUtil.cmacPad(lastChunkToPad), subKey2);
-    } else {
-      // Block is full (remaining() == 0).
-      mLast = Bytes.xor(localStash.array(), 0, subKey1, 0, AesUtil.BLOCK_SIZE);
-    }
+    core.processLastBlock(x, localStash.array(), 0, localStash.position());
 
     return Bytes.concat(
         key.getOutputPrefix().toByteArray(),
-        Arrays.copyOf(
-            aes.doFinal(Bytes.xor(mLast, x.array())),
-            key.getParameters().getCryptographicTagSizeBytes()));
+        Arrays.copyOf(x, key.getParameters().getCryptographicTagSizeBytes()));
   }
 }
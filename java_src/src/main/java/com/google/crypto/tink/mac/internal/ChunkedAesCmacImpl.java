@@ -16,6 +16,8 @@
 
 package com.google.crypto.tink.mac.internal;
 
+import com.google.crypto.tink.AccessesPartialKey;
+import com.google.crypto.tink.InsecureSecretKeyAccess;
 import com.google.crypto.tink.config.internal.TinkFipsUtil;
 import com.google.crypto.tink.mac.AesCmacKey;
 import com.google.crypto.tink.mac.ChunkedMac;
@@ -27,6 +29,7 @@ import java.security.GeneralSecurityException;
 
 /** AES-CMAC implementation of the ChunkedMac interface. */
 @Immutable
+@AccessesPartialKey
 public final class ChunkedAesCmacImpl implements ChunkedMac {
   private static final TinkFipsUtil.AlgorithmFipsCompatibility FIPS =
       TinkFipsUtil.AlgorithmFipsCompatibility.ALGORITHM_NOT_FIPS;
@@ -34,16 +37,19 @@ public final class ChunkedAesCmacImpl implements ChunkedMac {
   @SuppressWarnings("Immutable") // We never change the key.
   private final AesCmacKey key;
 
+  private final AesCmacCore core;
+
   public ChunkedAesCmacImpl(AesCmacKey key) throws GeneralSecurityException {
     if (!FIPS.isCompatible()) {
       throw new GeneralSecurityException("Can not use AES-CMAC in FIPS-mode.");
     }
     this.key = key;
+    this.core = AesCmacCore.create(key.getAesKey().toByteArray(InsecureSecretKeyAccess.get()));
   }
 
   @Override
   public ChunkedMacComputation createComputation() throws GeneralSecurityException {
-    return new ChunkedAesCmacComputation(key);
+    return new ChunkedAesCmacComputation(key, core);
   }
 
   @Override
@@ -55,6 +61,6 @@ public final class ChunkedAesCmacImpl implements ChunkedMac {
     if (!key.getOutputPrefix().equals(Bytes.copyFrom(tag, 0, key.getOutputPrefix().size()))) {
       throw new GeneralSecurityException("Wrong tag prefix");
     }
-    return new ChunkedAesCmacVerification(key, tag);
+    return new ChunkedAesCmacVerification(key, core, tag);
   }
 }
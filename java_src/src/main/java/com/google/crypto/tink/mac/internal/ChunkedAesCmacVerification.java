@@ -30,11 +30,10 @@ final class ChunkedAesCmacVerification implements ChunkedMacVerification {
   private final Bytes tag;
   private final ChunkedAesCmacComputation aesCmacComputation;
 
-  ChunkedAesCmacVerification(AesCmacKey key, byte[] tag)
-      throws GeneralSecurityException {
+  ChunkedAesCmacVerification(AesCmacKey key, AesCmacCore core, byte[] tag) {
     // Checks regarding tag and key sizes, as well as FIPS-compatibility, are performed by
     // ChunkedAesCmacImpl.
-    aesCmacComputation = new ChunkedAesCmacComputation(key);
+    aesCmacComputation = new ChunkedAesCmacComputation(key, core);
     this.tag = Bytes.copyFrom(tag);
   }
 
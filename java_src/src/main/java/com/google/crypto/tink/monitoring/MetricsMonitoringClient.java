@@ -0,0 +1,456 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.monitoring;
+
+import com.google.crypto.tink.annotations.Alpha;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link MonitoringClient} which keeps metrics in memory.
+ *
+ * <p>For each keyset (identified by its {@link MonitoringAnnotations}), primitive, API and key id,
+ * it counts the successful calls and their input bytes. Failures are counted per keyset, primitive
+ * and API, since they cannot be attributed to a key.
+ *
+ * <p>If enabled with {@link Builder#setRecordLatency}, it also records a histogram of the latencies
+ * of the successful calls. This is off by default, because measuring a latency reads {@code
+ * System.nanoTime()} twice per call, which costs more than the recording itself on many platforms.
+ *
+ * <p>Recording is lock-free and does not allocate: counters are {@link LongAdder}s, and latencies
+ * are recorded in a histogram with log-linear buckets (as in HdrHistogram), which has a relative
+ * error of at most 1/16. Use {@link #getKeyMetrics} and {@link #getFailureMetrics} to export the
+ * metrics, for example periodically to a metrics system.
+ *
+ * <p>Usage: {@code MutableMonitoringRegistry.globalInstance().registerMonitoringClient(client)}.
+ * Only primitives of keysets with monitoring annotations are monitored.
+ *
+ * <p>DO NOT USE. This API is not yet ready and may change or be removed.
+ */
+@Alpha
+@ThreadSafe
+public final class MetricsMonitoringClient implements MonitoringClient {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  // Latencies of 2^36 ns (about 69 seconds) or more are all counted in the last bucket.
+  private static final int MAX_EXPONENT = 35;
+  private static final long MAX_RECORDED_NANOS = (1L << (MAX_EXPONENT + 1)) - 1;
+  private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) << SUB_BUCKET_BITS;
+
+  /**
+   * Returns the index of the bucket of {@code nanos}. Values below 32 have their own bucket; larger
+   * values are split into 16 buckets of equal size per power of two.
+   */
+  static int bucketIndex(long nanos) {
+    long value = Math.min(Math.max(nanos, 0), MAX_RECORDED_NANOS);
+    int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+    return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+  }
+
+  /** Returns the largest value which is counted in the bucket with index {@code index}. */
+  static long bucketUpperBound(int index) {
+    int shift = Math.max(0, (index >>> SUB_BUCKET_BITS) - 1);
+    long subBucket = index - (shift << SUB_BUCKET_BITS);
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /** Immutable snapshot of the latencies of a key, in nanoseconds. */
+  public static final class LatencySnapshot {
+    private static final LatencySnapshot EMPTY = new LatencySnapshot(new long[0], 0, 0, 0);
+
+    private final long[] bucketCounts;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    private LatencySnapshot(long[] bucketCounts, long count, long totalNanos, long maxNanos) {
+      this.bucketCounts = bucketCounts;
+      this.count = count;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+    }
+
+    /** Returns the number of recorded latencies. */
+    public long getCount() {
+      return count;
+    }
+
+    /** Returns the sum of all recorded latencies. */
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    /** Returns the largest recorded latency, or 0 if no latency was recorded. */
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    /**
+     * Returns an upper bound for the given percentile (between 0 and 100) of the recorded
+     * latencies, which overestimates it by at most 1/16. Returns 0 if no latency was recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+      if (percentile < 0 || percentile > 100) {
+        throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+      }
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < bucketCounts.length; i++) {
+        seen += bucketCounts[i];
+        if (seen >= rank) {
+          return Math.min(bucketUpperBound(i), maxNanos);
+        }
+      }
+      return maxNanos;
+    }
+  }
+
+  /** Immutable snapshot of the metrics of a key, for one API of a primitive of a keyset. */
+  public static final class KeyMetrics {
+    private final MonitoringAnnotations annotations;
+    private final String primitive;
+    private final String api;
+    private final int keyId;
+    private final long numCalls;
+    private final long numBytesAsInput;
+    private final LatencySnapshot latency;
+
+    private KeyMetrics(
+        MonitoringAnnotations annotations,
+        String primitive,
+        String api,
+        int keyId,
+        long numCalls,
+        long numBytesAsInput,
+        LatencySnapshot latency) {
+      this.annotations = annotations;
+      this.primitive = primitive;
+      this.api = api;
+      this.keyId = keyId;
+      this.numCalls = numCalls;
+      this.numBytesAsInput = numBytesAsInput;
+      this.latency = latency;
+    }
+
+    public MonitoringAnnotations getAnnotations() {
+      return annotations;
+    }
+
+    public String getPrimitive() {
+      return primitive;
+    }
+
+    public String getApi() {
+      return api;
+    }
+
+    public int getKeyId() {
+      return keyId;
+    }
+
+    /** Returns the number of successful calls. */
+    public long getNumCalls() {
+      return numCalls;
+    }
+
+    /** Returns the sum of the input sizes of all successful calls. */
+    public long getNumBytesAsInput() {
+      return numBytesAsInput;
+    }
+
+    /** Returns the latencies of the successful calls. */
+    public LatencySnapshot getLatency() {
+      return latency;
+    }
+  }
+
+  /** Immutable snapshot of the number of failures of one API of a primitive of a keyset. */
+  public static final class FailureMetrics {
+    private final MonitoringAnnotations annotations;
+    private final String primitive;
+    private final String api;
+    private final long numFailures;
+
+    private FailureMetrics(
+        MonitoringAnnotations annotations, String primitive, String api, long numFailures) {
+      this.annotations = annotations;
+      this.primitive = primitive;
+      this.api = api;
+      this.numFailures = numFailures;
+    }
+
+    public MonitoringAnnotations getAnnotations() {
+      return annotations;
+    }
+
+    public String getPrimitive() {
+      return primitive;
+    }
+
+    public String getApi() {
+      return api;
+    }
+
+    public long getNumFailures() {
+      return numFailures;
+    }
+  }
+
+  private static final class ApiId {
+    private final MonitoringAnnotations annotations;
+    private final String primitive;
+    private final String api;
+
+    ApiId(MonitoringAnnotations annotations, String primitive, String api) {
+      this.annotations = annotations;
+      this.primitive = primitive;
+      this.api = api;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof ApiId)) {
+        return false;
+      }
+      ApiId other = (ApiId) obj;
+      return annotations.equals(other.annotations)
+          && primitive.equals(other.primitive)
+          && api.equals(other.api);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(annotations, primitive, api);
+    }
+  }
+
+  private static final class LatencyRecorder {
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long nanos) {
+      bucketCounts.incrementAndGet(bucketIndex(nanos));
+      totalNanos.add(nanos);
+      long max = maxNanos.get();
+      while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+        max = maxNanos.get();
+      }
+    }
+
+    LatencySnapshot snapshot() {
+      long[] counts = new long[BUCKET_COUNT];
+      long count = 0;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        counts[i] = bucketCounts.get(i);
+        count += counts[i];
+      }
+      return new LatencySnapshot(counts, count, totalNanos.sum(), maxNanos.get());
+    }
+  }
+
+  private static final class KeyRecorder {
+    private final LongAdder numCalls = new LongAdder();
+    private final LongAdder numBytesAsInput = new LongAdder();
+    // Created on the first call with a latency, since large keysets often have many unused keys.
+    @Nullable private volatile LatencyRecorder latency;
+
+    void record(long numBytes) {
+      numCalls.increment();
+      numBytesAsInput.add(numBytes);
+    }
+
+    void record(long numBytes, long latencyNanos) {
+      record(numBytes);
+      LatencyRecorder recorder = latency;
+      if (recorder == null) {
+        recorder = createLatencyRecorder();
+      }
+      recorder.record(latencyNanos);
+    }
+
+    private synchronized LatencyRecorder createLatencyRecorder() {
+      if (latency == null) {
+        latency = new LatencyRecorder();
+      }
+      return latency;
+    }
+
+    LatencySnapshot latencySnapshot() {
+      LatencyRecorder recorder = latency;
+      return recorder == null ? LatencySnapshot.EMPTY : recorder.snapshot();
+    }
+  }
+
+  private static final class ApiRecorder {
+    private final LongAdder numFailures = new LongAdder();
+    private final ConcurrentHashMap<Integer, KeyRecorder> keys = new ConcurrentHashMap<>();
+
+    KeyRecorder getKeyRecorder(int keyId) {
+      return keys.computeIfAbsent(keyId, unused -> new KeyRecorder());
+    }
+  }
+
+  private static final class MetricsLogger implements MonitoringClient.Logger {
+    private final ApiRecorder apiRecorder;
+    private final boolean recordLatency;
+    // Sorted, so that the recorder of a key can be found without allocating.
+    private final int[] keyIds;
+    private final KeyRecorder[] keyRecorders;
+
+    MetricsLogger(ApiRecorder apiRecorder, MonitoringKeysetInfo keysetInfo, boolean recordLatency) {
+      this.apiRecorder = apiRecorder;
+      this.recordLatency = recordLatency;
+      int[] ids = new int[keysetInfo.getEntries().size()];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = keysetInfo.getEntries().get(i).getKeyId();
+      }
+      Arrays.sort(ids);
+      this.keyIds = ids;
+      this.keyRecorders = new KeyRecorder[ids.length];
+      for (int i = 0; i < ids.length; i++) {
+        keyRecorders[i] = apiRecorder.getKeyRecorder(ids[i]);
+      }
+    }
+
+    private KeyRecorder getKeyRecorder(int keyId) {
+      int i = Arrays.binarySearch(keyIds, keyId);
+      if (i >= 0) {
+        return keyRecorders[i];
+      }
+      // Not expected, since wrappers only log keys of the keyset.
+      return apiRecorder.getKeyRecorder(keyId);
+    }
+
+    @Override
+    public void log(int keyId, long numBytesAsInput) {
+      getKeyRecorder(keyId).record(numBytesAsInput);
+    }
+
+    @Override
+    public void logFailure() {
+      apiRecorder.numFailures.increment();
+    }
+
+    @Override
+    public boolean recordsLatency() {
+      return recordLatency;
+    }
+
+    @Override
+    public void logWithLatency(int keyId, long numBytesAsInput, long latencyNanos) {
+      getKeyRecorder(keyId).record(numBytesAsInput, latencyNanos);
+    }
+  }
+
+  private final ConcurrentHashMap<ApiId, ApiRecorder> apis = new ConcurrentHashMap<>();
+  private final boolean recordLatency;
+
+  private MetricsMonitoringClient(boolean recordLatency) {
+    this.recordLatency = recordLatency;
+  }
+
+  /** Builder for {@link MetricsMonitoringClient}. */
+  public static final class Builder {
+    private boolean recordLatency = false;
+
+    private Builder() {}
+
+    /**
+     * Sets whether the latencies of successful calls are recorded. Defaults to false, in which case
+     * the monitored primitives do not read the clock and only the counters are kept.
+     */
+    @CanIgnoreReturnValue
+    public Builder setRecordLatency(boolean recordLatency) {
+      this.recordLatency = recordLatency;
+      return this;
+    }
+
+    public MetricsMonitoringClient build() {
+      return new MetricsMonitoringClient(recordLatency);
+    }
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /** Returns a client which only keeps counters, and does not record latencies. */
+  public static MetricsMonitoringClient create() {
+    return newBuilder().build();
+  }
+
+  @Override
+  public MonitoringClient.Logger createLogger(
+      MonitoringKeysetInfo keysetInfo, String primitive, String api) {
+    ApiRecorder apiRecorder =
+        apis.computeIfAbsent(
+            new ApiId(keysetInfo.getAnnotations(), primitive, api), unused -> new ApiRecorder());
+    return new MetricsLogger(apiRecorder, keysetInfo, recordLatency);
+  }
+
+  /**
+   * Returns a snapshot of the metrics of all keys of all monitored primitives.
+   *
+   * <p>Metrics recorded concurrently may be partially included in the snapshot.
+   */
+  public List<KeyMetrics> getKeyMetrics() {
+    List<KeyMetrics> result = new ArrayList<>();
+    for (Map.Entry<ApiId, ApiRecorder> api : apis.entrySet()) {
+      ApiId id = api.getKey();
+      for (Map.Entry<Integer, KeyRecorder> key : api.getValue().keys.entrySet()) {
+        KeyRecorder recorder = key.getValue();
+        result.add(
+            new KeyMetrics(
+                id.annotations,
+                id.primitive,
+                id.api,
+                key.getKey(),
+                recorder.numCalls.sum(),
+                recorder.numBytesAsInput.sum(),
+                recorder.latencySnapshot()));
+      }
+    }
+    return Collections.unmodifiableList(result);
+  }
+
+  /** Returns a snapshot of the number of failures of all monitored primitives. */
+  public List<FailureMetrics> getFailureMetrics() {
+    List<FailureMetrics> result = new ArrayList<>();
+    for (Map.Entry<ApiId, ApiRecorder> api : apis.entrySet()) {
+      ApiId id = api.getKey();
+      result.add(
+          new FailureMetrics(
+              id.annotations, id.primitive, id.api, api.getValue().numFailures.sum()));
+    }
+    return Collections.unmodifiableList(result);
+  }
+}
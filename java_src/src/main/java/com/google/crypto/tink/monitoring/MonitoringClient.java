@@ -37,6 +37,24 @@ public interface MonitoringClient {
     public void log(int keyId, long numBytesAsInput);
 
     public void logFailure();
+
+    /**
+     * Returns true if Tink should measure the latency of each successful call and report it with
+     * {@link #logWithLatency} instead of {@link #log}.
+     *
+     * <p>This is called on every operation, so it should be cheap; typically it returns a constant.
+     */
+    public default boolean recordsLatency() {
+      return false;
+    }
+
+    /**
+     * Logs a successful call which took {@code latencyNanos} nanoseconds. Only called if {@link
+     * #recordsLatency} returns true.
+     */
+    public default void logWithLatency(int keyId, long numBytesAsInput, long latencyNanos) {
+      log(keyId, numBytesAsInput);
+    }
   }
 
   /** Function that creates Logger objects. It is called when a primitive is created. */
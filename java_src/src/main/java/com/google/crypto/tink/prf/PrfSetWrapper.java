@@ -64,9 +64,10 @@ public class PrfSetWrapper implements PrimitiveWrapper<Prf, PrfSet> {
 
       @Override
       public byte[] compute(byte[] input, int outputLength) throws GeneralSecurityException {
+        long startNanos = MonitoringUtil.startTimer(logger);
         try {
           byte[] output = prf.compute(input, outputLength);
-          logger.log(keyId, input.length);
+          MonitoringUtil.logSuccess(logger, keyId, input.length, startNanos);
           return output;
         } catch (GeneralSecurityException e) {
           logger.logFailure();
@@ -104,7 +105,7 @@ public class PrfSetWrapper implements PrimitiveWrapper<Prf, PrfSet> {
         // Likewise, the key IDs of the PrfSet passed
         mutablePrfMap.put(
             entry.getKeyId(),
-            new PrfWithMonitoring(entry.getFullPrimitive(), entry.getKeyId(), logger));
+            new PrfWithMonitoring(entry.getFullPrimitiveOrThrow(), entry.getKeyId(), logger));
       }
       keyIdToPrfMap = Collections.unmodifiableMap(mutablePrfMap);
     }
@@ -63,9 +63,11 @@ public class PublicKeySignWrapper implements PrimitiveWrapper<PublicKeySign, Pub
 
     @Override
     public byte[] sign(final byte[] data) throws GeneralSecurityException {
+      long startNanos = MonitoringUtil.startTimer(logger);
       try {
         byte[] output = primitives.getPrimary().getFullPrimitive().sign(data);
-        logger.log(primitives.getPrimary().getKeyId(), data.length);
+        MonitoringUtil.logSuccess(
+            logger, primitives.getPrimary().getKeyId(), data.length, startNanos);
         return output;
       } catch (GeneralSecurityException e) {
         logger.logFailure();
@@ -30,7 +30,6 @@ import com.google.crypto.tink.monitoring.MonitoringClient;
 import com.google.crypto.tink.monitoring.MonitoringKeysetInfo;
 import com.google.crypto.tink.signature.internal.LegacyFullVerify;
 import java.security.GeneralSecurityException;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -69,18 +68,19 @@ public class PublicKeyVerifyWrapper implements PrimitiveWrapper<PublicKeyVerify,
 
     @Override
     public void verify(final byte[] signature, final byte[] data) throws GeneralSecurityException {
+      long startNanos = MonitoringUtil.startTimer(monitoringLogger);
       if (signature.length <= CryptoFormat.NON_RAW_PREFIX_SIZE) {
         // This also rejects raw signatures with size of 4 bytes or fewer. We're not aware of any
         // schemes that output signatures that small.
         monitoringLogger.logFailure();
         throw new GeneralSecurityException("signature too short");
       }
-      byte[] prefix = Arrays.copyOf(signature, CryptoFormat.NON_RAW_PREFIX_SIZE);
-      List<PrimitiveSet.Entry<PublicKeyVerify>> entries = primitives.getPrimitive(prefix);
+      List<PrimitiveSet.Entry<PublicKeyVerify>> entries =
+          primitives.getPrimitivesForPrefix(signature, 0);
       for (PrimitiveSet.Entry<PublicKeyVerify> entry : entries) {
         try {
-          entry.getFullPrimitive().verify(signature, data);
-          monitoringLogger.log(entry.getKeyId(), data.length);
+          entry.getFullPrimitiveOrThrow().verify(signature, data);
+          MonitoringUtil.logSuccess(monitoringLogger, entry.getKeyId(), data.length, startNanos);
           // If there is no exception, the signature is valid and we can return.
           return;
         } catch (GeneralSecurityException e) {
@@ -92,8 +92,8 @@ public class PublicKeyVerifyWrapper implements PrimitiveWrapper<PublicKeyVerify,
       entries = primitives.getRawPrimitives();
       for (PrimitiveSet.Entry<PublicKeyVerify> entry : entries) {
         try {
-          entry.getFullPrimitive().verify(signature, data);
-          monitoringLogger.log(entry.getKeyId(), data.length);
+          entry.getFullPrimitiveOrThrow().verify(signature, data);
+          MonitoringUtil.logSuccess(monitoringLogger, entry.getKeyId(), data.length, startNanos);
           // If there is no exception, the signature is valid and we can return.
           return;
         } catch (GeneralSecurityException e) {
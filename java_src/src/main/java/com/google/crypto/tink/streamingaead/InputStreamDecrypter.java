@@ -36,6 +36,7 @@ final class InputStreamDecrypter extends InputStream {
   InputStream ciphertextStream;
 
   List<StreamingAead> primitives;
+  StreamingAeadKeyIdRouter router;
   byte[] associatedData;
 
   /**
@@ -48,20 +49,28 @@ final class InputStreamDecrypter extends InputStream {
    * reset to its initial position, and the next candiate can attempt matching. The first successful
    * candidate is then used exclusively on subsequent {@code read()}-calls.
    *
+   * <p>If the stream starts with a key id prefix (see {@link StreamingAeadKeyIdRouter}), then the
+   * primitives of the keys with this id are tried first on the ciphertext following the prefix.
+   *
    * <p>The matching process wraps {@code ciphertextStream} into a BufferedInputStream, unless
    * ciphertextStream supports rewinding (i.e. ciphertextStream.markSupported() == true). Buffering
    * of the ciphertext is disabled once a ciphertext block has been successfully decrypted.
    *
    * @param primitives a list of possible {@link StreamingAeads} to try. Must not be mutateted by
    * the caller. Will not be muteted by the {@code InputStreamDecrypter},
+   * @param router the primitives to try for ciphertexts with a key id prefix
    * @param ciphertextStream the stream with the ciphertext
    * @param associatedData The assocated data with this encryption
    */
   public InputStreamDecrypter(
-      List<StreamingAead> primitives, InputStream ciphertextStream, final byte[] associatedData) {
+      List<StreamingAead> primitives,
+      StreamingAeadKeyIdRouter router,
+      InputStream ciphertextStream,
+      final byte[] associatedData) {
     this.attemptedMatching = false;
     this.matchingStream = null;
     this.primitives = primitives;
+    this.router = router;
     // This class can use ciphertextStream directly if it supports mark and reset.
     if (ciphertextStream.markSupported()) {
       this.ciphertextStream = ciphertextStream;
@@ -85,6 +94,23 @@ final class InputStreamDecrypter extends InputStream {
     ciphertextStream.reset();
   }
 
+  /**
+   * Reads up to {@code prefix.length} bytes of the ciphertext into {@code prefix}, and returns the
+   * number of bytes read.
+   */
+  @GuardedBy("this")
+  private int readPrefix(byte[] prefix) throws IOException {
+    int length = 0;
+    while (length < prefix.length) {
+      int read = ciphertextStream.read(prefix, length, prefix.length - length);
+      if (read < 0) {
+        break;
+      }
+      length += read;
+    }
+    return length;
+  }
+
   /**
    * Disable rewinding.
    * This method is called once this class has found the correct key version.
@@ -145,8 +171,19 @@ final class InputStreamDecrypter extends InputStream {
         throw new IOException("No matching key found for the ciphertext in the stream.");
       }
       attemptedMatching = true;
-      for (StreamingAead streamingAead : primitives) {
+      byte[] prefix = new byte[StreamingAeadKeyIdRouter.PREFIX_SIZE];
+      List<StreamingAead> prefixMatches =
+          router.getPrimitivesForPrefix(prefix, readPrefix(prefix));
+      rewind();
+      int candidates = prefixMatches.size() + primitives.size();
+      for (int i = 0; i < candidates; i++) {
+        boolean skipPrefix = i < prefixMatches.size();
+        StreamingAead streamingAead =
+            skipPrefix ? prefixMatches.get(i) : primitives.get(i - prefixMatches.size());
         try {
+          if (skipPrefix) {
+            readPrefix(prefix);
+          }
           InputStream attemptedStream =
               streamingAead.newDecryptingStream(ciphertextStream, associatedData);
           int retValue = attemptedStream.read(b, offset, len);
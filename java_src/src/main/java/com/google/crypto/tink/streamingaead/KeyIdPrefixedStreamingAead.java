@@ -0,0 +1,110 @@
+// Copyright 2024 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.streamingaead;
+
+import com.google.crypto.tink.Configuration;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.RegistryConfiguration;
+import com.google.crypto.tink.StreamingAead;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.GeneralSecurityException;
+
+/**
+ * A {@link StreamingAead} for a keyset whose ciphertexts identify the key that encrypted them.
+ *
+ * <p>Streaming AEAD ciphertexts produced by {@link StreamingAeadWrapper} do not contain the id of
+ * the encryption key, so decryption has to try the keys of the keyset one after another, rewinding
+ * the ciphertext after each failed attempt. The ciphertexts of this class are prefixed with the
+ * byte {@code 0x01} and the big-endian id of the primary key, which lets decryption go directly to
+ * the right key.
+ *
+ * <p>Decryption accepts both prefixed and unprefixed ciphertexts; so does decryption with {@code
+ * keysetHandle.getPrimitive(StreamingAead.class)}. Older versions of Tink cannot decrypt prefixed
+ * ciphertexts, so readers should be updated before writers switch to this class.
+ */
+public final class KeyIdPrefixedStreamingAead implements StreamingAead {
+  private final StreamingAead streamingAead;
+  private final byte[] prefix;
+
+  private KeyIdPrefixedStreamingAead(StreamingAead streamingAead, byte[] prefix) {
+    this.streamingAead = streamingAead;
+    this.prefix = prefix;
+  }
+
+  /**
+   * Returns a {@link StreamingAead} for {@code keysetHandle} whose ciphertexts start with the id of
+   * the primary key, creating the primitives with the global registry.
+   */
+  public static StreamingAead create(KeysetHandle keysetHandle) throws GeneralSecurityException {
+    return create(keysetHandle, RegistryConfiguration.get());
+  }
+
+  /**
+   * Returns a {@link StreamingAead} for {@code keysetHandle} whose ciphertexts start with the id of
+   * the primary key, creating the primitives with {@code configuration}.
+   */
+  public static StreamingAead create(KeysetHandle keysetHandle, Configuration configuration)
+      throws GeneralSecurityException {
+    return new KeyIdPrefixedStreamingAead(
+        keysetHandle.getPrimitive(configuration, StreamingAead.class),
+        StreamingAeadKeyIdRouter.getPrefix(keysetHandle.getPrimary().getId()));
+  }
+
+  @Override
+  public WritableByteChannel newEncryptingChannel(
+      WritableByteChannel ciphertextDestination, byte[] associatedData)
+      throws GeneralSecurityException, IOException {
+    ByteBuffer prefixBuffer = ByteBuffer.wrap(prefix);
+    while (prefixBuffer.hasRemaining()) {
+      ciphertextDestination.write(prefixBuffer);
+    }
+    return streamingAead.newEncryptingChannel(ciphertextDestination, associatedData);
+  }
+
+  @Override
+  public OutputStream newEncryptingStream(OutputStream ciphertext, byte[] associatedData)
+      throws GeneralSecurityException, IOException {
+    ciphertext.write(prefix);
+    return streamingAead.newEncryptingStream(ciphertext, associatedData);
+  }
+
+  @Override
+  public ReadableByteChannel newDecryptingChannel(
+      ReadableByteChannel ciphertextSource, byte[] associatedData)
+      throws GeneralSecurityException, IOException {
+    return streamingAead.newDecryptingChannel(ciphertextSource, associatedData);
+  }
+
+  @Override
+  public SeekableByteChannel newSeekableDecryptingChannel(
+      SeekableByteChannel ciphertextSource, byte[] associatedData)
+      throws GeneralSecurityException, IOException {
+    return streamingAead.newSeekableDecryptingChannel(ciphertextSource, associatedData);
+  }
+
+  @Override
+  public InputStream newDecryptingStream(InputStream ciphertextSource, byte[] associatedData)
+      throws GeneralSecurityException, IOException {
+    return streamingAead.newDecryptingStream(ciphertextSource, associatedData);
+  }
+}
@@ -38,8 +38,15 @@ final class ReadableByteChannelDecrypter implements ReadableByteChannel {
   @GuardedBy("this")
   RewindableReadableByteChannel ciphertextChannel;
 
-  // The StreamingAeads that have not yet been tried in nextAttemptingChannel.
+  // The key id prefix of the ciphertext, read before the first attempt. Null once it has been read.
+  @GuardedBy("this")
+  ByteBuffer prefix;
+
+  // The StreamingAeads that have not yet been tried in nextAttemptingChannel. The ones in
+  // remainingPrefixedPrimitives are tried first, on the ciphertext following the key id prefix.
+  Deque<StreamingAead> remainingPrefixedPrimitives;
   Deque<StreamingAead> remainingPrimitives;
+  StreamingAeadKeyIdRouter router;
   byte[] associatedData;
 
   /**
@@ -52,12 +59,16 @@ final class ReadableByteChannelDecrypter implements ReadableByteChannel {
    * reset to its initial position, and the next candiate can attempt matching. The first successful
    * candidate is then used exclusively on subsequent {@code read()}-calls.
    *
+   * <p>If the channel starts with a key id prefix (see {@link StreamingAeadKeyIdRouter}), then the
+   * primitives of the keys with this id are tried first on the ciphertext following the prefix.
+   *
    * <p>The matching process uses a buffering wrapper around {@code ciphertextChannel} to enable
    * resetting of the channel to the initial position. The buffering is removed once the matching is
    * successful.
    */
   public ReadableByteChannelDecrypter(
       List<StreamingAead> allPrimitives,
+      StreamingAeadKeyIdRouter router,
       ReadableByteChannel ciphertextChannel,
       final byte[] associatedData) {
     // There are 3 phases:
@@ -66,16 +77,63 @@ final class ReadableByteChannelDecrypter implements ReadableByteChannel {
     // 3) attemptingChannel is null, matchingChannel is non-null. Rewind is disabled.
     this.attemptingChannel = null;
     this.matchingChannel = null;
+    this.prefix = ByteBuffer.allocate(StreamingAeadKeyIdRouter.PREFIX_SIZE);
+    this.remainingPrefixedPrimitives = new ArrayDeque<>();
     this.remainingPrimitives = new ArrayDeque<>();
     for (StreamingAead primitive : allPrimitives) {
       this.remainingPrimitives.add(primitive);
     }
+    this.router = router;
     this.ciphertextChannel = new RewindableReadableByteChannel(ciphertextChannel);
     this.associatedData = associatedData.clone();
   }
 
+  /**
+   * Tries to read the key id prefix of the ciphertext. Returns false if the channel has no data at
+   * the moment; otherwise queues the primitives matching the prefix, rewinds the channel and
+   * returns true.
+   */
+  @GuardedBy("this")
+  private synchronized boolean tryReadPrefix() throws IOException {
+    while (prefix.hasRemaining()) {
+      int read = ciphertextChannel.read(prefix);
+      if (read == 0) {
+        return false;
+      }
+      if (read < 0) {
+        break;
+      }
+    }
+    remainingPrefixedPrimitives.addAll(
+        router.getPrimitivesForPrefix(prefix.array(), prefix.position()));
+    prefix = null;
+    ciphertextChannel.rewind();
+    return true;
+  }
+
+  /** Skips the key id prefix, which is buffered by ciphertextChannel after tryReadPrefix. */
+  @GuardedBy("this")
+  private synchronized void skipPrefix() throws IOException {
+    ByteBuffer skipped = ByteBuffer.allocate(StreamingAeadKeyIdRouter.PREFIX_SIZE);
+    while (skipped.hasRemaining()) {
+      if (ciphertextChannel.read(skipped) <= 0) {
+        throw new IOException("Could not read the key id prefix");
+      }
+    }
+  }
+
   @GuardedBy("this")
   private synchronized ReadableByteChannel nextAttemptingChannel() throws IOException {
+    while (!remainingPrefixedPrimitives.isEmpty()) {
+      StreamingAead streamingAead = this.remainingPrefixedPrimitives.removeFirst();
+      try {
+        skipPrefix();
+        return streamingAead.newDecryptingChannel(ciphertextChannel, associatedData);
+      } catch (GeneralSecurityException e) {
+        // Try another primitive.
+        ciphertextChannel.rewind();
+      }
+    }
     while (!remainingPrimitives.isEmpty()) {
       StreamingAead streamingAead = this.remainingPrimitives.removeFirst();
       try {
@@ -99,6 +157,10 @@ final class ReadableByteChannelDecrypter implements ReadableByteChannel {
       return matchingChannel.read(dst);
     } else {
       if (attemptingChannel == null) {
+        if (prefix != null && !tryReadPrefix()) {
+          // No data at the moment. Try again next time.
+          return 0;
+        }
         attemptingChannel = nextAttemptingChannel();
       }
       while (true) {
@@ -41,8 +41,14 @@ final class SeekableByteChannelDecrypter implements SeekableByteChannel {
   @GuardedBy("this")
   long startingPosition;  // Position at which the ciphertext should begin.
 
-  // The StreamingAeads that have not yet been tried in nextAttemptingChannel.
+  @GuardedBy("this")
+  boolean prefixRead;     // Whether the key id prefix has been read.
+
+  // The StreamingAeads that have not yet been tried in nextAttemptingChannel. The ones in
+  // remainingPrefixedPrimitives are tried first, on the ciphertext following the key id prefix.
+  Deque<StreamingAead> remainingPrefixedPrimitives;
   Deque<StreamingAead> remainingPrimitives;
+  StreamingAeadKeyIdRouter router;
   byte[] associatedData;
 
   /**
@@ -55,19 +61,29 @@ final class SeekableByteChannelDecrypter implements SeekableByteChannel {
    * If a canditate does not match, then the channel is reset to its initial position,
    * and the next candiate can attempt matching.  The first successful candidate
    * is then used exclusively on subsequent {@code read()}-calls.
+   *
+   * <p>If the channel starts with a key id prefix (see {@link StreamingAeadKeyIdRouter}), then the
+   * primitives of the keys with this id are tried first on the ciphertext following the prefix.
    */
-  public SeekableByteChannelDecrypter(List<StreamingAead> allPrimitives,
-      SeekableByteChannel ciphertextChannel, final byte[] associatedData) throws IOException {
+  public SeekableByteChannelDecrypter(
+      List<StreamingAead> allPrimitives,
+      StreamingAeadKeyIdRouter router,
+      SeekableByteChannel ciphertextChannel,
+      final byte[] associatedData)
+      throws IOException {
     // There are 3 phases:
     // 1) both matchingChannel and attemptingChannel are null.
     // 2) attemptingChannel is non-null, matchingChannel is null
     // 3) attemptingChannel is null, matchingChannel is non-null.
     this.attemptingChannel = null;
     this.matchingChannel = null;
+    this.prefixRead = false;
+    this.remainingPrefixedPrimitives = new ArrayDeque<>();
     this.remainingPrimitives = new ArrayDeque<>();
     for (StreamingAead primitive : allPrimitives) {
       this.remainingPrimitives.add(primitive);
     }
+    this.router = router;
     this.ciphertextChannel = ciphertextChannel;
     // In phase 1) and 2), cachedPosition is always equal to the last position value set.
     // In phase 2), attemptingChannel always has its position set to cachedPosition.
@@ -77,8 +93,41 @@ final class SeekableByteChannelDecrypter implements SeekableByteChannel {
     this.associatedData = associatedData.clone();
   }
 
+  /** Reads the key id prefix of the ciphertext and queues the primitives matching it. */
+  @GuardedBy("this")
+  private synchronized void readPrefix() throws IOException {
+    ByteBuffer prefix = ByteBuffer.allocate(StreamingAeadKeyIdRouter.PREFIX_SIZE);
+    ciphertextChannel.position(startingPosition);
+    while (prefix.hasRemaining()) {
+      if (ciphertextChannel.read(prefix) < 0) {
+        break;
+      }
+    }
+    remainingPrefixedPrimitives.addAll(
+        router.getPrimitivesForPrefix(prefix.array(), prefix.position()));
+    prefixRead = true;
+  }
+
   @GuardedBy("this")
   private synchronized SeekableByteChannel nextAttemptingChannel() throws IOException {
+    if (!prefixRead) {
+      readPrefix();
+    }
+    while (!remainingPrefixedPrimitives.isEmpty()) {
+      ciphertextChannel.position(startingPosition);
+      StreamingAead streamingAead = this.remainingPrefixedPrimitives.removeFirst();
+      try {
+        SeekableByteChannel decChannel =
+            streamingAead.newSeekableDecryptingChannel(
+                new PrefixSkippingChannel(ciphertextChannel), associatedData);
+        if (cachedPosition >= 0) { // Caller already set new position.
+          decChannel.position(cachedPosition);
+        }
+        return decChannel;
+      } catch (GeneralSecurityException e) {
+        // Try another primitive.
+      }
+    }
     while (!remainingPrimitives.isEmpty()) {
       ciphertextChannel.position(startingPosition);
       StreamingAead streamingAead = this.remainingPrimitives.removeFirst();
@@ -191,4 +240,58 @@ final class SeekableByteChannelDecrypter implements SeekableByteChannel {
   public synchronized boolean isOpen() {
     return ciphertextChannel.isOpen();
   }
+
+  /**
+   * A read-only view of a ciphertext channel without its key id prefix: position 0 of this channel
+   * is position {@code PREFIX_SIZE} of the underlying channel.
+   */
+  private static final class PrefixSkippingChannel implements SeekableByteChannel {
+    private final SeekableByteChannel channel;
+
+    PrefixSkippingChannel(SeekableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      return channel.read(dst);
+    }
+
+    @CanIgnoreReturnValue
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+      channel.position(newPosition + StreamingAeadKeyIdRouter.PREFIX_SIZE);
+      return this;
+    }
+
+    @Override
+    public long position() throws IOException {
+      return channel.position() - StreamingAeadKeyIdRouter.PREFIX_SIZE;
+    }
+
+    @Override
+    public long size() throws IOException {
+      return channel.size() - StreamingAeadKeyIdRouter.PREFIX_SIZE;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) throws IOException {
+      throw new NonWritableChannelException();
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      throw new NonWritableChannelException();
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+
+    @Override
+    public boolean isOpen() {
+      return channel.isOpen();
+    }
+  }
 }
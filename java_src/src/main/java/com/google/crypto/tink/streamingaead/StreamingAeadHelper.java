@@ -31,17 +31,22 @@ import java.util.List;
  */
 final class StreamingAeadHelper implements StreamingAead {
   private final List<StreamingAead> allPrimitives;
+  private final StreamingAeadKeyIdRouter router;
   private final StreamingAead primary;
 
   /**
    * Creates a helper that uses the provided primitives for encryption
    * and decryption of data provided via channels.
    * For encryption it uses the primitive corresponding to the primary key.
-   * For decryption it uses an enabled primitive that matches the given ciphertext.
+   * For decryption it uses an enabled primitive that matches the given ciphertext; if the
+   * ciphertext starts with a key id prefix, the primitives in {@code router} for this key id are
+   * tried first.
    */
-  public StreamingAeadHelper(List<StreamingAead> allPrimitives, StreamingAead primary)
+  public StreamingAeadHelper(
+      List<StreamingAead> allPrimitives, StreamingAeadKeyIdRouter router, StreamingAead primary)
       throws GeneralSecurityException {
     this.allPrimitives = allPrimitives;
+    this.router = router;
     this.primary = primary;
   }
 
@@ -56,14 +61,16 @@ final class StreamingAeadHelper implements StreamingAead {
   public ReadableByteChannel newDecryptingChannel(
       ReadableByteChannel ciphertextChannel, byte[] associatedData)
       throws GeneralSecurityException, IOException {
-    return new ReadableByteChannelDecrypter(allPrimitives, ciphertextChannel, associatedData);
+    return new ReadableByteChannelDecrypter(
+        allPrimitives, router, ciphertextChannel, associatedData);
   }
 
   @Override
   public SeekableByteChannel newSeekableDecryptingChannel(
       SeekableByteChannel ciphertextChannel, byte[] associatedData)
       throws GeneralSecurityException, IOException {
-    return new SeekableByteChannelDecrypter(allPrimitives, ciphertextChannel, associatedData);
+    return new SeekableByteChannelDecrypter(
+        allPrimitives, router, ciphertextChannel, associatedData);
   }
 
   @Override
@@ -71,7 +78,7 @@ final class StreamingAeadHelper implements StreamingAead {
       InputStream ciphertextStream,
       byte[] associatedData)
       throws GeneralSecurityException, IOException {
-    return new InputStreamDecrypter(allPrimitives, ciphertextStream, associatedData);
+    return new InputStreamDecrypter(allPrimitives, router, ciphertextStream, associatedData);
   }
 
   @Override
@@ -0,0 +1,81 @@
+// Copyright 2024 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.streamingaead;
+
+import com.google.crypto.tink.StreamingAead;
+import com.google.crypto.tink.internal.OutputPrefixUtil;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the optional key id prefix of a streaming ciphertext to the primitives of the keys with
+ * that id.
+ *
+ * <p>Streaming ciphertexts created by {@link KeyIdPrefixedStreamingAead} start with the byte
+ * {@code 0x01} followed by the big-endian id of the encryption key. Legacy streaming ciphertexts
+ * start with the header length of the ciphertext, which is never 1 for the streaming AEADs in Tink.
+ * A decrypter uses this class to find the key that probably encrypted a ciphertext, and tries
+ * this key before falling back to trying all keys on the unprefixed ciphertext.
+ */
+final class StreamingAeadKeyIdRouter {
+  /** The size of the key id prefix. */
+  static final int PREFIX_SIZE = OutputPrefixUtil.NON_EMPTY_PREFIX_SIZE;
+
+  private final Map<Integer, List<StreamingAead>> primitivesByKeyId = new HashMap<>();
+
+  /**
+   * Adds {@code primitive} as a candidate for ciphertexts prefixed with {@code keyId}.
+   *
+   * <p>Must only be called while the router is being set up, before it is passed to a decrypter.
+   */
+  void add(int keyId, StreamingAead primitive) {
+    List<StreamingAead> primitives = primitivesByKeyId.get(keyId);
+    if (primitives == null) {
+      primitives = new ArrayList<>(1);
+      primitivesByKeyId.put(keyId, primitives);
+    }
+    primitives.add(primitive);
+  }
+
+  /**
+   * Returns the primitives whose key id matches the first {@code length} bytes of {@code prefix},
+   * or an empty list if these bytes are not a key id prefix of a key in this router.
+   */
+  List<StreamingAead> getPrimitivesForPrefix(byte[] prefix, int length) {
+    if (length < PREFIX_SIZE || prefix[0] != OutputPrefixUtil.TINK_START_BYTE) {
+      return Collections.emptyList();
+    }
+    int keyId =
+        ((prefix[1] & 0xff) << 24)
+            | ((prefix[2] & 0xff) << 16)
+            | ((prefix[3] & 0xff) << 8)
+            | (prefix[4] & 0xff);
+    List<StreamingAead> primitives = primitivesByKeyId.get(keyId);
+    if (primitives == null) {
+      return Collections.emptyList();
+    }
+    return primitives;
+  }
+
+  /** Returns the key id prefix for {@code keyId}. */
+  static byte[] getPrefix(int keyId) {
+    return OutputPrefixUtil.getTinkOutputPrefix(keyId).toByteArray();
+  }
+}
@@ -35,6 +35,10 @@ import java.util.List;
  * it uses the primary key in the keyset. To decrypt, the primitive tries the enabled keys from the
  * keyset to select the right key for decryption. All keys in a keyset of StreamingAead have type
  * {@link com.google.crypto.tink.proto.OutputPrefixType#RAW}.
+ *
+ * <p>Ciphertexts which start with a key id prefix, as created by {@link
+ * KeyIdPrefixedStreamingAead}, are first decrypted with the key of that id, so that decryption
+ * does not have to try every key in the keyset.
  */
 public class StreamingAeadWrapper implements PrimitiveWrapper<StreamingAead, StreamingAead> {
 
@@ -54,22 +58,25 @@ public class StreamingAeadWrapper implements PrimitiveWrapper<StreamingAead, Str
   public StreamingAead wrap(final PrimitiveSet<StreamingAead> primitives)
       throws GeneralSecurityException {
     List<StreamingAead> allStreamingAeads = new ArrayList<>();
+    StreamingAeadKeyIdRouter router = new StreamingAeadKeyIdRouter();
     for (List<PrimitiveSet.Entry<StreamingAead>> entryList : primitives.getAll()) {
       // For legacy reasons (Tink always encrypted with non-RAW keys) we use all
       // primitives, even those which have output_prefix_type != RAW.
       for (PrimitiveSet.Entry<StreamingAead> entry : entryList) {
-        if (entry.getFullPrimitive() == null) {
+        StreamingAead fullPrimitive = entry.getFullPrimitiveOrThrow();
+        if (fullPrimitive == null) {
           throw new GeneralSecurityException(
               "No full primitive set for key id " + entry.getKeyId());
         }
-        allStreamingAeads.add(entry.getFullPrimitive());
+        allStreamingAeads.add(fullPrimitive);
+        router.add(entry.getKeyId(), fullPrimitive);
       }
     }
     PrimitiveSet.Entry<StreamingAead> primary = primitives.getPrimary();
     if (primary == null || primary.getFullPrimitive() == null) {
       throw new GeneralSecurityException("No primary set");
     }
-    return new StreamingAeadHelper(allStreamingAeads, primary.getFullPrimitive());
+    return new StreamingAeadHelper(allStreamingAeads, router, primary.getFullPrimitive());
   }
 
   @Override
@@ -27,6 +27,7 @@ import java.nio.ByteOrder;
 import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import javax.crypto.Cipher;
 import javax.crypto.Mac;
 import javax.crypto.spec.IvParameterSpec;
@@ -207,6 +208,12 @@ public final class AesCtrHmacStreaming extends NonceBasedStreamingAead {
     return new AesCtrHmacStreamEncrypter(aad);
   }
 
+  @Override
+  ParallelSegmentEncrypter newParallelSegmentEncrypter(byte[] aad)
+      throws GeneralSecurityException {
+    return new AesCtrHmacParallelEncrypter(aad);
+  }
+
   @Override
   public AesCtrHmacStreamDecrypter newStreamSegmentDecrypter() throws GeneralSecurityException {
     return new AesCtrHmacStreamDecrypter();
@@ -380,6 +387,66 @@ public final class AesCtrHmacStreaming extends NonceBasedStreamingAead {
     }
   }
 
+  /**
+   * An instance of a crypter used to encrypt the segments of a plaintext stream concurrently. The
+   * caller chooses the segment numbers, and is responsible for using each of them only once. Each
+   * concurrent call uses its own Cipher and Mac; they are kept in a pool for reuse by later calls.
+   */
+  class AesCtrHmacParallelEncrypter implements ParallelSegmentEncrypter {
+    private final SecretKeySpec keySpec;
+    private final SecretKeySpec hmacKeySpec;
+    private final byte[] noncePrefix;
+    private final ByteBuffer header;
+    private final ConcurrentLinkedQueue<Cipher> ciphers = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Mac> macs = new ConcurrentLinkedQueue<>();
+
+    AesCtrHmacParallelEncrypter(byte[] aad) throws GeneralSecurityException {
+      byte[] salt = randomSalt();
+      noncePrefix = randomNonce();
+      header = ByteBuffer.allocate(getHeaderLength());
+      header.put((byte) getHeaderLength());
+      header.put(salt);
+      header.put(noncePrefix);
+      header.flip();
+      byte[] keymaterial = deriveKeyMaterial(salt, aad);
+      keySpec = deriveKeySpec(keymaterial);
+      hmacKeySpec = deriveHmacKeySpec(keymaterial);
+    }
+
+    @Override
+    public ByteBuffer getHeader() {
+      return header.asReadOnlyBuffer();
+    }
+
+    @Override
+    public void encryptSegment(
+        ByteBuffer plaintext, long segmentNr, boolean isLastSegment, ByteBuffer ciphertext)
+        throws GeneralSecurityException {
+      Cipher cipher = ciphers.poll();
+      if (cipher == null) {
+        cipher = cipherInstance();
+      }
+      Mac mac = macs.poll();
+      if (mac == null) {
+        mac = macInstance();
+        mac.init(hmacKeySpec);
+      }
+      int position = ciphertext.position();
+      byte[] nonce = nonceForSegment(noncePrefix, segmentNr, isLastSegment);
+      cipher.init(Cipher.ENCRYPT_MODE, keySpec, new IvParameterSpec(nonce));
+      cipher.doFinal(plaintext, ciphertext);
+      ByteBuffer ctCopy = ciphertext.duplicate();
+      ctCopy.flip();
+      ctCopy.position(position);
+      mac.update(nonce);
+      mac.update(ctCopy);
+      byte[] tag = mac.doFinal();
+      ciphertext.put(tag, 0, tagSizeInBytes);
+      ciphers.add(cipher);
+      macs.add(mac);
+    }
+  }
+
   /** An instance of a crypter used to decrypt a ciphertext stream. */
   class AesCtrHmacStreamDecrypter implements StreamSegmentDecrypter {
     private SecretKeySpec keySpec;
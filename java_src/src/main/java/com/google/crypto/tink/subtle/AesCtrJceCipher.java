@@ -93,12 +93,22 @@ public final class AesCtrJceCipher implements IndCpaCipher {
           "plaintext length can not exceed " + (Integer.MAX_VALUE - ivSize));
     }
     byte[] ciphertext = new byte[ivSize + plaintext.length];
-    byte[] iv = Random.randBytes(ivSize);
-    System.arraycopy(iv, 0, ciphertext, 0, ivSize);
-    doCtr(plaintext, 0, plaintext.length, ciphertext, ivSize, iv, true);
+    encrypt(plaintext, ciphertext, 0);
     return ciphertext;
   }
 
+  /**
+   * Encrypts the plaintext like {@link #encrypt(byte[])}, but writes iv || raw ciphertext to
+   * {@code output} starting at {@code outputOffset}, which must have room for {@code
+   * getIvSize() + plaintext.length} bytes.
+   */
+  void encrypt(final byte[] plaintext, byte[] output, int outputOffset)
+      throws GeneralSecurityException {
+    byte[] iv = Random.randBytes(ivSize);
+    System.arraycopy(iv, 0, output, outputOffset, ivSize);
+    doCtr(plaintext, 0, plaintext.length, output, outputOffset + ivSize, iv, true);
+  }
+
   /**
    * Decrypts the ciphertext with counter mode decryption. The ciphertext format is iv || raw
    * ciphertext.
@@ -108,16 +118,30 @@ public final class AesCtrJceCipher implements IndCpaCipher {
    */
   @Override
   public byte[] decrypt(final byte[] ciphertext) throws GeneralSecurityException {
-    if (ciphertext.length < ivSize) {
+    return decrypt(ciphertext, 0, ciphertext.length);
+  }
+
+  /**
+   * Decrypts the {@code length} bytes of {@code ciphertext} starting at {@code offset}, like {@link
+   * #decrypt(byte[])}.
+   */
+  byte[] decrypt(final byte[] ciphertext, int offset, int length)
+      throws GeneralSecurityException {
+    if (length < ivSize) {
       throw new GeneralSecurityException("ciphertext too short");
     }
     byte[] iv = new byte[ivSize];
-    System.arraycopy(ciphertext, 0, iv, 0, ivSize);
-    byte[] plaintext = new byte[ciphertext.length - ivSize];
-    doCtr(ciphertext, ivSize, ciphertext.length - ivSize, plaintext, 0, iv, false);
+    System.arraycopy(ciphertext, offset, iv, 0, ivSize);
+    byte[] plaintext = new byte[length - ivSize];
+    doCtr(ciphertext, offset + ivSize, length - ivSize, plaintext, 0, iv, false);
     return plaintext;
   }
 
+  /** Returns the size of the IV, which precedes the raw ciphertext. */
+  int getIvSize() {
+    return ivSize;
+  }
+
   private void doCtr(
       final byte[] input,
       int inputOffset,
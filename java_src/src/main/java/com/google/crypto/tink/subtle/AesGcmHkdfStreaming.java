@@ -26,6 +26,7 @@ import java.nio.ByteOrder;
 import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import javax.crypto.Cipher;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
@@ -149,6 +150,12 @@ public final class AesGcmHkdfStreaming extends NonceBasedStreamingAead {
     return new AesGcmHkdfStreamEncrypter(aad);
   }
 
+  @Override
+  ParallelSegmentEncrypter newParallelSegmentEncrypter(byte[] aad)
+      throws GeneralSecurityException {
+    return new AesGcmHkdfParallelEncrypter(aad);
+  }
+
   @Override
   public AesGcmHkdfStreamDecrypter newStreamSegmentDecrypter() throws GeneralSecurityException {
     return new AesGcmHkdfStreamDecrypter();
@@ -296,6 +303,48 @@ public final class AesGcmHkdfStreaming extends NonceBasedStreamingAead {
     }
   }
 
+  /**
+   * An instance of a crypter used to encrypt the segments of a plaintext stream concurrently. The
+   * caller chooses the segment numbers, and is responsible for using each of them only once. Each
+   * concurrent call uses its own Cipher; Ciphers are kept in a pool for reuse by later calls.
+   */
+  class AesGcmHkdfParallelEncrypter implements ParallelSegmentEncrypter {
+    private final SecretKeySpec keySpec;
+    private final byte[] noncePrefix;
+    private final ByteBuffer header;
+    private final ConcurrentLinkedQueue<Cipher> ciphers = new ConcurrentLinkedQueue<>();
+
+    AesGcmHkdfParallelEncrypter(byte[] aad) throws GeneralSecurityException {
+      byte[] salt = randomSalt();
+      noncePrefix = randomNonce();
+      header = ByteBuffer.allocate(getHeaderLength());
+      header.put((byte) getHeaderLength());
+      header.put(salt);
+      header.put(noncePrefix);
+      header.flip();
+      keySpec = deriveKeySpec(salt, aad);
+    }
+
+    @Override
+    public ByteBuffer getHeader() {
+      return header.asReadOnlyBuffer();
+    }
+
+    @Override
+    public void encryptSegment(
+        ByteBuffer plaintext, long segmentNr, boolean isLastSegment, ByteBuffer ciphertext)
+        throws GeneralSecurityException {
+      Cipher cipher = ciphers.poll();
+      if (cipher == null) {
+        cipher = cipherInstance();
+      }
+      cipher.init(
+          Cipher.ENCRYPT_MODE, keySpec, paramsForSegment(noncePrefix, segmentNr, isLastSegment));
+      cipher.doFinal(plaintext, ciphertext);
+      ciphers.add(cipher);
+    }
+  }
+
   /** An instance of a crypter used to decrypt a ciphertext stream. */
   class AesGcmHkdfStreamDecrypter implements StreamSegmentDecrypter {
     private SecretKeySpec keySpec;
@@ -26,9 +26,9 @@ import com.google.crypto.tink.aead.internal.InsecureNonceAesGcmJce;
 import com.google.crypto.tink.config.internal.TinkFipsUtil;
 import com.google.crypto.tink.util.Bytes;
 import com.google.errorprone.annotations.Immutable;
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.security.spec.AlgorithmParameterSpec;
-import java.util.Arrays;
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
@@ -91,6 +91,23 @@ public final class AesGcmJce implements Aead {
     if (plaintext == null) {
       throw new NullPointerException("plaintext is null");
     }
+    byte[] output = new byte[ciphertextSize(plaintext.length)];
+    encrypt(ByteBuffer.wrap(plaintext), associatedData, ByteBuffer.wrap(output));
+    return output;
+  }
+
+  /**
+   * On Android KitKat (API level 19) this method does not support non null or non empty {@code
+   * associatedData}. It might not work at all in older versions.
+   */
+  @Override
+  public int encrypt(
+      final ByteBuffer plaintext, final byte[] associatedData, final ByteBuffer ciphertext)
+      throws GeneralSecurityException {
+    int ciphertextSize = ciphertextSize(plaintext.remaining());
+    if (ciphertext.remaining() < ciphertextSize) {
+      throw new GeneralSecurityException("ciphertext buffer too small");
+    }
     byte[] nonce = Random.randBytes(IV_SIZE_IN_BYTES);
     AlgorithmParameterSpec params = InsecureNonceAesGcmJce.getParams(nonce);
     Cipher cipher = InsecureNonceAesGcmJce.getThreadLocalCipher();
@@ -98,25 +115,21 @@ public final class AesGcmJce implements Aead {
     if (associatedData != null && associatedData.length != 0) {
       cipher.updateAAD(associatedData);
     }
-    int outputSize = cipher.getOutputSize(plaintext.length);
-    if (outputSize > Integer.MAX_VALUE - outputPrefix.length - IV_SIZE_IN_BYTES) {
-      throw new GeneralSecurityException("plaintext too long");
+    int plaintextPosition = plaintext.position();
+    int ciphertextPosition = ciphertext.position();
+    try {
+      ciphertext.put(outputPrefix);
+      ciphertext.put(nonce);
+      int written = cipher.doFinal(plaintext, ciphertext);
+      if (written != ciphertextSize - outputPrefix.length - IV_SIZE_IN_BYTES) {
+        throw new GeneralSecurityException("not enough data written");
+      }
+    } catch (GeneralSecurityException e) {
+      plaintext.position(plaintextPosition);
+      ciphertext.position(ciphertextPosition);
+      throw e;
     }
-    int len = outputPrefix.length + IV_SIZE_IN_BYTES + outputSize;
-    byte[] output = Arrays.copyOf(outputPrefix, len);
-    System.arraycopy(
-        /* src= */ nonce,
-        /* srcPos= */ 0,
-        /* dest= */ output,
-        /* destPos= */ outputPrefix.length,
-        /* length= */ IV_SIZE_IN_BYTES);
-    int written =
-        cipher.doFinal(
-            plaintext, 0, plaintext.length, output, outputPrefix.length + IV_SIZE_IN_BYTES);
-    if (written != outputSize) {
-      throw new GeneralSecurityException("not enough data written");
-    }
-    return output;
+    return ciphertextSize;
   }
 
   @Override
@@ -128,16 +141,33 @@ public final class AesGcmJce implements Aead {
     if (ciphertext.length < outputPrefix.length + IV_SIZE_IN_BYTES + TAG_SIZE_IN_BYTES) {
       throw new GeneralSecurityException("ciphertext too short");
     }
+    byte[] output =
+        new byte[ciphertext.length - outputPrefix.length - IV_SIZE_IN_BYTES - TAG_SIZE_IN_BYTES];
+    decrypt(ByteBuffer.wrap(ciphertext), associatedData, ByteBuffer.wrap(output));
+    return output;
+  }
+
+  @Override
+  public int decrypt(
+      final ByteBuffer ciphertext, final byte[] associatedData, final ByteBuffer plaintext)
+      throws GeneralSecurityException {
+    int ciphertextPosition = ciphertext.position();
+    int ciphertextSize = ciphertext.remaining();
+    if (ciphertextSize < outputPrefix.length + IV_SIZE_IN_BYTES + TAG_SIZE_IN_BYTES) {
+      throw new GeneralSecurityException("ciphertext too short");
+    }
     if (!isPrefix(outputPrefix, ciphertext)) {
       throw new GeneralSecurityException("Decryption failed (OutputPrefix mismatch).");
     }
+    if (plaintext.remaining()
+        < ciphertextSize - outputPrefix.length - IV_SIZE_IN_BYTES - TAG_SIZE_IN_BYTES) {
+      throw new GeneralSecurityException("plaintext buffer too small");
+    }
+    int nonceOffset = ciphertextPosition + outputPrefix.length;
     byte[] nonce = new byte[IV_SIZE_IN_BYTES];
-    System.arraycopy(
-        /* src= */ ciphertext,
-        /* srcPos= */ outputPrefix.length,
-        /* dest= */ nonce,
-        /* destPos= */ 0,
-        /* length= */ IV_SIZE_IN_BYTES);
+    for (int i = 0; i < IV_SIZE_IN_BYTES; i++) {
+      nonce[i] = ciphertext.get(nonceOffset + i);
+    }
     AlgorithmParameterSpec params = InsecureNonceAesGcmJce.getParams(nonce);
 
     Cipher cipher = InsecureNonceAesGcmJce.getThreadLocalCipher();
@@ -145,8 +175,23 @@ public final class AesGcmJce implements Aead {
     if (associatedData != null && associatedData.length != 0) {
       cipher.updateAAD(associatedData);
     }
-    int offset = outputPrefix.length + IV_SIZE_IN_BYTES;
-    int len = ciphertext.length - outputPrefix.length - IV_SIZE_IN_BYTES;
-    return cipher.doFinal(ciphertext, offset, len);
+    int plaintextPosition = plaintext.position();
+    ciphertext.position(nonceOffset + IV_SIZE_IN_BYTES);
+    try {
+      return cipher.doFinal(ciphertext, plaintext);
+    } catch (GeneralSecurityException e) {
+      ciphertext.position(ciphertextPosition);
+      plaintext.position(plaintextPosition);
+      throw e;
+    }
+  }
+
+  private int ciphertextSize(int plaintextSize) throws GeneralSecurityException {
+    // Check that ciphertext is not longer than the max. size of a Java array.
+    if (plaintextSize
+        > Integer.MAX_VALUE - outputPrefix.length - IV_SIZE_IN_BYTES - TAG_SIZE_IN_BYTES) {
+      throw new GeneralSecurityException("plaintext too long");
+    }
+    return outputPrefix.length + IV_SIZE_IN_BYTES + plaintextSize + TAG_SIZE_IN_BYTES;
   }
 }
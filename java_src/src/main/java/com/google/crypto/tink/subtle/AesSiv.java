@@ -23,6 +23,7 @@ import com.google.crypto.tink.DeterministicAead;
 import com.google.crypto.tink.InsecureSecretKeyAccess;
 import com.google.crypto.tink.config.internal.TinkFipsUtil;
 import com.google.crypto.tink.daead.AesSivKey;
+import com.google.crypto.tink.mac.internal.AesCmacCore;
 import com.google.crypto.tink.mac.internal.AesUtil;
 import com.google.crypto.tink.util.Bytes;
 import java.security.GeneralSecurityException;
@@ -50,16 +51,27 @@ public final class AesSiv implements DeterministicAead {
   // Do not support 128-bit keys because it might not provide 128-bit security level in
   // multi-user setting.
   private static final Collection<Integer> KEY_SIZES = Arrays.asList(64);
-  private static final byte[] BLOCK_ZERO = new byte[AesUtil.BLOCK_SIZE];
-  private static final byte[] BLOCK_ONE = {
-    0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, (byte) 0x01
-  };
 
-  /** The internal AesCmac object for S2V */
-  private final PrfAesCmac cmacForS2V;
+  private static final ThreadLocal<Cipher> localAesCtrCipher =
+      new ThreadLocal<Cipher>() {
+        @Override
+        protected Cipher initialValue() {
+          try {
+            return EngineFactory.CIPHER.getInstance("AES/CTR/NoPadding");
+          } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+          }
+        }
+      };
+
+  /** The AES-CMAC used in S2V, keyed with the first half of the key. */
+  private final AesCmacCore cmac;
+
+  /** dbl(CMAC(0^128)), the first step of S2V, which only depends on the key. */
+  private final byte[] s2vInitialValue;
 
   /** The key used for the CTR encryption */
-  private final byte[] aesCtrKey;
+  private final SecretKeySpec aesCtrKey;
 
   private final byte[] outputPrefix;
 
@@ -80,10 +92,10 @@ public final class AesSiv implements DeterministicAead {
           "invalid key size: " + key.length + " bytes; key must have 64 bytes");
     }
 
-    byte[] k1 = Arrays.copyOfRange(key, 0, key.length / 2);
-    this.aesCtrKey = Arrays.copyOfRange(key, key.length / 2, key.length);
-    this.cmacForS2V = new PrfAesCmac(k1);
+    this.cmac = AesCmacCore.create(Arrays.copyOf(key, key.length / 2));
+    this.aesCtrKey = new SecretKeySpec(key, key.length / 2, key.length / 2, "AES");
     this.outputPrefix = outputPrefix.toByteArray();
+    this.s2vInitialValue = AesUtil.dbl(cmac.computeMac(new byte[AesUtil.BLOCK_SIZE]));
   }
 
   public AesSiv(final byte[] key) throws GeneralSecurityException {
@@ -91,61 +103,75 @@ public final class AesSiv implements DeterministicAead {
   }
 
   /**
-   * s2v per https://tools.ietf.org/html/rfc5297
-   *
-   * @param s
-   * @return s2v(si)
-   * @throws GeneralSecurityException
+   * Computes s2v(associatedData, plaintext) per https://tools.ietf.org/html/rfc5297, where the
+   * plaintext is {@code data[offset, offset + length)}, and writes it to {@code out}.
    */
-  private byte[] s2v(final byte[]... s) throws GeneralSecurityException {
-    if (s.length == 0) {
-      // Should never happen with AES-SIV, but we include this for completeness.
-      return cmacForS2V.compute(BLOCK_ONE, AesUtil.BLOCK_SIZE);
-    }
-
-    byte[] result = cmacForS2V.compute(BLOCK_ZERO, AesUtil.BLOCK_SIZE);
-    for (int i = 0; i < s.length - 1; i++) {
-      final byte[] currBlock;
-      if (s[i] == null) {
-        currBlock = new byte[0];
-      } else {
-        currBlock = s[i];
-      }
-      result =
+  private void s2v(
+      final byte[] associatedData, final byte[] data, int offset, int length, byte[] out)
+      throws GeneralSecurityException {
+    byte[] ad = associatedData == null ? new byte[0] : associatedData;
+    // d = dbl(CMAC(0)) xor CMAC(associatedData)
+    byte[] d = com.google.crypto.tink.subtle.Bytes.xor(cmac.computeMac(ad), s2vInitialValue);
+
+    Arrays.fill(out, (byte) 0);
+    if (length < AesUtil.BLOCK_SIZE) {
+      // CMAC(dbl(d) xor pad(plaintext))
+      byte[] lastBlock =
           com.google.crypto.tink.subtle.Bytes.xor(
-              AesUtil.dbl(result), cmacForS2V.compute(currBlock, AesUtil.BLOCK_SIZE));
+              AesUtil.cmacPad(Arrays.copyOfRange(data, offset, offset + length)), AesUtil.dbl(d));
+      cmac.processLastBlock(out, lastBlock, 0, AesUtil.BLOCK_SIZE);
+      return;
     }
-    byte[] lastBlock = s[s.length - 1];
-    if (lastBlock.length >= 16) {
-      result = com.google.crypto.tink.subtle.Bytes.xorEnd(lastBlock, result);
+    // CMAC(plaintext xorend d). The blocks before the one where the xorend starts are read
+    // directly from data; the rest (between 16 and 31 bytes) is copied and xored with d.
+    int xorEndStart = length - AesUtil.BLOCK_SIZE;
+    int tailStart = (xorEndStart / AesUtil.BLOCK_SIZE) * AesUtil.BLOCK_SIZE;
+    for (int i = 0; i < tailStart; i += AesUtil.BLOCK_SIZE) {
+      cmac.processBlock(out, data, offset + i);
+    }
+    byte[] tail = Arrays.copyOfRange(data, offset + tailStart, offset + length);
+    for (int i = 0; i < AesUtil.BLOCK_SIZE; i++) {
+      tail[xorEndStart - tailStart + i] ^= d[i];
+    }
+    if (tail.length > AesUtil.BLOCK_SIZE) {
+      cmac.processBlock(out, tail, 0);
+      cmac.processLastBlock(out, tail, AesUtil.BLOCK_SIZE, tail.length - AesUtil.BLOCK_SIZE);
     } else {
-      result =
-          com.google.crypto.tink.subtle.Bytes.xor(AesUtil.cmacPad(lastBlock), AesUtil.dbl(result));
+      cmac.processLastBlock(out, tail, 0, AesUtil.BLOCK_SIZE);
     }
-    return cmacForS2V.compute(result, AesUtil.BLOCK_SIZE);
+  }
+
+  /** Returns the IV for the CTR encryption, which is {@code siv} with two bits cleared. */
+  private static IvParameterSpec ctrIv(byte[] siv, int offset) {
+    byte[] ivForJavaCrypto = Arrays.copyOfRange(siv, offset, offset + AesUtil.BLOCK_SIZE);
+    ivForJavaCrypto[8] &= (byte) 0x7F; // 63th bit from the right
+    ivForJavaCrypto[12] &= (byte) 0x7F; // 31st bit from the right
+    return new IvParameterSpec(ivForJavaCrypto);
   }
 
   @Override
   public byte[] encryptDeterministically(final byte[] plaintext, final byte[] associatedData)
       throws GeneralSecurityException {
-    if (plaintext.length > Integer.MAX_VALUE - AesUtil.BLOCK_SIZE) {
+    if (plaintext.length > Integer.MAX_VALUE - AesUtil.BLOCK_SIZE - outputPrefix.length) {
       throw new GeneralSecurityException("plaintext too long");
     }
 
-    Cipher aesCtr = EngineFactory.CIPHER.getInstance("AES/CTR/NoPadding");
-    byte[] computedIv = s2v(associatedData, plaintext);
-    byte[] ivForJavaCrypto = computedIv.clone();
-    ivForJavaCrypto[8] &= (byte) 0x7F; // 63th bit from the right
-    ivForJavaCrypto[12] &= (byte) 0x7F; // 31st bit from the right
+    byte[] computedIv = new byte[AesUtil.BLOCK_SIZE];
+    s2v(associatedData, plaintext, 0, plaintext.length, computedIv);
 
-    aesCtr.init(
-        Cipher.ENCRYPT_MODE,
-        new SecretKeySpec(this.aesCtrKey, "AES"),
-        new IvParameterSpec(ivForJavaCrypto));
+    byte[] ciphertext = new byte[outputPrefix.length + AesUtil.BLOCK_SIZE + plaintext.length];
+    System.arraycopy(outputPrefix, 0, ciphertext, 0, outputPrefix.length);
+    System.arraycopy(computedIv, 0, ciphertext, outputPrefix.length, AesUtil.BLOCK_SIZE);
 
-    byte[] ctrCiphertext = aesCtr.doFinal(plaintext);
-
-    return com.google.crypto.tink.subtle.Bytes.concat(outputPrefix, computedIv, ctrCiphertext);
+    Cipher aesCtr = localAesCtrCipher.get();
+    aesCtr.init(Cipher.ENCRYPT_MODE, aesCtrKey, ctrIv(computedIv, 0));
+    int written =
+        aesCtr.doFinal(
+            plaintext, 0, plaintext.length, ciphertext, outputPrefix.length + AesUtil.BLOCK_SIZE);
+    if (written != plaintext.length) {
+      throw new GeneralSecurityException("not enough data written");
+    }
+    return ciphertext;
   }
 
   @Override
@@ -158,32 +184,19 @@ public final class AesSiv implements DeterministicAead {
       throw new GeneralSecurityException("Decryption failed (OutputPrefix mismatch).");
     }
 
-    Cipher aesCtr = EngineFactory.CIPHER.getInstance("AES/CTR/NoPadding");
-
-    byte[] expectedIv =
-        Arrays.copyOfRange(
-            ciphertext, outputPrefix.length, AesUtil.BLOCK_SIZE + outputPrefix.length);
-
-    byte[] ivForJavaCrypto = expectedIv.clone();
-    ivForJavaCrypto[8] &= (byte) 0x7F; // 63th bit from the right
-    ivForJavaCrypto[12] &= (byte) 0x7F; // 31st bit from the right
-
-    aesCtr.init(
-        Cipher.DECRYPT_MODE,
-        new SecretKeySpec(this.aesCtrKey, "AES"),
-        new IvParameterSpec(ivForJavaCrypto));
-
-    byte[] ctrCiphertext =
-        Arrays.copyOfRange(ciphertext, AesUtil.BLOCK_SIZE + outputPrefix.length, ciphertext.length);
-    byte[] decryptedPt = aesCtr.doFinal(ctrCiphertext);
-    if (ctrCiphertext.length == 0 && decryptedPt == null && SubtleUtil.isAndroid()) {
-      // On Android KitKat (19) and Lollipop (21), Cipher.doFinal returns a null pointer when the
-      // ciphertext is empty, instead of an empty plaintext. Here we attempt to fix this bug. This
-      // is safe because if the plaintext is not empty, the next integrity check would reject it.
-      decryptedPt = new byte[0];
+    int ctrCiphertextOffset = outputPrefix.length + AesUtil.BLOCK_SIZE;
+    byte[] decryptedPt = new byte[ciphertext.length - ctrCiphertextOffset];
+    Cipher aesCtr = localAesCtrCipher.get();
+    aesCtr.init(Cipher.DECRYPT_MODE, aesCtrKey, ctrIv(ciphertext, outputPrefix.length));
+    int written =
+        aesCtr.doFinal(ciphertext, ctrCiphertextOffset, decryptedPt.length, decryptedPt, 0);
+    if (written != decryptedPt.length) {
+      throw new GeneralSecurityException("not enough data written");
     }
-    byte[] computedIv = s2v(associatedData, decryptedPt);
 
+    byte[] computedIv = new byte[AesUtil.BLOCK_SIZE];
+    s2v(associatedData, decryptedPt, 0, decryptedPt.length, computedIv);
+    byte[] expectedIv = Arrays.copyOfRange(ciphertext, outputPrefix.length, ctrCiphertextOffset);
     if (com.google.crypto.tink.subtle.Bytes.equal(expectedIv, computedIv)) {
       return decryptedPt;
     } else {
@@ -36,6 +36,31 @@ public final class Bytes {
     return MessageDigest.isEqual(x, y);
   }
 
+  /**
+   * Best effort fix-timing comparison of {@code len} bytes of {@code x} starting at {@code offsetX}
+   * with {@code len} bytes of {@code y} starting at {@code offsetY}. The time taken depends only on
+   * {@code len}.
+   *
+   * @return true if the two ranges are equal.
+   */
+  public static final boolean equal(
+      final byte[] x, int offsetX, final byte[] y, int offsetY, int len) {
+    if (len < 0
+        || offsetX < 0
+        || offsetY < 0
+        || x.length - len < offsetX
+        || y.length - len < offsetY) {
+      throw new IllegalArgumentException(
+          "That combination of buffers, offsets and length to compare results in out-of-bounds"
+              + " accesses.");
+    }
+    int diff = 0;
+    for (int i = 0; i < len; i++) {
+      diff |= x[i + offsetX] ^ y[i + offsetY];
+    }
+    return diff == 0;
+  }
+
   /**
    * Returns the concatenation of the input arrays in a single array. For example, {@code concat(new
    * byte[] {a, b}, new byte[] {}, new byte[] {c}} returns the array {@code {a, b, c}}.
@@ -21,6 +21,7 @@ import com.google.crypto.tink.InsecureSecretKeyAccess;
 import com.google.crypto.tink.PublicKeySign;
 import com.google.crypto.tink.PublicKeyVerify;
 import com.google.crypto.tink.config.internal.TinkFipsUtil;
+import com.google.crypto.tink.internal.EnginePool;
 import com.google.crypto.tink.signature.EcdsaParameters;
 import com.google.crypto.tink.signature.EcdsaPrivateKey;
 import com.google.crypto.tink.subtle.EllipticCurves.CurveType;
@@ -56,6 +57,13 @@ public final class EcdsaSignJce implements PublicKeySign {
   @SuppressWarnings("Immutable")
   private final byte[] messageSuffix;
 
+  /**
+   * Signature objects initialized for signing with {@link #privateKey}. {@link Signature#sign}
+   * resets the object to the state after {@link Signature#initSign}, so it can be reused.
+   */
+  @SuppressWarnings("Immutable") // Only contains Signatures which are currently not in use.
+  private final EnginePool<Signature> signers = new EnginePool<>(this::newSigner);
+
   private EcdsaSignJce(
       final ECPrivateKey priv,
       HashType hash,
@@ -115,34 +123,38 @@ public final class EcdsaSignJce implements PublicKeySign {
     return signer;
   }
 
-  private byte[] noPrefixSign(final byte[] data) throws GeneralSecurityException {
+  private Signature newSigner() throws GeneralSecurityException {
     // Prefer Conscrypt over other providers if available.
     List<Provider> preferredProviders =
         EngineFactory.toProviderList("GmsCore_OpenSSL", "AndroidOpenSSL", "Conscrypt");
     Signature signer = EngineFactory.SIGNATURE.getInstance(signatureAlgorithm, preferredProviders);
     signer.initSign(privateKey);
-    signer.update(data);
-    byte[] signature = signer.sign();
-    if (encoding == EcdsaEncoding.IEEE_P1363) {
-      EllipticCurve curve = privateKey.getParams().getCurve();
-      signature =
-          EllipticCurves.ecdsaDer2Ieee(signature, 2 * EllipticCurves.fieldSizeInBytes(curve));
-    }
-    return signature;
+    return signer;
   }
 
   @Override
   public byte[] sign(final byte[] data) throws GeneralSecurityException {
-    byte[] signature;
-    if (messageSuffix.length == 0) {
-      signature = noPrefixSign(data);
-    } else {
-      signature = noPrefixSign(Bytes.concat(data, messageSuffix));
+    Signature signer = signers.acquire();
+    signer.update(data);
+    if (messageSuffix.length > 0) {
+      signer.update(messageSuffix);
     }
-    if (outputPrefix.length == 0) {
+    byte[] derSignature = signer.sign();
+    signers.release(signer);
+
+    if (encoding == EcdsaEncoding.IEEE_P1363) {
+      EllipticCurve curve = privateKey.getParams().getCurve();
+      int ieeeLength = 2 * EllipticCurves.fieldSizeInBytes(curve);
+      byte[] signature = new byte[outputPrefix.length + ieeeLength];
+      System.arraycopy(outputPrefix, 0, signature, 0, outputPrefix.length);
+      EllipticCurves.ecdsaDer2Ieee(derSignature, signature, outputPrefix.length, ieeeLength);
       return signature;
-    } else {
-      return Bytes.concat(outputPrefix, signature);
     }
+    if (outputPrefix.length == 0) {
+      return derSignature;
+    }
+    // The length of a DER signature is only known after signing, so unlike the IEEE_P1363 encoding
+    // it cannot be written into a preallocated array without copying it again to trim it.
+    return Bytes.concat(outputPrefix, derSignature);
   }
 }
@@ -21,6 +21,7 @@ import static com.google.crypto.tink.internal.Util.isPrefix;
 import com.google.crypto.tink.AccessesPartialKey;
 import com.google.crypto.tink.PublicKeyVerify;
 import com.google.crypto.tink.config.internal.TinkFipsUtil;
+import com.google.crypto.tink.internal.EnginePool;
 import com.google.crypto.tink.internal.EnumTypeProtoConverter;
 import com.google.crypto.tink.signature.EcdsaParameters;
 import com.google.crypto.tink.signature.EcdsaPublicKey;
@@ -58,6 +59,14 @@ public final class EcdsaVerifyJce implements PublicKeyVerify {
   @SuppressWarnings("Immutable")
   private final byte[] messageSuffix;
 
+  /**
+   * Signature objects initialized for verification with {@link #publicKey}. {@link
+   * Signature#verify} resets the object to the state after {@link Signature#initVerify}, so it can
+   * be reused.
+   */
+  @SuppressWarnings("Immutable") // Only contains Signatures which are currently not in use.
+  private final EnginePool<Signature> verifiers = new EnginePool<>(this::newVerifier);
+
   // This converter is not used with a proto but rather with an ordinary enum type.
   static final EnumTypeProtoConverter<HashType, EcdsaParameters.HashType> HASH_TYPE_CONVERTER =
       EnumTypeProtoConverter.<HashType, EcdsaParameters.HashType>builder()
@@ -121,6 +130,15 @@ public final class EcdsaVerifyJce implements PublicKeyVerify {
     this(pubKey, hash, encoding, new byte[0], new byte[0]);
   }
 
+  private Signature newVerifier() throws GeneralSecurityException {
+    List<Provider> preferredProviders =
+        EngineFactory.toProviderList("GmsCore_OpenSSL", "AndroidOpenSSL", "Conscrypt");
+    Signature verifier =
+        EngineFactory.SIGNATURE.getInstance(signatureAlgorithm, preferredProviders);
+    verifier.initVerify(publicKey);
+    return verifier;
+  }
+
   private void noPrefixVerify(final byte[] signature, final byte[] data)
       throws GeneralSecurityException {
     byte[] derSignature = signature;
@@ -134,15 +152,15 @@ public final class EcdsaVerifyJce implements PublicKeyVerify {
     if (!EllipticCurves.isValidDerEncoding(derSignature)) {
       throw new GeneralSecurityException("Invalid signature");
     }
-    List<Provider> preferredProviders =
-        EngineFactory.toProviderList("GmsCore_OpenSSL", "AndroidOpenSSL", "Conscrypt");
-    Signature verifier =
-        EngineFactory.SIGNATURE.getInstance(signatureAlgorithm, preferredProviders);
-    verifier.initVerify(publicKey);
+    Signature verifier = verifiers.acquire();
     verifier.update(data);
+    if (messageSuffix.length > 0) {
+      verifier.update(messageSuffix);
+    }
     boolean verified = false;
     try {
       verified = verifier.verify(derSignature);
+      verifiers.release(verifier);
     } catch (java.lang.RuntimeException ex) {
       verified = false;
     }
@@ -160,11 +178,7 @@ public final class EcdsaVerifyJce implements PublicKeyVerify {
     if (!isPrefix(outputPrefix, signature)) {
       throw new GeneralSecurityException("Invalid signature (output prefix mismatch)");
     }
-    byte[] dataCopy = data;
-    if (messageSuffix.length != 0) {
-      dataCopy = Bytes.concat(data, messageSuffix);
-    }
     byte[] signatureNoPrefix = Arrays.copyOfRange(signature, outputPrefix.length, signature.length);
-    noPrefixVerify(signatureNoPrefix, dataCopy);
+    noPrefixVerify(signatureNoPrefix, data);
   }
 }
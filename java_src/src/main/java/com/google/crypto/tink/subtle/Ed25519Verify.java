@@ -29,6 +29,8 @@ import com.google.crypto.tink.util.Bytes;
 import com.google.errorprone.annotations.Immutable;
 import java.security.GeneralSecurityException;
 import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
 
 /**
  * Ed25519 verifying.
@@ -60,6 +62,14 @@ public final class Ed25519Verify implements PublicKeyVerify {
 
   private final Bytes publicKey;
 
+  /**
+   * The decoded public key, or null if {@code publicKey} is not a valid point. In that case, the
+   * error is reported by {@link #verify}, as it was before public keys were decoded eagerly.
+   */
+  @SuppressWarnings("Immutable") // Never modified after construction.
+  @Nullable
+  private final Ed25519.PrecomputedPublicKey precomputedPublicKey;
+
   @SuppressWarnings("Immutable")
   private final byte[] outputPrefix;
 
@@ -101,22 +111,38 @@ public final class Ed25519Verify implements PublicKeyVerify {
     this.outputPrefix = outputPrefix;
     this.messageSuffix = messageSuffix;
     Ed25519.init();
+    Ed25519.PrecomputedPublicKey precomputed;
+    try {
+      precomputed = Ed25519.precomputePublicKey(publicKey);
+    } catch (GeneralSecurityException e) {
+      precomputed = null;
+    }
+    this.precomputedPublicKey = precomputed;
   }
 
-  private void noPrefixVerify(byte[] signature, byte[] data) throws GeneralSecurityException {
+  private void noPrefixVerify(byte[] signature, byte[] data, boolean cofactored)
+      throws GeneralSecurityException {
     if (signature.length != SIGNATURE_LEN) {
       throw new GeneralSecurityException(
           String.format("The length of the signature is not %s.", SIGNATURE_LEN));
     }
-    if (!Ed25519.verify(data, signature, publicKey.toByteArray())) {
+    boolean valid;
+    if (precomputedPublicKey == null) {
+      valid = Ed25519.verify(data, signature, publicKey.toByteArray());
+    } else if (cofactored) {
+      valid = Ed25519.verifyCofactored(data, signature, precomputedPublicKey);
+    } else {
+      valid = Ed25519.verify(data, signature, precomputedPublicKey);
+    }
+    if (!valid) {
       throw new GeneralSecurityException("Signature check failed.");
     }
   }
 
-  @Override
-  public void verify(final byte[] signature, final byte[] data) throws GeneralSecurityException {
+  private void verify(final byte[] signature, final byte[] data, boolean cofactored)
+      throws GeneralSecurityException {
     if (outputPrefix.length == 0 && messageSuffix.length == 0) {
-      noPrefixVerify(signature, data);
+      noPrefixVerify(signature, data, cofactored);
       return;
     }
     if (!isPrefix(outputPrefix, signature)) {
@@ -127,6 +153,78 @@ public final class Ed25519Verify implements PublicKeyVerify {
       dataCopy = com.google.crypto.tink.subtle.Bytes.concat(data, messageSuffix);
     }
     byte[] signatureNoPrefix = Arrays.copyOfRange(signature, outputPrefix.length, signature.length);
-    noPrefixVerify(signatureNoPrefix, dataCopy);
+    noPrefixVerify(signatureNoPrefix, dataCopy, cofactored);
+  }
+
+  @Override
+  public void verify(final byte[] signature, final byte[] data) throws GeneralSecurityException {
+    verify(signature, data, /* cofactored= */ false);
+  }
+
+  /**
+   * Like {@link #verify}, but uses the cofactored verification equation (see {@link
+   * Ed25519#verifyCofactored}). This is the check done by {@link #verifyBatch} for each signature.
+   *
+   * <p>This accepts more signatures than {@link #verify}, so it is not part of the public API.
+   */
+  void verifyCofactored(final byte[] signature, final byte[] data)
+      throws GeneralSecurityException {
+    verify(signature, data, /* cofactored= */ true);
+  }
+
+  /**
+   * Verifies many signatures at once: {@code signatures.get(i)} is checked for {@code
+   * data.get(i)} with {@code verifiers.get(i)}, for all i.
+   *
+   * <p>This is faster than calling {@link #verify} for each signature if most signatures are
+   * valid, in particular if many of them are verified with the same {@code Ed25519Verify} object.
+   * See {@link Ed25519#verifyBatch} for details.
+   *
+   * <p>The i-th result is true iff the i-th signature satisfies the cofactored verification
+   * equation. This accepts every signature accepted by {@link #verify}; it can additionally accept
+   * signatures which only the owner of the private key can create.
+   *
+   * @return an array whose i-th element is true iff the i-th signature is valid.
+   */
+  public static boolean[] verifyBatch(
+      List<Ed25519Verify> verifiers, List<byte[]> signatures, List<byte[]> data)
+      throws GeneralSecurityException {
+    int n = verifiers.size();
+    if (signatures.size() != n || data.size() != n) {
+      throw new IllegalArgumentException("verifiers, signatures and data must have equal size");
+    }
+    byte[][] batchMessages = new byte[n][];
+    byte[][] batchSignatures = new byte[n][];
+    Ed25519.PrecomputedPublicKey[] batchPublicKeys = new Ed25519.PrecomputedPublicKey[n];
+    int[] batchIndices = new int[n];
+    int batchSize = 0;
+    for (int i = 0; i < n; i++) {
+      Ed25519Verify verifier = verifiers.get(i);
+      byte[] signature = signatures.get(i);
+      if (verifier.precomputedPublicKey == null || !isPrefix(verifier.outputPrefix, signature)) {
+        continue;
+      }
+      batchSignatures[batchSize] =
+          verifier.outputPrefix.length == 0
+              ? signature
+              : Arrays.copyOfRange(signature, verifier.outputPrefix.length, signature.length);
+      batchMessages[batchSize] =
+          verifier.messageSuffix.length == 0
+              ? data.get(i)
+              : com.google.crypto.tink.subtle.Bytes.concat(data.get(i), verifier.messageSuffix);
+      batchPublicKeys[batchSize] = verifier.precomputedPublicKey;
+      batchIndices[batchSize] = i;
+      batchSize++;
+    }
+    boolean[] batchResult =
+        Ed25519.verifyBatch(
+            Arrays.copyOf(batchMessages, batchSize),
+            Arrays.copyOf(batchSignatures, batchSize),
+            Arrays.copyOf(batchPublicKeys, batchSize));
+    boolean[] result = new boolean[n];
+    for (int j = 0; j < batchSize; j++) {
+      result[batchIndices[j]] = batchResult[j];
+    }
+    return result;
   }
 }
@@ -372,10 +372,21 @@ public final class EllipticCurves {
    * @throws GeneralSecurityException if the signature is not valid DER encoding.
    */
   public static byte[] ecdsaDer2Ieee(byte[] der, int ieeeLength) throws GeneralSecurityException {
+    byte[] ieee = new byte[ieeeLength];
+    ecdsaDer2Ieee(der, ieee, 0, ieeeLength);
+    return ieee;
+  }
+
+  /**
+   * Like {@link #ecdsaDer2Ieee(byte[], int)}, but writes the IEEE_P1363 encoding to {@code output}
+   * starting at {@code outputOffset}. These {@code ieeeLength} bytes of {@code output} must be
+   * zero.
+   */
+  static void ecdsaDer2Ieee(byte[] der, byte[] output, int outputOffset, int ieeeLength)
+      throws GeneralSecurityException {
     if (!isValidDerEncoding(der)) {
       throw new GeneralSecurityException("Invalid DER encoding");
     }
-    byte[] ieee = new byte[ieeeLength];
     int length = der[1] & 0xff;
     int offset = 1 /* 0x30 */ + 1 /* totalLength */;
     if (length >= 128) {
@@ -388,7 +399,11 @@ public final class EllipticCurves {
       extraZero = 1;
     }
     System.arraycopy(
-        der, offset + extraZero, ieee, ieeeLength / 2 - rLength + extraZero, rLength - extraZero);
+        der,
+        offset + extraZero,
+        output,
+        outputOffset + ieeeLength / 2 - rLength + extraZero,
+        rLength - extraZero);
     offset += rLength /* r byte array */ + 1 /* 0x02 */;
     int sLength = der[offset++];
     extraZero = 0;
@@ -396,8 +411,11 @@ public final class EllipticCurves {
       extraZero = 1;
     }
     System.arraycopy(
-        der, offset + extraZero, ieee, ieeeLength - sLength + extraZero, sLength - extraZero);
-    return ieee;
+        der,
+        offset + extraZero,
+        output,
+        outputOffset + ieeeLength - sLength + extraZero,
+        sLength - extraZero);
   }
 
   // Validates that the signature is in DER encoding, based on
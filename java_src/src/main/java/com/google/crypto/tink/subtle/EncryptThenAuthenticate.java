@@ -25,6 +25,7 @@ import com.google.crypto.tink.internal.Util;
 import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.util.Arrays;
+import javax.annotation.Nullable;
 import javax.crypto.spec.SecretKeySpec;
 
 /**
@@ -45,16 +46,31 @@ public final class EncryptThenAuthenticate implements Aead {
   private final int macLength;
   private final byte[] outputPrefix;
 
+  // Set if the cipher is AES-CTR and the MAC is HMAC. Then the output prefix, the IV, the raw
+  // ciphertext and the tag are written into a single array, and the MAC input is passed to HMAC
+  // piece by piece instead of being concatenated.
+  @Nullable private final AesCtrJceCipher aesCtrCipher;
+  @Nullable private final PrfHmacJce hmac;
+
   public EncryptThenAuthenticate(final IndCpaCipher cipher, final Mac mac, int macLength) {
-    this(cipher, mac, macLength, new byte[] {});
+    this.cipher = cipher;
+    this.mac = mac;
+    this.macLength = macLength;
+    this.outputPrefix = new byte[] {};
+    this.aesCtrCipher = null;
+    this.hmac = null;
   }
 
   private EncryptThenAuthenticate(
-      IndCpaCipher cipher, Mac mac, int macLength, byte[] outputPrefix) {
-    this.cipher = cipher;
-    this.mac = mac;
+      AesCtrJceCipher aesCtrCipher, PrfHmacJce hmac, int macLength, byte[] outputPrefix)
+      throws GeneralSecurityException {
+    this.cipher = aesCtrCipher;
+    // PrfMac also checks that macLength is valid for hmac.
+    this.mac = new PrfMac(hmac, macLength);
     this.macLength = macLength;
     this.outputPrefix = outputPrefix;
+    this.aesCtrCipher = aesCtrCipher;
+    this.hmac = hmac;
   }
 
   /**
@@ -67,12 +83,10 @@ public final class EncryptThenAuthenticate implements Aead {
         new AesCtrJceCipher(
             key.getAesKeyBytes().toByteArray(InsecureSecretKeyAccess.get()),
             key.getParameters().getIvSizeBytes()),
-        new PrfMac(
-            new PrfHmacJce(
-                "HMAC" + key.getParameters().getHashType(),
-                new SecretKeySpec(
-                    key.getHmacKeyBytes().toByteArray(InsecureSecretKeyAccess.get()), "HMAC")),
-            key.getParameters().getTagSizeBytes()),
+        new PrfHmacJce(
+            "HMAC" + key.getParameters().getHashType(),
+            new SecretKeySpec(
+                key.getHmacKeyBytes().toByteArray(InsecureSecretKeyAccess.get()), "HMAC")),
         key.getParameters().getTagSizeBytes(),
         key.getOutputPrefix().toByteArray());
   }
@@ -85,10 +99,10 @@ public final class EncryptThenAuthenticate implements Aead {
   public static Aead newAesCtrHmac(
       final byte[] aesCtrKey, int ivSize, String hmacAlgorithm, final byte[] hmacKey, int tagSize)
       throws GeneralSecurityException {
-    IndCpaCipher cipher = new AesCtrJceCipher(aesCtrKey, ivSize);
+    AesCtrJceCipher cipher = new AesCtrJceCipher(aesCtrKey, ivSize);
     SecretKeySpec hmacKeySpec = new SecretKeySpec(hmacKey, "HMAC");
-    Mac hmac = new PrfMac(new PrfHmacJce(hmacAlgorithm, hmacKeySpec), tagSize);
-    return new EncryptThenAuthenticate(cipher, hmac, tagSize);
+    PrfHmacJce hmac = new PrfHmacJce(hmacAlgorithm, hmacKeySpec);
+    return new EncryptThenAuthenticate(cipher, hmac, tagSize, new byte[] {});
   }
 
   /**
@@ -105,11 +119,14 @@ public final class EncryptThenAuthenticate implements Aead {
   @Override
   public byte[] encrypt(final byte[] plaintext, final byte[] associatedData)
       throws GeneralSecurityException {
-    byte[] ciphertext = cipher.encrypt(plaintext);
     byte[] ad = associatedData;
     if (ad == null) {
       ad = new byte[0];
     }
+    if (aesCtrCipher != null && hmac != null) {
+      return encryptAesCtrHmac(plaintext, ad);
+    }
+    byte[] ciphertext = cipher.encrypt(plaintext);
     byte[] adLengthInBits =
         Arrays.copyOf(ByteBuffer.allocate(8).putLong(8L * ad.length).array(), 8);
     byte[] macValue = mac.computeMac(Bytes.concat(ad, ciphertext, adLengthInBits));
@@ -136,6 +153,10 @@ public final class EncryptThenAuthenticate implements Aead {
     if (!Util.isPrefix(outputPrefix, ciphertext)) {
       throw new GeneralSecurityException("Decryption failed (OutputPrefix mismatch).");
     }
+    if (aesCtrCipher != null && hmac != null) {
+      byte[] ad = associatedData == null ? new byte[0] : associatedData;
+      return decryptAesCtrHmac(ciphertext, ad);
+    }
     byte[] rawCiphertext =
         Arrays.copyOfRange(ciphertext, outputPrefix.length, ciphertext.length - macLength);
     byte[] macValue =
@@ -149,4 +170,47 @@ public final class EncryptThenAuthenticate implements Aead {
     mac.verifyMac(macValue, Bytes.concat(ad, rawCiphertext, adLengthInBits));
     return cipher.decrypt(rawCiphertext);
   }
+
+  private byte[] encryptAesCtrHmac(final byte[] plaintext, final byte[] ad)
+      throws GeneralSecurityException {
+    int ivSize = aesCtrCipher.getIvSize();
+    if (plaintext.length > Integer.MAX_VALUE - outputPrefix.length - ivSize - macLength) {
+      throw new GeneralSecurityException("plaintext too long");
+    }
+    int rawCiphertextLength = ivSize + plaintext.length;
+    byte[] output = new byte[outputPrefix.length + rawCiphertextLength + macLength];
+    System.arraycopy(outputPrefix, 0, output, 0, outputPrefix.length);
+    aesCtrCipher.encrypt(plaintext, output, outputPrefix.length);
+    hmac.compute(
+        macInput(ad, output, outputPrefix.length, rawCiphertextLength),
+        output,
+        outputPrefix.length + rawCiphertextLength,
+        macLength);
+    return output;
+  }
+
+  private byte[] decryptAesCtrHmac(final byte[] ciphertext, final byte[] ad)
+      throws GeneralSecurityException {
+    int rawCiphertextLength = ciphertext.length - outputPrefix.length - macLength;
+    int macOffset = outputPrefix.length + rawCiphertextLength;
+    byte[] expectedMac = new byte[macLength];
+    hmac.compute(
+        macInput(ad, ciphertext, outputPrefix.length, rawCiphertextLength),
+        expectedMac,
+        0,
+        macLength);
+    if (!Bytes.equal(expectedMac, 0, ciphertext, macOffset, macLength)) {
+      throw new GeneralSecurityException("invalid MAC");
+    }
+    return aesCtrCipher.decrypt(ciphertext, outputPrefix.length, rawCiphertextLength);
+  }
+
+  /** Returns the MAC input (ad || ciphertext || t) as views of the given arrays. */
+  private static ByteBuffer[] macInput(
+      final byte[] ad, final byte[] rawCiphertext, int offset, int length) {
+    ByteBuffer adLengthInBits = ByteBuffer.allocate(8).putLong(0, 8L * ad.length);
+    return new ByteBuffer[] {
+      ByteBuffer.wrap(ad), ByteBuffer.wrap(rawCiphertext, offset, length), adLengthInBits
+    };
+  }
 }
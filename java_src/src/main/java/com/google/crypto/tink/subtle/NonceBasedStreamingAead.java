@@ -20,10 +20,15 @@ import com.google.crypto.tink.StreamingAead;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.GeneralSecurityException;
+import java.util.concurrent.Executor;
 
 /**
  * An abstract class for StreamingAead using the nonce based online encryption scheme proposed in <a
@@ -35,6 +40,10 @@ abstract class NonceBasedStreamingAead implements StreamingAead {
   // Abstract methods that the subclass has to implement.
   public abstract StreamSegmentEncrypter newStreamSegmentEncrypter(byte[] associatedData)
       throws GeneralSecurityException;
+  // Returns an encrypter for the segments of one stream that can be used from several threads.
+  abstract ParallelSegmentEncrypter newParallelSegmentEncrypter(byte[] associatedData)
+      throws GeneralSecurityException;
+
   // TODO(bleichen): Consider to pass aad here too.
   public abstract StreamSegmentDecrypter newStreamSegmentDecrypter()
       throws GeneralSecurityException;
@@ -81,4 +90,96 @@ abstract class NonceBasedStreamingAead implements StreamingAead {
       throws GeneralSecurityException, IOException {
     return new StreamingAeadDecryptingStream(this, ciphertextStream, associatedData);
   }
+
+  /**
+   * Returns an {@link OutputStream} that encrypts like {@link #newEncryptingStream}, but encrypts
+   * up to {@code parallelism} segments concurrently on {@code executor}.
+   *
+   * <p>The ciphertext has the same format as the one of {@link #newEncryptingStream}, so it can be
+   * decrypted with any of the decrypting methods. The stream buffers up to {@code parallelism + 1}
+   * plaintext and ciphertext segments.
+   */
+  public OutputStream newParallelEncryptingStream(
+      OutputStream ciphertext, byte[] associatedData, Executor executor, int parallelism)
+      throws GeneralSecurityException, IOException {
+    return new StreamingAeadParallelEncryptingStream(
+        this, ciphertext, associatedData, executor, parallelism);
+  }
+
+  /**
+   * Returns a {@link WritableByteChannel} that encrypts like {@link #newEncryptingChannel}, but
+   * encrypts up to {@code parallelism} segments concurrently on {@code executor}.
+   *
+   * <p>Unlike {@link #newEncryptingChannel}, {@code ciphertextChannel} must be in blocking mode.
+   */
+  public WritableByteChannel newParallelEncryptingChannel(
+      WritableByteChannel ciphertextChannel,
+      byte[] associatedData,
+      Executor executor,
+      int parallelism)
+      throws GeneralSecurityException, IOException {
+    return Channels.newChannel(
+        newParallelEncryptingStream(
+            Channels.newOutputStream(ciphertextChannel), associatedData, executor, parallelism));
+  }
+
+  /**
+   * Returns a {@link SeekableByteChannel} that decrypts like {@link #newSeekableDecryptingChannel},
+   * but decrypts up to {@code parallelism} segments concurrently on {@code executor} when a read
+   * covers several segments.
+   */
+  public SeekableByteChannel newParallelSeekableDecryptingChannel(
+      SeekableByteChannel ciphertextSource,
+      byte[] associatedData,
+      Executor executor,
+      int parallelism)
+      throws GeneralSecurityException, IOException {
+    return new StreamingAeadSeekableDecryptingChannel(
+        this, ciphertextSource, associatedData, executor, parallelism);
+  }
+
+  /**
+   * Encrypts the file {@code plaintextFile} into {@code ciphertextFile}, replacing {@code
+   * ciphertextFile} if it exists.
+   *
+   * <p>The plaintext file is memory-mapped and each segment is encrypted directly from the mapped
+   * memory. The ciphertext starts with {@code firstSegmentOffset} zero bytes, followed by the same
+   * ciphertext as the one produced by {@link #newEncryptingStream}, so the file can be decrypted
+   * with {@link #newSeekableDecryptingChannel(Path, byte[])} or {@link #decryptFile}.
+   */
+  public void encryptFile(Path plaintextFile, Path ciphertextFile, byte[] associatedData)
+      throws GeneralSecurityException, IOException {
+    StreamingAeadFiles.encryptFile(this, plaintextFile, ciphertextFile, associatedData);
+  }
+
+  /**
+   * Decrypts the file {@code ciphertextFile} into {@code plaintextFile}, replacing {@code
+   * plaintextFile} if it exists.
+   *
+   * <p>The ciphertext file is memory-mapped and each segment is decrypted directly from the mapped
+   * memory. The first {@code firstSegmentOffset} bytes of {@code ciphertextFile} are ignored. If
+   * this method throws an exception, the content of {@code plaintextFile} must not be used.
+   */
+  public void decryptFile(Path ciphertextFile, Path plaintextFile, byte[] associatedData)
+      throws GeneralSecurityException, IOException {
+    StreamingAeadFiles.decryptFile(this, ciphertextFile, plaintextFile, associatedData);
+  }
+
+  /**
+   * Returns a {@link SeekableByteChannel} that decrypts the file {@code ciphertextFile}.
+   *
+   * <p>The header is read and verified once, after which segments at arbitrary plaintext
+   * positions are read with positional reads of the file. Closing the returned channel closes the
+   * file.
+   */
+  public SeekableByteChannel newSeekableDecryptingChannel(
+      Path ciphertextFile, byte[] associatedData) throws GeneralSecurityException, IOException {
+    FileChannel ciphertextSource = FileChannel.open(ciphertextFile, StandardOpenOption.READ);
+    try {
+      return new StreamingAeadSeekableDecryptingChannel(this, ciphertextSource, associatedData);
+    } catch (GeneralSecurityException | IOException | RuntimeException e) {
+      ciphertextSource.close();
+      throw e;
+    }
+  }
 }
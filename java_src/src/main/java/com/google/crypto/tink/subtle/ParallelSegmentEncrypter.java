@@ -0,0 +1,39 @@
+// Copyright 2024 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.subtle;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+/**
+ * Encrypts the segments of one ciphertext stream given their segment number, so that several
+ * segments can be encrypted concurrently.
+ *
+ * <p>Unlike {@link StreamSegmentEncrypter}, instances do not count the encrypted segments. The
+ * caller must use each segment number at most once, since reusing a segment number reuses a nonce.
+ * Implementations must be thread-safe.
+ */
+interface ParallelSegmentEncrypter {
+
+  /** Returns the header of the ciphertext stream. */
+  ByteBuffer getHeader();
+
+  /** Encrypts {@code plaintext} as the segment with number {@code segmentNr}. */
+  void encryptSegment(
+      ByteBuffer plaintext, long segmentNr, boolean isLastSegment, ByteBuffer ciphertext)
+      throws GeneralSecurityException;
+}
@@ -19,6 +19,7 @@ package com.google.crypto.tink.subtle;
 import com.google.crypto.tink.AccessesPartialKey;
 import com.google.crypto.tink.InsecureSecretKeyAccess;
 import com.google.crypto.tink.config.internal.TinkFipsUtil;
+import com.google.crypto.tink.mac.internal.AesCmacCore;
 import com.google.crypto.tink.mac.internal.AesUtil;
 import com.google.crypto.tink.prf.AesCmacPrfKey;
 import com.google.crypto.tink.prf.Prf;
@@ -26,9 +27,6 @@ import com.google.errorprone.annotations.Immutable;
 import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.util.Arrays;
-import javax.crypto.Cipher;
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
 
 /**
  * An implementation of CMAC following <a href="https://tools.ietf.org/html/rfc4493">RFC 4493</a>.
@@ -39,27 +37,15 @@ public final class PrfAesCmac implements Prf {
   public static final TinkFipsUtil.AlgorithmFipsCompatibility FIPS =
       TinkFipsUtil.AlgorithmFipsCompatibility.ALGORITHM_NOT_FIPS;
 
-  @SuppressWarnings("Immutable")
-  private final SecretKey keySpec;
+  private final AesCmacCore core;
 
-  @SuppressWarnings("Immutable")
-  private byte[] subKey1;
-
-  @SuppressWarnings("Immutable")
-  private byte[] subKey2;
-
-  private static Cipher instance() throws GeneralSecurityException {
+  public PrfAesCmac(final byte[] key) throws GeneralSecurityException {
+    Validators.validateAesKeySize(key.length);
     if (!FIPS.isCompatible()) {
       throw new GeneralSecurityException("Can not use AES-CMAC in FIPS-mode.");
     }
-    return EngineFactory.CIPHER.getInstance("AES/ECB/NoPadding");
-  }
 
-  public PrfAesCmac(final byte[] key) throws GeneralSecurityException {
-    Validators.validateAesKeySize(key.length);
-
-    keySpec = new SecretKeySpec(key, "AES");
-    generateSubKeys();
+    core = AesCmacCore.create(key);
   }
 
   public static Prf create(AesCmacPrfKey key) throws GeneralSecurityException {
@@ -69,55 +55,17 @@ public final class PrfAesCmac implements Prf {
   // https://tools.ietf.org/html/rfc4493#section-2.4
   @Override
   public byte[] compute(final byte[] data, int outputLength) throws GeneralSecurityException {
+    if (!FIPS.isCompatible()) {
+      throw new GeneralSecurityException("Can not use AES-CMAC in FIPS-mode.");
+    }
     if (outputLength > AesUtil.BLOCK_SIZE) {
       throw new InvalidAlgorithmParameterException(
           "outputLength too large, max is " + AesUtil.BLOCK_SIZE + " bytes");
     }
-    Cipher aes = instance();
-    aes.init(Cipher.ENCRYPT_MODE, keySpec);
-
-    // n is the number of blocks (including partial blocks) into which the data
-    // is divided. Empty data is divided into 1 empty block.
-    // Step 2: n = ceil(length / blocksize)
-    // TODO(b/68969256): Adding a test that computes a CMAC of length 2**31-1.
-    int n = Math.max(1, (int) Math.ceil((double) data.length / AesUtil.BLOCK_SIZE));
-
-    // Step 3
-    boolean flag = (n * AesUtil.BLOCK_SIZE == data.length);
-
-    // Step 4
-    byte[] mLast;
-    if (flag) {
-      mLast = Bytes.xor(data, (n - 1) * AesUtil.BLOCK_SIZE, subKey1, 0, AesUtil.BLOCK_SIZE);
-    } else {
-      mLast =
-          Bytes.xor(
-              AesUtil.cmacPad(Arrays.copyOfRange(data, (n - 1) * AesUtil.BLOCK_SIZE, data.length)),
-              subKey2);
-    }
-
-    // Step 5
-    byte[] x = new byte[AesUtil.BLOCK_SIZE];
-
-    // Step 6
-    byte[] y;
-    for (int i = 0; i < n - 1; i++) {
-      y = Bytes.xor(x, 0, data, i * AesUtil.BLOCK_SIZE, AesUtil.BLOCK_SIZE);
-      x = aes.doFinal(y);
+    byte[] mac = core.computeMac(data);
+    if (outputLength == AesUtil.BLOCK_SIZE) {
+      return mac;
     }
-    y = Bytes.xor(mLast, x);
-
-    // Step 7
-    return Arrays.copyOf(aes.doFinal(y), outputLength);
-  }
-
-  // https://tools.ietf.org/html/rfc4493#section-2.3
-  private void generateSubKeys() throws GeneralSecurityException {
-    Cipher aes = instance();
-    aes.init(Cipher.ENCRYPT_MODE, keySpec);
-    byte[] zeroes = new byte[AesUtil.BLOCK_SIZE];
-    byte[] l = aes.doFinal(zeroes);
-    subKey1 = AesUtil.dbl(l);
-    subKey2 = AesUtil.dbl(subKey1);
+    return Arrays.copyOf(mac, outputLength);
   }
 }
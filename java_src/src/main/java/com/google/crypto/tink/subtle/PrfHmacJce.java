@@ -19,13 +19,16 @@ package com.google.crypto.tink.subtle;
 import com.google.crypto.tink.AccessesPartialKey;
 import com.google.crypto.tink.InsecureSecretKeyAccess;
 import com.google.crypto.tink.config.internal.TinkFipsUtil;
+import com.google.crypto.tink.internal.EnginePool;
 import com.google.crypto.tink.prf.HmacPrfKey;
 import com.google.crypto.tink.prf.Prf;
 import com.google.errorprone.annotations.Immutable;
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import javax.annotation.Nullable;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 
@@ -38,21 +41,18 @@ public final class PrfHmacJce implements Prf {
 
   static final int MIN_KEY_SIZE_IN_BYTES = 16;
 
-  // We do not mutate the underlying mac and it is bound to the containing PrfHmacJce instance.
-  @SuppressWarnings({"Immutable", "ThreadLocalUsage"})
-  private final ThreadLocal<Mac> localMac =
-      new ThreadLocal<Mac>() {
-        @Override
-        protected Mac initialValue() {
-          try {
-            Mac mac = EngineFactory.MAC.getInstance(algorithm);
-            mac.init(key);
-            return mac;
-          } catch (GeneralSecurityException ex) {
-            throw new IllegalStateException(ex);
-          }
-        }
-      };
+  /**
+   * A Mac keyed with {@code key}, which has already processed the inner padding block. Each call
+   * clones it, so that only the data and the outer padding have to be hashed. Null if the provider
+   * does not support cloning Macs.
+   */
+  @SuppressWarnings("Immutable") // Never used after the constructor, except for cloning.
+  @Nullable
+  private final Mac keyedMac;
+
+  /** Macs reused across calls if {@link #keyedMac} is null. */
+  @SuppressWarnings("Immutable") // Only contains Macs which are currently not in use.
+  private final EnginePool<Mac> macPool = new EnginePool<>(this::newMac);
 
   private final String algorithm;
   @SuppressWarnings("Immutable")  // We do not mutate the key.
@@ -93,8 +93,45 @@ public final class PrfHmacJce implements Prf {
         throw new NoSuchAlgorithmException("unknown Hmac algorithm: " + algorithm);
     }
 
-    // Initialize the current threads mac, mostly to fail fast if anything is wrong.
-    localMac.get();
+    // This also fails fast if anything is wrong with the algorithm or the key.
+    Mac mac = newMac();
+    // Processing empty data makes the Mac hash the inner padding block, which is then part of every
+    // clone.
+    mac.update(new byte[0]);
+    Mac prototype = mac;
+    try {
+      Object unused = mac.clone();
+    } catch (CloneNotSupportedException ex) {
+      mac.reset();
+      macPool.release(mac);
+      prototype = null;
+    }
+    keyedMac = prototype;
+  }
+
+  private Mac newMac() throws GeneralSecurityException {
+    Mac mac = EngineFactory.MAC.getInstance(algorithm);
+    mac.init(key);
+    return mac;
+  }
+
+  private Mac acquireMac() throws GeneralSecurityException {
+    if (keyedMac != null) {
+      try {
+        return (Mac) keyedMac.clone();
+      } catch (CloneNotSupportedException ex) {
+        // Cannot happen: the constructor checked that cloning is supported.
+        throw new IllegalStateException(ex);
+      }
+    }
+    return macPool.acquire();
+  }
+
+  private void releaseMac(Mac mac) {
+    if (keyedMac == null) {
+      // doFinal() has reset the Mac.
+      macPool.release(mac);
+    }
   }
 
   /** Given an HmacPrfKey, returns an instance of the Prf interface. */
@@ -110,8 +147,68 @@ public final class PrfHmacJce implements Prf {
       throw new InvalidAlgorithmParameterException("tag size too big");
     }
 
-    localMac.get().update(data);
-    return Arrays.copyOf(localMac.get().doFinal(), outputLength);
+    Mac mac = acquireMac();
+    mac.update(data);
+    byte[] tag = mac.doFinal();
+    releaseMac(mac);
+    if (outputLength == maxOutputLength) {
+      return tag;
+    }
+    return Arrays.copyOf(tag, outputLength);
+  }
+
+  /**
+   * Computes the PRF of {@code data} like {@link #compute(byte[], int)}, but writes the {@code
+   * outputLength} bytes of output to {@code output} starting at {@code outputOffset}.
+   *
+   * <p>If {@code outputLength} equals {@link #getMaxOutputLength}, no memory is allocated for the
+   * output.
+   */
+  public void compute(byte[] data, byte[] output, int outputOffset, int outputLength)
+      throws GeneralSecurityException {
+    if (outputLength > maxOutputLength) {
+      throw new InvalidAlgorithmParameterException("tag size too big");
+    }
+    if (outputOffset < 0 || outputLength < 0 || output.length - outputOffset < outputLength) {
+      throw new IllegalArgumentException("output buffer too small");
+    }
+
+    Mac mac = acquireMac();
+    mac.update(data);
+    doFinal(mac, output, outputOffset, outputLength);
+  }
+
+  /**
+   * Computes the PRF of the concatenation of the remaining bytes of all {@code inputs}, and writes
+   * the {@code outputLength} bytes of output to {@code output} starting at {@code outputOffset}.
+   *
+   * <p>This allows computing a MAC over data which is split over several arrays without
+   * concatenating them first.
+   */
+  void compute(ByteBuffer[] inputs, byte[] output, int outputOffset, int outputLength)
+      throws GeneralSecurityException {
+    if (outputLength > maxOutputLength) {
+      throw new InvalidAlgorithmParameterException("tag size too big");
+    }
+    if (outputOffset < 0 || outputLength < 0 || output.length - outputOffset < outputLength) {
+      throw new IllegalArgumentException("output buffer too small");
+    }
+
+    Mac mac = acquireMac();
+    for (ByteBuffer input : inputs) {
+      mac.update(input);
+    }
+    doFinal(mac, output, outputOffset, outputLength);
+  }
+
+  private void doFinal(Mac mac, byte[] output, int outputOffset, int outputLength)
+      throws GeneralSecurityException {
+    if (outputLength == maxOutputLength) {
+      mac.doFinal(output, outputOffset);
+    } else {
+      System.arraycopy(mac.doFinal(), 0, output, outputOffset, outputLength);
+    }
+    releaseMac(mac);
   }
 
   /** Returns the maximum supported tag length. */
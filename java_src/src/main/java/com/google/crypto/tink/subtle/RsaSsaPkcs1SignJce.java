@@ -21,6 +21,7 @@ import com.google.crypto.tink.InsecureSecretKeyAccess;
 import com.google.crypto.tink.PublicKeySign;
 import com.google.crypto.tink.PublicKeyVerify;
 import com.google.crypto.tink.config.internal.TinkFipsUtil;
+import com.google.crypto.tink.internal.EnginePool;
 import com.google.crypto.tink.signature.RsaSsaPkcs1Parameters;
 import com.google.crypto.tink.signature.RsaSsaPkcs1PrivateKey;
 import com.google.crypto.tink.subtle.Enums.HashType;
@@ -56,6 +57,27 @@ public final class RsaSsaPkcs1SignJce implements PublicKeySign {
   @SuppressWarnings("Immutable")
   private final byte[] messageSuffix;
 
+  /**
+   * A Signature initialized for signing with {@link #privateKey}, and one initialized for
+   * verifying the result with {@link #publicKey}.
+   */
+  private static final class Engine {
+    final Signature signer;
+    final Signature verifier;
+
+    Engine(Signature signer, Signature verifier) {
+      this.signer = signer;
+      this.verifier = verifier;
+    }
+  }
+
+  /**
+   * Engines which are currently not in use. {@link Signature#sign} and {@link Signature#verify}
+   * reset the objects to their initialized state, so they can be reused.
+   */
+  @SuppressWarnings("Immutable") // Only contains Engines which are currently not in use.
+  private final EnginePool<Engine> engines = new EnginePool<>(this::newEngine);
+
   private RsaSsaPkcs1SignJce(
       final RSAPrivateCrtKey priv, HashType hash, byte[] outputPrefix, byte[] messageSuffix)
       throws GeneralSecurityException {
@@ -117,29 +139,32 @@ public final class RsaSsaPkcs1SignJce implements PublicKeySign {
     return signer;
   }
 
-  private byte[] noPrefixSign(final byte[] data) throws GeneralSecurityException {
+  private Engine newEngine() throws GeneralSecurityException {
     Signature signer = EngineFactory.SIGNATURE.getInstance(signatureAlgorithm);
     signer.initSign(privateKey);
-    signer.update(data);
-    byte[] signature = signer.sign();
-    // Verify the signature to prevent against faulty signature computation.
     Signature verifier = EngineFactory.SIGNATURE.getInstance(signatureAlgorithm);
     verifier.initVerify(publicKey);
-    verifier.update(data);
-    if (!verifier.verify(signature)) {
-      throw new java.lang.RuntimeException("Security bug: RSA signature computation error");
+    return new Engine(signer, verifier);
+  }
+
+  private void update(Signature signature, final byte[] data) throws GeneralSecurityException {
+    signature.update(data);
+    if (messageSuffix.length > 0) {
+      signature.update(messageSuffix);
     }
-    return signature;
   }
 
   @Override
   public byte[] sign(final byte[] data) throws GeneralSecurityException {
-    byte[] signature;
-    if (messageSuffix.length == 0) {
-      signature = noPrefixSign(data);
-    } else {
-      signature = noPrefixSign(Bytes.concat(data, messageSuffix));
+    Engine engine = engines.acquire();
+    update(engine.signer, data);
+    byte[] signature = engine.signer.sign();
+    // Verify the signature to prevent against faulty signature computation.
+    update(engine.verifier, data);
+    if (!engine.verifier.verify(signature)) {
+      throw new java.lang.RuntimeException("Security bug: RSA signature computation error");
     }
+    engines.release(engine);
     if (outputPrefix.length == 0) {
       return signature;
     } else {
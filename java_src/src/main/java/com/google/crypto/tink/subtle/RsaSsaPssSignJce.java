@@ -20,11 +20,11 @@ import com.google.crypto.tink.AccessesPartialKey;
 import com.google.crypto.tink.InsecureSecretKeyAccess;
 import com.google.crypto.tink.PublicKeySign;
 import com.google.crypto.tink.config.internal.TinkFipsUtil;
+import com.google.crypto.tink.internal.EnginePool;
 import com.google.crypto.tink.signature.RsaSsaPssParameters;
 import com.google.crypto.tink.signature.RsaSsaPssPrivateKey;
 import com.google.crypto.tink.subtle.Enums.HashType;
 import com.google.errorprone.annotations.Immutable;
-import java.math.BigInteger;
 import java.security.GeneralSecurityException;
 import java.security.KeyFactory;
 import java.security.MessageDigest;
@@ -60,6 +60,34 @@ public final class RsaSsaPssSignJce implements PublicKeySign {
 
   private static final String RAW_RSA_ALGORITHM = "RSA/ECB/NOPADDING";
 
+  private static final byte[] EIGHT_ZEROS = new byte[8];
+
+  /** The JCE objects needed to compute one signature, initialized for this key. */
+  private static final class Engine {
+    final Cipher privateCipher;
+    final Cipher publicCipher;
+    final MessageDigest sigDigest;
+    final MessageDigest mgf1Digest;
+
+    Engine(
+        Cipher privateCipher,
+        Cipher publicCipher,
+        MessageDigest sigDigest,
+        MessageDigest mgf1Digest) {
+      this.privateCipher = privateCipher;
+      this.publicCipher = publicCipher;
+      this.sigDigest = sigDigest;
+      this.mgf1Digest = mgf1Digest;
+    }
+  }
+
+  /**
+   * Engines which are currently not in use. {@link Cipher#doFinal} and {@link
+   * MessageDigest#digest} reset the objects to their initialized state, so they can be reused.
+   */
+  @SuppressWarnings("Immutable") // Only contains Engines which are currently not in use.
+  private final EnginePool<Engine> engines = new EnginePool<>(this::newEngine);
+
   public RsaSsaPssSignJce(
       final RSAPrivateCrtKey priv, HashType sigHash, HashType mgf1Hash, int saltLength)
       throws GeneralSecurityException {
@@ -121,22 +149,26 @@ public final class RsaSsaPssSignJce implements PublicKeySign {
             : new byte[0]);
   }
 
-  private byte[] noPrefixSign(final byte[] data)
-      throws GeneralSecurityException { // https://tools.ietf.org/html/rfc8017#section-8.1.1.
-    int modBits = publicKey.getModulus().bitLength();
-
-    byte[] em = emsaPssEncode(data, modBits - 1);
-    return rsasp1(em);
+  private Engine newEngine() throws GeneralSecurityException {
+    Cipher privateCipher = EngineFactory.CIPHER.getInstance(RAW_RSA_ALGORITHM);
+    privateCipher.init(Cipher.DECRYPT_MODE, privateKey);
+    Cipher publicCipher = EngineFactory.CIPHER.getInstance(RAW_RSA_ALGORITHM);
+    publicCipher.init(Cipher.ENCRYPT_MODE, publicKey);
+    return new Engine(
+        privateCipher,
+        publicCipher,
+        EngineFactory.MESSAGE_DIGEST.getInstance(SubtleUtil.toDigestAlgo(sigHash)),
+        EngineFactory.MESSAGE_DIGEST.getInstance(SubtleUtil.toDigestAlgo(mgf1Hash)));
   }
 
   @Override
   public byte[] sign(final byte[] data) throws GeneralSecurityException {
-    byte[] signature;
-    if (messageSuffix.length == 0) {
-      signature = noPrefixSign(data);
-    } else {
-      signature = noPrefixSign(Bytes.concat(data, messageSuffix));
-    }
+    Engine engine = engines.acquire();
+    // https://tools.ietf.org/html/rfc8017#section-8.1.1.
+    int modBits = publicKey.getModulus().bitLength();
+    byte[] em = emsaPssEncode(engine, data, modBits - 1);
+    byte[] signature = rsasp1(engine, em);
+    engines.release(engine);
     if (outputPrefix.length == 0) {
       return signature;
     } else {
@@ -144,32 +176,50 @@ public final class RsaSsaPssSignJce implements PublicKeySign {
     }
   }
 
-  private byte[] rsasp1(byte[] m) throws GeneralSecurityException {
-    Cipher decryptCipher = EngineFactory.CIPHER.getInstance(RAW_RSA_ALGORITHM);
-    decryptCipher.init(Cipher.DECRYPT_MODE, this.privateKey);
-    byte[] c = decryptCipher.doFinal(m);
+  private static byte[] rsasp1(Engine engine, byte[] m) throws GeneralSecurityException {
+    byte[] c = engine.privateCipher.doFinal(m);
     // To make sure the private key operation is correct, we check the result with public key
     // operation.
-    Cipher encryptCipher = EngineFactory.CIPHER.getInstance(RAW_RSA_ALGORITHM);
-    encryptCipher.init(Cipher.ENCRYPT_MODE, this.publicKey);
-    byte[] m0 = encryptCipher.doFinal(c);
-    if (!new BigInteger(1, m).equals(new BigInteger(1, m0))) {
+    byte[] m0 = engine.publicCipher.doFinal(c);
+    if (!equalAsUnsignedIntegers(m, m0)) {
       throw new java.lang.RuntimeException("Security bug: RSA signature computation error");
     }
     return c;
   }
 
+  /** Returns true if {@code a} and {@code b} are big-endian encodings of the same integer. */
+  private static boolean equalAsUnsignedIntegers(byte[] a, byte[] b) {
+    if (a.length < b.length) {
+      return equalAsUnsignedIntegers(b, a);
+    }
+    int offset = a.length - b.length;
+    for (int i = 0; i < offset; i++) {
+      if (a[i] != 0) {
+        return false;
+      }
+    }
+    for (int i = 0; i < b.length; i++) {
+      if (a[offset + i] != b[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   // https://tools.ietf.org/html/rfc8017#section-9.1.1.
-  private byte[] emsaPssEncode(byte[] m, int emBits) throws GeneralSecurityException {
+  private byte[] emsaPssEncode(Engine engine, byte[] m, int emBits)
+      throws GeneralSecurityException {
     // Step 1. Length checking.
     // This step is unnecessary because Java's byte[] only supports up to 2^31 -1 bytes while the
     // input limitation for the hash function is far larger (2^61 - 1 for SHA-1).
 
     // Step 2. Compute hash.
-    Validators.validateSignatureHash(sigHash);
-    MessageDigest digest =
-        EngineFactory.MESSAGE_DIGEST.getInstance(SubtleUtil.toDigestAlgo(this.sigHash));
-    byte[] mHash = digest.digest(m);
+    MessageDigest digest = engine.sigDigest;
+    digest.update(m);
+    if (messageSuffix.length > 0) {
+      digest.update(messageSuffix);
+    }
+    byte[] mHash = digest.digest();
 
     // Step 3. Check emLen.
     int hLen = digest.getDigestLength();
@@ -181,40 +231,30 @@ public final class RsaSsaPssSignJce implements PublicKeySign {
     // Step 4. Generate random salt.
     byte[] salt = Random.randBytes(this.saltLength);
 
-    // Step 5. Compute M'.
-    byte[] mPrime = new byte[8 + hLen + this.saltLength];
-    System.arraycopy(mHash, 0, mPrime, 8, hLen);
-    System.arraycopy(salt, 0, mPrime, 8 + hLen, salt.length);
-
-    // Step 6. Compute H.
-    byte[] h = digest.digest(mPrime);
-
-    // Step 7, 8. Generate DB.
-    byte[] db = new byte[emLen - hLen - 1];
-    db[emLen - this.saltLength - hLen - 2] = (byte) 0x01;
-    System.arraycopy(salt, 0, db, emLen - this.saltLength - hLen - 1, salt.length);
+    // Step 5, 6. Compute H = Hash(M'), where M' = (0x)00 00 00 00 00 00 00 00 || mHash || salt.
+    digest.update(EIGHT_ZEROS);
+    digest.update(mHash);
+    digest.update(salt);
+    byte[] h = digest.digest();
 
-    // Step 9. Compute dbMask.
-    byte[] dbMask = SubtleUtil.mgf1(h, emLen - hLen - 1, this.mgf1Hash);
-
-    // Step 10. Compute maskedDb.
-    byte[] maskedDb = new byte[emLen - hLen - 1];
-    for (int i = 0; i < maskedDb.length; i++) {
-      maskedDb[i] = (byte) (db[i] ^ dbMask[i]);
+    // Step 7, 8, 9, 10. Compute maskedDB = DB xor MGF1(H, dbLen) in the first dbLen bytes of EM,
+    // where DB = PS || 0x01 || salt and PS consists of zeros. The mask is written first, then the
+    // non-zero bytes of DB are xored into it.
+    int dbLen = emLen - hLen - 1;
+    byte[] em = new byte[emLen];
+    SubtleUtil.mgf1(engine.mgf1Digest, h, em, 0, dbLen);
+    int saltStart = dbLen - this.saltLength;
+    em[saltStart - 1] ^= (byte) 0x01;
+    for (int i = 0; i < salt.length; i++) {
+      em[saltStart + i] ^= salt[i];
     }
 
     // Step 11. Set the leftmost 8 * emLen - emBits bits of the leftmost octet in maskedDB to zero.
-    for (int i = 0; i < (long) emLen * 8 - emBits; i++) {
-      int bytePos = i / 8;
-      int bitPos = 7 - i % 8;
-      maskedDb[bytePos] = (byte) (maskedDb[bytePos] & ~(1 << bitPos));
-    }
+    em[0] = (byte) (em[0] & (0xff >>> (8 * emLen - emBits)));
 
-    // Step 12. Generate EM.
-    byte[] em = new byte[maskedDb.length + hLen + 1];
-    System.arraycopy(maskedDb, 0, em, 0, maskedDb.length);
-    System.arraycopy(h, 0, em, maskedDb.length, h.length);
-    em[maskedDb.length + hLen] = (byte) 0xbc;
+    // Step 12. EM = maskedDB || H || 0xbc.
+    System.arraycopy(h, 0, em, dbLen, hLen);
+    em[emLen - 1] = (byte) 0xbc;
     return em;
   }
 }
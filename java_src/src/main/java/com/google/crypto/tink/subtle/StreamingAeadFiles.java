@@ -0,0 +1,199 @@
+// Copyright 2024 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.subtle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+
+/**
+ * Encrypts and decrypts whole files with a {@link NonceBasedStreamingAead}.
+ *
+ * <p>The input file is memory-mapped in windows of several segments, and each segment is encrypted
+ * or decrypted directly from the mapped memory. The output is written with positional writes from
+ * a single segment buffer. The ciphertext format is the same as the one of the encrypting streams
+ * and channels, preceded by {@code firstSegmentOffset} zero bytes.
+ */
+final class StreamingAeadFiles {
+  // Upper bound for the size of the mapped windows of the input file.
+  private static final int MAX_WINDOW_SIZE = 64 * 1024 * 1024;
+
+  // Decryption output buffers have this many spare bytes, see
+  // StreamingAeadSeekableDecryptingChannel.
+  private static final int PLAINTEXT_SEGMENT_EXTRA_SIZE = 16;
+
+  /** Maps consecutive regions of a file that is only read. */
+  private static final class MappedInput {
+    private final FileChannel channel;
+    private final long windowSize;
+    private long windowStart = 0;
+    private MappedByteBuffer window = null;
+
+    MappedInput(FileChannel channel, int segmentSize) {
+      this.channel = channel;
+      this.windowSize = Math.max(1, MAX_WINDOW_SIZE / segmentSize) * (long) segmentSize;
+    }
+
+    /** Returns a buffer with the {@code length} bytes of the file at {@code position}. */
+    ByteBuffer slice(long position, int length) throws IOException {
+      if (window == null
+          || position < windowStart
+          || position + length > windowStart + window.capacity()) {
+        windowStart = position;
+        long size = Math.min(Math.max(windowSize, length), channel.size() - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, size);
+      }
+      ByteBuffer slice = window.duplicate();
+      slice.position((int) (position - windowStart));
+      slice.limit(slice.position() + length);
+      return slice;
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer src, long position)
+      throws IOException {
+    while (src.hasRemaining()) {
+      position += channel.write(src, position);
+    }
+  }
+
+  /** Encrypts {@code plaintextFile} into {@code ciphertextFile}, replacing it if it exists. */
+  static void encryptFile(
+      NonceBasedStreamingAead streamAead,
+      Path plaintextFile,
+      Path ciphertextFile,
+      byte[] associatedData)
+      throws GeneralSecurityException, IOException {
+    StreamSegmentEncrypter encrypter = streamAead.newStreamSegmentEncrypter(associatedData);
+    int plaintextSegmentSize = streamAead.getPlaintextSegmentSize();
+    int ciphertextOffset = streamAead.getCiphertextOffset();
+    int firstSegmentOffset = ciphertextOffset - streamAead.getHeaderLength();
+    ByteBuffer ciphertextSegment = ByteBuffer.allocateDirect(streamAead.getCiphertextSegmentSize());
+    try (FileChannel in = FileChannel.open(plaintextFile, StandardOpenOption.READ);
+        FileChannel out =
+            FileChannel.open(
+                ciphertextFile,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+      long plaintextSize = in.size();
+      MappedInput input = new MappedInput(in, plaintextSegmentSize);
+      long outPosition = 0;
+      writeFully(out, ByteBuffer.allocate(firstSegmentOffset), outPosition);
+      outPosition += firstSegmentOffset;
+      ByteBuffer header = encrypter.getHeader();
+      outPosition += header.remaining();
+      writeFully(out, header, firstSegmentOffset);
+      long plaintextPosition = 0;
+      int segmentSize = plaintextSegmentSize - ciphertextOffset;
+      while (true) {
+        boolean isLastSegment = plaintextSize - plaintextPosition <= segmentSize;
+        if (isLastSegment) {
+          segmentSize = (int) (plaintextSize - plaintextPosition);
+        }
+        ciphertextSegment.clear();
+        encrypter.encryptSegment(
+            input.slice(plaintextPosition, segmentSize), isLastSegment, ciphertextSegment);
+        ciphertextSegment.flip();
+        int written = ciphertextSegment.remaining();
+        writeFully(out, ciphertextSegment, outPosition);
+        outPosition += written;
+        plaintextPosition += segmentSize;
+        if (isLastSegment) {
+          break;
+        }
+        segmentSize = plaintextSegmentSize;
+      }
+    }
+  }
+
+  /**
+   * Decrypts {@code ciphertextFile} into {@code plaintextFile}, replacing it if it exists.
+   *
+   * <p>If decryption fails, the content of {@code plaintextFile} is unspecified and must not be
+   * used.
+   */
+  static void decryptFile(
+      NonceBasedStreamingAead streamAead,
+      Path ciphertextFile,
+      Path plaintextFile,
+      byte[] associatedData)
+      throws GeneralSecurityException, IOException {
+    StreamSegmentDecrypter decrypter = streamAead.newStreamSegmentDecrypter();
+    int ciphertextSegmentSize = streamAead.getCiphertextSegmentSize();
+    int ciphertextOffset = streamAead.getCiphertextOffset();
+    int headerLength = streamAead.getHeaderLength();
+    int ciphertextOverhead = streamAead.getCiphertextOverhead();
+    ByteBuffer plaintextSegment =
+        ByteBuffer.allocateDirect(
+            streamAead.getPlaintextSegmentSize() + PLAINTEXT_SEGMENT_EXTRA_SIZE);
+    try (FileChannel in = FileChannel.open(ciphertextFile, StandardOpenOption.READ);
+        FileChannel out =
+            FileChannel.open(
+                plaintextFile,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+      long ciphertextSize = in.size();
+      long fullSegments = ciphertextSize / ciphertextSegmentSize;
+      int lastCiphertextSegmentSize = (int) (ciphertextSize % ciphertextSegmentSize);
+      long numberOfSegments = fullSegments;
+      if (lastCiphertextSegmentSize > 0) {
+        numberOfSegments++;
+        if (lastCiphertextSegmentSize < ciphertextOverhead) {
+          throw new IOException("Invalid ciphertext size");
+        }
+      } else {
+        lastCiphertextSegmentSize = ciphertextSegmentSize;
+      }
+      if (numberOfSegments * ciphertextOverhead + ciphertextOffset > ciphertextSize) {
+        throw new IOException("Ciphertext is too short");
+      }
+      MappedInput input = new MappedInput(in, ciphertextSegmentSize);
+      decrypter.init(input.slice(ciphertextOffset - headerLength, headerLength), associatedData);
+      long plaintextPosition = 0;
+      for (long segmentNr = 0; segmentNr < numberOfSegments; segmentNr++) {
+        boolean isLastSegment = segmentNr == numberOfSegments - 1;
+        long ciphertextPosition = segmentNr * ciphertextSegmentSize;
+        int segmentSize = isLastSegment ? lastCiphertextSegmentSize : ciphertextSegmentSize;
+        if (segmentNr == 0) {
+          ciphertextPosition = ciphertextOffset;
+          segmentSize -= ciphertextOffset;
+        }
+        if (segmentNr > Integer.MAX_VALUE) {
+          throw new IOException("Too many segments");
+        }
+        plaintextSegment.clear();
+        decrypter.decryptSegment(
+            input.slice(ciphertextPosition, segmentSize),
+            (int) segmentNr,
+            isLastSegment,
+            plaintextSegment);
+        plaintextSegment.flip();
+        int written = plaintextSegment.remaining();
+        writeFully(out, plaintextSegment, plaintextPosition);
+        plaintextPosition += written;
+      }
+    }
+  }
+
+  private StreamingAeadFiles() {}
+}
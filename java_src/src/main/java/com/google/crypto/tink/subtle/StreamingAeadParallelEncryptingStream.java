@@ -0,0 +1,215 @@
+// Copyright 2024 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.subtle;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * An instance of {@link FilterOutputStream} that encrypts the input like {@link
+ * StreamingAeadEncryptingStream}, but encrypts up to {@code parallelism} segments concurrently on
+ * an {@link Executor}.
+ *
+ * <p>Segments are written to the underlying stream in order, so the ciphertext has the same format
+ * as the one produced by {@link StreamingAeadEncryptingStream}. A segment is only handed to the
+ * executor once the plaintext following it has been written, since the last segment is encrypted
+ * differently.
+ */
+class StreamingAeadParallelEncryptingStream extends FilterOutputStream {
+  /** The plaintext and ciphertext of one segment, and the task encrypting it. */
+  private final class Segment implements Runnable {
+    final byte[] plaintext;
+    final ByteBuffer ciphertext;
+    int plaintextLength;
+    long segmentNr;
+    boolean isLastSegment;
+    FutureTask<Void> task;
+
+    Segment() {
+      plaintext = new byte[plaintextSegmentSize];
+      ciphertext = ByteBuffer.allocate(ciphertextSegmentSize);
+    }
+
+    @Override
+    public void run() {
+      ciphertext.clear();
+      try {
+        encrypter.encryptSegment(
+            ByteBuffer.wrap(plaintext, 0, plaintextLength), segmentNr, isLastSegment, ciphertext);
+      } catch (GeneralSecurityException ex) {
+        throw new IllegalStateException(ex);
+      }
+      ciphertext.flip();
+    }
+  }
+
+  private final ParallelSegmentEncrypter encrypter;
+  private final Executor executor;
+  private final int parallelism;
+  private final int plaintextSegmentSize;
+  private final int ciphertextSegmentSize;
+  // Segments that have been handed to the executor, in the order of their segment numbers.
+  private final ArrayDeque<Segment> pending = new ArrayDeque<>();
+  // Segments whose ciphertext has been written and whose buffers can be reused.
+  private final ArrayDeque<Segment> free = new ArrayDeque<>();
+  private Segment current; // contains plaintext that has not yet been encrypted.
+  private int currentCapacity;
+  private long nextSegmentNr;
+  private boolean closed = false;
+  boolean open;
+
+  public StreamingAeadParallelEncryptingStream(
+      NonceBasedStreamingAead streamAead,
+      OutputStream ciphertextStream,
+      byte[] associatedData,
+      Executor executor,
+      int parallelism)
+      throws GeneralSecurityException, IOException {
+    super(ciphertextStream);
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism must be positive");
+    }
+    encrypter = streamAead.newParallelSegmentEncrypter(associatedData);
+    this.executor = executor;
+    this.parallelism = parallelism;
+    plaintextSegmentSize = streamAead.getPlaintextSegmentSize();
+    ciphertextSegmentSize = streamAead.getCiphertextSegmentSize();
+    current = new Segment();
+    currentCapacity = plaintextSegmentSize - streamAead.getCiphertextOffset();
+    nextSegmentNr = 0;
+    ByteBuffer header = encrypter.getHeader();
+    byte[] headerBytes = new byte[header.remaining()];
+    header.get(headerBytes);
+    out.write(headerBytes);
+    open = true;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b});
+  }
+
+  @Override
+  public void write(byte[] b) throws IOException {
+    write(b, 0, b.length);
+  }
+
+  @Override
+  public synchronized void write(byte[] pt, int offset, int length) throws IOException {
+    if (!open) {
+      throw new IOException("Trying to write to closed stream");
+    }
+    while (length > 0) {
+      if (current.plaintextLength == currentCapacity) {
+        // More plaintext follows, hence the current segment is not the last one.
+        submit(/* isLastSegment= */ false);
+      }
+      int sliceSize = Math.min(length, currentCapacity - current.plaintextLength);
+      System.arraycopy(pt, offset, current.plaintext, current.plaintextLength, sliceSize);
+      current.plaintextLength += sliceSize;
+      offset += sliceSize;
+      length -= sliceSize;
+    }
+  }
+
+  /** Hands the current segment to the executor and starts a new one. */
+  private void submit(boolean isLastSegment) throws IOException {
+    if (pending.size() >= parallelism) {
+      writeOldestSegment();
+    }
+    Segment segment = current;
+    segment.segmentNr = nextSegmentNr++;
+    segment.isLastSegment = isLastSegment;
+    segment.task = new FutureTask<>(segment, null);
+    pending.addLast(segment);
+    try {
+      executor.execute(segment.task);
+    } catch (RejectedExecutionException ex) {
+      abort();
+      throw new IOException(ex);
+    }
+    current = free.isEmpty() ? new Segment() : free.removeFirst();
+    current.plaintextLength = 0;
+    currentCapacity = plaintextSegmentSize;
+  }
+
+  /**
+   * Waits until the oldest pending segment is encrypted and writes its ciphertext.
+   *
+   * <p>If this fails, the stream is aborted: writing any later segment would leave a gap in the
+   * ciphertext.
+   */
+  private void writeOldestSegment() throws IOException {
+    Segment segment = pending.removeFirst();
+    try {
+      segment.task.get();
+      ByteBuffer ciphertext = segment.ciphertext;
+      out.write(ciphertext.array(), ciphertext.position(), ciphertext.remaining());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      abort();
+      throw new InterruptedIOException("Interrupted while encrypting a segment");
+    } catch (ExecutionException ex) {
+      abort();
+      throw new IOException(ex.getCause());
+    } catch (IOException | RuntimeException ex) {
+      abort();
+      throw ex;
+    }
+    segment.task = null;
+    free.addLast(segment);
+  }
+
+  /** Marks the stream as closed and cancels the segments that have not been written yet. */
+  private void abort() {
+    open = false;
+    for (Segment segment : pending) {
+      segment.task.cancel(/* mayInterruptIfRunning= */ false);
+    }
+    pending.clear();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (open) {
+        submit(/* isLastSegment= */ true);
+        while (!pending.isEmpty()) {
+          writeOldestSegment();
+        }
+        open = false;
+      }
+    } finally {
+      // The underlying stream is closed even if the stream was aborted, or if the last segments
+      // could not be written.
+      super.close();
+    }
+  }
+}
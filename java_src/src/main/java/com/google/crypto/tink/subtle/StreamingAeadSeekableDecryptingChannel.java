@@ -18,12 +18,18 @@ package com.google.crypto.tink.subtle;
 
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.NonWritableChannelException;
 import java.nio.channels.SeekableByteChannel;
 import java.security.GeneralSecurityException;
 import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import javax.annotation.Nullable;
 
 /**
  * An instance of {@link SeekableByteChannel} that allows random access to the plaintext of some
@@ -58,11 +64,63 @@ class StreamingAeadSeekableDecryptingChannel implements SeekableByteChannel {
   private final int ciphertextSegmentSize;
   private final int ciphertextOffset;
   private final int firstSegmentOffset;
+  // Used to decrypt several segments concurrently. Null if segments are decrypted one at a time.
+  @Nullable private final Executor executor;
+  // One decrypter and pair of buffers per segment that is decrypted concurrently.
+  @Nullable private final ParallelSegment[] parallelSegments;
+  private boolean parallelSegmentsInitialized;
+
+  /** A ciphertext segment that is decrypted concurrently with others. */
+  private static final class ParallelSegment implements Runnable {
+    final StreamSegmentDecrypter decrypter;
+    final ByteBuffer ciphertext;
+    final ByteBuffer plaintext;
+    int segmentNr;
+    @Nullable GeneralSecurityException failure;
+
+    ParallelSegment(
+        StreamSegmentDecrypter decrypter, int ciphertextSegmentSize, int plaintextSegmentSize) {
+      this.decrypter = decrypter;
+      this.ciphertext = ByteBuffer.allocate(ciphertextSegmentSize);
+      this.plaintext = ByteBuffer.allocate(plaintextSegmentSize + PLAINTEXT_SEGMENT_EXTRA_SIZE);
+    }
+
+    @Override
+    public void run() {
+      ciphertext.flip();
+      plaintext.clear();
+      failure = null;
+      try {
+        decrypter.decryptSegment(ciphertext, segmentNr, /* isLastSegment= */ false, plaintext);
+      } catch (GeneralSecurityException ex) {
+        failure = ex;
+      }
+      plaintext.flip();
+    }
+  }
 
   public StreamingAeadSeekableDecryptingChannel(
       NonceBasedStreamingAead streamAead,
       SeekableByteChannel ciphertext,
       byte[] associatedData) throws IOException, GeneralSecurityException {
+    this(streamAead, ciphertext, associatedData, null, 1);
+  }
+
+  /**
+   * Constructs a channel that decrypts up to {@code parallelism} segments concurrently on {@code
+   * executor} when a read covers several segments. If {@code executor} is null or {@code
+   * parallelism} is 1, segments are decrypted one at a time on the calling thread.
+   */
+  public StreamingAeadSeekableDecryptingChannel(
+      NonceBasedStreamingAead streamAead,
+      SeekableByteChannel ciphertext,
+      byte[] associatedData,
+      @Nullable Executor executor,
+      int parallelism)
+      throws IOException, GeneralSecurityException {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism must be positive");
+    }
     decrypter = streamAead.newStreamSegmentDecrypter();
     ciphertextChannel = ciphertext;
     header = ByteBuffer.allocate(streamAead.getHeaderLength());
@@ -100,6 +158,21 @@ class StreamingAeadSeekableDecryptingChannel implements SeekableByteChannel {
       throw new IOException("Ciphertext is too short");
     }
     plaintextSize = ciphertextChannelSize - overhead;
+    if (executor != null && parallelism > 1) {
+      this.executor = executor;
+      parallelSegments = new ParallelSegment[parallelism];
+      for (int i = 0; i < parallelism; i++) {
+        parallelSegments[i] =
+            new ParallelSegment(
+                streamAead.newStreamSegmentDecrypter(),
+                ciphertextSegmentSize,
+                plaintextSegmentSize);
+      }
+    } else {
+      this.executor = null;
+      parallelSegments = null;
+    }
+    parallelSegmentsInitialized = false;
   }
 
   /**
@@ -246,6 +319,122 @@ class StreamingAeadSeekableDecryptingChannel implements SeekableByteChannel {
     return true;
   }
 
+  /** Returns the size of the plaintext of a segment that is not the last segment. */
+  private int getPlaintextSizeOfFullSegment(int segmentNr) {
+    if (segmentNr == 0) {
+      return plaintextSegmentSize - ciphertextOffset;
+    }
+    return plaintextSegmentSize;
+  }
+
+  /**
+   * Decrypts consecutive segments starting at {@code firstSegmentNr} concurrently and puts their
+   * plaintext into {@code dst}. Only segments whose plaintext fits completely into {@code dst} are
+   * decrypted, and never the last segment, which the sequential path verifies.
+   *
+   * @return the number of bytes put into {@code dst}, or 0 if fewer than two segments qualify.
+   */
+  private int decryptSegmentsInParallel(int firstSegmentNr, ByteBuffer dst) throws IOException {
+    int count = 0;
+    long available = dst.remaining();
+    while (count < parallelSegments.length && firstSegmentNr + count < numberOfSegments - 1) {
+      int size = getPlaintextSizeOfFullSegment(firstSegmentNr + count);
+      if (size > available) {
+        break;
+      }
+      available -= size;
+      count++;
+    }
+    if (count < 2) {
+      return 0;
+    }
+    if (!parallelSegmentsInitialized) {
+      for (ParallelSegment segment : parallelSegments) {
+        ByteBuffer headerCopy = header.duplicate();
+        headerCopy.rewind();
+        try {
+          segment.decrypter.init(headerCopy, aad);
+        } catch (GeneralSecurityException ex) {
+          throw new IOException(ex);
+        }
+      }
+      parallelSegmentsInitialized = true;
+    }
+    // The segments are read sequentially, since the ciphertext channel has a single position.
+    // This also invalidates a partially read current segment.
+    currentSegmentNr = -1;
+    for (int i = 0; i < count; i++) {
+      ParallelSegment segment = parallelSegments[i];
+      segment.segmentNr = firstSegmentNr + i;
+      long ciphertextPosition = (long) segment.segmentNr * ciphertextSegmentSize;
+      int segmentSize = ciphertextSegmentSize;
+      if (segment.segmentNr == 0) {
+        segmentSize -= ciphertextOffset;
+        ciphertextPosition = ciphertextOffset;
+      }
+      ciphertextChannel.position(ciphertextPosition);
+      segment.ciphertext.clear();
+      segment.ciphertext.limit(segmentSize);
+      while (segment.ciphertext.remaining() > 0) {
+        if (ciphertextChannel.read(segment.ciphertext) <= 0) {
+          break;
+        }
+      }
+      if (segment.ciphertext.remaining() > 0) {
+        count = i;
+        break;
+      }
+    }
+    if (count < 2) {
+      return 0;
+    }
+    FutureTask<?>[] tasks = new FutureTask<?>[count];
+    for (int i = 1; i < count; i++) {
+      tasks[i] = new FutureTask<>(parallelSegments[i], null);
+      try {
+        executor.execute(tasks[i]);
+      } catch (RejectedExecutionException ex) {
+        tasks[i].run();
+      }
+    }
+    parallelSegments[0].run();
+    Throwable failure = parallelSegments[0].failure;
+    boolean interrupted = false;
+    for (int i = 1; i < count; i++) {
+      while (true) {
+        try {
+          tasks[i].get();
+          break;
+        } catch (InterruptedException ex) {
+          // The buffers are still in use by the task, so wait for it to finish.
+          interrupted = true;
+        } catch (ExecutionException ex) {
+          if (failure == null) {
+            failure = ex.getCause();
+          }
+          break;
+        }
+      }
+      if (failure == null) {
+        failure = parallelSegments[i].failure;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while decrypting segments");
+    }
+    if (failure != null) {
+      throw new IOException("Failed to decrypt", failure);
+    }
+    int startPos = dst.position();
+    for (int i = 0; i < count; i++) {
+      dst.put(parallelSegments[i].plaintext);
+    }
+    int read = dst.position() - startPos;
+    plaintextPosition += read;
+    return read;
+  }
+
   /**
    * Returns true if plaintextPositon is at the end of the file
    * and this has been verified, by decrypting the last segment.
@@ -293,6 +482,12 @@ class StreamingAeadSeekableDecryptingChannel implements SeekableByteChannel {
       } else {
          segmentOffset = (int) ((plaintextPosition +  ciphertextOffset) % plaintextSegmentSize);
       }
+      if (parallelSegments != null
+          && segmentOffset == 0
+          && segmentNr != currentSegmentNr
+          && decryptSegmentsInParallel(segmentNr, dst) > 0) {
+        continue;
+      }
 
       if (tryLoadSegment(segmentNr)) {
         plaintextSegment.position(segmentOffset);
@@ -132,22 +132,35 @@ public final class SubtleUtil {
       throws GeneralSecurityException {
     MessageDigest digest =
         EngineFactory.MESSAGE_DIGEST.getInstance(SubtleUtil.toDigestAlgo(mgfHash));
+    byte[] t = new byte[maskLen];
+    mgf1(digest, mgfSeed, t, 0, maskLen);
+    return t;
+  }
+
+  /**
+   * Computes MGF1 as defined at https://tools.ietf.org/html/rfc8017#appendix-B.2.1 with {@code
+   * digest}, and writes the {@code maskLen} bytes of the mask to {@code out} starting at {@code
+   * outOffset}. This allows callers to reuse their {@code MessageDigest} and output buffer.
+   */
+  public static void mgf1(
+      MessageDigest digest, byte[] mgfSeed, byte[] out, int outOffset, int maskLen) {
     int hLen = digest.getDigestLength();
     // Step 1. Check maskLen.
     // As max integer is only 2^31 - 1 which is smaller than the limit 2^32, this step is skipped.
 
     // Step 2, 3. Compute t.
-    byte[] t = new byte[maskLen];
-    int tPos = 0;
-    for (int counter = 0; counter <= (maskLen - 1) / hLen; counter++) {
+    byte[] counterBytes = new byte[4];
+    for (int counter = 0, pos = 0; pos < maskLen; counter++, pos += hLen) {
+      counterBytes[0] = (byte) (counter >>> 24);
+      counterBytes[1] = (byte) (counter >>> 16);
+      counterBytes[2] = (byte) (counter >>> 8);
+      counterBytes[3] = (byte) counter;
       digest.reset();
       digest.update(mgfSeed);
-      digest.update(SubtleUtil.integer2Bytes(BigInteger.valueOf(counter), 4));
+      digest.update(counterBytes);
       byte[] c = digest.digest();
-      System.arraycopy(c, 0, t, tPos, Math.min(c.length, t.length - tPos));
-      tPos += c.length;
+      System.arraycopy(c, 0, out, outOffset + pos, Math.min(hLen, maskLen - pos));
     }
-    return t;
   }
 
   /**
@@ -0,0 +1,225 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.crypto.tink.aead.AeadConfig;
+import com.google.crypto.tink.aead.PredefinedAeadParameters;
+import com.google.crypto.tink.internal.testing.FakeClock;
+import com.google.crypto.tink.monitoring.MonitoringAnnotations;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class PrimitiveCacheTest {
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    AeadConfig.register();
+  }
+
+  private static KeysetHandle newKeyset() throws GeneralSecurityException {
+    return KeysetHandle.generateNew(PredefinedAeadParameters.AES128_GCM);
+  }
+
+  @Test
+  public void getPrimitive_sameHandle_returnsCachedPrimitive() throws Exception {
+    PrimitiveCache cache = PrimitiveCache.newBuilder().build();
+    KeysetHandle handle = newKeyset();
+
+    Aead aead = cache.getPrimitive(handle, RegistryConfiguration.get(), Aead.class);
+    Aead aead2 = cache.getPrimitive(handle, RegistryConfiguration.get(), Aead.class);
+
+    assertThat(aead2).isSameInstanceAs(aead);
+    byte[] ciphertext = aead.encrypt(new byte[] {1, 2, 3}, new byte[0]);
+    assertThat(aead2.decrypt(ciphertext, new byte[0])).isEqualTo(new byte[] {1, 2, 3});
+    assertThat(cache.getStats().getHits()).isEqualTo(1);
+    assertThat(cache.getStats().getMisses()).isEqualTo(1);
+    assertThat(cache.getStats().getHitRate()).isEqualTo(0.5);
+  }
+
+  @Test
+  public void getPrimitive_reparsedKeyset_returnsCachedPrimitive() throws Exception {
+    PrimitiveCache cache = PrimitiveCache.newBuilder().build();
+    KeysetHandle handle = newKeyset();
+    byte[] serialized =
+        TinkProtoKeysetFormat.serializeKeyset(handle, InsecureSecretKeyAccess.get());
+    KeysetHandle parsed =
+        TinkProtoKeysetFormat.parseKeyset(serialized, InsecureSecretKeyAccess.get());
+
+    Aead aead = cache.getPrimitive(handle, RegistryConfiguration.get(), Aead.class);
+
+    assertThat(cache.getPrimitive(parsed, RegistryConfiguration.get(), Aead.class))
+        .isSameInstanceAs(aead);
+  }
+
+  @Test
+  public void getPrimitive_differentKeysets_returnsDifferentPrimitives() throws Exception {
+    PrimitiveCache cache = PrimitiveCache.newBuilder().build();
+    KeysetHandle handle = newKeyset();
+    KeysetHandle otherHandle = newKeyset();
+
+    Aead aead = cache.getPrimitive(handle, RegistryConfiguration.get(), Aead.class);
+    Aead otherAead = cache.getPrimitive(otherHandle, RegistryConfiguration.get(), Aead.class);
+
+    assertThat(otherAead).isNotSameInstanceAs(aead);
+    byte[] ciphertext = aead.encrypt(new byte[] {1, 2, 3}, new byte[0]);
+    assertThrows(GeneralSecurityException.class, () -> otherAead.decrypt(ciphertext, new byte[0]));
+    assertThat(cache.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void getPrimitive_differentAnnotations_returnsDifferentPrimitives() throws Exception {
+    PrimitiveCache cache = PrimitiveCache.newBuilder().build();
+    KeysetHandle handle = newKeyset();
+    KeysetHandle annotatedHandle =
+        KeysetHandle.newBuilder(handle)
+            .setMonitoringAnnotations(
+                MonitoringAnnotations.newBuilder().add("tenant", "a").build())
+            .build();
+
+    Aead aead = cache.getPrimitive(handle, RegistryConfiguration.get(), Aead.class);
+
+    assertThat(cache.getPrimitive(annotatedHandle, RegistryConfiguration.get(), Aead.class))
+        .isNotSameInstanceAs(aead);
+  }
+
+  @Test
+  public void getPrimitive_failure_isNotCached() throws Exception {
+    PrimitiveCache cache = PrimitiveCache.newBuilder().build();
+    KeysetHandle handle = newKeyset();
+
+    assertThrows(
+        GeneralSecurityException.class,
+        () -> cache.getPrimitive(handle, RegistryConfiguration.get(), Mac.class));
+    assertThrows(
+        GeneralSecurityException.class,
+        () -> cache.getPrimitive(handle, RegistryConfiguration.get(), Mac.class));
+
+    assertThat(cache.size()).isEqualTo(0);
+    assertThat(cache.getStats().getMisses()).isEqualTo(2);
+  }
+
+  @Test
+  public void getPrimitive_cacheFull_evictsLeastRecentlyUsed() throws Exception {
+    PrimitiveCache cache = PrimitiveCache.newBuilder().setMaxSize(2).build();
+    KeysetHandle handle1 = newKeyset();
+    KeysetHandle handle2 = newKeyset();
+    KeysetHandle handle3 = newKeyset();
+
+    Aead aead1 = cache.getPrimitive(handle1, RegistryConfiguration.get(), Aead.class);
+    Aead aead2 = cache.getPrimitive(handle2, RegistryConfiguration.get(), Aead.class);
+    // Use handle1, so that handle2 is the least recently used.
+    assertThat(cache.getPrimitive(handle1, RegistryConfiguration.get(), Aead.class))
+        .isSameInstanceAs(aead1);
+    Object unused = cache.getPrimitive(handle3, RegistryConfiguration.get(), Aead.class);
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getStats().getEvictions()).isEqualTo(1);
+    assertThat(cache.getPrimitive(handle1, RegistryConfiguration.get(), Aead.class))
+        .isSameInstanceAs(aead1);
+    assertThat(cache.getPrimitive(handle2, RegistryConfiguration.get(), Aead.class))
+        .isNotSameInstanceAs(aead2);
+  }
+
+  @Test
+  public void getPrimitive_notUsedForExpireAfterAccess_isRecreated() throws Exception {
+    FakeClock clock = new FakeClock(Instant.ofEpochSecond(1234567));
+    PrimitiveCache cache =
+        PrimitiveCache.newBuilder()
+            .setExpireAfterAccess(Duration.ofMinutes(1))
+            .setClock(clock)
+            .build();
+    KeysetHandle handle = newKeyset();
+    KeysetHandle otherHandle = newKeyset();
+    Aead aead = cache.getPrimitive(handle, RegistryConfiguration.get(), Aead.class);
+    Object unused = cache.getPrimitive(otherHandle, RegistryConfiguration.get(), Aead.class);
+
+    clock.advance(Duration.ofSeconds(59));
+    assertThat(cache.getPrimitive(handle, RegistryConfiguration.get(), Aead.class))
+        .isSameInstanceAs(aead);
+
+    // otherHandle was last used 60 seconds ago and is removed, handle is still fresh.
+    clock.advance(Duration.ofSeconds(1));
+    assertThat(cache.getPrimitive(handle, RegistryConfiguration.get(), Aead.class))
+        .isSameInstanceAs(aead);
+    assertThat(cache.size()).isEqualTo(1);
+
+    clock.advance(Duration.ofMinutes(1));
+    assertThat(cache.getPrimitive(handle, RegistryConfiguration.get(), Aead.class))
+        .isNotSameInstanceAs(aead);
+    assertThat(cache.getStats().getEvictions()).isEqualTo(2);
+  }
+
+  @Test
+  public void getPrimitive_concurrentMisses_createPrimitiveOnce() throws Exception {
+    PrimitiveCache cache = PrimitiveCache.newBuilder().build();
+    KeysetHandle handle = newKeyset();
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    try {
+      List<Future<Aead>> futures = new ArrayList<>();
+      for (int i = 0; i < 64; i++) {
+        futures.add(
+            executor.submit(
+                () -> cache.getPrimitive(handle, RegistryConfiguration.get(), Aead.class)));
+      }
+      Aead aead = futures.get(0).get();
+      for (Future<Aead> future : futures) {
+        assertThat(future.get()).isSameInstanceAs(aead);
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertThat(cache.getStats().getMisses()).isEqualTo(1);
+    assertThat(cache.getStats().getHits()).isEqualTo(63);
+  }
+
+  @Test
+  public void invalidateAll_removesAllPrimitives() throws Exception {
+    PrimitiveCache cache = PrimitiveCache.newBuilder().build();
+    KeysetHandle handle = newKeyset();
+    Aead aead = cache.getPrimitive(handle, RegistryConfiguration.get(), Aead.class);
+
+    cache.invalidateAll();
+
+    assertThat(cache.size()).isEqualTo(0);
+    assertThat(cache.getPrimitive(handle, RegistryConfiguration.get(), Aead.class))
+        .isNotSameInstanceAs(aead);
+  }
+
+  @Test
+  public void builder_invalidArguments_throw() throws Exception {
+    assertThrows(
+        IllegalArgumentException.class, () -> PrimitiveCache.newBuilder().setMaxSize(0));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> PrimitiveCache.newBuilder().setExpireAfterAccess(Duration.ZERO));
+    assertThrows(NullPointerException.class, () -> PrimitiveCache.newBuilder().setClock(null));
+  }
+}
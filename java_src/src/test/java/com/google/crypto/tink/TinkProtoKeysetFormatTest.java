@@ -30,6 +30,7 @@ import com.google.crypto.tink.proto.OutputPrefixType;
 import com.google.crypto.tink.signature.SignatureConfig;
 import com.google.crypto.tink.subtle.Hex;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.ExtensionRegistryLite;
 import java.io.ByteArrayOutputStream;
 import java.security.GeneralSecurityException;
 import org.junit.BeforeClass;
@@ -193,6 +194,107 @@ public final class TinkProtoKeysetFormatTest {
     assertThrows(GeneralSecurityException.class, () -> KeysetHandle.newBuilder(handle).build());
   }
 
+  @Test
+  public void serializeAndParseLazily_successWithSameKeyset() throws Exception {
+    KeysetHandle keysetHandle = generateKeyset();
+
+    byte[] serializedKeyset =
+        TinkProtoKeysetFormat.serializeKeyset(keysetHandle, InsecureSecretKeyAccess.get());
+    KeysetHandle parseKeysetHandle =
+        TinkProtoKeysetFormat.parseKeysetLazily(serializedKeyset, InsecureSecretKeyAccess.get());
+
+    assertKeysetHandleAreEqual(keysetHandle, parseKeysetHandle);
+    assertThat(parseKeysetHandle.getPrimary().getId())
+        .isEqualTo(keysetHandle.getPrimary().getId());
+  }
+
+  @Test
+  public void parseKeysetLazily_withoutInsecureSecretKeyAccess_fails() throws Exception {
+    byte[] serializedKeyset =
+        TinkProtoKeysetFormat.serializeKeyset(generateKeyset(), InsecureSecretKeyAccess.get());
+
+    assertThrows(
+        NullPointerException.class,
+        () -> TinkProtoKeysetFormat.parseKeysetLazily(serializedKeyset, null));
+  }
+
+  @Test
+  public void parseKeysetLazily_primitiveUsesNonPrimaryKey() throws Exception {
+    KeysetHandle keysetHandle = generateKeyset();
+    // Same keyset, but with the last (AES256_CMAC) key as primary.
+    KeysetHandle.Builder builder = KeysetHandle.newBuilder(keysetHandle);
+    builder.getAt(4).makePrimary();
+    Mac otherPrimaryMac = builder.build().getPrimitive(Mac.class);
+    byte[] data = "data".getBytes(UTF_8);
+    byte[] tag = otherPrimaryMac.computeMac(data);
+
+    KeysetHandle parseKeysetHandle =
+        TinkProtoKeysetFormat.parseKeysetLazily(
+            TinkProtoKeysetFormat.serializeKeyset(keysetHandle, InsecureSecretKeyAccess.get()),
+            InsecureSecretKeyAccess.get());
+    Mac mac = parseKeysetHandle.getPrimitive(Mac.class);
+
+    mac.verifyMac(tag, data);
+    mac.verifyMac(mac.computeMac(data), data);
+  }
+
+  @Test
+  public void parseKeysetLazily_invalidNonPrimaryKey_onlyFailsWhenUsed() throws Exception {
+    byte[] serializedKeyset =
+        TinkProtoKeysetFormat.serializeKeyset(generateKeyset(), InsecureSecretKeyAccess.get());
+    Keyset keyset =
+        Keyset.parseFrom(serializedKeyset, ExtensionRegistryLite.getEmptyRegistry())
+            .toBuilder()
+            .addKey(
+                Keyset.Key.newBuilder()
+                    .setKeyData(
+                        KeyData.newBuilder()
+                            .setValue(ByteString.copyFromUtf8("value"))
+                            .setTypeUrl("\t")
+                            .setKeyMaterialType(KeyData.KeyMaterialType.SYMMETRIC)
+                            .build())
+                    .setStatus(KeyStatusType.ENABLED)
+                    .setKeyId(123)
+                    .setOutputPrefixType(OutputPrefixType.TINK)
+                    .build())
+            .build();
+
+    assertThrows(
+        GeneralSecurityException.class,
+        () ->
+            TinkProtoKeysetFormat.parseKeyset(keyset.toByteArray(), InsecureSecretKeyAccess.get())
+                .getPrimitive(Mac.class));
+
+    KeysetHandle handle =
+        TinkProtoKeysetFormat.parseKeysetLazily(
+            keyset.toByteArray(), InsecureSecretKeyAccess.get());
+    Mac mac = handle.getPrimitive(Mac.class);
+    byte[] data = "data".getBytes(UTF_8);
+    mac.verifyMac(mac.computeMac(data), data);
+    assertThrows(IllegalStateException.class, () -> handle.getAt(5));
+    // A tag with the output prefix of the invalid key (TINK prefix 0x01, key id 123) selects it.
+    // The key cannot be parsed, so the entry is skipped and verification fails normally.
+    byte[] tagWithInvalidKeyPrefix = Hex.decode("010000007b" + "00112233445566778899aabbccddeeff");
+    assertThrows(
+        GeneralSecurityException.class, () -> mac.verifyMac(tagWithInvalidKeyPrefix, data));
+  }
+
+  @Test
+  public void serializeEncryptedAndParseEncryptedLazily_successWithSameKeyset() throws Exception {
+    Aead keyEncryptionAead = generateAead();
+    KeysetHandle keysetHandle = generateKeyset();
+    byte[] associatedData = "associatedData".getBytes(UTF_8);
+
+    byte[] serializedKeyset =
+        TinkProtoKeysetFormat.serializeEncryptedKeyset(
+            keysetHandle, keyEncryptionAead, associatedData);
+    KeysetHandle parseKeysetHandle =
+        TinkProtoKeysetFormat.parseEncryptedKeysetLazily(
+            serializedKeyset, keyEncryptionAead, associatedData);
+
+    assertKeysetHandleAreEqual(keysetHandle, parseKeysetHandle);
+  }
+
   @Test
   public void serializeEncryptedAndParseEncrypted_successWithSameKeyset() throws Exception {
     Aead keyEncryptionAead = generateAead();
@@ -43,6 +43,7 @@ import com.google.crypto.tink.subtle.Hex;
 import com.google.crypto.tink.subtle.Random;
 import com.google.crypto.tink.testing.TestUtil;
 import com.google.crypto.tink.util.SecretBytes;
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.util.Arrays;
 import java.util.List;
@@ -317,6 +318,51 @@ public class AeadWrapperTest {
     assertThat(aead01.decrypt(ciphertext1, associatedData)).isEqualTo(plaintext);
   }
 
+  @Test
+  public void encryptDecryptByteBuffers_works() throws Exception {
+    MutablePrimitiveRegistry.resetGlobalInstanceTestOnly();
+    AeadConfig.register();
+
+    byte[] plaintext = "plaintext".getBytes(UTF_8);
+    byte[] associatedData = "associatedData".getBytes(UTF_8);
+
+    KeysetHandle keysetHandle =
+        KeysetHandle.newBuilder()
+            .addEntry(KeysetHandle.importKey(tinkKey).makePrimary())
+            .addEntry(KeysetHandle.importKey(rawKey0).withRandomId())
+            .build();
+    Aead aead = keysetHandle.getPrimitive(Aead.class);
+    KeysetHandle rawKeysetHandle =
+        KeysetHandle.newBuilder()
+            .addEntry(KeysetHandle.importKey(rawKey0).withRandomId().makePrimary())
+            .build();
+    Aead rawAead = rawKeysetHandle.getPrimitive(Aead.class);
+
+    ByteBuffer ciphertext = ByteBuffer.allocateDirect(100);
+    int ciphertextSize = aead.encrypt(ByteBuffer.wrap(plaintext), associatedData, ciphertext);
+    ciphertext.flip();
+    byte[] ciphertextBytes = new byte[ciphertextSize];
+    ciphertext.duplicate().get(ciphertextBytes);
+    assertThat(aead.decrypt(ciphertextBytes, associatedData)).isEqualTo(plaintext);
+
+    ByteBuffer decrypted = ByteBuffer.allocate(plaintext.length);
+    assertThat(aead.decrypt(ciphertext, associatedData, decrypted)).isEqualTo(plaintext.length);
+    assertThat(decrypted.array()).isEqualTo(plaintext);
+
+    ByteBuffer rawCiphertext = ByteBuffer.wrap(rawAead.encrypt(plaintext, associatedData));
+    decrypted.clear();
+    assertThat(aead.decrypt(rawCiphertext, associatedData, decrypted)).isEqualTo(plaintext.length);
+    assertThat(decrypted.array()).isEqualTo(plaintext);
+
+    rawCiphertext.clear();
+    decrypted.clear();
+    assertThrows(
+        GeneralSecurityException.class,
+        () -> aead.decrypt(rawCiphertext, "wrong".getBytes(UTF_8), decrypted));
+    assertThat(rawCiphertext.position()).isEqualTo(0);
+    assertThat(decrypted.position()).isEqualTo(0);
+  }
+
   @Test
   public void encryptUsesPrimaryPrimitive() throws Exception {
     MutablePrimitiveRegistry.resetGlobalInstanceTestOnly();
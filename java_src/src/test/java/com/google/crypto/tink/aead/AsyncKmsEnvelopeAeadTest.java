@@ -0,0 +1,194 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.aead;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+
+import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.AsyncAead;
+import com.google.crypto.tink.KeysetHandle;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.theories.DataPoints;
+import org.junit.experimental.theories.FromDataPoints;
+import org.junit.experimental.theories.Theories;
+import org.junit.experimental.theories.Theory;
+import org.junit.runner.RunWith;
+
+/** Tests for {@link AsyncKmsEnvelopeAead} */
+@RunWith(Theories.class)
+public final class AsyncKmsEnvelopeAeadTest {
+  private static final byte[] EMPTY_ADD = new byte[0];
+
+  @BeforeClass
+  public static void setUp() throws GeneralSecurityException {
+    AeadConfig.register();
+  }
+
+  /** An {@link AsyncAead} that runs a local {@link Aead} and completes on the calling thread. */
+  private static final class LocalAsyncAead implements AsyncAead {
+    private final Aead aead;
+
+    LocalAsyncAead(Aead aead) {
+      this.aead = aead;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> encryptAsync(byte[] plaintext, byte[] associatedData) {
+      CompletableFuture<byte[]> result = new CompletableFuture<>();
+      try {
+        result.complete(aead.encrypt(plaintext, associatedData));
+      } catch (GeneralSecurityException e) {
+        result.completeExceptionally(e);
+      }
+      return result;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> decryptAsync(byte[] ciphertext, byte[] associatedData) {
+      CompletableFuture<byte[]> result = new CompletableFuture<>();
+      try {
+        result.complete(aead.decrypt(ciphertext, associatedData));
+      } catch (GeneralSecurityException e) {
+        result.completeExceptionally(e);
+      }
+      return result;
+    }
+  }
+
+  private static Aead generateNewRemoteAead() throws GeneralSecurityException {
+    return KeysetHandle.generateNew(PredefinedAeadParameters.AES128_EAX).getPrimitive(Aead.class);
+  }
+
+  @DataPoints("dekParameters")
+  public static final AeadParameters[] DEK_PARAMETERS =
+      new AeadParameters[] {
+        PredefinedAeadParameters.AES128_GCM,
+        PredefinedAeadParameters.AES256_GCM,
+        PredefinedAeadParameters.AES128_EAX,
+        PredefinedAeadParameters.AES256_EAX,
+        PredefinedAeadParameters.AES128_CTR_HMAC_SHA256,
+        PredefinedAeadParameters.AES256_CTR_HMAC_SHA256,
+        PredefinedAeadParameters.CHACHA20_POLY1305,
+        PredefinedAeadParameters.XCHACHA20_POLY1305,
+      };
+
+  @Theory
+  public void createEncryptDecrypt_works(
+      @FromDataPoints("dekParameters") AeadParameters dekParameters) throws Exception {
+    AsyncAead envAead =
+        AsyncKmsEnvelopeAead.create(dekParameters, new LocalAsyncAead(generateNewRemoteAead()));
+    byte[] plaintext = "plaintext".getBytes(UTF_8);
+    byte[] associatedData = "associatedData".getBytes(UTF_8);
+    byte[] ciphertext = envAead.encryptAsync(plaintext, associatedData).get();
+    assertThat(envAead.decryptAsync(ciphertext, associatedData).get()).isEqualTo(plaintext);
+
+    byte[] ciphertextWithoutAssociatedData = envAead.encryptAsync(plaintext, EMPTY_ADD).get();
+    assertThat(envAead.decryptAsync(ciphertextWithoutAssociatedData, EMPTY_ADD).get())
+        .isEqualTo(plaintext);
+  }
+
+  @Theory
+  public void ciphertexts_compatibleWithKmsEnvelopeAead(
+      @FromDataPoints("dekParameters") AeadParameters dekParameters) throws Exception {
+    Aead remoteAead = generateNewRemoteAead();
+    AsyncAead asyncEnvAead =
+        AsyncKmsEnvelopeAead.create(dekParameters, new LocalAsyncAead(remoteAead));
+    Aead envAead = KmsEnvelopeAead.create(dekParameters, remoteAead);
+    byte[] plaintext = "plaintext".getBytes(UTF_8);
+    byte[] associatedData = "associatedData".getBytes(UTF_8);
+
+    byte[] asyncCiphertext = asyncEnvAead.encryptAsync(plaintext, associatedData).get();
+    assertThat(envAead.decrypt(asyncCiphertext, associatedData)).isEqualTo(plaintext);
+    byte[] ciphertext = envAead.encrypt(plaintext, associatedData);
+    assertThat(asyncEnvAead.decryptAsync(ciphertext, associatedData).get()).isEqualTo(plaintext);
+  }
+
+  @Test
+  public void decryptWithWrongAssociatedData_fails() throws Exception {
+    AsyncAead envAead =
+        AsyncKmsEnvelopeAead.create(
+            PredefinedAeadParameters.AES128_GCM, new LocalAsyncAead(generateNewRemoteAead()));
+    byte[] ciphertext = envAead.encryptAsync("plaintext".getBytes(UTF_8), EMPTY_ADD).get();
+
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class,
+            () -> envAead.decryptAsync(ciphertext, "associatedData".getBytes(UTF_8)).get());
+    assertThat(e).hasCauseThat().isInstanceOf(GeneralSecurityException.class);
+  }
+
+  @Test
+  public void decryptWithOtherRemoteAead_fails() throws Exception {
+    AsyncAead envAead =
+        AsyncKmsEnvelopeAead.create(
+            PredefinedAeadParameters.AES128_GCM, new LocalAsyncAead(generateNewRemoteAead()));
+    AsyncAead envAead2 =
+        AsyncKmsEnvelopeAead.create(
+            PredefinedAeadParameters.AES128_GCM, new LocalAsyncAead(generateNewRemoteAead()));
+    byte[] ciphertext = envAead.encryptAsync("plaintext".getBytes(UTF_8), EMPTY_ADD).get();
+
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class, () -> envAead2.decryptAsync(ciphertext, EMPTY_ADD).get());
+    assertThat(e).hasCauseThat().isInstanceOf(GeneralSecurityException.class);
+  }
+
+  @Test
+  public void decryptInvalidCiphertext_fails() throws Exception {
+    AsyncAead envAead =
+        AsyncKmsEnvelopeAead.create(
+            PredefinedAeadParameters.AES128_GCM, new LocalAsyncAead(generateNewRemoteAead()));
+
+    for (byte[] ciphertext :
+        new byte[][] {
+          new byte[0], new byte[] {0, 0, 0}, new byte[] {0, 0, 0, 0, 1}, new byte[] {0, 0, 0, 5, 1}
+        }) {
+      ExecutionException e =
+          assertThrows(
+              ExecutionException.class, () -> envAead.decryptAsync(ciphertext, EMPTY_ADD).get());
+      assertThat(e).hasCauseThat().isInstanceOf(GeneralSecurityException.class);
+    }
+  }
+
+  @Test
+  public void decrypt_continuesOnGivenExecutor() throws Exception {
+    AtomicInteger executedTasks = new AtomicInteger();
+    Executor executor =
+        command -> {
+          executedTasks.incrementAndGet();
+          command.run();
+        };
+    AsyncAead envAead =
+        AsyncKmsEnvelopeAead.create(
+            PredefinedAeadParameters.AES128_GCM,
+            new LocalAsyncAead(generateNewRemoteAead()),
+            executor);
+    byte[] plaintext = "plaintext".getBytes(UTF_8);
+    byte[] ciphertext = envAead.encryptAsync(plaintext, EMPTY_ADD).get();
+
+    assertThat(envAead.decryptAsync(ciphertext, EMPTY_ADD).get()).isEqualTo(plaintext);
+    assertThat(executedTasks.get()).isEqualTo(1);
+  }
+}
@@ -27,10 +27,14 @@ import com.google.crypto.tink.KeysetHandle;
 import com.google.crypto.tink.KmsClient;
 import com.google.crypto.tink.KmsClients;
 import com.google.crypto.tink.internal.KeyTemplateProtoConverter;
+import com.google.crypto.tink.internal.testing.FakeClock;
 import com.google.crypto.tink.mac.HmacKeyManager;
 import com.google.crypto.tink.subtle.Random;
 import com.google.crypto.tink.testing.FakeKmsClient;
 import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.experimental.theories.DataPoints;
@@ -242,7 +246,193 @@ public final class KmsEnvelopeAeadTest {
     assertThat(aead2.decrypt(aead1.encrypt(plaintext, associatedData), associatedData))
         .isEqualTo(plaintext);
   }
-}
 
+  /** A remote AEAD which counts how often it is called. */
+  private static final class CountingAead implements Aead {
+    private final Aead aead;
+    int encryptCalls = 0;
+    int decryptCalls = 0;
+
+    CountingAead(Aead aead) {
+      this.aead = aead;
+    }
+
+    @Override
+    public byte[] encrypt(byte[] plaintext, byte[] associatedData)
+        throws GeneralSecurityException {
+      encryptCalls++;
+      return aead.encrypt(plaintext, associatedData);
+    }
+
+    @Override
+    public byte[] decrypt(byte[] ciphertext, byte[] associatedData)
+        throws GeneralSecurityException {
+      decryptCalls++;
+      return aead.decrypt(ciphertext, associatedData);
+    }
+  }
+
+  @Theory
+  public void createWithDekCache_encryptDecrypt_works(
+      @FromDataPoints("dekParameters") AeadParameters dekParameters) throws Exception {
+    Aead remoteAead = this.generateNewRemoteAead();
+    Aead envAead =
+        KmsEnvelopeAead.createWithDekCache(
+            dekParameters, remoteAead, KmsEnvelopeAead.DekCacheConfig.newBuilder().build());
+    Aead uncachedEnvAead = KmsEnvelopeAead.create(dekParameters, remoteAead);
+    byte[] plaintext = "plaintext".getBytes(UTF_8);
+    byte[] associatedData = "associatedData".getBytes(UTF_8);
+
+    byte[] ciphertext = envAead.encrypt(plaintext, associatedData);
+    assertThat(envAead.decrypt(ciphertext, associatedData)).isEqualTo(plaintext);
+    assertThat(uncachedEnvAead.decrypt(ciphertext, associatedData)).isEqualTo(plaintext);
+    byte[] uncachedCiphertext = uncachedEnvAead.encrypt(plaintext, associatedData);
+    assertThat(envAead.decrypt(uncachedCiphertext, associatedData)).isEqualTo(plaintext);
+  }
 
+  @Test
+  public void createWithDekCache_reusesDekForMaxEncryptions() throws Exception {
+    CountingAead remoteAead = new CountingAead(this.generateNewRemoteAead());
+    KmsEnvelopeAead envAead =
+        KmsEnvelopeAead.createWithDekCache(
+            PredefinedAeadParameters.AES128_GCM,
+            remoteAead,
+            KmsEnvelopeAead.DekCacheConfig.newBuilder().setMaxEncryptionsPerDek(3).build());
+    byte[] plaintext = "plaintext".getBytes(UTF_8);
+
+    byte[] ciphertext1 = envAead.encrypt(plaintext, EMPTY_ADD);
+    byte[] ciphertext2 = envAead.encrypt(plaintext, EMPTY_ADD);
+    byte[] ciphertext3 = envAead.encrypt(plaintext, EMPTY_ADD);
+    byte[] ciphertext4 = envAead.encrypt(plaintext, EMPTY_ADD);
+
+    assertThat(remoteAead.encryptCalls).isEqualTo(2);
+    // The first 4 bytes and the encrypted DEK are shared by ciphertexts with the same DEK.
+    int prefixSize = ciphertext1.length - envAead.decrypt(ciphertext1, EMPTY_ADD).length - 28;
+    assertThat(Arrays.copyOf(ciphertext2, prefixSize))
+        .isEqualTo(Arrays.copyOf(ciphertext1, prefixSize));
+    assertThat(Arrays.copyOf(ciphertext3, prefixSize))
+        .isEqualTo(Arrays.copyOf(ciphertext1, prefixSize));
+    assertThat(Arrays.copyOf(ciphertext4, prefixSize))
+        .isNotEqualTo(Arrays.copyOf(ciphertext1, prefixSize));
+    // DEKs generated for encryption are available for decryption without calling the KMS.
+    assertThat(envAead.decrypt(ciphertext4, EMPTY_ADD)).isEqualTo(plaintext);
+    assertThat(remoteAead.decryptCalls).isEqualTo(0);
+
+    KmsEnvelopeAead.DekCacheStats stats = envAead.getDekCacheStats();
+    assertThat(stats.getEncryptionHits()).isEqualTo(2);
+    assertThat(stats.getEncryptionMisses()).isEqualTo(2);
+    assertThat(stats.getDecryptionHits()).isEqualTo(2);
+    assertThat(stats.getDecryptionMisses()).isEqualTo(0);
+  }
+
+  @Test
+  public void createWithDekCache_expiresDeks() throws Exception {
+    CountingAead remoteAead = new CountingAead(this.generateNewRemoteAead());
+    FakeClock clock = new FakeClock(Instant.ofEpochSecond(1234567));
+    KmsEnvelopeAead envAead =
+        KmsEnvelopeAead.createWithDekCache(
+            PredefinedAeadParameters.AES128_GCM,
+            remoteAead,
+            KmsEnvelopeAead.DekCacheConfig.newBuilder()
+                .setDekLifetime(Duration.ofMinutes(1))
+                .setClock(clock)
+                .build());
+    byte[] plaintext = "plaintext".getBytes(UTF_8);
 
+    byte[] ciphertext = envAead.encrypt(plaintext, EMPTY_ADD);
+    envAead.encrypt(plaintext, EMPTY_ADD);
+    assertThat(remoteAead.encryptCalls).isEqualTo(1);
+    clock.advance(Duration.ofSeconds(59));
+    envAead.encrypt(plaintext, EMPTY_ADD);
+    assertThat(envAead.decrypt(ciphertext, EMPTY_ADD)).isEqualTo(plaintext);
+    assertThat(remoteAead.encryptCalls).isEqualTo(1);
+    assertThat(remoteAead.decryptCalls).isEqualTo(0);
+
+    clock.advance(Duration.ofSeconds(1));
+    envAead.encrypt(plaintext, EMPTY_ADD);
+    assertThat(envAead.decrypt(ciphertext, EMPTY_ADD)).isEqualTo(plaintext);
+    assertThat(remoteAead.encryptCalls).isEqualTo(2);
+    assertThat(remoteAead.decryptCalls).isEqualTo(1);
+  }
+
+  @Test
+  public void createWithDekCache_cachesDecryptedDeks() throws Exception {
+    CountingAead remoteAead = new CountingAead(this.generateNewRemoteAead());
+    Aead uncachedEnvAead = KmsEnvelopeAead.create(PredefinedAeadParameters.AES128_GCM, remoteAead);
+    KmsEnvelopeAead envAead =
+        KmsEnvelopeAead.createWithDekCache(
+            PredefinedAeadParameters.AES128_GCM,
+            remoteAead,
+            KmsEnvelopeAead.DekCacheConfig.newBuilder().setMaxCachedDecryptionDeks(2).build());
+    byte[] plaintext = "plaintext".getBytes(UTF_8);
+    byte[] ciphertext1 = uncachedEnvAead.encrypt(plaintext, EMPTY_ADD);
+    byte[] ciphertext2 = uncachedEnvAead.encrypt(plaintext, EMPTY_ADD);
+    byte[] ciphertext3 = uncachedEnvAead.encrypt(plaintext, EMPTY_ADD);
+
+    assertThat(envAead.decrypt(ciphertext1, EMPTY_ADD)).isEqualTo(plaintext);
+    assertThat(envAead.decrypt(ciphertext2, EMPTY_ADD)).isEqualTo(plaintext);
+    assertThat(envAead.decrypt(ciphertext1, EMPTY_ADD)).isEqualTo(plaintext);
+    assertThat(envAead.decrypt(ciphertext2, EMPTY_ADD)).isEqualTo(plaintext);
+    assertThat(remoteAead.decryptCalls).isEqualTo(2);
+
+    // Evicts ciphertext1's DEK, which is the least recently used one.
+    assertThat(envAead.decrypt(ciphertext3, EMPTY_ADD)).isEqualTo(plaintext);
+    assertThat(envAead.decrypt(ciphertext2, EMPTY_ADD)).isEqualTo(plaintext);
+    assertThat(remoteAead.decryptCalls).isEqualTo(3);
+    assertThat(envAead.decrypt(ciphertext1, EMPTY_ADD)).isEqualTo(plaintext);
+    assertThat(remoteAead.decryptCalls).isEqualTo(4);
+
+    KmsEnvelopeAead.DekCacheStats stats = envAead.getDekCacheStats();
+    assertThat(stats.getDecryptionHits()).isEqualTo(3);
+    assertThat(stats.getDecryptionMisses()).isEqualTo(4);
+  }
+
+  @Test
+  public void createWithDekCache_zeroCachedDecryptionDeks_alwaysCallsRemote() throws Exception {
+    CountingAead remoteAead = new CountingAead(this.generateNewRemoteAead());
+    KmsEnvelopeAead envAead =
+        KmsEnvelopeAead.createWithDekCache(
+            PredefinedAeadParameters.AES128_GCM,
+            remoteAead,
+            KmsEnvelopeAead.DekCacheConfig.newBuilder().setMaxCachedDecryptionDeks(0).build());
+    byte[] plaintext = "plaintext".getBytes(UTF_8);
+    byte[] ciphertext = envAead.encrypt(plaintext, EMPTY_ADD);
+
+    assertThat(envAead.decrypt(ciphertext, EMPTY_ADD)).isEqualTo(plaintext);
+    assertThat(envAead.decrypt(ciphertext, EMPTY_ADD)).isEqualTo(plaintext);
+    assertThat(remoteAead.decryptCalls).isEqualTo(2);
+    assertThat(envAead.getDekCacheStats().getDecryptionHits()).isEqualTo(0);
+  }
+
+  @Test
+  public void createWithDekCache_corruptedCiphertext_fails() throws Exception {
+    Aead remoteAead = this.generateNewRemoteAead();
+    KmsEnvelopeAead envAead =
+        KmsEnvelopeAead.createWithDekCache(
+            PredefinedAeadParameters.AES128_GCM,
+            remoteAead,
+            KmsEnvelopeAead.DekCacheConfig.newBuilder().build());
+    byte[] ciphertext = envAead.encrypt("plaintext".getBytes(UTF_8), EMPTY_ADD);
+    byte[] corruptedDek = Arrays.copyOf(ciphertext, ciphertext.length);
+    corruptedDek[4] ^= 1;
+    byte[] corruptedPayload = Arrays.copyOf(ciphertext, ciphertext.length);
+    corruptedPayload[ciphertext.length - 1] ^= 1;
+
+    assertThrows(GeneralSecurityException.class, () -> envAead.decrypt(corruptedDek, EMPTY_ADD));
+    assertThrows(
+        GeneralSecurityException.class, () -> envAead.decrypt(corruptedPayload, EMPTY_ADD));
+  }
+
+  @Test
+  public void dekCacheConfig_invalidValues_throw() throws Exception {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> KmsEnvelopeAead.DekCacheConfig.newBuilder().setMaxEncryptionsPerDek(0));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> KmsEnvelopeAead.DekCacheConfig.newBuilder().setDekLifetime(Duration.ZERO));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> KmsEnvelopeAead.DekCacheConfig.newBuilder().setMaxCachedDecryptionDeks(-1));
+  }
+}
@@ -0,0 +1,203 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.aead;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+
+import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.KeysetHandle;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SingleFlightAead} */
+@RunWith(JUnit4.class)
+public final class SingleFlightAeadTest {
+  private static final int THREADS = 8;
+
+  @BeforeClass
+  public static void setUp() throws GeneralSecurityException {
+    AeadConfig.register();
+  }
+
+  /** An {@link Aead} whose decryptions block until {@code release} is counted down. */
+  private static final class BlockingAead implements Aead {
+    final Aead aead;
+    final CountDownLatch entered = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger decryptions = new AtomicInteger();
+
+    BlockingAead(Aead aead) {
+      this.aead = aead;
+    }
+
+    @Override
+    public byte[] encrypt(byte[] plaintext, byte[] associatedData)
+        throws GeneralSecurityException {
+      return aead.encrypt(plaintext, associatedData);
+    }
+
+    @Override
+    public byte[] decrypt(byte[] ciphertext, byte[] associatedData)
+        throws GeneralSecurityException {
+      decryptions.incrementAndGet();
+      entered.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      return aead.decrypt(ciphertext, associatedData);
+    }
+  }
+
+  private static Aead generateNewRemoteAead() throws GeneralSecurityException {
+    return KeysetHandle.generateNew(PredefinedAeadParameters.AES128_GCM).getPrimitive(Aead.class);
+  }
+
+  /**
+   * Starts {@code THREADS} decryptions of {@code ciphertext}, and releases {@code remote} once all
+   * but the first one are waiting for the first one.
+   */
+  private static List<Future<byte[]>> decryptConcurrently(
+      ExecutorService executor,
+      SingleFlightAead aead,
+      BlockingAead remote,
+      byte[] ciphertext,
+      byte[] associatedData)
+      throws Exception {
+    List<Future<byte[]>> results = new ArrayList<>();
+    results.add(executor.submit(() -> aead.decrypt(ciphertext, associatedData)));
+    remote.entered.await();
+    for (int i = 1; i < THREADS; i++) {
+      results.add(executor.submit(() -> aead.decrypt(ciphertext, associatedData)));
+    }
+    while (aead.getStats().getCollapsedDecryptions() < THREADS - 1) {
+      Thread.sleep(1);
+    }
+    remote.release.countDown();
+    return results;
+  }
+
+  @Test
+  public void concurrentIdenticalDecryptions_areCollapsed() throws Exception {
+    BlockingAead remote = new BlockingAead(generateNewRemoteAead());
+    SingleFlightAead aead = SingleFlightAead.create(remote);
+    byte[] plaintext = "plaintext".getBytes(UTF_8);
+    byte[] associatedData = "associatedData".getBytes(UTF_8);
+    byte[] ciphertext = aead.encrypt(plaintext, associatedData);
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<byte[]>> results =
+          decryptConcurrently(executor, aead, remote, ciphertext, associatedData);
+      List<byte[]> plaintexts = new ArrayList<>();
+      for (Future<byte[]> result : results) {
+        assertThat(result.get()).isEqualTo(plaintext);
+        plaintexts.add(result.get());
+      }
+      // Every caller gets its own copy of the plaintext.
+      for (int i = 1; i < plaintexts.size(); i++) {
+        assertThat(plaintexts.get(i)).isNotSameInstanceAs(plaintexts.get(0));
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertThat(remote.decryptions.get()).isEqualTo(1);
+    assertThat(aead.getStats().getIssuedDecryptions()).isEqualTo(1);
+    assertThat(aead.getStats().getCollapsedDecryptions()).isEqualTo(THREADS - 1);
+  }
+
+  @Test
+  public void concurrentFailingDecryptions_allFail() throws Exception {
+    BlockingAead remote = new BlockingAead(generateNewRemoteAead());
+    SingleFlightAead aead = SingleFlightAead.create(remote);
+    byte[] ciphertext = aead.encrypt("plaintext".getBytes(UTF_8), new byte[0]);
+    byte[] wrongAssociatedData = "wrongAssociatedData".getBytes(UTF_8);
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<byte[]>> results =
+          decryptConcurrently(executor, aead, remote, ciphertext, wrongAssociatedData);
+      for (Future<byte[]> result : results) {
+        ExecutionException e = assertThrows(ExecutionException.class, result::get);
+        assertThat(e).hasCauseThat().isInstanceOf(GeneralSecurityException.class);
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertThat(remote.decryptions.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void sequentialDecryptions_areNotCollapsed() throws Exception {
+    BlockingAead remote = new BlockingAead(generateNewRemoteAead());
+    remote.release.countDown();
+    SingleFlightAead aead = SingleFlightAead.create(remote);
+    byte[] plaintext = "plaintext".getBytes(UTF_8);
+    byte[] ciphertext = aead.encrypt(plaintext, null);
+
+    assertThat(aead.decrypt(ciphertext, null)).isEqualTo(plaintext);
+    assertThat(aead.decrypt(ciphertext, new byte[0])).isEqualTo(plaintext);
+
+    assertThat(remote.decryptions.get()).isEqualTo(2);
+    assertThat(aead.getStats().getIssuedDecryptions()).isEqualTo(2);
+    assertThat(aead.getStats().getCollapsedDecryptions()).isEqualTo(0);
+  }
+
+  @Test
+  public void decryptionsWithDifferentAssociatedData_areNotCollapsed() throws Exception {
+    BlockingAead remote = new BlockingAead(generateNewRemoteAead());
+    SingleFlightAead aead = SingleFlightAead.create(remote);
+    byte[] plaintext = "plaintext".getBytes(UTF_8);
+    byte[] ciphertext = aead.encrypt(plaintext, new byte[0]);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<byte[]> first = executor.submit(() -> aead.decrypt(ciphertext, new byte[0]));
+      remote.entered.await();
+      Future<byte[]> second = executor.submit(() -> aead.decrypt(ciphertext, new byte[1]));
+      while (remote.decryptions.get() < 2) {
+        Thread.sleep(1);
+      }
+      remote.release.countDown();
+      assertThat(first.get()).isEqualTo(plaintext);
+      assertThrows(ExecutionException.class, second::get);
+    } finally {
+      executor.shutdown();
+    }
+    assertThat(aead.getStats().getIssuedDecryptions()).isEqualTo(2);
+    assertThat(aead.getStats().getCollapsedDecryptions()).isEqualTo(0);
+  }
+
+  @Test
+  public void create_withNull_throws() throws Exception {
+    assertThrows(NullPointerException.class, () -> SingleFlightAead.create(null));
+  }
+}
@@ -37,6 +37,7 @@ import com.google.crypto.tink.testing.WycheproofTestUtil;
 import com.google.crypto.tink.util.SecretBytes;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.util.Arrays;
@@ -102,6 +103,39 @@ public class ChaCha20Poly1305JceTest {
     }
   }
 
+  @Test
+  public void testEncryptDecryptByteBuffers() throws Exception {
+    Assume.assumeFalse(TinkFips.useOnlyFips());
+    Assume.assumeTrue(ChaCha20Poly1305Jce.isSupported());
+
+    Aead aead = createInstance(Random.randBytes(KEY_SIZE));
+    byte[] aad = Random.randBytes(5);
+    for (int size : new int[] {0, 1, 64, 1000}) {
+      byte[] message = Random.randBytes(size);
+      ByteBuffer ciphertext = ByteBuffer.allocateDirect(size + 100);
+      int ciphertextSize = aead.encrypt(ByteBuffer.wrap(message), aad, ciphertext);
+      assertThat(ciphertext.position()).isEqualTo(ciphertextSize);
+      ciphertext.flip();
+      byte[] ciphertextBytes = new byte[ciphertextSize];
+      ciphertext.duplicate().get(ciphertextBytes);
+      assertArrayEquals(message, aead.decrypt(ciphertextBytes, aad));
+
+      ByteBuffer decrypted = ByteBuffer.allocateDirect(size);
+      assertThat(aead.decrypt(ciphertext, aad, decrypted)).isEqualTo(size);
+      decrypted.flip();
+      byte[] decryptedBytes = new byte[size];
+      decrypted.get(decryptedBytes);
+      assertArrayEquals(message, decryptedBytes);
+
+      ciphertext.rewind();
+      decrypted.clear();
+      assertThrows(
+          GeneralSecurityException.class, () -> aead.decrypt(ciphertext, new byte[1], decrypted));
+      assertThat(ciphertext.position()).isEqualTo(0);
+      assertThat(decrypted.position()).isEqualTo(0);
+    }
+  }
+
   @Test
   /* BC had a bug, where GCM failed for messages of size > 8192 */
   public void testLongMessages() throws Exception {
@@ -22,6 +22,7 @@ import static org.junit.Assert.assertThrows;
 import com.google.crypto.tink.subtle.Hex;
 import com.google.crypto.tink.subtle.Random;
 import com.google.crypto.tink.testing.TestUtil;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -98,6 +99,56 @@ public final class ChaCha20UtilTest {
     assertThrows(IllegalArgumentException.class, () -> ChaCha20Util.toIntArray(data));
   }
 
+  @Test
+  public void blockFunction_sameAsShuffleState() {
+    for (int i = 0; i < 10; i++) {
+      int[] state = ChaCha20Util.toIntArray(Random.randBytes(ChaCha20Util.BLOCK_SIZE_IN_BYTES));
+      int[] expected = state.clone();
+      ChaCha20Util.shuffleState(expected);
+      for (int j = 0; j < expected.length; j++) {
+        expected[j] += state[j];
+      }
+
+      int[] output = new int[ChaCha20Util.BLOCK_SIZE_IN_INTS + 1];
+      ChaCha20Util.blockFunction(state, state[12], output, 1);
+
+      assertThat(Arrays.copyOfRange(output, 1, output.length)).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void xorKeyStream_sameAsSingleBlocks() {
+    int[] state = ChaCha20Util.toIntArray(Random.randBytes(ChaCha20Util.BLOCK_SIZE_IN_BYTES));
+    state[12] = -2; // The counter wraps around.
+    for (int length = 0; length < 5 * ChaCha20Util.BLOCK_SIZE_IN_BYTES; length += 7) {
+      byte[] input = Random.randBytes(length);
+      byte[] expected = new byte[length];
+      int[] block = new int[ChaCha20Util.BLOCK_SIZE_IN_INTS];
+      byte[] keyStream = null;
+      for (int i = 0; i < length; i++) {
+        if (i % ChaCha20Util.BLOCK_SIZE_IN_BYTES == 0) {
+          ChaCha20Util.blockFunction(
+              state, state[12] + i / ChaCha20Util.BLOCK_SIZE_IN_BYTES, block, 0);
+          keyStream = ChaCha20Util.toByteArray(block);
+        }
+        expected[i] = (byte) (input[i] ^ keyStream[i % ChaCha20Util.BLOCK_SIZE_IN_BYTES]);
+      }
+
+      ByteBuffer inputBuffer = ByteBuffer.allocate(length + 2);
+      inputBuffer.position(1);
+      inputBuffer.put(input);
+      inputBuffer.position(1);
+      inputBuffer.limit(1 + length);
+      ByteBuffer outputBuffer = ByteBuffer.allocate(length + 3);
+      outputBuffer.position(3);
+      ChaCha20Util.xorKeyStream(state, outputBuffer, inputBuffer);
+
+      assertThat(inputBuffer.remaining()).isEqualTo(0);
+      assertThat(outputBuffer.remaining()).isEqualTo(0);
+      assertThat(Arrays.copyOfRange(outputBuffer.array(), 3, 3 + length)).isEqualTo(expected);
+    }
+  }
+
   private static class HChaCha20TestVector {
     public final int[] key;
     public final int[] in;
@@ -24,8 +24,10 @@ import static org.junit.Assert.fail;
 import com.google.common.truth.Truth;
 import com.google.crypto.tink.subtle.Hex;
 import com.google.crypto.tink.subtle.Random;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.security.GeneralSecurityException;
+import java.util.Arrays;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -310,4 +312,39 @@ public class Poly1305Test {
     Truth.assertThat(Poly1305.computeMac(key, in))
         .isEqualTo(Hex.decode("" + "13000000000000000000000000000000"));
   }
+
+  @Test
+  public void testIncrementalUpdates_sameAsComputeMac() throws GeneralSecurityException {
+    for (int i = 0; i < 200; i++) {
+      byte[] key = Random.randBytes(MAC_KEY_SIZE_IN_BYTES);
+      byte[] data = Random.randBytes(Random.randInt(300));
+      Poly1305 poly1305 = new Poly1305(key);
+      int offset = 0;
+      while (offset < data.length) {
+        int length = Random.randInt(data.length - offset + 1);
+        if (length % 2 == 0) {
+          poly1305.update(data, offset, length);
+        } else {
+          poly1305.update(ByteBuffer.wrap(data, offset, length).asReadOnlyBuffer());
+        }
+        offset += length;
+      }
+      Truth.assertThat(poly1305.finish()).isEqualTo(Poly1305.computeMac(key, data));
+    }
+  }
+
+  @Test
+  public void testPadToBlock_sameAsZeroPaddedData() throws GeneralSecurityException {
+    for (int length = 0; length < 40; length++) {
+      byte[] key = Random.randBytes(MAC_KEY_SIZE_IN_BYTES);
+      byte[] data = Random.randBytes(length);
+      byte[] paddedData = Arrays.copyOf(data, (length + 15) / 16 * 16 + 1);
+      paddedData[paddedData.length - 1] = 42;
+      Poly1305 poly1305 = new Poly1305(key);
+      poly1305.update(data, 0, data.length);
+      poly1305.padToBlock();
+      poly1305.update(new byte[] {42}, 0, 1);
+      Truth.assertThat(poly1305.finish()).isEqualTo(Poly1305.computeMac(key, paddedData));
+    }
+  }
 }
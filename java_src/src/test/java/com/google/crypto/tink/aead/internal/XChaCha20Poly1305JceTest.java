@@ -33,6 +33,7 @@ import com.google.crypto.tink.subtle.Hex;
 import com.google.crypto.tink.subtle.Random;
 import com.google.crypto.tink.testing.TestUtil;
 import com.google.crypto.tink.util.SecretBytes;
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -157,6 +158,39 @@ public class XChaCha20Poly1305JceTest {
     assertThat(e).hasMessageThat().containsMatch("ciphertext too short");
   }
 
+  @Test
+  public void testEncryptDecryptByteBuffers() throws Exception {
+    Assume.assumeFalse(TinkFips.useOnlyFips());
+    Assume.assumeTrue(XChaCha20Poly1305Jce.isSupported());
+
+    Aead aead = createInstance(Random.randBytes(KEY_SIZE));
+    byte[] aad = Random.randBytes(5);
+    for (int size : new int[] {0, 1, 64, 1000}) {
+      byte[] message = Random.randBytes(size);
+      ByteBuffer ciphertext = ByteBuffer.allocateDirect(size + 100);
+      int ciphertextSize = aead.encrypt(ByteBuffer.wrap(message), aad, ciphertext);
+      assertThat(ciphertext.position()).isEqualTo(ciphertextSize);
+      ciphertext.flip();
+      byte[] ciphertextBytes = new byte[ciphertextSize];
+      ciphertext.duplicate().get(ciphertextBytes);
+      assertArrayEquals(message, aead.decrypt(ciphertextBytes, aad));
+
+      ByteBuffer decrypted = ByteBuffer.allocateDirect(size);
+      assertThat(aead.decrypt(ciphertext, aad, decrypted)).isEqualTo(size);
+      decrypted.flip();
+      byte[] decryptedBytes = new byte[size];
+      decrypted.get(decryptedBytes);
+      assertArrayEquals(message, decryptedBytes);
+
+      ciphertext.rewind();
+      decrypted.clear();
+      assertThrows(
+          GeneralSecurityException.class, () -> aead.decrypt(ciphertext, new byte[1], decrypted));
+      assertThat(ciphertext.position()).isEqualTo(0);
+      assertThat(decrypted.position()).isEqualTo(0);
+    }
+  }
+
   @Test
   public void testEncryptDecrypt() throws Exception {
     Assume.assumeFalse(TinkFips.useOnlyFips());
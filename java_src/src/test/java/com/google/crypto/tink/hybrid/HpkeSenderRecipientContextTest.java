@@ -0,0 +1,190 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.hybrid;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.crypto.tink.HybridDecrypt;
+import com.google.crypto.tink.InsecureSecretKeyAccess;
+import com.google.crypto.tink.hybrid.internal.HpkeDecrypt;
+import com.google.crypto.tink.subtle.Random;
+import com.google.crypto.tink.subtle.X25519;
+import com.google.crypto.tink.util.Bytes;
+import com.google.crypto.tink.util.SecretBytes;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link HpkeSenderContext} and {@link HpkeRecipientContext}. */
+@RunWith(JUnit4.class)
+public final class HpkeSenderRecipientContextTest {
+
+  private static HpkePrivateKey createPrivateKey(HpkeParameters.Variant variant)
+      throws GeneralSecurityException {
+    HpkeParameters parameters =
+        HpkeParameters.builder()
+            .setVariant(variant)
+            .setKemId(HpkeParameters.KemId.DHKEM_X25519_HKDF_SHA256)
+            .setKdfId(HpkeParameters.KdfId.HKDF_SHA256)
+            .setAeadId(HpkeParameters.AeadId.AES_256_GCM)
+            .build();
+    byte[] privateKeyBytes = X25519.generatePrivateKey();
+    HpkePublicKey publicKey =
+        HpkePublicKey.create(
+            parameters,
+            Bytes.copyFrom(X25519.publicFromPrivate(privateKeyBytes)),
+            variant == HpkeParameters.Variant.NO_PREFIX ? null : 0x01020304);
+    return HpkePrivateKey.create(
+        publicKey, SecretBytes.copyFrom(privateKeyBytes, InsecureSecretKeyAccess.get()));
+  }
+
+  @Test
+  public void sealOpen_multipleMessages_works() throws Exception {
+    HpkePrivateKey privateKey = createPrivateKey(HpkeParameters.Variant.NO_PREFIX);
+    byte[] info = Random.randBytes(20);
+    HpkeSenderContext sender = HpkeSenderContext.create(privateKey.getPublicKey(), info);
+    HpkeRecipientContext recipient =
+        HpkeRecipientContext.create(privateKey, sender.getEncapsulatedKey(), info);
+
+    List<byte[]> plaintexts = new ArrayList<>();
+    List<byte[]> ciphertexts = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      byte[] plaintext = Random.randBytes(i);
+      plaintexts.add(plaintext);
+      ciphertexts.add(sender.seal(plaintext, new byte[] {(byte) i}));
+    }
+    for (int i = 0; i < 50; i++) {
+      assertThat(recipient.open(ciphertexts.get(i), new byte[] {(byte) i}))
+          .isEqualTo(plaintexts.get(i));
+    }
+  }
+
+  @Test
+  public void sealOpen_nullInfoAndAssociatedData_sameAsEmpty() throws Exception {
+    HpkePrivateKey privateKey = createPrivateKey(HpkeParameters.Variant.NO_PREFIX);
+    HpkeSenderContext sender = HpkeSenderContext.create(privateKey.getPublicKey(), null);
+    HpkeRecipientContext recipient =
+        HpkeRecipientContext.create(privateKey, sender.getEncapsulatedKey(), new byte[0]);
+
+    byte[] plaintext = Random.randBytes(10);
+    byte[] ciphertext = sender.seal(plaintext, null);
+
+    assertThat(recipient.open(ciphertext, new byte[0])).isEqualTo(plaintext);
+  }
+
+  @Test
+  public void firstMessage_canBeDecryptedWithHpkeDecrypt() throws Exception {
+    HpkePrivateKey privateKey = createPrivateKey(HpkeParameters.Variant.NO_PREFIX);
+    byte[] info = Random.randBytes(20);
+    HpkeSenderContext sender = HpkeSenderContext.create(privateKey.getPublicKey(), info);
+    byte[] plaintext = Random.randBytes(10);
+    byte[] ciphertext =
+        com.google.crypto.tink.subtle.Bytes.concat(
+            sender.getEncapsulatedKey(), sender.seal(plaintext, new byte[0]));
+
+    HybridDecrypt hybridDecrypt = HpkeDecrypt.create(privateKey);
+
+    assertThat(hybridDecrypt.decrypt(ciphertext, info)).isEqualTo(plaintext);
+  }
+
+  @Test
+  public void outputPrefix_isIgnored() throws Exception {
+    HpkePrivateKey privateKey = createPrivateKey(HpkeParameters.Variant.TINK);
+    HpkeSenderContext sender = HpkeSenderContext.create(privateKey.getPublicKey(), null);
+    HpkeRecipientContext recipient =
+        HpkeRecipientContext.create(privateKey, sender.getEncapsulatedKey(), null);
+    byte[] plaintext = Random.randBytes(10);
+    byte[] ciphertext = sender.seal(plaintext, null);
+
+    assertThat(ciphertext).hasLength(plaintext.length + 16);
+    assertThat(recipient.open(ciphertext, null)).isEqualTo(plaintext);
+  }
+
+  @Test
+  public void open_outOfOrder_fails() throws Exception {
+    HpkePrivateKey privateKey = createPrivateKey(HpkeParameters.Variant.NO_PREFIX);
+    HpkeSenderContext sender = HpkeSenderContext.create(privateKey.getPublicKey(), null);
+    HpkeRecipientContext recipient =
+        HpkeRecipientContext.create(privateKey, sender.getEncapsulatedKey(), null);
+    byte[] ciphertext0 = sender.seal(Random.randBytes(10), null);
+    byte[] ciphertext1 = sender.seal(Random.randBytes(10), null);
+
+    assertThrows(GeneralSecurityException.class, () -> recipient.open(ciphertext1, null));
+  }
+
+  @Test
+  public void open_failure_doesNotAdvanceContext() throws Exception {
+    HpkePrivateKey privateKey = createPrivateKey(HpkeParameters.Variant.NO_PREFIX);
+    HpkeSenderContext sender = HpkeSenderContext.create(privateKey.getPublicKey(), null);
+    HpkeRecipientContext recipient =
+        HpkeRecipientContext.create(privateKey, sender.getEncapsulatedKey(), null);
+    byte[] plaintext0 = Random.randBytes(10);
+    byte[] plaintext1 = Random.randBytes(10);
+    byte[] ciphertext0 = sender.seal(plaintext0, null);
+    byte[] ciphertext1 = sender.seal(plaintext1, null);
+
+    assertThrows(GeneralSecurityException.class, () -> recipient.open(ciphertext0, new byte[1]));
+    assertThat(recipient.open(ciphertext0, null)).isEqualTo(plaintext0);
+    assertThat(recipient.open(ciphertext1, null)).isEqualTo(plaintext1);
+  }
+
+  @Test
+  public void open_differentInfo_fails() throws Exception {
+    HpkePrivateKey privateKey = createPrivateKey(HpkeParameters.Variant.NO_PREFIX);
+    HpkeSenderContext sender = HpkeSenderContext.create(privateKey.getPublicKey(), new byte[1]);
+    HpkeRecipientContext recipient =
+        HpkeRecipientContext.create(privateKey, sender.getEncapsulatedKey(), new byte[2]);
+    byte[] ciphertext = sender.seal(Random.randBytes(10), null);
+
+    assertThrows(GeneralSecurityException.class, () -> recipient.open(ciphertext, null));
+  }
+
+  @Test
+  public void open_wrongKey_fails() throws Exception {
+    HpkePrivateKey privateKey = createPrivateKey(HpkeParameters.Variant.NO_PREFIX);
+    HpkePrivateKey otherPrivateKey = createPrivateKey(HpkeParameters.Variant.NO_PREFIX);
+    HpkeSenderContext sender = HpkeSenderContext.create(privateKey.getPublicKey(), null);
+    HpkeRecipientContext recipient =
+        HpkeRecipientContext.create(otherPrivateKey, sender.getEncapsulatedKey(), null);
+    byte[] ciphertext = sender.seal(Random.randBytes(10), null);
+
+    assertThrows(GeneralSecurityException.class, () -> recipient.open(ciphertext, null));
+  }
+
+  @Test
+  public void createRecipientContext_invalidEncapsulatedKeyLength_throws() throws Exception {
+    HpkePrivateKey privateKey = createPrivateKey(HpkeParameters.Variant.NO_PREFIX);
+
+    assertThrows(
+        GeneralSecurityException.class,
+        () -> HpkeRecipientContext.create(privateKey, new byte[31], null));
+  }
+
+  @Test
+  public void getEncapsulatedKey_returnsCopy() throws Exception {
+    HpkePrivateKey privateKey = createPrivateKey(HpkeParameters.Variant.NO_PREFIX);
+    HpkeSenderContext sender = HpkeSenderContext.create(privateKey.getPublicKey(), null);
+    byte[] encapsulatedKey = sender.getEncapsulatedKey();
+    encapsulatedKey[0] ^= 1;
+
+    assertThat(sender.getEncapsulatedKey()).isNotEqualTo(encapsulatedKey);
+  }
+}
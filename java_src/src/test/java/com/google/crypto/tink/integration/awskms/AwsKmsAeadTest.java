@@ -21,10 +21,16 @@ import static java.util.Arrays.asList;
 import static org.junit.Assert.assertThrows;
 
 import com.amazonaws.services.kms.AWSKMS;
+import com.amazonaws.services.kms.AWSKMSAsync;
 import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.AsyncAead;
 import com.google.crypto.tink.aead.AeadConfig;
+import com.google.crypto.tink.aead.AsyncKmsEnvelopeAead;
+import com.google.crypto.tink.aead.KmsEnvelopeAead;
+import com.google.crypto.tink.aead.PredefinedAeadParameters;
 import com.google.crypto.tink.subtle.Random;
 import java.security.GeneralSecurityException;
+import java.util.concurrent.ExecutionException;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -123,4 +129,72 @@ public class AwsKmsAeadTest {
     Aead aeadWithInvalidArn = new AwsKmsAead(kms, invalidArn);
     assertThat(aeadWithInvalidArn.decrypt(ciphertext, aad)).isEqualTo(message);
   }
+
+  @Test
+  public void asyncAead_encryptDecryptWithKnownKeyArn_success() throws Exception {
+    FakeAwsKms kms = new FakeAwsKms(asList(KEY_ARN, KEY_ARN_DIFFERENT));
+
+    AsyncAead asyncAead = AwsKmsAead.newAsyncAead(kms, KEY_ARN);
+    Aead aead = new AwsKmsAead(kms, KEY_ARN);
+    byte[] aad = Random.randBytes(20);
+    byte[] message = Random.randBytes(42);
+    byte[] ciphertext = asyncAead.encryptAsync(message, aad).get();
+    assertThat(asyncAead.decryptAsync(ciphertext, aad).get()).isEqualTo(message);
+    assertThat(aead.decrypt(ciphertext, aad)).isEqualTo(message);
+    assertThat(asyncAead.decryptAsync(aead.encrypt(message, aad), aad).get()).isEqualTo(message);
+  }
+
+  @Test
+  public void asyncAead_encryptWithUnknownKeyArn_fails() throws Exception {
+    AWSKMSAsync kmsThatDoentKnowKeyArn = new FakeAwsKms(asList(KEY_ARN_DIFFERENT));
+
+    AsyncAead asyncAead = AwsKmsAead.newAsyncAead(kmsThatDoentKnowKeyArn, KEY_ARN);
+    byte[] aad = Random.randBytes(20);
+    byte[] message = Random.randBytes(20);
+    ExecutionException e =
+        assertThrows(ExecutionException.class, () -> asyncAead.encryptAsync(message, aad).get());
+    assertThat(e).hasCauseThat().isInstanceOf(GeneralSecurityException.class);
+  }
+
+  @Test
+  public void asyncAead_decryptWithDifferentKeyArn_fails() throws Exception {
+    AWSKMSAsync kms = new FakeAwsKms(asList(KEY_ARN, KEY_ARN_DIFFERENT));
+
+    AsyncAead asyncAead = AwsKmsAead.newAsyncAead(kms, KEY_ARN);
+    byte[] aad = Random.randBytes(20);
+    byte[] message = Random.randBytes(20);
+    byte[] ciphertextFromDifferentArn =
+        AwsKmsAead.newAsyncAead(kms, KEY_ARN_DIFFERENT).encryptAsync(message, aad).get();
+
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class,
+            () -> asyncAead.decryptAsync(ciphertextFromDifferentArn, aad).get());
+    assertThat(e).hasCauseThat().isInstanceOf(GeneralSecurityException.class);
+  }
+
+  @Test
+  public void asyncKmsEnvelopeAead_compatibleWithKmsEnvelopeAead() throws Exception {
+    FakeAwsKms kms = new FakeAwsKms(asList(KEY_ARN));
+
+    AsyncAead asyncEnvelopeAead =
+        AsyncKmsEnvelopeAead.create(
+            PredefinedAeadParameters.AES256_GCM, AwsKmsAead.newAsyncAead(kms, KEY_ARN));
+    Aead envelopeAead =
+        KmsEnvelopeAead.create(PredefinedAeadParameters.AES256_GCM, new AwsKmsAead(kms, KEY_ARN));
+    byte[] aad = Random.randBytes(20);
+    byte[] message = Random.randBytes(100);
+
+    byte[] ciphertext = asyncEnvelopeAead.encryptAsync(message, aad).get();
+    assertThat(asyncEnvelopeAead.decryptAsync(ciphertext, aad).get()).isEqualTo(message);
+    assertThat(envelopeAead.decrypt(ciphertext, aad)).isEqualTo(message);
+    assertThat(asyncEnvelopeAead.decryptAsync(envelopeAead.encrypt(message, aad), aad).get())
+        .isEqualTo(message);
+
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class,
+            () -> asyncEnvelopeAead.decryptAsync(ciphertext, Random.randBytes(20)).get());
+    assertThat(e).hasCauseThat().isInstanceOf(GeneralSecurityException.class);
+  }
 }
@@ -32,6 +32,7 @@ import com.google.cloud.kms.v1.KeyManagementServiceClient;
 import com.google.cloud.kms.v1.KeyManagementServiceGrpc.KeyManagementServiceImplBase;
 import com.google.cloud.kms.v1.KeyManagementServiceSettings;
 import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.AsyncAead;
 import com.google.crypto.tink.KeysetHandle;
 import com.google.crypto.tink.aead.AeadConfig;
 import com.google.crypto.tink.aead.PredefinedAeadParameters;
@@ -42,6 +43,10 @@ import io.grpc.inprocess.InProcessServerBuilder;
 import io.grpc.stub.StreamObserver;
 import io.grpc.testing.GrpcCleanupRule;
 import java.security.GeneralSecurityException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -98,6 +103,7 @@ public final class GcpKmsAeadTest {
   }
 
   private KeyManagementServiceClient kmsClient;
+  private ExecutorService executor;
 
   /** This rule manages automatic graceful shutdown for the registered servers and channels. */
   @Rule public final GrpcCleanupRule grpcCleanup = new GrpcCleanupRule();
@@ -126,6 +132,12 @@ public final class GcpKmsAeadTest {
                     GrpcTransportChannel.newBuilder().setManagedChannel(channel).build()))
             .build();
     kmsClient = KeyManagementServiceClient.create(kmsSettings);
+    executor = Executors.newFixedThreadPool(2);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    executor.shutdown();
   }
 
   @Test
@@ -302,4 +314,73 @@ public final class GcpKmsAeadTest {
     assertThrows(
         GeneralSecurityException.class, () -> kmsAead.decrypt(ciphertext2, associatedData));
   }
+
+  @Test
+  public void asyncKmsAeadGrpc_works() throws Exception {
+    String keyName = "projects/cloudkms-test/locations/global/keyRings/TinkKmsLib/cryptoKeys/key1";
+    AsyncAead asyncAead =
+        GcpKmsAead.builder()
+            .setKeyName(keyName)
+            .setKeyManagementServiceClient(kmsClient)
+            .buildAsync();
+    Aead kmsAead =
+        GcpKmsAead.builder().setKeyName(keyName).setKeyManagementServiceClient(kmsClient).build();
+
+    byte[] plaintext = "plaintext".getBytes(UTF_8);
+    byte[] associatedData = "associatedData".getBytes(UTF_8);
+    byte[] associatedData2 = "associatedData2".getBytes(UTF_8);
+    byte[] ciphertext = asyncAead.encryptAsync(plaintext, associatedData).get();
+
+    assertThat(asyncAead.decryptAsync(ciphertext, associatedData).get()).isEqualTo(plaintext);
+    assertThat(kmsAead.decrypt(ciphertext, associatedData)).isEqualTo(plaintext);
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class,
+            () -> asyncAead.decryptAsync(ciphertext, associatedData2).get());
+    assertThat(e).hasCauseThat().isInstanceOf(GeneralSecurityException.class);
+  }
+
+  @Test
+  public void asyncKmsAead_withCloudKmsAndExecutor_works() throws Exception {
+    String keyName = "projects/tink-test/locations/global/keyRings/unit-test/cryptoKeys/aead-key";
+    String keyName2 = "projects/tink-test/locations/global/keyRings/unit-test/cryptoKeys/aead-key2";
+    FakeCloudKms fakeKms = new FakeCloudKms(asList(keyName, keyName2));
+
+    AsyncAead asyncAead =
+        GcpKmsAead.builder()
+            .setKeyName(keyName)
+            .setCloudKms(fakeKms)
+            .setExecutor(executor)
+            .buildAsync();
+    AsyncAead asyncAead2 =
+        GcpKmsAead.builder()
+            .setKeyName(keyName2)
+            .setCloudKms(fakeKms)
+            .setExecutor(executor)
+            .buildAsync();
+    Aead kmsAead = new GcpKmsAead(fakeKms, keyName);
+
+    byte[] plaintext = "plaintext".getBytes(UTF_8);
+    byte[] associatedData = "associatedData".getBytes(UTF_8);
+    byte[] ciphertext = asyncAead.encryptAsync(plaintext, associatedData).get();
+
+    assertThat(asyncAead.decryptAsync(ciphertext, associatedData).get()).isEqualTo(plaintext);
+    assertThat(kmsAead.decrypt(ciphertext, associatedData)).isEqualTo(plaintext);
+    byte[] ciphertext2 = kmsAead.encrypt(plaintext, associatedData);
+    assertThat(asyncAead.decryptAsync(ciphertext2, associatedData).get()).isEqualTo(plaintext);
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class,
+            () -> asyncAead2.decryptAsync(ciphertext, associatedData).get());
+    assertThat(e).hasCauseThat().isInstanceOf(GeneralSecurityException.class);
+  }
+
+  @Test
+  public void asyncKmsAead_withCloudKmsWithoutExecutor_fails() throws Exception {
+    String keyName = "projects/tink-test/locations/global/keyRings/unit-test/cryptoKeys/aead-key";
+    FakeCloudKms fakeKms = new FakeCloudKms(asList(keyName));
+    assertThrows(
+        GeneralSecurityException.class,
+        () -> GcpKmsAead.builder().setKeyName(keyName).setCloudKms(fakeKms).buildAsync());
+  }
 }
@@ -21,10 +21,18 @@ import static java.util.Arrays.asList;
 import static org.junit.Assert.assertThrows;
 
 import com.google.crypto.tink.Aead;
+import com.google.crypto.tink.AsyncAead;
 import com.google.crypto.tink.aead.AeadConfig;
+import com.google.crypto.tink.aead.AsyncKmsEnvelopeAead;
+import com.google.crypto.tink.aead.KmsEnvelopeAead;
+import com.google.crypto.tink.aead.PredefinedAeadParameters;
 import com.google.crypto.tink.subtle.Random;
 import io.github.jopenlibs.vault.api.Logical;
 import java.security.GeneralSecurityException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -37,9 +45,17 @@ public class HcVaultAeadTest {
   private static final String KEY_PATH_2 = "transit/keys/key-2";
   private static final String INVALID_KEY_PATH = "invalid-path";
 
+  private static ExecutorService executor;
+
   @BeforeClass
   public static void setUpClass() throws Exception {
     AeadConfig.register();
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterClass
+  public static void tearDownClass() throws Exception {
+    executor.shutdown();
   }
 
   @Test
@@ -78,6 +94,68 @@ public class HcVaultAeadTest {
     assertThrows(GeneralSecurityException.class, () -> aead.decrypt(ciphertext2, aad));
   }
 
+  @Test
+  public void asyncAead_encryptDecrypt_success() throws Exception {
+    Logical kms =
+        new FakeHcVault(/* mountPath= */ "transit", /* validKeyNames= */ asList("key-1", "key-2"));
+
+    AsyncAead asyncAead = HcVaultAead.newAsyncAead(KEY_PATH, kms, executor);
+    Aead aead = HcVaultAead.newAead(KEY_PATH, kms);
+    byte[] aad = Random.randBytes(20);
+    byte[] message = "testencrypt4".getBytes();
+    byte[] ciphertext = asyncAead.encryptAsync(message, aad).get();
+    assertThat(asyncAead.decryptAsync(ciphertext, aad).get()).isEqualTo(message);
+    assertThat(aead.decrypt(ciphertext, aad)).isEqualTo(message);
+    assertThat(asyncAead.decryptAsync(aead.encrypt(message, aad), aad).get()).isEqualTo(message);
+  }
+
+  @Test
+  public void asyncAead_decryptWithDifferentKey_fails() throws Exception {
+    Logical kms =
+        new FakeHcVault(/* mountPath= */ "transit", /* validKeyNames= */ asList("key-1", "key-2"));
+
+    AsyncAead asyncAead = HcVaultAead.newAsyncAead(KEY_PATH, kms, executor);
+    AsyncAead asyncAead2 = HcVaultAead.newAsyncAead(KEY_PATH_2, kms, executor);
+    byte[] aad = Random.randBytes(20);
+    byte[] ciphertext2 = asyncAead2.encryptAsync("testencrypt5".getBytes(), aad).get();
+
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class, () -> asyncAead.decryptAsync(ciphertext2, aad).get());
+    assertThat(e).hasCauseThat().isInstanceOf(GeneralSecurityException.class);
+  }
+
+  @Test
+  public void asyncAead_newWithInvalidKey_fails() throws Exception {
+    Logical kms =
+        new FakeHcVault(/* mountPath= */ "transit", /* validKeyNames= */ asList("key-1", "key-2"));
+    assertThrows(
+        GeneralSecurityException.class,
+        () -> HcVaultAead.newAsyncAead(INVALID_KEY_PATH, kms, executor));
+  }
+
+  @Test
+  public void asyncKmsEnvelopeAead_compatibleWithKmsEnvelopeAead() throws Exception {
+    Logical kms =
+        new FakeHcVault(/* mountPath= */ "transit", /* validKeyNames= */ asList("key-1", "key-2"));
+
+    AsyncAead asyncEnvelopeAead =
+        AsyncKmsEnvelopeAead.create(
+            PredefinedAeadParameters.AES128_GCM,
+            HcVaultAead.newAsyncAead(KEY_PATH, kms, executor));
+    Aead envelopeAead =
+        KmsEnvelopeAead.create(
+            PredefinedAeadParameters.AES128_GCM, HcVaultAead.newAead(KEY_PATH, kms));
+    byte[] aad = Random.randBytes(20);
+    byte[] message = Random.randBytes(100);
+
+    byte[] ciphertext = asyncEnvelopeAead.encryptAsync(message, aad).get();
+    assertThat(asyncEnvelopeAead.decryptAsync(ciphertext, aad).get()).isEqualTo(message);
+    assertThat(envelopeAead.decrypt(ciphertext, aad)).isEqualTo(message);
+    assertThat(asyncEnvelopeAead.decryptAsync(envelopeAead.encrypt(message, aad), aad).get())
+        .isEqualTo(message);
+  }
+
   @Test
   public void getOperationEndpoint_valid() throws Exception {
     assertThat(HcVaultAead.getOperationEndpoint("transit/keys/key-1", "encrypt"))
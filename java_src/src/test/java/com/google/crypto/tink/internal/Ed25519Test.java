@@ -16,12 +16,19 @@
 
 package com.google.crypto.tink.internal;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
+import com.google.crypto.tink.subtle.Bytes;
 import com.google.crypto.tink.subtle.Hex;
 import com.google.crypto.tink.subtle.Random;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -64,4 +71,198 @@ public class Ed25519Test {
     byte[] scalar = Hex.decode("521784c403e6fb32d48e0da85969a82f5952856bde4471a42b3fa56fd8b96c0d");
     Object unused = Ed25519.scalarMultWithBaseToBytes(scalar);
   }
+
+  @Test
+  public void testVerifyWithPrecomputedPublicKey() throws Exception {
+    byte[] hashedPrivateKey = Ed25519.getHashedScalar(Random.randBytes(Field25519.FIELD_LEN));
+    byte[] publicKey = Ed25519.scalarMultWithBaseToBytes(hashedPrivateKey);
+    Ed25519.PrecomputedPublicKey precomputedPublicKey = Ed25519.precomputePublicKey(publicKey);
+    for (int i = 0; i < 64; i++) {
+      byte[] msg = Random.randBytes(i);
+      byte[] sig = Ed25519.sign(msg, publicKey, hashedPrivateKey);
+      assertTrue(Ed25519.verify(msg, sig, precomputedPublicKey));
+      sig[i] = (byte) (sig[i] ^ 1);
+      assertFalse(Ed25519.verify(msg, sig, precomputedPublicKey));
+      assertFalse(Ed25519.verify(msg, sig, publicKey));
+    }
+  }
+
+  @Test
+  public void testPrecomputePublicKey_isNotAffectedByLaterModifications() throws Exception {
+    byte[] hashedPrivateKey = Ed25519.getHashedScalar(Random.randBytes(Field25519.FIELD_LEN));
+    byte[] publicKey = Ed25519.scalarMultWithBaseToBytes(hashedPrivateKey);
+    Ed25519.PrecomputedPublicKey precomputedPublicKey = Ed25519.precomputePublicKey(publicKey);
+    byte[] msg = Random.randBytes(20);
+    byte[] sig = Ed25519.sign(msg, publicKey, hashedPrivateKey);
+    publicKey[0] = (byte) (publicKey[0] ^ 1);
+    assertTrue(Ed25519.verify(msg, sig, precomputedPublicKey));
+  }
+
+  @Test
+  public void testPrecomputePublicKey_invalidKey_throws() throws Exception {
+    assertThrows(
+        GeneralSecurityException.class,
+        () -> Ed25519.precomputePublicKey(new byte[Field25519.FIELD_LEN - 1]));
+    // y = 2 is not the y-coordinate of a point on the curve.
+    byte[] notOnCurve = new byte[Field25519.FIELD_LEN];
+    notOnCurve[0] = 2;
+    assertThrows(GeneralSecurityException.class, () -> Ed25519.precomputePublicKey(notOnCurve));
+  }
+
+  @Test
+  public void testVerifyBatch() throws Exception {
+    int numKeys = 3;
+    byte[][] hashedPrivateKeys = new byte[numKeys][];
+    byte[][] publicKeys = new byte[numKeys][];
+    Ed25519.PrecomputedPublicKey[] precomputedPublicKeys =
+        new Ed25519.PrecomputedPublicKey[numKeys];
+    for (int k = 0; k < numKeys; k++) {
+      hashedPrivateKeys[k] = Ed25519.getHashedScalar(Random.randBytes(Field25519.FIELD_LEN));
+      publicKeys[k] = Ed25519.scalarMultWithBaseToBytes(hashedPrivateKeys[k]);
+      precomputedPublicKeys[k] = Ed25519.precomputePublicKey(publicKeys[k]);
+    }
+    // Sizes below and above the size from which the batch equation is used.
+    for (int n : new int[] {0, 1, 3, 4, 5, 17, 64}) {
+      byte[][] msgs = new byte[n][];
+      byte[][] sigs = new byte[n][];
+      Ed25519.PrecomputedPublicKey[] keys = new Ed25519.PrecomputedPublicKey[n];
+      boolean[] expected = new boolean[n];
+      for (int i = 0; i < n; i++) {
+        int k = i % numKeys;
+        msgs[i] = Random.randBytes(i);
+        sigs[i] = Ed25519.sign(msgs[i], publicKeys[k], hashedPrivateKeys[k]);
+        keys[i] = precomputedPublicKeys[k];
+        expected[i] = true;
+      }
+      assertThat(Ed25519.verifyBatch(msgs, sigs, keys)).isEqualTo(expected);
+
+      if (n > 0) {
+        sigs[n / 2][n % Ed25519.SIGNATURE_LEN] ^= 1;
+        expected[n / 2] = false;
+        sigs[n - 1] = Arrays.copyOf(sigs[n - 1], Ed25519.SIGNATURE_LEN - 1);
+        expected[n - 1] = false;
+        assertThat(Ed25519.verifyBatch(msgs, sigs, keys)).isEqualTo(expected);
+      }
+    }
+  }
+
+  @Test
+  public void testVerifyBatch_nonCanonicalR_isRejected() throws Exception {
+    byte[] hashedPrivateKey = Ed25519.getHashedScalar(Random.randBytes(Field25519.FIELD_LEN));
+    byte[] publicKey = Ed25519.scalarMultWithBaseToBytes(hashedPrivateKey);
+    Ed25519.PrecomputedPublicKey precomputedPublicKey = Ed25519.precomputePublicKey(publicKey);
+    int n = 8;
+    byte[][] msgs = new byte[n][];
+    byte[][] sigs = new byte[n][];
+    Ed25519.PrecomputedPublicKey[] keys = new Ed25519.PrecomputedPublicKey[n];
+    for (int i = 0; i < n; i++) {
+      msgs[i] = Random.randBytes(10);
+      sigs[i] = Ed25519.sign(msgs[i], publicKey, hashedPrivateKey);
+      keys[i] = precomputedPublicKey;
+    }
+    // y = 2^255 - 18 is a non-canonical encoding of y = 1.
+    sigs[3] = Arrays.copyOf(sigs[3], Ed25519.SIGNATURE_LEN);
+    sigs[3][0] = (byte) 0xee;
+    for (int i = 1; i < 31; i++) {
+      sigs[3][i] = (byte) 0xff;
+    }
+    sigs[3][31] = (byte) 0x7f;
+
+    boolean[] result = Ed25519.verifyBatch(msgs, sigs, keys);
+    assertFalse(result[3]);
+    assertTrue(result[4]);
+  }
+
+  private static final BigInteger FIELD_PRIME =
+      BigInteger.ONE.shiftLeft(255).subtract(BigInteger.valueOf(19));
+  private static final BigInteger GROUP_ORDER =
+      BigInteger.ONE.shiftLeft(252).add(new BigInteger("27742317777372353535851937790883648493"));
+
+  private static BigInteger fromLittleEndian(byte[] bytes) {
+    byte[] bigEndian = new byte[bytes.length];
+    for (int i = 0; i < bytes.length; i++) {
+      bigEndian[i] = bytes[bytes.length - 1 - i];
+    }
+    return new BigInteger(1, bigEndian);
+  }
+
+  private static byte[] toLittleEndian(BigInteger value) {
+    byte[] result = new byte[Field25519.FIELD_LEN];
+    byte[] bigEndian = value.toByteArray();
+    for (int i = 0; i < bigEndian.length && i < result.length; i++) {
+      result[i] = bigEndian[bigEndian.length - 1 - i];
+    }
+    return result;
+  }
+
+  /**
+   * Signs {@code message} with a nonce point R + T, where T = (0, -1) is the point of order 2. The
+   * signature satisfies the cofactored verification equation, but not the cofactorless one.
+   */
+  private static byte[] signWithTorsionedR(
+      byte[] message, byte[] publicKey, byte[] hashedPrivateKey) throws Exception {
+    BigInteger r = new BigInteger(1, Random.randBytes(64)).mod(GROUP_ORDER);
+    byte[] torsionedR = Ed25519.scalarMultWithBaseToBytes(toLittleEndian(r));
+    // (x, y) + (0, -1) = (-x, -y).
+    boolean xIsNegative = (torsionedR[31] & 0x80) != 0;
+    torsionedR[31] &= 0x7f;
+    torsionedR = toLittleEndian(FIELD_PRIME.subtract(fromLittleEndian(torsionedR)));
+    if (!xIsNegative) {
+      torsionedR[31] |= (byte) 0x80;
+    }
+    MessageDigest digest = MessageDigest.getInstance("SHA-512");
+    digest.update(torsionedR);
+    digest.update(publicKey);
+    digest.update(message);
+    BigInteger h = fromLittleEndian(digest.digest()).mod(GROUP_ORDER);
+    BigInteger a = fromLittleEndian(Arrays.copyOf(hashedPrivateKey, Field25519.FIELD_LEN));
+    byte[] s = toLittleEndian(r.add(h.multiply(a)).mod(GROUP_ORDER));
+    return Bytes.concat(torsionedR, s);
+  }
+
+  @Test
+  public void testVerifyCofactored_torsionedR_onlyAcceptedByCofactoredVerify() throws Exception {
+    byte[] hashedPrivateKey = Ed25519.getHashedScalar(Random.randBytes(Field25519.FIELD_LEN));
+    byte[] publicKey = Ed25519.scalarMultWithBaseToBytes(hashedPrivateKey);
+    Ed25519.PrecomputedPublicKey precomputedPublicKey = Ed25519.precomputePublicKey(publicKey);
+    byte[] message = Random.randBytes(20);
+
+    byte[] signature = signWithTorsionedR(message, publicKey, hashedPrivateKey);
+
+    assertFalse(Ed25519.verify(message, signature, precomputedPublicKey));
+    assertTrue(Ed25519.verifyCofactored(message, signature, precomputedPublicKey));
+    byte[] validSignature = Ed25519.sign(message, publicKey, hashedPrivateKey);
+    assertTrue(Ed25519.verifyCofactored(message, validSignature, precomputedPublicKey));
+    validSignature[40] ^= 1;
+    assertFalse(Ed25519.verifyCofactored(message, validSignature, precomputedPublicKey));
+  }
+
+  @Test
+  public void testVerifyBatch_torsionedR_sameResultAsVerifyCofactored() throws Exception {
+    byte[] hashedPrivateKey = Ed25519.getHashedScalar(Random.randBytes(Field25519.FIELD_LEN));
+    byte[] publicKey = Ed25519.scalarMultWithBaseToBytes(hashedPrivateKey);
+    Ed25519.PrecomputedPublicKey precomputedPublicKey = Ed25519.precomputePublicKey(publicKey);
+    // The batch equation uses fresh random scalars on each call. Without the cofactor, it would
+    // accept the torsioned signature with probability 1/2.
+    for (int n : new int[] {1, 8}) {
+      for (int repetition = 0; repetition < 16; repetition++) {
+        byte[][] msgs = new byte[n][];
+        byte[][] sigs = new byte[n][];
+        Ed25519.PrecomputedPublicKey[] keys = new Ed25519.PrecomputedPublicKey[n];
+        for (int i = 0; i < n; i++) {
+          msgs[i] = Random.randBytes(10);
+          sigs[i] = Ed25519.sign(msgs[i], publicKey, hashedPrivateKey);
+          keys[i] = precomputedPublicKey;
+        }
+        sigs[0] = signWithTorsionedR(msgs[0], publicKey, hashedPrivateKey);
+        boolean[] expected = new boolean[n];
+        for (int i = 0; i < n; i++) {
+          expected[i] = Ed25519.verifyCofactored(msgs[i], sigs[i], keys[i]);
+        }
+
+        assertThat(Ed25519.verifyBatch(msgs, sigs, keys)).isEqualTo(expected);
+        assertTrue(expected[0]);
+      }
+    }
+  }
 }
@@ -0,0 +1,81 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class EnginePoolTest {
+  @Test
+  public void acquire_emptyPool_createsNewEngines() throws Exception {
+    AtomicInteger created = new AtomicInteger();
+    EnginePool<Integer> pool = new EnginePool<>(created::incrementAndGet);
+
+    assertThat(pool.acquire()).isEqualTo(1);
+    assertThat(pool.acquire()).isEqualTo(2);
+    assertThat(pool.idleCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void acquire_afterRelease_reusesEngine() throws Exception {
+    AtomicInteger created = new AtomicInteger();
+    EnginePool<Integer> pool = new EnginePool<>(created::incrementAndGet);
+
+    Integer engine = pool.acquire();
+    pool.release(engine);
+    assertThat(pool.idleCount()).isEqualTo(1);
+
+    assertThat(pool.acquire()).isSameInstanceAs(engine);
+    assertThat(created.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void release_fullPool_dropsEngine() throws Exception {
+    AtomicInteger created = new AtomicInteger();
+    EnginePool<Integer> pool = new EnginePool<>(created::incrementAndGet);
+    List<Integer> engines = new ArrayList<>();
+    for (int i = 0; i < EnginePool.MAX_IDLE_ENGINES + 5; i++) {
+      engines.add(pool.acquire());
+    }
+
+    for (Integer engine : engines) {
+      pool.release(engine);
+    }
+
+    assertThat(pool.idleCount()).isEqualTo(EnginePool.MAX_IDLE_ENGINES);
+  }
+
+  @Test
+  public void acquire_factoryThrows_throws() throws Exception {
+    EnginePool<Integer> pool =
+        new EnginePool<>(
+            () -> {
+              throw new GeneralSecurityException("no engine");
+            });
+
+    assertThrows(GeneralSecurityException.class, pool::acquire);
+  }
+}
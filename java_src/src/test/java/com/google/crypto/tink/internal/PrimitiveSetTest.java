@@ -42,6 +42,7 @@ import com.google.crypto.tink.subtle.Hex;
 import com.google.crypto.tink.testing.TestUtil;
 import com.google.crypto.tink.util.SecretBytes;
 import com.google.protobuf.ByteString;
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -202,6 +203,73 @@ public class PrimitiveSetTest {
     assertEquals(2, entry.getKeyId());
   }
 
+  @Test
+  public void getPrimitivesForPrefix_atOffsetAndInBuffer_matchesGetPrimitive() throws Exception {
+    PrimitiveSet.Builder<Mac> builder = PrimitiveSet.newBuilder(Mac.class);
+    List<Key> keys = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      Key key =
+          Key.newBuilder()
+              .setKeyId(i * 0x01010101 + 7)
+              .setStatus(KeyStatusType.ENABLED)
+              .setOutputPrefixType(i % 2 == 0 ? OutputPrefixType.TINK : OutputPrefixType.LEGACY)
+              .build();
+      keys.add(key);
+      builder.addFullPrimitive(new DummyMac1(), getKeyFromProtoKey(key), key);
+    }
+    Key rawKey =
+        Key.newBuilder()
+            .setKeyId(1234)
+            .setStatus(KeyStatusType.ENABLED)
+            .setOutputPrefixType(OutputPrefixType.RAW)
+            .build();
+    builder.addPrimaryFullPrimitive(new DummyMac2(), getKeyFromProtoKey(rawKey), rawKey);
+    PrimitiveSet<Mac> pset = builder.build();
+
+    for (Key key : keys) {
+      byte[] prefix = CryptoFormat.getOutputPrefix(key);
+      byte[] data = new byte[3 + prefix.length + 10];
+      System.arraycopy(prefix, 0, data, 3, prefix.length);
+
+      List<PrimitiveSet.Entry<Mac>> entries = pset.getPrimitivesForPrefix(data, 3);
+      assertThat(entries).hasSize(1);
+      assertThat(entries.get(0).getKeyId()).isEqualTo(key.getKeyId());
+      assertThat(entries).isEqualTo(pset.getPrimitive(prefix));
+
+      ByteBuffer buffer = ByteBuffer.wrap(data);
+      buffer.position(3);
+      assertThat(pset.getPrimitivesForPrefix(buffer)).isEqualTo(entries);
+      assertThat(buffer.position()).isEqualTo(3);
+    }
+
+    assertThat(pset.getPrimitivesForPrefix(Hex.decode("0100000000ff"), 0)).isEmpty();
+    assertThat(pset.getPrimitivesForPrefix(Hex.decode("0100000007ff"), 0)).hasSize(1);
+    assertThat(pset.getPrimitivesForPrefix(Hex.decode("0000000007ff"), 0)).isEmpty();
+    assertThat(pset.getPrimitivesForPrefix(Hex.decode("01000000"), 0)).isEmpty();
+    assertThat(pset.getPrimitivesForPrefix(Hex.decode("0100000007"), 1)).isEmpty();
+    assertThat(pset.getPrimitivesForPrefix(ByteBuffer.wrap(Hex.decode("01000000")))).isEmpty();
+
+    assertThat(pset.getRawPrimitives()).hasSize(1);
+    assertThat(pset.getRawPrimitives().get(0).getKeyId()).isEqualTo(1234);
+  }
+
+  @Test
+  public void getPrimitivesForPrefix_withoutNonRawKeys_returnsEmptyList() throws Exception {
+    Key rawKey =
+        Key.newBuilder()
+            .setKeyId(1234)
+            .setStatus(KeyStatusType.ENABLED)
+            .setOutputPrefixType(OutputPrefixType.RAW)
+            .build();
+    PrimitiveSet<Mac> pset =
+        PrimitiveSet.newBuilder(Mac.class)
+            .addPrimaryFullPrimitive(new DummyMac1(), getKeyFromProtoKey(rawKey), rawKey)
+            .build();
+
+    assertThat(pset.getPrimitivesForPrefix(Hex.decode("01000004d2"), 0)).isEmpty();
+    assertThat(pset.getRawPrimitives()).hasSize(1);
+  }
+
   @Test
   public void testAddFullPrimitive_works() throws Exception {
     Key key1 =
@@ -716,4 +784,45 @@ public class PrimitiveSetTest {
     assertThat(entries.get(1).getOutputPrefixType()).isEqualTo(OutputPrefixType.RAW);
     assertThat(entries.get(2).getOutputPrefixType()).isEqualTo(OutputPrefixType.LEGACY);
   }
+
+  @Test
+  public void addLazyFullPrimitive_keyCannotBeParsed_getFullPrimitiveOrThrowThrows()
+      throws Exception {
+    Key validKey =
+        Key.newBuilder()
+            .setKeyId(1)
+            .setStatus(KeyStatusType.ENABLED)
+            .setOutputPrefixType(OutputPrefixType.TINK)
+            .build();
+    Key invalidKey =
+        Key.newBuilder()
+            .setKeyId(2)
+            .setStatus(KeyStatusType.ENABLED)
+            .setOutputPrefixType(OutputPrefixType.TINK)
+            .build();
+    PrimitiveSet<Mac> pset =
+        PrimitiveSet.newBuilder(Mac.class)
+            .addPrimaryFullPrimitive(new DummyMac1(), getKeyFromProtoKey(validKey), validKey)
+            .addLazyFullPrimitive(
+                new PrimitiveSet.LazyFullPrimitive<Mac>() {
+                  @Override
+                  public com.google.crypto.tink.Key getKey() throws GeneralSecurityException {
+                    throw new GeneralSecurityException("cannot parse key");
+                  }
+
+                  @Override
+                  public Mac createFullPrimitive(com.google.crypto.tink.Key key) {
+                    return new DummyMac2();
+                  }
+                },
+                invalidKey)
+            .build();
+
+    PrimitiveSet.Entry<Mac> entry =
+        pset.getPrimitive(CryptoFormat.getOutputPrefix(invalidKey)).get(0);
+    assertThrows(GeneralSecurityException.class, entry::getFullPrimitiveOrThrow);
+    assertThrows(GeneralSecurityException.class, entry::getKeyOrThrow);
+    assertThrows(IllegalStateException.class, entry::getFullPrimitive);
+    assertThrows(IllegalStateException.class, entry::getKey);
+  }
 }
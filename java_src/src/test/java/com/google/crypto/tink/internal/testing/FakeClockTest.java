@@ -0,0 +1,57 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.internal.testing;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class FakeClockTest {
+
+  private static final Instant START = Instant.ofEpochSecond(1234567);
+
+  @Test
+  public void instant_onlyChangesOnAdvance() throws Exception {
+    FakeClock clock = new FakeClock(START);
+    assertThat(clock.instant()).isEqualTo(START);
+    assertThat(clock.getZone()).isEqualTo(ZoneOffset.UTC);
+
+    clock.advance(Duration.ofSeconds(5));
+    assertThat(clock.instant()).isEqualTo(START.plusSeconds(5));
+    assertThat(clock.millis()).isEqualTo(START.plusSeconds(5).toEpochMilli());
+  }
+
+  @Test
+  public void withZone_sharesInstant() throws Exception {
+    FakeClock clock = new FakeClock(START);
+    ZoneId zone = ZoneId.of("Europe/Zurich");
+    Clock zonedClock = clock.withZone(zone);
+    assertThat(zonedClock.getZone()).isEqualTo(zone);
+    assertThat(clock.withZone(ZoneOffset.UTC)).isSameInstanceAs(clock);
+
+    clock.advance(Duration.ofMinutes(1));
+    assertThat(zonedClock.instant()).isEqualTo(START.plusSeconds(60));
+  }
+}
@@ -27,6 +27,7 @@ import com.google.crypto.tink.KeysetManager;
 import com.google.crypto.tink.TinkProtoKeysetFormat;
 import com.google.crypto.tink.proto.Keyset;
 import com.google.crypto.tink.proto.OutputPrefixType;
+import com.google.crypto.tink.util.SecretBytes;
 import com.google.protobuf.ExtensionRegistryLite;
 import java.security.GeneralSecurityException;
 import java.time.Clock;
@@ -171,6 +172,147 @@ public class JwtMacWrapperTest {
         () -> oldJwtMac.verifyMacAndDecode(newSignedCompact, validator));
   }
 
+  private static JwtHmacKey createHmacKey(
+      JwtHmacParameters.KidStrategy kidStrategy, SecretBytes keyBytes, String customKid)
+      throws GeneralSecurityException {
+    JwtHmacParameters parameters =
+        JwtHmacParameters.builder()
+            .setKeySizeBytes(32)
+            .setKidStrategy(kidStrategy)
+            .setAlgorithm(JwtHmacParameters.Algorithm.HS256)
+            .build();
+    JwtHmacKey.Builder builder =
+        JwtHmacKey.builder().setParameters(parameters).setKeyBytes(keyBytes);
+    if (customKid != null) {
+      builder.setCustomKid(customKid);
+    }
+    return builder.build();
+  }
+
+  @Test
+  public void verifyMacAndDecode_manyKeys_eachKeyVerifies() throws Exception {
+    KeysetHandle.Builder builder = KeysetHandle.newBuilder();
+    for (int i = 0; i < 10; i++) {
+      builder.addEntry(KeysetHandle.generateEntryFromParametersName("JWT_HS256").withFixedId(i));
+    }
+    builder.addEntry(
+        KeysetHandle.generateEntryFromParametersName("JWT_HS256_RAW").withFixedId(10));
+    builder.addEntry(
+        KeysetHandle.importKey(
+                createHmacKey(
+                    JwtHmacParameters.KidStrategy.CUSTOM, SecretBytes.randomBytes(32), "custom"))
+            .withFixedId(11));
+    builder.getAt(0).makePrimary();
+    KeysetHandle handle = builder.build();
+    JwtMac jwtMac = handle.getPrimitive(JwtMac.class);
+    RawJwt rawJwt = RawJwt.newBuilder().setJwtId("jwtId").withoutExpiration().build();
+    JwtValidator validator = JwtValidator.newBuilder().allowMissingExpiration().build();
+
+    for (int i = 0; i < handle.size(); i++) {
+      KeysetHandle singleKeyHandle =
+          KeysetHandle.newBuilder()
+              .addEntry(
+                  KeysetHandle.importKey(handle.getAt(i).getKey())
+                      .withFixedId(handle.getAt(i).getId())
+                      .makePrimary())
+              .build();
+      String compact = singleKeyHandle.getPrimitive(JwtMac.class).computeMacAndEncode(rawJwt);
+      assertThat(jwtMac.verifyMacAndDecode(compact, validator).getJwtId()).isEqualTo("jwtId");
+    }
+  }
+
+  @Test
+  public void verifyMacAndDecode_kidOfOtherKey_throws() throws Exception {
+    SecretBytes keyBytes1 = SecretBytes.randomBytes(32);
+    SecretBytes keyBytes2 = SecretBytes.randomBytes(32);
+    KeysetHandle handle =
+        KeysetHandle.newBuilder()
+            .addEntry(
+                KeysetHandle.importKey(
+                        createHmacKey(JwtHmacParameters.KidStrategy.CUSTOM, keyBytes1, "kid1"))
+                    .withFixedId(1)
+                    .makePrimary())
+            .addEntry(
+                KeysetHandle.importKey(
+                        createHmacKey(JwtHmacParameters.KidStrategy.CUSTOM, keyBytes2, "kid2"))
+                    .withFixedId(2))
+            .build();
+    JwtMac jwtMac = handle.getPrimitive(JwtMac.class);
+    // A token with the kid of the first key, but a MAC computed with the second key.
+    KeysetHandle otherHandle =
+        KeysetHandle.newBuilder()
+            .addEntry(
+                KeysetHandle.importKey(
+                        createHmacKey(JwtHmacParameters.KidStrategy.CUSTOM, keyBytes2, "kid1"))
+                    .withFixedId(1)
+                    .makePrimary())
+            .build();
+    RawJwt rawJwt = RawJwt.newBuilder().withoutExpiration().build();
+    String compact = otherHandle.getPrimitive(JwtMac.class).computeMacAndEncode(rawJwt);
+    JwtValidator validator = JwtValidator.newBuilder().allowMissingExpiration().build();
+
+    assertThrows(
+        GeneralSecurityException.class, () -> jwtMac.verifyMacAndDecode(compact, validator));
+  }
+
+  @Test
+  public void verifyMacAndDecode_customKidKeyAcceptsTokenWithoutKid() throws Exception {
+    SecretBytes keyBytes = SecretBytes.randomBytes(32);
+    KeysetHandle handle =
+        KeysetHandle.newBuilder()
+            .addEntry(KeysetHandle.generateEntryFromParametersName("JWT_HS256").withFixedId(1))
+            .addEntry(
+                KeysetHandle.importKey(
+                        createHmacKey(JwtHmacParameters.KidStrategy.CUSTOM, keyBytes, "custom"))
+                    .withFixedId(2)
+                    .makePrimary())
+            .build();
+    KeysetHandle handleWithoutKid =
+        KeysetHandle.newBuilder()
+            .addEntry(
+                KeysetHandle.importKey(
+                        createHmacKey(JwtHmacParameters.KidStrategy.IGNORED, keyBytes, null))
+                    .withFixedId(2)
+                    .makePrimary())
+            .build();
+    RawJwt rawJwt = RawJwt.newBuilder().setJwtId("jwtId").withoutExpiration().build();
+    String compact = handleWithoutKid.getPrimitive(JwtMac.class).computeMacAndEncode(rawJwt);
+    JwtValidator validator = JwtValidator.newBuilder().allowMissingExpiration().build();
+
+    assertThat(
+            handle.getPrimitive(JwtMac.class).verifyMacAndDecode(compact, validator).getJwtId())
+        .isEqualTo("jwtId");
+  }
+
+  @Test
+  public void verifyMacAndDecode_keyWithoutKidAcceptsTokenWithUnknownKid() throws Exception {
+    SecretBytes keyBytes = SecretBytes.randomBytes(32);
+    KeysetHandle handle =
+        KeysetHandle.newBuilder()
+            .addEntry(KeysetHandle.generateEntryFromParametersName("JWT_HS256").withFixedId(1))
+            .addEntry(
+                KeysetHandle.importKey(
+                        createHmacKey(JwtHmacParameters.KidStrategy.IGNORED, keyBytes, null))
+                    .withFixedId(2)
+                    .makePrimary())
+            .build();
+    KeysetHandle handleWithKid =
+        KeysetHandle.newBuilder()
+            .addEntry(
+                KeysetHandle.importKey(
+                        createHmacKey(JwtHmacParameters.KidStrategy.CUSTOM, keyBytes, "unknown"))
+                    .withFixedId(2)
+                    .makePrimary())
+            .build();
+    RawJwt rawJwt = RawJwt.newBuilder().setJwtId("jwtId").withoutExpiration().build();
+    String compact = handleWithKid.getPrimitive(JwtMac.class).computeMacAndEncode(rawJwt);
+    JwtValidator validator = JwtValidator.newBuilder().allowMissingExpiration().build();
+
+    assertThat(
+            handle.getPrimitive(JwtMac.class).verifyMacAndDecode(compact, validator).getJwtId())
+        .isEqualTo("jwtId");
+  }
+
   @Test
   public void wrongKey_throwsInvalidSignatureException() throws Exception {
     KeysetHandle keysetHandle = KeysetHandle.generateNew(KeyTemplates.get("JWT_HS256"));
@@ -228,6 +228,147 @@ public class JwtPublicKeySignVerifyWrappersTest {
         () -> oldVerifier.verifyAndDecode(newSignedCompact, validator));
   }
 
+  private static JwtEcdsaPrivateKey generateEcdsaKey() throws GeneralSecurityException {
+    return (JwtEcdsaPrivateKey)
+        KeysetHandle.generateNew(KeyTemplates.get("JWT_ES256_RAW")).getPrimary().getKey();
+  }
+
+  /** Returns a private key with the key material of {@code key}, and the given kid strategy. */
+  private static JwtEcdsaPrivateKey withKidStrategy(
+      JwtEcdsaPrivateKey key, JwtEcdsaParameters.KidStrategy kidStrategy, String customKid)
+      throws GeneralSecurityException {
+    JwtEcdsaParameters parameters =
+        JwtEcdsaParameters.builder()
+            .setKidStrategy(kidStrategy)
+            .setAlgorithm(JwtEcdsaParameters.Algorithm.ES256)
+            .build();
+    JwtEcdsaPublicKey.Builder builder =
+        JwtEcdsaPublicKey.builder()
+            .setParameters(parameters)
+            .setPublicPoint(key.getPublicKey().getPublicPoint());
+    if (customKid != null) {
+      builder.setCustomKid(customKid);
+    }
+    return JwtEcdsaPrivateKey.create(builder.build(), key.getPrivateValue());
+  }
+
+  private static String signWithSingleKey(JwtEcdsaPrivateKey key, RawJwt rawJwt)
+      throws GeneralSecurityException {
+    KeysetHandle handle =
+        KeysetHandle.newBuilder()
+            .addEntry(KeysetHandle.importKey(key).withFixedId(42).makePrimary())
+            .build();
+    return handle.getPrimitive(JwtPublicKeySign.class).signAndEncode(rawJwt);
+  }
+
+  @Test
+  public void verifyAndDecode_manyKeys_eachKeyVerifies() throws Exception {
+    KeysetHandle.Builder builder = KeysetHandle.newBuilder();
+    for (int i = 0; i < 10; i++) {
+      builder.addEntry(KeysetHandle.generateEntryFromParametersName("JWT_ES256").withFixedId(i));
+    }
+    builder.addEntry(
+        KeysetHandle.generateEntryFromParametersName("JWT_ES256_RAW").withFixedId(10));
+    builder.addEntry(
+        KeysetHandle.importKey(
+                withKidStrategy(
+                    generateEcdsaKey(), JwtEcdsaParameters.KidStrategy.CUSTOM, "custom"))
+            .withFixedId(11));
+    builder.getAt(0).makePrimary();
+    KeysetHandle handle = builder.build();
+    JwtPublicKeyVerify verifier =
+        handle.getPublicKeysetHandle().getPrimitive(JwtPublicKeyVerify.class);
+    RawJwt rawJwt = RawJwt.newBuilder().setJwtId("jwtId").withoutExpiration().build();
+    JwtValidator validator = JwtValidator.newBuilder().allowMissingExpiration().build();
+
+    for (int i = 0; i < handle.size(); i++) {
+      KeysetHandle singleKeyHandle =
+          KeysetHandle.newBuilder()
+              .addEntry(
+                  KeysetHandle.importKey(handle.getAt(i).getKey())
+                      .withFixedId(handle.getAt(i).getId())
+                      .makePrimary())
+              .build();
+      String compact = singleKeyHandle.getPrimitive(JwtPublicKeySign.class).signAndEncode(rawJwt);
+      assertThat(verifier.verifyAndDecode(compact, validator).getJwtId()).isEqualTo("jwtId");
+    }
+  }
+
+  @Test
+  public void verifyAndDecode_kidOfOtherKey_throws() throws Exception {
+    JwtEcdsaPrivateKey key1 = generateEcdsaKey();
+    JwtEcdsaPrivateKey key2 = generateEcdsaKey();
+    KeysetHandle handle =
+        KeysetHandle.newBuilder()
+            .addEntry(
+                KeysetHandle.importKey(
+                        withKidStrategy(key1, JwtEcdsaParameters.KidStrategy.CUSTOM, "kid1"))
+                    .withFixedId(1)
+                    .makePrimary())
+            .addEntry(
+                KeysetHandle.importKey(
+                        withKidStrategy(key2, JwtEcdsaParameters.KidStrategy.CUSTOM, "kid2"))
+                    .withFixedId(2))
+            .build();
+    JwtPublicKeyVerify verifier =
+        handle.getPublicKeysetHandle().getPrimitive(JwtPublicKeyVerify.class);
+    // A token with the kid of the first key, but signed with the second key.
+    RawJwt rawJwt = RawJwt.newBuilder().withoutExpiration().build();
+    String compact =
+        signWithSingleKey(
+            withKidStrategy(key2, JwtEcdsaParameters.KidStrategy.CUSTOM, "kid1"), rawJwt);
+    JwtValidator validator = JwtValidator.newBuilder().allowMissingExpiration().build();
+
+    assertThrows(
+        GeneralSecurityException.class, () -> verifier.verifyAndDecode(compact, validator));
+  }
+
+  @Test
+  public void verifyAndDecode_customKidKeyAcceptsTokenWithoutKid() throws Exception {
+    JwtEcdsaPrivateKey key = generateEcdsaKey();
+    KeysetHandle handle =
+        KeysetHandle.newBuilder()
+            .addEntry(KeysetHandle.generateEntryFromParametersName("JWT_ES256").withFixedId(1))
+            .addEntry(
+                KeysetHandle.importKey(
+                        withKidStrategy(key, JwtEcdsaParameters.KidStrategy.CUSTOM, "custom"))
+                    .withFixedId(2)
+                    .makePrimary())
+            .build();
+    RawJwt rawJwt = RawJwt.newBuilder().setJwtId("jwtId").withoutExpiration().build();
+    String compact =
+        signWithSingleKey(
+            withKidStrategy(key, JwtEcdsaParameters.KidStrategy.IGNORED, null), rawJwt);
+    JwtValidator validator = JwtValidator.newBuilder().allowMissingExpiration().build();
+
+    JwtPublicKeyVerify verifier =
+        handle.getPublicKeysetHandle().getPrimitive(JwtPublicKeyVerify.class);
+    assertThat(verifier.verifyAndDecode(compact, validator).getJwtId()).isEqualTo("jwtId");
+  }
+
+  @Test
+  public void verifyAndDecode_keyWithoutKidAcceptsTokenWithUnknownKid() throws Exception {
+    JwtEcdsaPrivateKey key = generateEcdsaKey();
+    KeysetHandle handle =
+        KeysetHandle.newBuilder()
+            .addEntry(KeysetHandle.generateEntryFromParametersName("JWT_ES256").withFixedId(1))
+            .addEntry(
+                KeysetHandle.importKey(
+                        withKidStrategy(key, JwtEcdsaParameters.KidStrategy.IGNORED, null))
+                    .withFixedId(2)
+                    .makePrimary())
+            .build();
+    RawJwt rawJwt = RawJwt.newBuilder().setJwtId("jwtId").withoutExpiration().build();
+    String compact =
+        signWithSingleKey(
+            withKidStrategy(key, JwtEcdsaParameters.KidStrategy.CUSTOM, "unknown"), rawJwt);
+    JwtValidator validator = JwtValidator.newBuilder().allowMissingExpiration().build();
+
+    JwtPublicKeyVerify verifier =
+        handle.getPublicKeysetHandle().getPrimitive(JwtPublicKeyVerify.class);
+    assertThat(verifier.verifyAndDecode(compact, validator).getJwtId()).isEqualTo("jwtId");
+  }
+
   // Note: we use Theory as a parametrized test -- different from what the Theory framework intends.
   @Theory
   public void wrongKey_throwsInvalidSignatureException(
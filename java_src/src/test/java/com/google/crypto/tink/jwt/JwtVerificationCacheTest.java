@@ -0,0 +1,209 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+package com.google.crypto.tink.jwt;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.crypto.tink.KeyTemplates;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.internal.testing.FakeClock;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for JwtVerificationCache. */
+@RunWith(JUnit4.class)
+public class JwtVerificationCacheTest {
+
+  private static final Instant NOW = Instant.ofEpochSecond(1700000000);
+
+  private JwtMac jwtMac;
+
+  @Before
+  public void setUp() throws GeneralSecurityException {
+    JwtMacConfig.register();
+    jwtMac = KeysetHandle.generateNew(KeyTemplates.get("JWT_HS256")).getPrimitive(JwtMac.class);
+  }
+
+  private String createToken(String jwtId) throws GeneralSecurityException {
+    RawJwt rawJwt =
+        RawJwt.newBuilder().setJwtId(jwtId).setExpiration(NOW.plusSeconds(100)).build();
+    return jwtMac.computeMacAndEncode(rawJwt);
+  }
+
+  @Test
+  public void verifySameTokenTwice_secondIsHit() throws Exception {
+    JwtVerificationCache cache = JwtVerificationCache.newBuilder().build();
+    JwtMac cachingMac = cache.wrap(jwtMac);
+    JwtValidator validator = JwtValidator.newBuilder().setClock(new FakeClock(NOW)).build();
+    String compact = createToken("id");
+
+    assertThat(cachingMac.verifyMacAndDecode(compact, validator).getJwtId()).isEqualTo("id");
+    assertThat(cachingMac.verifyMacAndDecode(compact, validator).getJwtId()).isEqualTo("id");
+
+    assertThat(cache.getStats().getHits()).isEqualTo(1);
+    assertThat(cache.getStats().getMisses()).isEqualTo(1);
+    assertThat(cache.getStats().getHitRate()).isEqualTo(0.5);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void differentValidator_isMiss() throws Exception {
+    JwtVerificationCache cache = JwtVerificationCache.newBuilder().build();
+    JwtMac cachingMac = cache.wrap(jwtMac);
+    String compact = createToken("id");
+
+    cachingMac.verifyMacAndDecode(
+        compact, JwtValidator.newBuilder().setClock(new FakeClock(NOW)).build());
+    cachingMac.verifyMacAndDecode(
+        compact, JwtValidator.newBuilder().setClock(new FakeClock(NOW)).build());
+
+    assertThat(cache.getStats().getHits()).isEqualTo(0);
+    assertThat(cache.getStats().getMisses()).isEqualTo(2);
+  }
+
+  @Test
+  public void expiredToken_isNotReturnedFromCache() throws Exception {
+    JwtVerificationCache cache = JwtVerificationCache.newBuilder().build();
+    JwtMac cachingMac = cache.wrap(jwtMac);
+    FakeClock clock = new FakeClock(NOW);
+    JwtValidator validator = JwtValidator.newBuilder().setClock(clock).build();
+    String compact = createToken("id");
+
+    cachingMac.verifyMacAndDecode(compact, validator);
+    clock.advance(Duration.ofSeconds(100));
+
+    assertThrows(
+        JwtInvalidException.class, () -> cachingMac.verifyMacAndDecode(compact, validator));
+    assertThat(cache.getStats().getHits()).isEqualTo(0);
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void notYetValidToken_isNotCached() throws Exception {
+    JwtVerificationCache cache = JwtVerificationCache.newBuilder().build();
+    JwtMac cachingMac = cache.wrap(jwtMac);
+    FakeClock clock = new FakeClock(NOW);
+    JwtValidator validator = JwtValidator.newBuilder().setClock(clock).build();
+    RawJwt rawJwt =
+        RawJwt.newBuilder()
+            .setNotBefore(NOW.plusSeconds(10))
+            .setExpiration(NOW.plusSeconds(100))
+            .build();
+    String compact = jwtMac.computeMacAndEncode(rawJwt);
+
+    assertThrows(
+        JwtInvalidException.class, () -> cachingMac.verifyMacAndDecode(compact, validator));
+    assertThat(cache.size()).isEqualTo(0);
+
+    clock.advance(Duration.ofSeconds(10));
+    cachingMac.verifyMacAndDecode(compact, validator);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void invalidToken_isNotCached() throws Exception {
+    JwtVerificationCache cache = JwtVerificationCache.newBuilder().build();
+    JwtMac otherMac =
+        KeysetHandle.generateNew(KeyTemplates.get("JWT_HS256")).getPrimitive(JwtMac.class);
+    JwtMac cachingMac = cache.wrap(otherMac);
+    JwtValidator validator = JwtValidator.newBuilder().setClock(new FakeClock(NOW)).build();
+    String compact = createToken("id");
+
+    assertThrows(
+        GeneralSecurityException.class, () -> cachingMac.verifyMacAndDecode(compact, validator));
+    assertThrows(
+        GeneralSecurityException.class, () -> cachingMac.verifyMacAndDecode(compact, validator));
+    assertThat(cache.getStats().getMisses()).isEqualTo(2);
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void fullCache_evictsLeastRecentlyUsed() throws Exception {
+    JwtVerificationCache cache = JwtVerificationCache.newBuilder().setMaxSize(2).build();
+    JwtMac cachingMac = cache.wrap(jwtMac);
+    JwtValidator validator = JwtValidator.newBuilder().setClock(new FakeClock(NOW)).build();
+    String compact1 = createToken("id1");
+    String compact2 = createToken("id2");
+    String compact3 = createToken("id3");
+
+    cachingMac.verifyMacAndDecode(compact1, validator);
+    cachingMac.verifyMacAndDecode(compact2, validator);
+    cachingMac.verifyMacAndDecode(compact1, validator);
+    cachingMac.verifyMacAndDecode(compact3, validator);
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getStats().getHits()).isEqualTo(1);
+
+    // compact2 was evicted, compact1 was not.
+    cachingMac.verifyMacAndDecode(compact1, validator);
+    assertThat(cache.getStats().getHits()).isEqualTo(2);
+    cachingMac.verifyMacAndDecode(compact2, validator);
+    assertThat(cache.getStats().getHits()).isEqualTo(2);
+  }
+
+  @Test
+  public void wrapNewKeyset_doesNotUseOldEntries() throws Exception {
+    JwtVerificationCache cache = JwtVerificationCache.newBuilder().build();
+    JwtValidator validator = JwtValidator.newBuilder().setClock(new FakeClock(NOW)).build();
+    String compact = createToken("id");
+    cache.wrap(jwtMac).verifyMacAndDecode(compact, validator);
+
+    JwtMac newMac =
+        cache.wrap(
+            KeysetHandle.generateNew(KeyTemplates.get("JWT_HS256")).getPrimitive(JwtMac.class));
+
+    assertThrows(
+        GeneralSecurityException.class, () -> newMac.verifyMacAndDecode(compact, validator));
+  }
+
+  @Test
+  public void invalidateAll_removesEntries() throws Exception {
+    JwtVerificationCache cache = JwtVerificationCache.newBuilder().build();
+    JwtMac cachingMac = cache.wrap(jwtMac);
+    JwtValidator validator = JwtValidator.newBuilder().setClock(new FakeClock(NOW)).build();
+    String compact = createToken("id");
+    cachingMac.verifyMacAndDecode(compact, validator);
+
+    cache.invalidateAll();
+
+    assertThat(cache.size()).isEqualTo(0);
+    cachingMac.verifyMacAndDecode(compact, validator);
+    assertThat(cache.getStats().getHits()).isEqualTo(0);
+  }
+
+  @Test
+  public void wrapPublicKeyVerify_works() throws Exception {
+    JwtSignatureConfig.register();
+    KeysetHandle privateHandle = KeysetHandle.generateNew(KeyTemplates.get("JWT_ES256"));
+    JwtPublicKeySign signer = privateHandle.getPrimitive(JwtPublicKeySign.class);
+    JwtVerificationCache cache = JwtVerificationCache.newBuilder().build();
+    JwtPublicKeyVerify verifier =
+        cache.wrap(privateHandle.getPublicKeysetHandle().getPrimitive(JwtPublicKeyVerify.class));
+    JwtValidator validator = JwtValidator.newBuilder().setClock(new FakeClock(NOW)).build();
+    String compact =
+        signer.signAndEncode(
+            RawJwt.newBuilder().setJwtId("id").setExpiration(NOW.plusSeconds(100)).build());
+
+    assertThat(verifier.verifyAndDecode(compact, validator).getJwtId()).isEqualTo("id");
+    assertThat(verifier.verifyAndDecode(compact, validator).getJwtId()).isEqualTo("id");
+    assertThat(cache.getStats().getHits()).isEqualTo(1);
+  }
+}
@@ -33,6 +33,7 @@ import com.google.crypto.tink.internal.testing.FakeMonitoringClient;
 import com.google.crypto.tink.mac.HmacParameters.HashType;
 import com.google.crypto.tink.mac.internal.AesCmacProtoSerialization;
 import com.google.crypto.tink.mac.internal.HmacProtoSerialization;
+import com.google.crypto.tink.monitoring.MetricsMonitoringClient;
 import com.google.crypto.tink.monitoring.MonitoringAnnotations;
 import com.google.crypto.tink.proto.KeyData.KeyMaterialType;
 import com.google.crypto.tink.subtle.Hex;
@@ -512,6 +513,51 @@ public class MacWrapperTest {
     assertThat(verifyFailure.getKeysetInfo().getAnnotations()).isEqualTo(annotations);
   }
 
+  @Test
+  public void testWithAnnotation_metricsMonitoringClientRecordsLatencies() throws Exception {
+    MutablePrimitiveRegistry.resetGlobalInstanceTestOnly();
+    MacConfig.register();
+
+    MetricsMonitoringClient metricsClient =
+        MetricsMonitoringClient.newBuilder().setRecordLatency(true).build();
+    MutableMonitoringRegistry.globalInstance().clear();
+    MutableMonitoringRegistry.globalInstance().registerMonitoringClient(metricsClient);
+
+    MonitoringAnnotations annotations =
+        MonitoringAnnotations.newBuilder().add("annotation_name", "annotation_value").build();
+    KeysetHandle keysetHandle =
+        KeysetHandle.newBuilder()
+            .addEntry(KeysetHandle.importKey(tinkKey1).makePrimary())
+            .setMonitoringAnnotations(annotations)
+            .build();
+    Mac mac = keysetHandle.getPrimitive(Mac.class);
+
+    byte[] plaintext = "plaintext".getBytes(UTF_8);
+    byte[] tag = mac.computeMac(plaintext);
+    mac.verifyMac(tag, plaintext);
+    mac.verifyMac(tag, plaintext);
+    assertThrows(GeneralSecurityException.class, () -> mac.verifyMac(tag, new byte[0]));
+
+    List<MetricsMonitoringClient.KeyMetrics> keyMetrics = metricsClient.getKeyMetrics();
+    assertThat(keyMetrics).hasSize(2);
+    for (MetricsMonitoringClient.KeyMetrics metrics : keyMetrics) {
+      long expectedCalls = metrics.getApi().equals("compute") ? 1 : 2;
+      // 5 is tinkKey1's id.
+      assertThat(metrics.getKeyId()).isEqualTo(5);
+      assertThat(metrics.getPrimitive()).isEqualTo("mac");
+      assertThat(metrics.getAnnotations()).isEqualTo(annotations);
+      assertThat(metrics.getNumCalls()).isEqualTo(expectedCalls);
+      assertThat(metrics.getNumBytesAsInput()).isEqualTo(expectedCalls * plaintext.length);
+      assertThat(metrics.getLatency().getCount()).isEqualTo(expectedCalls);
+      assertThat(metrics.getLatency().getMaxNanos()).isGreaterThan(0);
+    }
+    for (MetricsMonitoringClient.FailureMetrics failures : metricsClient.getFailureMetrics()) {
+      long expectedFailures = failures.getApi().equals("verify") ? 1 : 0;
+      assertThat(failures.getNumFailures()).isEqualTo(expectedFailures);
+    }
+    MutableMonitoringRegistry.globalInstance().clear();
+  }
+
   public static class AlwaysFailingMac implements Mac {
 
     AlwaysFailingMac(HmacKey key) {}
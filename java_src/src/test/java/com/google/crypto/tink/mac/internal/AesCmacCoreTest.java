@@ -0,0 +1,101 @@
+// Copyright 2024 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.mac.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.crypto.tink.subtle.Hex;
+import com.google.crypto.tink.subtle.Random;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for AesCmacCore */
+@RunWith(JUnit4.class)
+public class AesCmacCoreTest {
+  // Test vectors from https://tools.ietf.org/html/rfc4493#section-4
+  private static final byte[] KEY = Hex.decode("2b7e151628aed2a6abf7158809cf4f3c");
+  private static final byte[] MESSAGE =
+      Hex.decode(
+          "6bc1bee22e409f96e93d7e117393172a"
+              + "ae2d8a571e03ac9c9eb76fac45af8e51"
+              + "30c81c46a35ce411e5fbc1191a0a52ef"
+              + "f69f2445df4f9b17ad2b417be66c3710");
+
+  @Test
+  public void computeMac_rfc4493TestVectors() throws Exception {
+    AesCmacCore core = AesCmacCore.create(KEY);
+    assertThat(Hex.encode(core.computeMac(new byte[0])))
+        .isEqualTo("bb1d6929e95937287fa37d129b756746");
+    assertThat(Hex.encode(core.computeMac(Arrays.copyOf(MESSAGE, 16))))
+        .isEqualTo("070a16b46b4d4144f79bdd9dd04a287c");
+    assertThat(Hex.encode(core.computeMac(Arrays.copyOf(MESSAGE, 40))))
+        .isEqualTo("dfa66747de9ae63030ca32611497c827");
+    assertThat(Hex.encode(core.computeMac(MESSAGE)))
+        .isEqualTo("51f0bebf7e3b9d92fc49741779363cfe");
+  }
+
+  @Test
+  public void processBlocks_sameAsComputeMac() throws Exception {
+    AesCmacCore core = AesCmacCore.create(Random.randBytes(32));
+    for (int length = 0; length < 100; length++) {
+      byte[] data = Random.randBytes(length);
+      byte[] x = new byte[AesUtil.BLOCK_SIZE];
+      int offset = 0;
+      while (length - offset > AesUtil.BLOCK_SIZE) {
+        core.processBlock(x, data, offset);
+        offset += AesUtil.BLOCK_SIZE;
+      }
+      core.processLastBlock(x, data, offset, length - offset);
+      assertThat(x).isEqualTo(core.computeMac(data));
+    }
+  }
+
+  @Test
+  public void processLastBlock_invalidLength_throws() throws Exception {
+    AesCmacCore core = AesCmacCore.create(KEY);
+    byte[] x = new byte[AesUtil.BLOCK_SIZE];
+    assertThrows(
+        IllegalArgumentException.class, () -> core.processLastBlock(x, new byte[17], 0, 17));
+    assertThrows(
+        IllegalArgumentException.class, () -> core.processLastBlock(x, new byte[16], 0, -1));
+  }
+
+  @Test
+  public void computeMac_concurrentUse_works() throws Exception {
+    AesCmacCore core = AesCmacCore.create(KEY);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<byte[]>> futures = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        futures.add(executor.submit(() -> core.computeMac(MESSAGE)));
+      }
+      for (Future<byte[]> future : futures) {
+        assertThat(Hex.encode(future.get())).isEqualTo("51f0bebf7e3b9d92fc49741779363cfe");
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,235 @@
+// Copyright 2024 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.monitoring;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.crypto.tink.KeyStatus;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class MetricsMonitoringClientTest {
+
+  private static final MonitoringAnnotations ANNOTATIONS =
+      MonitoringAnnotations.newBuilder().add("annotation_name", "annotation_value").build();
+
+  private static MonitoringKeysetInfo keysetInfo(MonitoringAnnotations annotations)
+      throws Exception {
+    return MonitoringKeysetInfo.newBuilder()
+        .setAnnotations(annotations)
+        .addEntry(KeyStatus.ENABLED, 42, "typeUrl42", "TINK")
+        .addEntry(KeyStatus.ENABLED, -7, "typeUrl-7", "TINK")
+        .setPrimaryKeyId(42)
+        .build();
+  }
+
+  private static MetricsMonitoringClient.KeyMetrics getKeyMetrics(
+      MetricsMonitoringClient client, String api, int keyId) {
+    for (MetricsMonitoringClient.KeyMetrics metrics : client.getKeyMetrics()) {
+      if (metrics.getApi().equals(api) && metrics.getKeyId() == keyId) {
+        return metrics;
+      }
+    }
+    throw new AssertionError("no metrics for api " + api + " and key " + keyId);
+  }
+
+  @Test
+  public void logWithLatency_recordsCallsBytesAndLatency() throws Exception {
+    MetricsMonitoringClient client =
+        MetricsMonitoringClient.newBuilder().setRecordLatency(true).build();
+    MonitoringClient.Logger logger =
+        client.createLogger(keysetInfo(ANNOTATIONS), "aead", "encrypt");
+
+    assertThat(logger.recordsLatency()).isTrue();
+    logger.logWithLatency(42, 10, 1000);
+    logger.logWithLatency(42, 20, 3000);
+    logger.logWithLatency(-7, 5, 2000);
+
+    MetricsMonitoringClient.KeyMetrics metrics = getKeyMetrics(client, "encrypt", 42);
+    assertThat(metrics.getAnnotations()).isEqualTo(ANNOTATIONS);
+    assertThat(metrics.getPrimitive()).isEqualTo("aead");
+    assertThat(metrics.getNumCalls()).isEqualTo(2);
+    assertThat(metrics.getNumBytesAsInput()).isEqualTo(30);
+    assertThat(metrics.getLatency().getCount()).isEqualTo(2);
+    assertThat(metrics.getLatency().getTotalNanos()).isEqualTo(4000);
+    assertThat(metrics.getLatency().getMaxNanos()).isEqualTo(3000);
+
+    MetricsMonitoringClient.KeyMetrics otherMetrics = getKeyMetrics(client, "encrypt", -7);
+    assertThat(otherMetrics.getNumCalls()).isEqualTo(1);
+    assertThat(otherMetrics.getNumBytesAsInput()).isEqualTo(5);
+  }
+
+  @Test
+  public void create_loggerDoesNotRecordLatency() throws Exception {
+    MetricsMonitoringClient client = MetricsMonitoringClient.create();
+    MonitoringClient.Logger logger =
+        client.createLogger(keysetInfo(ANNOTATIONS), "aead", "encrypt");
+
+    assertThat(logger.recordsLatency()).isFalse();
+  }
+
+  @Test
+  public void newBuilder_recordsLatencyDefaultsToFalse() throws Exception {
+    MetricsMonitoringClient client = MetricsMonitoringClient.newBuilder().build();
+    MonitoringClient.Logger logger =
+        client.createLogger(keysetInfo(ANNOTATIONS), "aead", "encrypt");
+
+    assertThat(logger.recordsLatency()).isFalse();
+  }
+
+  @Test
+  public void log_recordsCallsWithoutLatency() throws Exception {
+    MetricsMonitoringClient client = MetricsMonitoringClient.create();
+    MonitoringClient.Logger logger =
+        client.createLogger(keysetInfo(ANNOTATIONS), "aead", "encrypt");
+
+    logger.log(42, 10);
+
+    MetricsMonitoringClient.KeyMetrics metrics = getKeyMetrics(client, "encrypt", 42);
+    assertThat(metrics.getNumCalls()).isEqualTo(1);
+    assertThat(metrics.getNumBytesAsInput()).isEqualTo(10);
+    assertThat(metrics.getLatency().getCount()).isEqualTo(0);
+    assertThat(metrics.getLatency().getPercentileNanos(50)).isEqualTo(0);
+  }
+
+  @Test
+  public void logFailure_isCountedPerApi() throws Exception {
+    MetricsMonitoringClient client = MetricsMonitoringClient.create();
+    MonitoringClient.Logger encLogger =
+        client.createLogger(keysetInfo(ANNOTATIONS), "aead", "encrypt");
+    MonitoringClient.Logger decLogger =
+        client.createLogger(keysetInfo(ANNOTATIONS), "aead", "decrypt");
+
+    decLogger.logFailure();
+    decLogger.logFailure();
+
+    List<MetricsMonitoringClient.FailureMetrics> failures = client.getFailureMetrics();
+    assertThat(failures).hasSize(2);
+    for (MetricsMonitoringClient.FailureMetrics failure : failures) {
+      assertThat(failure.getAnnotations()).isEqualTo(ANNOTATIONS);
+      assertThat(failure.getPrimitive()).isEqualTo("aead");
+      assertThat(failure.getNumFailures()).isEqualTo(failure.getApi().equals("decrypt") ? 2 : 0);
+    }
+    encLogger.logWithLatency(42, 1, 1);
+    assertThat(getKeyMetrics(client, "decrypt", 42).getNumCalls()).isEqualTo(0);
+  }
+
+  @Test
+  public void loggersOfSameKeyset_shareMetrics() throws Exception {
+    MetricsMonitoringClient client = MetricsMonitoringClient.create();
+    MonitoringClient.Logger logger1 =
+        client.createLogger(keysetInfo(ANNOTATIONS), "aead", "encrypt");
+    MonitoringClient.Logger logger2 =
+        client.createLogger(keysetInfo(ANNOTATIONS), "aead", "encrypt");
+    MonitoringAnnotations otherAnnotations =
+        MonitoringAnnotations.newBuilder().add("annotation_name", "other_value").build();
+    MonitoringClient.Logger otherLogger =
+        client.createLogger(keysetInfo(otherAnnotations), "aead", "encrypt");
+
+    logger1.logWithLatency(42, 1, 100);
+    logger2.logWithLatency(42, 1, 100);
+    otherLogger.logWithLatency(42, 1, 100);
+
+    List<Long> numCalls = new ArrayList<>();
+    for (MetricsMonitoringClient.KeyMetrics metrics : client.getKeyMetrics()) {
+      if (metrics.getKeyId() == 42) {
+        numCalls.add(metrics.getNumCalls());
+      }
+    }
+    assertThat(numCalls).containsExactly(2L, 1L);
+  }
+
+  @Test
+  public void logUnknownKeyId_isRecorded() throws Exception {
+    MetricsMonitoringClient client = MetricsMonitoringClient.create();
+    MonitoringClient.Logger logger = client.createLogger(keysetInfo(ANNOTATIONS), "mac", "verify");
+
+    logger.logWithLatency(1234, 8, 100);
+
+    assertThat(getKeyMetrics(client, "verify", 1234).getNumCalls()).isEqualTo(1);
+  }
+
+  @Test
+  public void getPercentileNanos_isWithinRelativeError() throws Exception {
+    MetricsMonitoringClient client = MetricsMonitoringClient.create();
+    MonitoringClient.Logger logger = client.createLogger(keysetInfo(ANNOTATIONS), "mac", "compute");
+    for (long i = 1; i <= 10000; i++) {
+      logger.logWithLatency(42, 1, i * 1000);
+    }
+
+    MetricsMonitoringClient.LatencySnapshot latency =
+        getKeyMetrics(client, "compute", 42).getLatency();
+    assertThat(latency.getPercentileNanos(50)).isAtLeast(5_000_000L);
+    assertThat(latency.getPercentileNanos(50)).isAtMost(5_000_000L * 17 / 16);
+    assertThat(latency.getPercentileNanos(99)).isAtLeast(9_900_000L);
+    assertThat(latency.getPercentileNanos(99)).isAtMost(9_900_000L * 17 / 16);
+    assertThat(latency.getPercentileNanos(100)).isEqualTo(10_000_000L);
+    assertThat(latency.getPercentileNanos(0)).isAtMost(1000L * 17 / 16);
+    assertThrows(IllegalArgumentException.class, () -> latency.getPercentileNanos(101));
+    assertThrows(IllegalArgumentException.class, () -> latency.getPercentileNanos(-1));
+  }
+
+  @Test
+  public void buckets_coverAllValuesWithoutGaps() throws Exception {
+    for (long value = 0; value < (1L << 16); value++) {
+      int index = MetricsMonitoringClient.bucketIndex(value);
+      assertThat(value).isAtMost(MetricsMonitoringClient.bucketUpperBound(index));
+      if (index > 0) {
+        assertThat(value).isGreaterThan(MetricsMonitoringClient.bucketUpperBound(index - 1));
+      }
+    }
+    int lastIndex = MetricsMonitoringClient.bucketIndex(Long.MAX_VALUE);
+    assertThat(MetricsMonitoringClient.bucketIndex(-1)).isEqualTo(0);
+    assertThat(MetricsMonitoringClient.bucketIndex(1L << 40)).isEqualTo(lastIndex);
+  }
+
+  @Test
+  public void concurrentLogging_countsAllCalls() throws Exception {
+    MetricsMonitoringClient client = MetricsMonitoringClient.create();
+    MonitoringClient.Logger logger =
+        client.createLogger(keysetInfo(ANNOTATIONS), "aead", "encrypt");
+    int numThreads = 8;
+    int callsPerThread = 10000;
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < numThreads; t++) {
+      threads.add(
+          new Thread(
+              () -> {
+                for (int i = 0; i < callsPerThread; i++) {
+                  logger.logWithLatency(42, 2, i);
+                }
+              }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    MetricsMonitoringClient.KeyMetrics metrics = getKeyMetrics(client, "encrypt", 42);
+    assertThat(metrics.getNumCalls()).isEqualTo(numThreads * callsPerThread);
+    assertThat(metrics.getNumBytesAsInput()).isEqualTo(2L * numThreads * callsPerThread);
+    assertThat(metrics.getLatency().getCount()).isEqualTo(numThreads * callsPerThread);
+    assertThat(metrics.getLatency().getMaxNanos()).isEqualTo(callsPerThread - 1);
+  }
+}
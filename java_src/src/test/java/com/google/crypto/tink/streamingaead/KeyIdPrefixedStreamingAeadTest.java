@@ -0,0 +1,162 @@
+// Copyright 2024 Google Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+////////////////////////////////////////////////////////////////////////////////
+
+package com.google.crypto.tink.streamingaead;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.crypto.tink.InsecureSecretKeyAccess;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.StreamingAead;
+import com.google.crypto.tink.subtle.Hex;
+import com.google.crypto.tink.testing.StreamingTestUtil;
+import com.google.crypto.tink.util.SecretBytes;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for KeyIdPrefixedStreamingAead. */
+@RunWith(JUnit4.class)
+public class KeyIdPrefixedStreamingAeadTest {
+  private static AesGcmHkdfStreamingKey key42;
+  private static AesGcmHkdfStreamingKey key43;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    StreamingAeadConfig.register();
+    AesGcmHkdfStreamingParameters parameters =
+        AesGcmHkdfStreamingParameters.builder()
+            .setKeySizeBytes(16)
+            .setDerivedAesGcmKeySizeBytes(16)
+            .setHkdfHashType(AesGcmHkdfStreamingParameters.HashType.SHA256)
+            .setCiphertextSegmentSizeBytes(64)
+            .build();
+    key42 =
+        AesGcmHkdfStreamingKey.create(
+            parameters,
+            SecretBytes.copyFrom(
+                Hex.decode("000102030405060708090a0b0c0d0e0f"), InsecureSecretKeyAccess.get()));
+    key43 =
+        AesGcmHkdfStreamingKey.create(
+            parameters,
+            SecretBytes.copyFrom(
+                Hex.decode("101112131415161718191a1b1c1d1e1f"), InsecureSecretKeyAccess.get()));
+  }
+
+  private static KeysetHandle keysetWithPrimary(int primaryId) throws Exception {
+    KeysetHandle.Builder.Entry entry42 = KeysetHandle.importKey(key42).withFixedId(42);
+    KeysetHandle.Builder.Entry entry43 = KeysetHandle.importKey(key43).withFixedId(43);
+    if (primaryId == 42) {
+      entry42.makePrimary();
+    } else {
+      entry43.makePrimary();
+    }
+    return KeysetHandle.newBuilder().addEntry(entry42).addEntry(entry43).build();
+  }
+
+  private static byte[] encrypt(
+      StreamingAead streamingAead, byte[] plaintext, byte[] associatedData) throws Exception {
+    ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+    try (OutputStream encryptingStream =
+        streamingAead.newEncryptingStream(ciphertext, associatedData)) {
+      encryptingStream.write(plaintext);
+    }
+    return ciphertext.toByteArray();
+  }
+
+  private static byte[] decrypt(
+      StreamingAead streamingAead, byte[] ciphertext, byte[] associatedData) throws Exception {
+    ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+    try (InputStream decryptingStream =
+        streamingAead.newDecryptingStream(new ByteArrayInputStream(ciphertext), associatedData)) {
+      byte[] buffer = new byte[100];
+      int read;
+      while ((read = decryptingStream.read(buffer)) > 0) {
+        plaintext.write(buffer, 0, read);
+      }
+    }
+    return plaintext.toByteArray();
+  }
+
+  @Test
+  public void encryptDecrypt_works() throws Exception {
+    StreamingAead streamingAead = KeyIdPrefixedStreamingAead.create(keysetWithPrimary(43));
+
+    StreamingTestUtil.testEncryptionAndDecryption(streamingAead);
+  }
+
+  @Test
+  public void ciphertext_startsWithPrimaryKeyId() throws Exception {
+    StreamingAead streamingAead = KeyIdPrefixedStreamingAead.create(keysetWithPrimary(43));
+
+    byte[] ciphertext = encrypt(streamingAead, new byte[10], new byte[0]);
+
+    assertThat(Arrays.copyOf(ciphertext, 5)).isEqualTo(Hex.decode("010000002b"));
+  }
+
+  @Test
+  public void prefixedCiphertext_decryptsWithWrapperOfOtherPrimary() throws Exception {
+    StreamingAead prefixed = KeyIdPrefixedStreamingAead.create(keysetWithPrimary(43));
+    StreamingAead wrapped = keysetWithPrimary(42).getPrimitive(StreamingAead.class);
+
+    StreamingTestUtil.testEncryptionAndDecryption(
+        prefixed, wrapped, StreamingTestUtil.generatePlaintext(1000), Hex.decode("aabbcc"));
+  }
+
+  @Test
+  public void legacyCiphertext_decrypts() throws Exception {
+    StreamingAead prefixed = KeyIdPrefixedStreamingAead.create(keysetWithPrimary(42));
+    StreamingAead legacy = keysetWithPrimary(43).getPrimitive(StreamingAead.class);
+
+    StreamingTestUtil.testEncryptionAndDecryption(
+        legacy, prefixed, StreamingTestUtil.generatePlaintext(1000), Hex.decode("aabbcc"));
+  }
+
+  @Test
+  public void prefixedCiphertext_seekableDecryption_works() throws Exception {
+    StreamingAead streamingAead = KeyIdPrefixedStreamingAead.create(keysetWithPrimary(43));
+
+    StreamingTestUtil.testEncryptDecryptRandomAccess(streamingAead, 0, 2000);
+  }
+
+  @Test
+  public void prefixWithWrongKeyId_fails() throws Exception {
+    StreamingAead streamingAead = KeyIdPrefixedStreamingAead.create(keysetWithPrimary(43));
+    byte[] associatedData = Hex.decode("aabbcc");
+    byte[] ciphertext = encrypt(streamingAead, new byte[100], associatedData);
+    ciphertext[4] = 42;
+
+    assertThrows(IOException.class, () -> decrypt(streamingAead, ciphertext, associatedData));
+  }
+
+  @Test
+  public void modifiedPrefixedCiphertext_fails() throws Exception {
+    StreamingAead streamingAead = KeyIdPrefixedStreamingAead.create(keysetWithPrimary(43));
+    byte[] associatedData = Hex.decode("aabbcc");
+    byte[] ciphertext = encrypt(streamingAead, new byte[100], associatedData);
+    ciphertext[ciphertext.length - 1] ^= 1;
+
+    assertThrows(IOException.class, () -> decrypt(streamingAead, ciphertext, associatedData));
+  }
+}
@@ -16,8 +16,10 @@
 
 package com.google.crypto.tink.subtle;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import com.google.crypto.tink.InsecureSecretKeyAccess;
@@ -28,12 +30,22 @@ import com.google.crypto.tink.streamingaead.AesCtrHmacStreamingParameters;
 import com.google.crypto.tink.streamingaead.AesCtrHmacStreamingParameters.HashType;
 import com.google.crypto.tink.testing.StreamingTestUtil;
 import com.google.crypto.tink.testing.StreamingTestUtil.SeekableByteBufferChannel;
+import com.google.crypto.tink.testing.TestUtil;
 import com.google.crypto.tink.util.SecretBytes;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.GeneralSecurityException;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.Assume;
 import org.junit.Rule;
 import org.junit.Test;
@@ -281,6 +293,97 @@ public class AesCtrHmacStreamingTest {
     testEncryptSingleBytes(16, 111111);
   }
 
+  /**
+   * Encrypts several segments in parallel, and checks that sequential decryption and parallel
+   * random access decryption return the plaintext.
+   */
+  @Test
+  public void testParallelEncryptDecrypt() throws Exception {
+    Assume.assumeFalse(TinkFips.useOnlyFips());
+
+    AesCtrHmacStreaming ags = createAesCtrHmacStreaming();
+    int plaintextSize = 20000;
+    byte[] aad = Hex.decode("aabbccddeeff");
+    byte[] plaintext = StreamingTestUtil.generatePlaintext(plaintextSize);
+    int offset = ags.getFirstSegmentOffset();
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      ByteArrayOutputStream ciphertextStream = new ByteArrayOutputStream();
+      ciphertextStream.write(new byte[offset]);
+      try (OutputStream encStream =
+          ags.newParallelEncryptingStream(ciphertextStream, aad, executor, 3)) {
+        encStream.write(plaintext);
+      }
+      byte[] ciphertext = ciphertextStream.toByteArray();
+      assertEquals(ags.expectedCiphertextSize(plaintextSize), ciphertext.length);
+
+      InputStream decStream =
+          ags.newDecryptingStream(
+              new ByteArrayInputStream(ciphertext, offset, ciphertext.length - offset), aad);
+      byte[] decrypted = new byte[plaintextSize];
+      int position = 0;
+      while (position < plaintextSize) {
+        int read = decStream.read(decrypted, position, plaintextSize - position);
+        assertTrue(read > 0);
+        position += read;
+      }
+      assertEquals(-1, decStream.read());
+      TestUtil.assertByteArrayEquals(plaintext, decrypted);
+
+      SeekableByteChannel ptChannel =
+          ags.newParallelSeekableDecryptingChannel(
+              new SeekableByteBufferChannel(ciphertext), aad, executor, 3);
+      for (int start = 0; start < plaintextSize; start += 1 + start / 2) {
+        ByteBuffer pt = ByteBuffer.allocate(plaintextSize - start);
+        ptChannel.position(start);
+        while (pt.hasRemaining()) {
+          assertTrue(ptChannel.read(pt) > 0);
+        }
+        TestUtil.assertByteArrayEquals(
+            Arrays.copyOfRange(plaintext, start, plaintextSize), pt.array());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testEncryptDecryptFile() throws Exception {
+    Assume.assumeFalse(TinkFips.useOnlyFips());
+
+    AesCtrHmacStreaming ags = createAesCtrHmacStreaming();
+    int plaintextSize = 20000;
+    byte[] aad = Hex.decode("aabbccddeeff");
+    byte[] plaintext = StreamingTestUtil.generatePlaintext(plaintextSize);
+    Path plaintextFile = tmpFolder.newFile().toPath();
+    Path ciphertextFile = tmpFolder.newFile().toPath();
+    Path decryptedFile = tmpFolder.newFile().toPath();
+    Files.write(plaintextFile, plaintext);
+
+    ags.encryptFile(plaintextFile, ciphertextFile, aad);
+    byte[] ciphertext = Files.readAllBytes(ciphertextFile);
+    assertEquals(ags.expectedCiphertextSize(plaintextSize), ciphertext.length);
+    ags.decryptFile(ciphertextFile, decryptedFile, aad);
+    TestUtil.assertByteArrayEquals(plaintext, Files.readAllBytes(decryptedFile));
+
+    try (SeekableByteChannel ptChannel = ags.newSeekableDecryptingChannel(ciphertextFile, aad)) {
+      for (int start = 0; start < plaintextSize; start += 1 + start / 2) {
+        ByteBuffer pt = ByteBuffer.allocate(plaintextSize - start);
+        ptChannel.position(start);
+        while (pt.hasRemaining()) {
+          assertTrue(ptChannel.read(pt) > 0);
+        }
+        TestUtil.assertByteArrayEquals(
+            Arrays.copyOfRange(plaintext, start, plaintextSize), pt.array());
+      }
+    }
+
+    ciphertext[ciphertext.length - 1] ^= 1;
+    Files.write(ciphertextFile, ciphertext);
+    assertThrows(
+        GeneralSecurityException.class, () -> ags.decryptFile(ciphertextFile, decryptedFile, aad));
+  }
+
   /**
    * Encrypts and decrypts a with non-ASCII characters using CharsetEncoders and CharsetDecoders.
    */
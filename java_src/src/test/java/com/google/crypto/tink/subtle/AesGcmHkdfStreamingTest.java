@@ -16,7 +16,10 @@
 
 package com.google.crypto.tink.subtle;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
 
@@ -29,9 +32,20 @@ import com.google.crypto.tink.testing.StreamingTestUtil;
 import com.google.crypto.tink.testing.StreamingTestUtil.SeekableByteBufferChannel;
 import com.google.crypto.tink.testing.TestUtil;
 import com.google.crypto.tink.util.SecretBytes;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.BeforeClass;
 import org.junit.Rule;
 import org.junit.Test;
@@ -116,6 +130,180 @@ public class AesGcmHkdfStreamingTest {
         t.chunkSize);
   }
 
+  /**
+   * Encrypts several segments in parallel, and checks that sequential decryption and parallel
+   * random access decryption return the plaintext.
+   */
+  @Theory
+  public void testParallelEncryptDecrypt(
+      @FromDataPoints("randomAccessTestVectors") AesGcmHkdfStreamingTestVector t) throws Exception {
+    AesGcmHkdfStreaming ags = t.directConstructorAgs;
+    int plaintextSize = t.plaintextSize;
+    byte[] aad = Hex.decode("aabbccddeeff");
+    byte[] plaintext = StreamingTestUtil.generatePlaintext(plaintextSize);
+    int offset = ags.getFirstSegmentOffset();
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      ByteArrayOutputStream ciphertextStream = new ByteArrayOutputStream();
+      ciphertextStream.write(new byte[offset]);
+      try (OutputStream encStream =
+          ags.newParallelEncryptingStream(ciphertextStream, aad, executor, 3)) {
+        encStream.write(plaintext);
+      }
+      byte[] ciphertext = ciphertextStream.toByteArray();
+      assertEquals(ags.expectedCiphertextSize(plaintextSize), ciphertext.length);
+
+      InputStream decStream =
+          ags.newDecryptingStream(
+              new ByteArrayInputStream(ciphertext, offset, ciphertext.length - offset), aad);
+      byte[] decrypted = new byte[plaintextSize];
+      int position = 0;
+      while (position < plaintextSize) {
+        int read = decStream.read(decrypted, position, plaintextSize - position);
+        assertTrue(read > 0);
+        position += read;
+      }
+      assertEquals(-1, decStream.read());
+      TestUtil.assertByteArrayEquals(plaintext, decrypted);
+
+      SeekableByteChannel ptChannel =
+          ags.newParallelSeekableDecryptingChannel(
+              new SeekableByteBufferChannel(ciphertext), aad, executor, 3);
+      for (int start = 0; start < plaintextSize; start += 1 + start / 2) {
+        ByteBuffer pt = ByteBuffer.allocate(plaintextSize - start);
+        ptChannel.position(start);
+        while (pt.hasRemaining()) {
+          assertTrue(ptChannel.read(pt) > 0);
+        }
+        TestUtil.assertByteArrayEquals(
+            Arrays.copyOfRange(plaintext, start, plaintextSize), pt.array());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /** An OutputStream which fails once more than {@code limit} bytes are written. */
+  private static final class FailingOutputStream extends ByteArrayOutputStream {
+    private final int limit;
+    boolean closed = false;
+
+    FailingOutputStream(int limit) {
+      this.limit = limit;
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+      if (size() + len > limit) {
+        throw new IllegalStateException("write failed");
+      }
+      super.write(b, off, len);
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  /**
+   * Checks that after the ciphertext stream fails, closing the parallel stream writes no further
+   * segments, and closes the ciphertext stream.
+   */
+  @Test
+  public void testParallelEncryptingStream_writeFails_closeWritesNothing() throws Exception {
+    AesGcmHkdfStreaming ags = defaultAesHkdfStreamingInstance;
+    byte[] plaintext = StreamingTestUtil.generatePlaintext(5 * ags.getPlaintextSegmentSize());
+    // Accepts the header and the first segment.
+    FailingOutputStream ciphertextStream =
+        new FailingOutputStream(ags.getHeaderLength() + ags.getCiphertextSegmentSize());
+    OutputStream encStream =
+        ags.newParallelEncryptingStream(ciphertextStream, new byte[0], Runnable::run, 1);
+
+    assertThrows(IllegalStateException.class, () -> encStream.write(plaintext));
+    int written = ciphertextStream.size();
+    encStream.close();
+
+    assertEquals(written, ciphertextStream.size());
+    assertTrue(ciphertextStream.closed);
+    assertThrows(IOException.class, () -> encStream.write(plaintext));
+  }
+
+  /**
+   * Checks that the ciphertext stream is closed if the last segments cannot be written when the
+   * parallel stream is closed.
+   */
+  @Test
+  public void testParallelEncryptingStream_closeFails_closesCiphertextStream() throws Exception {
+    AesGcmHkdfStreaming ags = defaultAesHkdfStreamingInstance;
+    byte[] plaintext = StreamingTestUtil.generatePlaintext(2 * ags.getPlaintextSegmentSize());
+    // Accepts only the header.
+    FailingOutputStream ciphertextStream = new FailingOutputStream(ags.getHeaderLength());
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      OutputStream encStream =
+          ags.newParallelEncryptingStream(ciphertextStream, new byte[0], executor, 3);
+      encStream.write(plaintext);
+
+      assertThrows(IllegalStateException.class, encStream::close);
+      assertTrue(ciphertextStream.closed);
+      encStream.close();
+      assertEquals(ags.getHeaderLength(), ciphertextStream.size());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Encrypts and decrypts a file, and checks that the ciphertext is compatible with the streaming
+   * interfaces.
+   */
+  @Theory
+  public void testEncryptDecryptFile(
+      @FromDataPoints("randomAccessTestVectors") AesGcmHkdfStreamingTestVector t) throws Exception {
+    AesGcmHkdfStreaming ags = t.directConstructorAgs;
+    int plaintextSize = t.plaintextSize;
+    byte[] aad = Hex.decode("aabbccddeeff");
+    byte[] plaintext = StreamingTestUtil.generatePlaintext(plaintextSize);
+    Path plaintextFile = tmpFolder.newFile().toPath();
+    Path ciphertextFile = tmpFolder.newFile().toPath();
+    Path decryptedFile = tmpFolder.newFile().toPath();
+    Files.write(plaintextFile, plaintext);
+
+    ags.encryptFile(plaintextFile, ciphertextFile, aad);
+    byte[] ciphertext = Files.readAllBytes(ciphertextFile);
+    assertEquals(ags.expectedCiphertextSize(plaintextSize), ciphertext.length);
+    ags.decryptFile(ciphertextFile, decryptedFile, aad);
+    TestUtil.assertByteArrayEquals(plaintext, Files.readAllBytes(decryptedFile));
+
+    try (SeekableByteChannel ptChannel = ags.newSeekableDecryptingChannel(ciphertextFile, aad)) {
+      for (int start = 0; start < plaintextSize; start += 1 + start / 2) {
+        ByteBuffer pt = ByteBuffer.allocate(plaintextSize - start);
+        ptChannel.position(start);
+        while (pt.hasRemaining()) {
+          assertTrue(ptChannel.read(pt) > 0);
+        }
+        TestUtil.assertByteArrayEquals(
+            Arrays.copyOfRange(plaintext, start, plaintextSize), pt.array());
+      }
+    }
+
+    ByteArrayOutputStream ciphertextStream = new ByteArrayOutputStream();
+    ciphertextStream.write(new byte[ags.getFirstSegmentOffset()]);
+    try (OutputStream encStream = ags.newEncryptingStream(ciphertextStream, aad)) {
+      encStream.write(plaintext);
+    }
+    ciphertext = ciphertextStream.toByteArray();
+    Files.write(ciphertextFile, ciphertext);
+    ags.decryptFile(ciphertextFile, decryptedFile, aad);
+    TestUtil.assertByteArrayEquals(plaintext, Files.readAllBytes(decryptedFile));
+
+    ciphertext[ciphertext.length - 1] ^= 1;
+    Files.write(ciphertextFile, ciphertext);
+    assertThrows(
+        GeneralSecurityException.class, () -> ags.decryptFile(ciphertextFile, decryptedFile, aad));
+  }
+
   /**
    * Encrypts and decrypts a with non-ASCII characters using CharsetEncoders and CharsetDecoders.
    */
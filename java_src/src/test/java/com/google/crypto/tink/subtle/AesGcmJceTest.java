@@ -36,6 +36,7 @@ import com.google.crypto.tink.testing.WycheproofTestUtil;
 import com.google.crypto.tink.util.SecretBytes;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.security.Security;
 import java.util.Arrays;
@@ -568,6 +569,90 @@ public class AesGcmJceTest {
                 + parameters.getTagSizeBytes());
   }
 
+  @Test
+  public void testEncryptDecryptByteBuffers_matchesByteArrayApi() throws Exception {
+    Assume.assumeTrue(!TinkFips.useOnlyFips() || TinkFipsUtil.fipsModuleAvailable());
+    AesGcmKey key =
+        AesGcmKey.builder()
+            .setParameters(
+                AesGcmParameters.builder()
+                    .setKeySizeBytes(16)
+                    .setTagSizeBytes(16)
+                    .setIvSizeBytes(12)
+                    .setVariant(AesGcmParameters.Variant.TINK)
+                    .build())
+            .setKeyBytes(SecretBytes.randomBytes(16))
+            .setIdRequirement(0x9943243)
+            .build();
+    Aead aead = AesGcmJce.create(key);
+    byte[] aad = Random.randBytes(10);
+    for (boolean direct : new boolean[] {false, true}) {
+      for (int size : new int[] {0, 1, 16, 100, 10000}) {
+        byte[] message = Random.randBytes(size);
+        ByteBuffer plaintext =
+            direct ? ByteBuffer.allocateDirect(size + 7) : ByteBuffer.allocate(size + 7);
+        plaintext.position(7);
+        plaintext.put(message);
+        plaintext.position(7);
+        int ciphertextSize = 5 + 12 + size + 16;
+        ByteBuffer ciphertext =
+            direct
+                ? ByteBuffer.allocateDirect(ciphertextSize + 3)
+                : ByteBuffer.allocate(ciphertextSize + 3);
+        ciphertext.position(3);
+
+        assertThat(aead.encrypt(plaintext, aad, ciphertext)).isEqualTo(ciphertextSize);
+        assertThat(plaintext.remaining()).isEqualTo(0);
+        assertThat(ciphertext.position()).isEqualTo(ciphertextSize + 3);
+
+        ciphertext.position(3);
+        byte[] ciphertextBytes = new byte[ciphertextSize];
+        ciphertext.duplicate().get(ciphertextBytes);
+        assertArrayEquals(message, aead.decrypt(ciphertextBytes, aad));
+
+        ByteBuffer decrypted = ByteBuffer.allocate(size + 1);
+        decrypted.position(1);
+        assertThat(aead.decrypt(ciphertext, aad, decrypted)).isEqualTo(size);
+        assertThat(ciphertext.remaining()).isEqualTo(0);
+        decrypted.position(1);
+        byte[] decryptedBytes = new byte[size];
+        decrypted.get(decryptedBytes);
+        assertArrayEquals(message, decryptedBytes);
+      }
+    }
+  }
+
+  @Test
+  public void testEncryptByteBuffer_outputTooSmall_throwsAndKeepsPositions() throws Exception {
+    Assume.assumeTrue(!TinkFips.useOnlyFips() || TinkFipsUtil.fipsModuleAvailable());
+    Aead aead = new AesGcmJce(Random.randBytes(16));
+    ByteBuffer plaintext = ByteBuffer.wrap(Random.randBytes(20));
+    ByteBuffer ciphertext = ByteBuffer.allocate(12 + 20 + 15);
+
+    assertThrows(GeneralSecurityException.class, () -> aead.encrypt(plaintext, null, ciphertext));
+    assertThat(plaintext.position()).isEqualTo(0);
+    assertThat(ciphertext.position()).isEqualTo(0);
+  }
+
+  @Test
+  public void testDecryptByteBuffer_invalidCiphertext_throwsAndKeepsPositions() throws Exception {
+    Assume.assumeTrue(!TinkFips.useOnlyFips() || TinkFipsUtil.fipsModuleAvailable());
+    Aead aead = new AesGcmJce(Random.randBytes(16));
+    byte[] ciphertextBytes = aead.encrypt(Random.randBytes(20), null);
+    ciphertextBytes[ciphertextBytes.length - 1] ^= 1;
+    ByteBuffer ciphertext = ByteBuffer.wrap(ciphertextBytes);
+    ByteBuffer plaintext = ByteBuffer.allocate(20);
+
+    assertThrows(GeneralSecurityException.class, () -> aead.decrypt(ciphertext, null, plaintext));
+    assertThat(ciphertext.position()).isEqualTo(0);
+    assertThat(plaintext.position()).isEqualTo(0);
+
+    ByteBuffer tooSmall = ByteBuffer.allocate(19);
+    ciphertextBytes[ciphertextBytes.length - 1] ^= 1;
+    assertThrows(GeneralSecurityException.class, () -> aead.decrypt(ciphertext, null, tooSmall));
+    assertThat(ciphertext.position()).isEqualTo(0);
+  }
+
   @Test
   public void create_wrongIvSize_throws() throws Exception {
     Assume.assumeTrue(!TinkFips.useOnlyFips() || TinkFipsUtil.fipsModuleAvailable());
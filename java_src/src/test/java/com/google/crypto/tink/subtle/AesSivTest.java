@@ -277,6 +277,26 @@ public class AesSivTest {
     }
   }
 
+  @Test
+  public void testEncryptDecrypt_interleavedInstancesOnOneThread() throws GeneralSecurityException {
+    Assume.assumeFalse(TinkFips.useOnlyFips());
+
+    // The ciphers are cached per thread, so using several keys on one thread must not mix them up.
+    DeterministicAead daead1 = new AesSiv(Random.randBytes(64));
+    DeterministicAead daead2 = new AesSiv(Random.randBytes(64));
+    byte[] aad = Random.randBytes(10);
+    for (int length = 0; length < 70; length++) {
+      byte[] plaintext = Random.randBytes(length);
+      byte[] ciphertext1 = daead1.encryptDeterministically(plaintext, aad);
+      byte[] ciphertext2 = daead2.encryptDeterministically(plaintext, aad);
+      assertThat(daead1.encryptDeterministically(plaintext, aad)).isEqualTo(ciphertext1);
+      assertThat(daead2.decryptDeterministically(ciphertext2, aad)).isEqualTo(plaintext);
+      assertThat(daead1.decryptDeterministically(ciphertext1, aad)).isEqualTo(plaintext);
+      assertThrows(
+          AEADBadTagException.class, () -> daead2.decryptDeterministically(ciphertext1, aad));
+    }
+  }
+
   private static void testModifiedCiphertext(int keySize) throws GeneralSecurityException {
     Assume.assumeFalse(TinkFips.useOnlyFips());
 
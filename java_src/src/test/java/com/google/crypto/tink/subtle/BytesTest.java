@@ -37,6 +37,24 @@ public class BytesTest {
   static final byte[] THREE_ZEROES = {0, 0, 0};
   static final byte[] TWO_FF = {(byte) 0xFF, (byte) 0xFF};
 
+  @Test
+  public void equalWithOffsets_works() {
+    byte[] x = {1, 2, 3, 4};
+    byte[] y = {9, 2, 3, 4, 9};
+    assertThat(Bytes.equal(x, 1, y, 1, 3)).isTrue();
+    assertThat(Bytes.equal(x, 0, y, 1, 3)).isFalse();
+    assertThat(Bytes.equal(x, 1, y, 0, 3)).isFalse();
+    assertThat(Bytes.equal(x, 4, y, 5, 0)).isTrue();
+  }
+
+  @Test
+  public void equalWithOffsets_outOfBounds_throws() {
+    assertThrows(IllegalArgumentException.class, () -> Bytes.equal(TWO_ONES, 0, THREE_ONES, 0, 3));
+    assertThrows(IllegalArgumentException.class, () -> Bytes.equal(THREE_ONES, 0, TWO_ONES, 1, 2));
+    assertThrows(IllegalArgumentException.class, () -> Bytes.equal(TWO_ONES, -1, TWO_ONES, 0, 1));
+    assertThrows(IllegalArgumentException.class, () -> Bytes.equal(TWO_ONES, 0, TWO_ONES, 0, -1));
+  }
+
   @Test
   public void xorTwoArgsBasicTest() {
     byte[] shouldBeZeroes = Bytes.xor(TWO_ONES, TWO_ONES);
@@ -24,6 +24,8 @@ import com.google.crypto.tink.PublicKeySign;
 import com.google.crypto.tink.PublicKeyVerify;
 import com.google.crypto.tink.config.TinkFips;
 import com.google.crypto.tink.config.internal.TinkFipsUtil;
+import com.google.crypto.tink.internal.EnginePool;
+import com.google.crypto.tink.internal.testing.ConcurrencyTestUtil;
 import com.google.crypto.tink.signature.EcdsaPrivateKey;
 import com.google.crypto.tink.signature.EcdsaPublicKey;
 import com.google.crypto.tink.signature.internal.testing.EcdsaTestUtil;
@@ -187,6 +189,27 @@ public class EcdsaSignJceTest {
         () -> verifier.verify(testVector.getSignature(), modifiedMessage));
   }
 
+  @Theory
+  public void test_signAndVerifyConcurrently_works(
+      @FromDataPoints("allTests") SignatureTestVector testVector) throws Exception {
+    PublicKeySign signer = EcdsaSignJce.create((EcdsaPrivateKey) testVector.getPrivateKey());
+    PublicKeyVerify verifier =
+        EcdsaVerifyJce.create((EcdsaPublicKey) testVector.getPrivateKey().getPublicKey());
+    byte[] message = testVector.getMessage();
+    byte[] modifiedMessage = Bytes.concat(message, new byte[] {0x01});
+    ConcurrencyTestUtil.callConcurrently(
+        2 * EnginePool.MAX_IDLE_ENGINES,
+        100,
+        () -> {
+          byte[] signature = signer.sign(message);
+          // A failed verification must not affect later verifications.
+          assertThrows(
+              GeneralSecurityException.class, () -> verifier.verify(signature, modifiedMessage));
+          verifier.verify(signature, message);
+          return null;
+        });
+  }
+
   @DataPoints("allTests")
   public static final SignatureTestVector[] ALL_TEST_VECTORS =
       EcdsaTestUtil.createEcdsaTestVectors();
@@ -16,6 +16,7 @@
 
 package com.google.crypto.tink.subtle;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
 
@@ -28,7 +29,9 @@ import com.google.crypto.tink.testing.WycheproofTestUtil;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import org.junit.Assume;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -160,4 +163,85 @@ public final class Ed25519VerifyTest {
                   testVector.getMessage()));
     }
   }
+
+  @Test
+  public void verifyBatch_validSignatures_allTrue() throws Exception {
+    Assume.assumeFalse(TinkFips.useOnlyFips());
+    SignatureTestVector[] testVectors = Ed25519TestUtil.createEd25519TestVectors();
+    List<Ed25519Verify> verifiers = new ArrayList<>();
+    List<byte[]> signatures = new ArrayList<>();
+    List<byte[]> messages = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      for (SignatureTestVector testVector : testVectors) {
+        Ed25519PrivateKey key = (Ed25519PrivateKey) testVector.getPrivateKey();
+        verifiers.add((Ed25519Verify) Ed25519Verify.create(key.getPublicKey()));
+        signatures.add(testVector.getSignature());
+        messages.add(testVector.getMessage());
+      }
+    }
+
+    boolean[] expected = new boolean[verifiers.size()];
+    Arrays.fill(expected, true);
+    assertThat(Ed25519Verify.verifyBatch(verifiers, signatures, messages)).isEqualTo(expected);
+  }
+
+  @Test
+  public void verifyBatch_identifiesInvalidSignatures() throws Exception {
+    Assume.assumeFalse(TinkFips.useOnlyFips());
+    byte[] privateKey = Random.randBytes(32);
+    Ed25519Sign signer = new Ed25519Sign(privateKey);
+    Ed25519Verify verifier =
+        new Ed25519Verify(Ed25519Sign.KeyPair.newKeyPairFromSeed(privateKey).getPublicKey());
+    List<Ed25519Verify> verifiers = new ArrayList<>();
+    List<byte[]> signatures = new ArrayList<>();
+    List<byte[]> messages = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      byte[] message = Random.randBytes(i);
+      verifiers.add(verifier);
+      signatures.add(signer.sign(message));
+      messages.add(message);
+    }
+    // Modified signature.
+    signatures.get(2)[5] ^= 1;
+    // Modified message.
+    messages.set(7, Random.randBytes(7));
+    // Wrong length.
+    signatures.set(9, Arrays.copyOf(signatures.get(9), 63));
+
+    boolean[] expected = new boolean[10];
+    Arrays.fill(expected, true);
+    expected[2] = false;
+    expected[7] = false;
+    expected[9] = false;
+    assertThat(Ed25519Verify.verifyBatch(verifiers, signatures, messages)).isEqualTo(expected);
+  }
+
+  @Test
+  public void verifyBatch_sizeMismatch_throws() throws Exception {
+    Assume.assumeFalse(TinkFips.useOnlyFips());
+    Ed25519Verify verifier = new Ed25519Verify(new byte[32]);
+    List<Ed25519Verify> verifiers = Arrays.asList(verifier, verifier);
+    List<byte[]> signatures = Arrays.asList(new byte[64]);
+    List<byte[]> messages = Arrays.asList(new byte[0], new byte[0]);
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Ed25519Verify.verifyBatch(verifiers, signatures, messages));
+  }
+
+  @Test
+  public void verifyCofactored_testVectors_work() throws Exception {
+    Assume.assumeFalse(TinkFips.useOnlyFips());
+    SignatureTestVector[] testVectors = Ed25519TestUtil.createEd25519TestVectors();
+    for (SignatureTestVector testVector : testVectors) {
+      Ed25519PrivateKey key = (Ed25519PrivateKey) testVector.getPrivateKey();
+      Ed25519Verify verifier = (Ed25519Verify) Ed25519Verify.create(key.getPublicKey());
+      verifier.verifyCofactored(testVector.getSignature(), testVector.getMessage());
+
+      byte[] modifiedSignature = testVector.getSignature().clone();
+      modifiedSignature[modifiedSignature.length - 10] ^= 1;
+      assertThrows(
+          GeneralSecurityException.class,
+          () -> verifier.verifyCofactored(modifiedSignature, testVector.getMessage()));
+    }
+  }
 }
@@ -33,6 +33,7 @@ import com.google.crypto.tink.util.SecretBytes;
 import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.util.Arrays;
+import javax.crypto.spec.SecretKeySpec;
 import org.junit.Test;
 import org.junit.experimental.theories.DataPoints;
 import org.junit.experimental.theories.FromDataPoints;
@@ -443,6 +444,24 @@ public class EncryptThenAuthenticateTest {
     }
   }
 
+  @Test
+  public void newAesCtrHmac_compatibleWithIndCpaCipherAndMacConstructor() throws Exception {
+    byte[] encKey = Random.randBytes(16);
+    byte[] hmacKey = Random.randBytes(32);
+    Aead aesCtrHmac = getAead(hmacKey, encKey, 12, 20, "HMACSHA256");
+    Aead generic =
+        new EncryptThenAuthenticate(
+            new AesCtrJceCipher(encKey, 12),
+            new PrfMac(new PrfHmacJce("HMACSHA256", new SecretKeySpec(hmacKey, "HMAC")), 20),
+            20);
+    for (int length : new int[] {0, 1, 15, 16, 17, 1000}) {
+      byte[] plaintext = Random.randBytes(length);
+      byte[] aad = Random.randBytes(length % 7);
+      assertThat(generic.decrypt(aesCtrHmac.encrypt(plaintext, aad), aad)).isEqualTo(plaintext);
+      assertThat(aesCtrHmac.decrypt(generic.encrypt(plaintext, aad), aad)).isEqualTo(plaintext);
+    }
+  }
+
   private Aead getAead(byte[] hmacKey, byte[] encKey, int ivSize, int tagLength, String macAlg)
       throws Exception {
     return EncryptThenAuthenticate.newAesCtrHmac(encKey, ivSize, macAlg, hmacKey, tagLength);
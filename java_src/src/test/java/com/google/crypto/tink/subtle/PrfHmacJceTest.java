@@ -26,6 +26,8 @@ import com.google.crypto.tink.InsecureSecretKeyAccess;
 import com.google.crypto.tink.Mac;
 import com.google.crypto.tink.config.TinkFips;
 import com.google.crypto.tink.config.internal.TinkFipsUtil;
+import com.google.crypto.tink.internal.EnginePool;
+import com.google.crypto.tink.internal.testing.ConcurrencyTestUtil;
 import com.google.crypto.tink.prf.HmacPrfKey;
 import com.google.crypto.tink.prf.HmacPrfParameters;
 import com.google.crypto.tink.prf.HmacPrfParameters.HashType;
@@ -36,6 +38,7 @@ import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.Security;
 import java.util.Arrays;
+import java.util.List;
 import javax.crypto.spec.SecretKeySpec;
 import org.conscrypt.Conscrypt;
 import org.junit.Assume;
@@ -378,4 +381,48 @@ public class PrfHmacJceTest {
           .isEqualTo(byteArrayPrf.compute(t.message, t.tag.length));
     }
   }
+
+  @Test
+  public void computeIntoBuffer_sameAsCompute() throws Exception {
+    Assume.assumeTrue(!TinkFips.useOnlyFips() || TinkFipsUtil.fipsModuleAvailable());
+
+    for (MacTestVector t : HMAC_TEST_VECTORS) {
+      PrfHmacJce prf = new PrfHmacJce(t.algName, new SecretKeySpec(t.key, "HMAC"));
+      for (int outputLength = 1; outputLength <= prf.getMaxOutputLength(); outputLength++) {
+        byte[] output = new byte[outputLength + 7];
+        prf.compute(t.message, output, 3, outputLength);
+        assertThat(Arrays.copyOfRange(output, 3, 3 + outputLength))
+            .isEqualTo(prf.compute(t.message, outputLength));
+        assertThat(Arrays.copyOf(output, 3)).isEqualTo(new byte[3]);
+        assertThat(Arrays.copyOfRange(output, 3 + outputLength, output.length))
+            .isEqualTo(new byte[4]);
+      }
+    }
+  }
+
+  @Test
+  public void computeIntoBuffer_invalidArguments_throws() throws Exception {
+    Assume.assumeTrue(!TinkFips.useOnlyFips() || TinkFipsUtil.fipsModuleAvailable());
+
+    PrfHmacJce prf = new PrfHmacJce("HMACSHA256", new SecretKeySpec(Random.randBytes(16), "HMAC"));
+    byte[] data = Random.randBytes(10);
+    assertThrows(
+        InvalidAlgorithmParameterException.class, () -> prf.compute(data, new byte[64], 0, 33));
+    assertThrows(IllegalArgumentException.class, () -> prf.compute(data, new byte[32], 1, 32));
+    assertThrows(IllegalArgumentException.class, () -> prf.compute(data, new byte[32], -1, 16));
+  }
+
+  @Test
+  public void compute_concurrentCalls_giveSameResult() throws Exception {
+    Assume.assumeTrue(!TinkFips.useOnlyFips() || TinkFipsUtil.fipsModuleAvailable());
+
+    MacTestVector t = HMAC_TEST_VECTORS[0];
+    Prf prf = new PrfHmacJce(t.algName, new SecretKeySpec(t.key, "HMAC"));
+    List<byte[]> tags =
+        ConcurrencyTestUtil.callConcurrently(
+            2 * EnginePool.MAX_IDLE_ENGINES, 1000, () -> prf.compute(t.message, t.tag.length));
+    for (byte[] tag : tags) {
+      assertThat(tag).isEqualTo(t.tag);
+    }
+  }
 }
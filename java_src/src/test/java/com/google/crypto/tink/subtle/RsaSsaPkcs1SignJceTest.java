@@ -26,6 +26,8 @@ import com.google.crypto.tink.PublicKeySign;
 import com.google.crypto.tink.PublicKeyVerify;
 import com.google.crypto.tink.config.TinkFips;
 import com.google.crypto.tink.config.internal.TinkFipsUtil;
+import com.google.crypto.tink.internal.EnginePool;
+import com.google.crypto.tink.internal.testing.ConcurrencyTestUtil;
 import com.google.crypto.tink.signature.RsaSsaPkcs1PrivateKey;
 import com.google.crypto.tink.signature.RsaSsaPkcs1PublicKey;
 import com.google.crypto.tink.signature.internal.testing.RsaSsaPkcs1TestUtil;
@@ -213,6 +215,22 @@ public class RsaSsaPkcs1SignJceTest {
         () -> verifier.verify(testVector.getSignature(), modifiedMessage));
   }
 
+  @Theory
+  public void test_signConcurrently_signaturesVerify(
+      @FromDataPoints("allTests") SignatureTestVector testVector) throws Exception {
+    RsaSsaPkcs1PrivateKey key = (RsaSsaPkcs1PrivateKey) testVector.getPrivateKey();
+    PublicKeySign signer = RsaSsaPkcs1SignJce.create(key);
+    PublicKeyVerify verifier = RsaSsaPkcs1VerifyJce.create(key.getPublicKey());
+    byte[] message = testVector.getMessage();
+    ConcurrencyTestUtil.callConcurrently(
+        2 * EnginePool.MAX_IDLE_ENGINES,
+        100,
+        () -> {
+          verifier.verify(signer.sign(message), message);
+          return null;
+        });
+  }
+
   @DataPoints("allTests")
   public static final SignatureTestVector[] ALL_TEST_VECTORS =
       RsaSsaPkcs1TestUtil.createRsaSsaPkcs1TestVectors();
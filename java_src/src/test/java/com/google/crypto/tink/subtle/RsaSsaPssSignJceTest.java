@@ -21,6 +21,8 @@ import static org.junit.Assert.assertThrows;
 import com.google.crypto.tink.PublicKeySign;
 import com.google.crypto.tink.PublicKeyVerify;
 import com.google.crypto.tink.config.TinkFips;
+import com.google.crypto.tink.internal.EnginePool;
+import com.google.crypto.tink.internal.testing.ConcurrencyTestUtil;
 import com.google.crypto.tink.signature.RsaSsaPssPrivateKey;
 import com.google.crypto.tink.signature.internal.testing.RsaSsaPssTestUtil;
 import com.google.crypto.tink.signature.internal.testing.SignatureTestVector;
@@ -230,6 +232,22 @@ public class RsaSsaPssSignJceTest {
                 testVector.getMessage()));
   }
 
+  @Theory
+  public void test_signConcurrently_signaturesVerify(
+      @FromDataPoints("testVectors") SignatureTestVector testVector) throws Exception {
+    RsaSsaPssPrivateKey key = (RsaSsaPssPrivateKey) testVector.getPrivateKey();
+    PublicKeySign signer = RsaSsaPssSignJce.create(key);
+    PublicKeyVerify verifier = RsaSsaPssVerifyJce.create(key.getPublicKey());
+    byte[] message = testVector.getMessage();
+    ConcurrencyTestUtil.callConcurrently(
+        2 * EnginePool.MAX_IDLE_ENGINES,
+        100,
+        () -> {
+          verifier.verify(signer.sign(message), message);
+          return null;
+        });
+  }
+
   @DataPoints("testVectors")
   public static final SignatureTestVector[] SIGNATURE_TEST_VECTORS =
       RsaSsaPssTestUtil.createRsaPssTestVectors();
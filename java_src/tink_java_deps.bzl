@@ -34,6 +34,8 @@ TINK_MAVEN_ARTIFACTS = [
     "io.grpc:grpc-testing:%s" % _GRPC_VERSION,
     "junit:junit:4.13.2",
     "org.conscrypt:conscrypt-openjdk-uber:2.5.2",
+    "org.openjdk.jmh:jmh-core:1.37",
+    "org.openjdk.jmh:jmh-generator-annprocess:1.37",
     "org.ow2.asm:asm:7.0",
     "org.ow2.asm:asm-commons:7.0",
     "org.pantsbuild:jarjar:1.7.2",